@@ -0,0 +1,177 @@
+package castleescape.business.framework;
+
+import castleescape.business.command.Command;
+import castleescape.business.command.CommandWord;
+import castleescape.data.DataMediator;
+import castleescape.shared.GameListener;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of processing a single command of every command word in the
+ * tutorial level. Before every command, the game is restored from a snapshot
+ * of a state in which the command has an effect, so every invocation does the
+ * same amount of work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+	/**
+	 * The name of the command word to benchmark.
+	 */
+	@Param({"GO", "QUIT", "HELP", "HINT", "INSPECT", "DROP", "TAKE", "USE", "INVENTORY", "PEEK", "HIGHSCORES", "UNKNOWN"})
+	public String commandWord;
+
+	/**
+	 * The game under test.
+	 */
+	private Game game;
+
+	/**
+	 * The command to process.
+	 */
+	private Command command;
+
+	/**
+	 * A snapshot of the game right before the command is processed.
+	 */
+	private ByteBuffer snapshot;
+
+	/**
+	 * The output of the last iteration of the game.
+	 */
+	private String output;
+
+	/**
+	 * Load the tutorial level and play it to a state in which the command has
+	 * an effect.
+	 */
+	@Setup
+	public void setUp() {
+		//Use a virtual clock, so that the monster never moves on its own
+		game = new Game(new DataMediator(), "Tutorial", 0, new GameClock(true));
+		game.setJournalPersistent(false);
+		game.setGameListener(new GameListener() {
+			@Override
+			public void onGameStart(String output) {
+				GameBenchmark.this.output = output;
+			}
+
+			@Override
+			public void onGameExit() {
+			}
+
+			@Override
+			public void onGameIteration(String output) {
+				GameBenchmark.this.output = output;
+			}
+		});
+
+		//Bob can carry enough items for every scenario
+		game.setPlayer(game.getCharacters().get(1));
+		game.start();
+
+		CommandWord word = CommandWord.valueOf(commandWord);
+		switch (word) {
+			case GO:
+			case PEEK:
+				command = command(word, Command.DIRECTION, "south");
+				break;
+			case INSPECT:
+				play(command(CommandWord.GO, Command.DIRECTION, "south"));
+				command = command(word, Command.OBJECT, "Deep Hole");
+				break;
+			case TAKE:
+				play(command(CommandWord.GO, Command.DIRECTION, "south"),
+						command(CommandWord.INSPECT, Command.OBJECT, "Deep Hole"));
+				command = command(word, Command.ITEM, "Vase Left Piece");
+				break;
+			case DROP:
+				play(command(CommandWord.GO, Command.DIRECTION, "south"),
+						command(CommandWord.INSPECT, Command.OBJECT, "Deep Hole"),
+						command(CommandWord.TAKE, Command.ITEM, "Vase Left Piece"));
+				command = command(word, Command.ITEM, "Vase Left Piece");
+				break;
+			case USE:
+				play(command(CommandWord.GO, Command.DIRECTION, "south"),
+						command(CommandWord.INSPECT, Command.OBJECT, "Deep Hole"),
+						command(CommandWord.TAKE, Command.ITEM, "Vase Left Piece"),
+						command(CommandWord.TAKE, Command.ITEM, "Vase Right Piece"));
+				Map<String, String> params = new HashMap<>();
+				params.put(Command.ITEM, "Vase Left Piece");
+				params.put(Command.OBJECT, "Vase Right Piece");
+				command = new Command(word, params);
+				break;
+			default:
+				command = new Command(word, null);
+		}
+
+		snapshot = ByteBuffer.allocate(1 << 16);
+		GameSnapshot.write(game, snapshot);
+		snapshot.flip();
+	}
+
+	/**
+	 * Restore the game to the state right before the command is processed.
+	 */
+	@Setup(Level.Invocation)
+	public void restore() {
+		snapshot.rewind();
+		GameSnapshot.restore(game, snapshot);
+	}
+
+	/**
+	 * Process the command.
+	 *
+	 * @return the output of the game, so that it is not optimized away
+	 */
+	@Benchmark
+	public String processCommand() {
+		game.processCommand(command);
+		return output;
+	}
+
+	/**
+	 * Process the specified commands.
+	 *
+	 * @param commands the commands to process
+	 */
+	private void play(Command... commands) {
+		for (Command c : commands) {
+			game.processCommand(c);
+		}
+	}
+
+	/**
+	 * Construct a command with a single parameter.
+	 *
+	 * @param word  the command word
+	 * @param key   the name of the parameter
+	 * @param value the value of the parameter
+	 * @return the command
+	 */
+	private static Command command(CommandWord word, String key, String value) {
+		Map<String, String> params = new HashMap<>();
+		params.put(key, value);
+		return new Command(word, params);
+	}
+}
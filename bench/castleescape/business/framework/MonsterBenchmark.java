@@ -0,0 +1,137 @@
+package castleescape.business.framework;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the path finding of the monsters on square grids of rooms of
+ * growing size. A monster searches for a path between opposite corners of the
+ * grid, which is the worst case for the search, and repairs its path while
+ * the player steps back and forth next to the far corner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonsterBenchmark {
+
+	/**
+	 * The amount of rooms in the grid.
+	 */
+	@Param({"16", "256", "1024", "4096"})
+	public int roomCount;
+
+	/**
+	 * The number of landmarks guiding the searches, or 0 to search from both
+	 * ends.
+	 */
+	@Param({"0", "4"})
+	public int landmarkCount;
+
+	/**
+	 * The planner under test.
+	 */
+	private ChasePlanner chasePlanner;
+
+	/**
+	 * The room that the monster starts in.
+	 */
+	private Room start;
+
+	/**
+	 * The room to find a path to.
+	 */
+	private Room goal;
+
+	/**
+	 * The room next to the goal, which the player steps to and from.
+	 */
+	private Room nextToGoal;
+
+	/**
+	 * The path that is repaired, which leads to the previous room of the
+	 * player.
+	 */
+	private Deque<Room> path;
+
+	/**
+	 * Build the grid of rooms and the planner, the way a game does, and
+	 * find the first path to repair.
+	 */
+	@Setup
+	public void setUp() {
+		int side = (int) Math.sqrt(roomCount);
+		Room[] rooms = new Room[side * side];
+		List<Room> roomList = new ArrayList<>(rooms.length);
+
+		for (int i = 0; i < rooms.length; i++) {
+			rooms[i] = new Room("Room " + i, "A room in the grid.");
+			rooms[i].setId(i);
+			roomList.add(rooms[i]);
+		}
+
+		//Connect every room to its neighbors
+		for (int i = 0; i < rooms.length; i++) {
+			if (i >= side) {
+				rooms[i].setExit("north", rooms[i - side]);
+			}
+			if (i + side < rooms.length) {
+				rooms[i].setExit("south", rooms[i + side]);
+			}
+			if (i % side != side - 1) {
+				rooms[i].setExit("east", rooms[i + 1]);
+			}
+			if (i % side != 0) {
+				rooms[i].setExit("west", rooms[i - 1]);
+			}
+		}
+
+		chasePlanner = new ChasePlanner(roomList, landmarkCount);
+		for (Room room : rooms) {
+			room.setChasePlanner(chasePlanner);
+		}
+
+		start = rooms[0];
+		goal = rooms[rooms.length - 1];
+		nextToGoal = rooms[rooms.length - 2];
+		path = chasePlanner.findPath(start, goal);
+	}
+
+	/**
+	 * Find the path from the monster to the opposite corner of the grid.
+	 *
+	 * @return the path, so that it is not optimized away
+	 */
+	@Benchmark
+	public Deque<Room> findPath() {
+		return chasePlanner.findPath(start, goal);
+	}
+
+	/**
+	 * Repair the path of the monster after the player has stepped between
+	 * the far corner and the room next to it.
+	 *
+	 * @return the path, so that it is not optimized away
+	 */
+	@Benchmark
+	public Deque<Room> repairPath() {
+		Room previous = path.peekLast();
+		path = chasePlanner.repairPath(path, previous == goal ? nextToGoal : goal);
+		return path;
+	}
+}
@@ -0,0 +1,62 @@
+package castleescape.business.framework;
+
+import castleescape.data.DataMediator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of building the long description of the rooms in the main game,
+ * which is done every time the player enters a room.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBenchmark {
+
+	/**
+	 * The rooms of the main game.
+	 */
+	private Room[] rooms;
+
+	/**
+	 * The index of the next room to describe.
+	 */
+	private int next;
+
+	/**
+	 * Load the rooms of the main game.
+	 */
+	@Setup
+	public void setUp() {
+		DataMediator dataMediator = new DataMediator();
+		dataMediator.readLevelData("MainGame");
+
+		List<Room> roomList = dataMediator.getRooms();
+		rooms = roomList.toArray(new Room[roomList.size()]);
+	}
+
+	/**
+	 * Build the long description of the next room, cycling through all rooms.
+	 *
+	 * @return the long description, so that it is not optimized away
+	 */
+	@Benchmark
+	public String getLongDescription() {
+		Room room = rooms[next];
+		next = (next + 1) % rooms.length;
+		return room.getLongDescription();
+	}
+}
@@ -0,0 +1,96 @@
+package castleescape.business.framework;
+
+import castleescape.data.DataMediator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of constructing a score manager for a level with many recorded
+ * scores. The scores are served from memory, so only the work done by the
+ * score manager is measured. Construction is measured as single shots, as it
+ * takes far too long with many scores to be run repeatedly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScoreManagerBenchmark {
+
+	/**
+	 * The amount of recorded scores.
+	 */
+	@Param({"10000", "100000", "1000000"})
+	public int scoreCount;
+
+	/**
+	 * The data mediator serving the scores.
+	 */
+	private DataMediator dataMediator;
+
+	/**
+	 * Generate the scores.
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(0);
+		List<Score> scores = new ArrayList<>(scoreCount);
+
+		for (int i = 0; i < scoreCount; i++) {
+			String name = "" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26));
+			scores.add(new Score(name, random.nextInt(100)));
+		}
+
+		dataMediator = new InMemoryScores(scores);
+	}
+
+	/**
+	 * Construct the score manager.
+	 *
+	 * @return the score manager, so that it is not optimized away
+	 */
+	@Benchmark
+	public ScoreManager construct() {
+		return new ScoreManager(dataMediator, "Benchmark");
+	}
+
+	/**
+	 * A data mediator serving a fixed list of scores instead of reading them
+	 * from the file system.
+	 */
+	private static class InMemoryScores extends DataMediator {
+
+		/**
+		 * The scores to serve.
+		 */
+		private final List<Score> scores;
+
+		/**
+		 * Constructs a new data mediator serving the specified scores.
+		 *
+		 * @param scores the scores to serve
+		 */
+		InMemoryScores(List<Score> scores) {
+			this.scores = scores;
+		}
+
+		@Override
+		public List<Score> readScores(String levelName) {
+			return scores;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package castleescape.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of reading a complete level from the file system, for the levels
+ * shipped with the game and for a large synthetic level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelDataReaderBenchmark {
+
+	/**
+	 * The name of the synthetic level.
+	 */
+	private static final String SYNTHETIC = "Synthetic";
+
+	/**
+	 * The amount of rooms in the synthetic level.
+	 */
+	private static final int SYNTHETIC_ROOM_COUNT = 2500;
+
+	/**
+	 * The name of the level to read.
+	 */
+	@Param({"Tutorial", "MainGame", SYNTHETIC})
+	public String levelName;
+
+	/**
+	 * The temporary directory containing the synthetic level, if it is read.
+	 */
+	private File syntheticDirectory;
+
+	/**
+	 * The reader under test.
+	 */
+	private LevelDataReader reader;
+
+	/**
+	 * Construct the reader, writing the synthetic level first if necessary.
+	 *
+	 * @throws IOException if the synthetic level could not be written
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		if (SYNTHETIC.equals(levelName)) {
+			syntheticDirectory = Files.createTempDirectory("castleescape-bench").toFile();
+			LevelGenerator generator = new LevelGenerator(0, SYNTHETIC_ROOM_COUNT, LevelGenerator.Shape.SPARSE);
+			generator.setEventChains(4, 5);
+			generator.generate(new File(syntheticDirectory, SYNTHETIC));
+			reader = new LevelDataReader(syntheticDirectory);
+		} else {
+			reader = new LevelDataReader();
+		}
+	}
+
+	/**
+	 * Delete the synthetic level, if it was written.
+	 */
+	@TearDown
+	public void tearDown() {
+		if (syntheticDirectory != null) {
+			delete(syntheticDirectory);
+		}
+	}
+
+	/**
+	 * Read the level.
+	 *
+	 * @return the reader, so that the level is not optimized away
+	 */
+	@Benchmark
+	public LevelDataReader readLevel() {
+		reader.readLevel(levelName);
+		return reader;
+	}
+
+	/**
+	 * Delete the specified file or directory, including all its contents.
+	 *
+	 * @param file the file or directory to delete
+	 */
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+}
@@ -9,6 +9,8 @@ import castleescape.business.command.Command;
 import castleescape.business.command.CommandWord;
 import castleescape.business.framework.Character;
 import castleescape.business.framework.Game;
+import castleescape.business.framework.Leaderboard;
+import castleescape.business.metrics.GameMetrics;
 import castleescape.business.object.InspectableObject;
 import castleescape.data.DataMediator;
 import castleescape.shared.GameListener;
@@ -37,13 +39,44 @@ public class BusinessMediator {
 	 */
 	private final DataMediator dataMediator;
 
+	/**
+	 * The command object used for every command sent to the game. The game
+	 * does not keep commands, so a single object is reused to avoid creating
+	 * garbage for every command.
+	 */
+	private final Command command;
+
 	/**
 	 * Constructs a new mediator for connecting the user interface with the
 	 * business code.
 	 */
 	public BusinessMediator() {
-		//Construct data mediator for performing operations on files
+		//Construct data mediator for performing operations on files. Levels
+		//are validated, so that a broken level is refused when it is chosen
 		dataMediator = new DataMediator();
+		dataMediator.setLevelValidation(true);
+		command = new Command();
+
+		//Read all levels and their scores while the user chooses a level, so
+		//that the game can start right away. Publishing the metrics is slow
+		//the first time, so that is done in advance as well
+		dataMediator.preloadLevels();
+		Thread scorePreloader = new Thread(() -> {
+			GameMetrics.getInstance();
+			for (String levelName : dataMediator.getLevels()) {
+				Leaderboard.forLevel(dataMediator, levelName);
+			}
+		}, "Score preloader");
+		scorePreloader.setDaemon(true);
+		scorePreloader.start();
+	}
+
+	/**
+	 * Release the resources of the data layer, writing all scores that are
+	 * waiting to be written. Should be called when the application exits.
+	 */
+	public void close() {
+		dataMediator.close();
 	}
 
 	/* Methods for notifying the business layer of the state of execution */
@@ -55,6 +88,12 @@ public class BusinessMediator {
 	 * @param levelName the name of the level to play
 	 */
 	public void initialize(String levelName) {
+		//The previous game may have been abandoned before it ended
+		if (game != null) {
+			game.releaseLevel();
+			game.getEventScheduler().cancelAll();
+		}
+
 		//Construct new game. This way we don't have to worry about resetting
 		//variables if the user intends to start a new game.
 		game = new Game(dataMediator, levelName);
@@ -73,9 +112,8 @@ public class BusinessMediator {
 	 * Notify the game that it should end.
 	 */
 	public void end() {
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.QUIT, null);
-		game.processCommand(command);
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.QUIT));
 	}
 
 	/* Getters for retrieving game data from the business layer */
@@ -154,6 +192,37 @@ public class BusinessMediator {
 		return game.getScoreManager().getCurrentGameScore();
 	}
 
+	/**
+	 * Get the rank that the player's current score would have among the scores
+	 * of the level, including scores achieved in other games in the meantime.
+	 *
+	 * @return the rank of the player's current score, starting from 1
+	 */
+	public int getCurrentRank() {
+		return game.getScoreManager().getCurrentGameRank();
+	}
+
+	/**
+	 * Get the percentage of the recorded scores of the level that are lower
+	 * than the player's current score.
+	 *
+	 * @return the percentage of players beaten, from 0 to 100
+	 */
+	public double getPercentageBeaten() {
+		return game.getScoreManager().getCurrentGamePercentageBeaten();
+	}
+
+	/**
+	 * Get the median score achieved with the specified player character.
+	 *
+	 * @param characterName the name of the character
+	 * @return the median score, or 0 if no scores have been recorded for the
+	 *         character
+	 */
+	public int getCharacterMedianScore(String characterName) {
+		return game.getScoreManager().getDistribution().getCharacterHistogram(characterName).getMedian();
+	}
+
 	/**
 	 * Request all possible player characters from the game along with their
 	 * descriptions as a map, where the key is the character name and the value
@@ -192,15 +261,9 @@ public class BusinessMediator {
 	 * @param toTake the name of the item that the user atempted to take
 	 */
 	public void notifyTake(String toTake) {
-		//Construct map to store character information
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which item should be taken
-		params.put(Command.ITEM, toTake);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.TAKE, params);
-		game.processCommand(command);
+		//Reuse the command object, adding a parameter describing which item
+		//should be taken, and request that the game processes it
+		game.processCommand(command.set(CommandWord.TAKE).setCommandParameter(Command.ITEM, toTake));
 	}
 
 	/**
@@ -210,15 +273,9 @@ public class BusinessMediator {
 	 * @param toDrop the name of the item that the user attempted to drop
 	 */
 	public void notifyDrop(String toDrop) {
-		//Construct map to store command parameters
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which item should be dropped
-		params.put(Command.ITEM, toDrop);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.DROP, params);
-		game.processCommand(command);
+		//Reuse the command object, adding a parameter describing which item
+		//should be dropped, and request that the game processes it
+		game.processCommand(command.set(CommandWord.DROP).setCommandParameter(Command.ITEM, toDrop));
 	}
 
 	/**
@@ -229,15 +286,10 @@ public class BusinessMediator {
 	 *                  attempted to inspect
 	 */
 	public void notifyInspect(String toInspect) {
-		//Construct map to store command parameters
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which inspectable object should be inspected
-		params.put(Command.OBJECT, toInspect);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.INSPECT, params);
-		game.processCommand(command);
+		//Reuse the command object, adding a parameter describing which
+		//inspectable object should be inspected, and request that the game
+		//processes it
+		game.processCommand(command.set(CommandWord.INSPECT).setCommandParameter(Command.OBJECT, toInspect));
 	}
 
 	/**
@@ -249,18 +301,13 @@ public class BusinessMediator {
 	 *                to use the item on
 	 */
 	public void notifyUse(String useItem, String useOn) {
-		//Construct map to store command parameters
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which item should be used
-		params.put(Command.ITEM, useItem);
+		//Reuse the command object, adding parameters describing which item
+		//should be used and which inspectable object it should be used on
+		command.set(CommandWord.USE)
+				.setCommandParameter(Command.ITEM, useItem)
+				.setCommandParameter(Command.OBJECT, useOn);
 
-		//Add parameter describing which inspectable object the item should be
-		//used on
-		params.put(Command.OBJECT, useOn);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.USE, params);
+		//Request that the game processes the command
 		game.processCommand(command);
 	}
 
@@ -271,15 +318,9 @@ public class BusinessMediator {
 	 * @param direction the direction that the user attempted to peek in
 	 */
 	public void notifyPeek(String direction) {
-		//Construct map to store command parameters
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which direction to peek in
-		params.put(Command.DIRECTION, direction);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.PEEK, params);
-		game.processCommand(command);
+		//Reuse the command object, adding a parameter describing which
+		//direction to peek in, and request that the game processes it
+		game.processCommand(command.set(CommandWord.PEEK).setCommandParameter(Command.DIRECTION, direction));
 	}
 
 	/**
@@ -289,42 +330,52 @@ public class BusinessMediator {
 	 * @param direction the direction that the user attempted to walk in
 	 */
 	public void notifyGo(String direction) {
-		//Construct map to store command parameters
-		Map<String, String> params = new HashMap<>();
-
-		//Add parameter describing which direction to go in
-		params.put(Command.DIRECTION, direction);
-
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.GO, params);
-		game.processCommand(command);
+		//Reuse the command object, adding a parameter describing which
+		//direction to go in, and request that the game processes it
+		game.processCommand(command.set(CommandWord.GO).setCommandParameter(Command.DIRECTION, direction));
 	}
 
 	/**
 	 * Notify the business layer that the user asked for help.
 	 */
 	public void notifyHelp() {
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.HELP, null);
-		game.processCommand(command);
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.HELP));
+	}
+
+	/**
+	 * Notify the business layer that the user asked for a hint.
+	 */
+	public void notifyHint() {
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.HINT));
 	}
 
 	/**
 	 * Notify the business layer that the user wishes to view the inventory.
 	 */
 	public void notifyInventory() {
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.INVENTORY, null);
-		game.processCommand(command);
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.INVENTORY));
 	}
 
 	/**
 	 * Notify the game that the user wishes to see the highscores.
 	 */
 	public void notifyHighscores() {
-		//Construct command object and request that the game processes it
-		Command command = new Command(CommandWord.HIGHSCORES, null);
-		game.processCommand(command);
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.HIGHSCORES));
+	}
+
+	/**
+	 * Notify the game that the user wishes to see the best scores of a period
+	 * of time.
+	 *
+	 * @param period the period, either "day" or "week"
+	 */
+	public void notifyHighscores(String period) {
+		//Reuse the command object and request that the game processes it
+		game.processCommand(command.set(CommandWord.HIGHSCORES).setCommandParameter(Command.PERIOD, period));
 	}
 
 	/**
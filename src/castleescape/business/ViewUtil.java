@@ -25,18 +25,10 @@ public class ViewUtil {
 			SPAN_ELEMENT_END = "</span>";								//Used to end a span element
 
 	/**
-	 * The stringbuilder for accumulating characters to print to the user
-	 * interface.
+	 * The output printed so far. Every thread prints to its own output, so
+	 * that several games can be played on different threads at once.
 	 */
-	private static final StringBuilder string = new StringBuilder();
-
-	/**
-	 * Whether we are in the process of printing some text already. If this is
-	 * false, then a call to {@link #print(java.lang.String)} should append an
-	 * open paragraph element before the string, and {@link #getString()} should
-	 * return an empty string, to indicate that nothing has been written.
-	 */
-	private static boolean isPrintingText = false;
+	private static final ThreadLocal<Output> output = ThreadLocal.withInitial(Output::new);
 
 	/**
 	 * Print the specified string to the user interface.
@@ -44,13 +36,15 @@ public class ViewUtil {
 	 * @param s the string to print
 	 */
 	public static void print(String s) {
+		Output out = output.get();
+
 		//If not already in a paragraph element, make one
-		if (!isPrintingText) {
-			string.append(PARAGRAPH_START_ELEMENT);
-			isPrintingText = true;
+		if (!out.isPrintingText) {
+			out.string.append(PARAGRAPH_START_ELEMENT);
+			out.isPrintingText = true;
 		}
 
-		string.append(s);
+		out.string.append(s);
 	}
 
 	/**
@@ -197,20 +191,43 @@ public class ViewUtil {
 	 * @return the string constructed by this class so far
 	 */
 	public static String getString() {
+		Output out = output.get();
+
 		//If we haven't written anything yet, we just return an empty string
-		if (!isPrintingText) {
+		if (!out.isPrintingText) {
 			return "";
 		}
 
 		//Otherwise we need to close the paragraph currently written before
 		//returning it
-		string.append(PARAGRAPH_END_ELEMENT);
+		out.string.append(PARAGRAPH_END_ELEMENT);
 
 		//Save the contents of the stringbuilder in a temporary variable so that
 		//it can be reset before returning the string
-		String s = string.toString();
-		string.setLength(0);
+		String s = out.string.toString();
+		out.string.setLength(0);
 
 		return s;
 	}
+
+	/**
+	 * The output printed by a single thread.
+	 */
+	private static class Output {
+
+		/**
+		 * The stringbuilder for accumulating characters to print to the user
+		 * interface.
+		 */
+		private final StringBuilder string = new StringBuilder();
+
+		/**
+		 * Whether we are in the process of printing some text already. If this
+		 * is false, then a call to {@link #print(java.lang.String)} should
+		 * append an open paragraph element before the string, and
+		 * {@link #getString()} should return an empty string, to indicate that
+		 * nothing has been written.
+		 */
+		private boolean isPrintingText = false;
+	}
 }
@@ -1,13 +1,17 @@
 package castleescape.business.command;
 
 import castleescape.business.framework.Game;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Class defining instance behavior for command objects. All commands consist of
  * a command word and multiple possible command parameters, some of which can be
  * null depending on the use of the command.
+ * <p>
+ * A command can be reused for many commands with {@link #set(CommandWord)},
+ * so that a client sending commands all the time does not create any garbage.
+ * The game never keeps a command after processing it, but a reused command
+ * must not be changed while it is being processed.
  */
 public class Command {
 
@@ -16,17 +20,26 @@ public class Command {
 	 */
 	public static final String DIRECTION = "direction",
 			ITEM = "item",
-			OBJECT = "object";
+			OBJECT = "object",
+			PERIOD = "period";
 
 	/**
 	 * The command word.
 	 */
-	private final CommandWord commandWord;
+	private CommandWord commandWord;
 
 	/**
-	 * Map containing the command parameters.
+	 * A command parameter, or null if the command does not have it.
 	 */
-	private final Map<String, String> commandParams;
+	private String direction, item, object, period;
+
+	/**
+	 * Constructs a new unknown command without parameters, to be reused for
+	 * other commands with {@link #set(CommandWord)}.
+	 */
+	public Command() {
+		commandWord = CommandWord.UNKNOWN;
+	}
 
 	/**
 	 * Constructs a new command object with the specified word and parameters.
@@ -39,8 +52,55 @@ public class Command {
 	public Command(CommandWord commandWord, Map<String, String> commandParams) {
 		this.commandWord = commandWord;
 
-		//If the parameter map is null, create an empty map instead
-		this.commandParams = (commandParams == null ? new HashMap<>() : commandParams);
+		//Copy the parameters that are known to commands
+		if (commandParams != null) {
+			for (Map.Entry<String, String> param : commandParams.entrySet()) {
+				setCommandParameter(param.getKey(), param.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Turn this command into a command with the specified word and no
+	 * parameters.
+	 *
+	 * @param commandWord the command word as a {@link CommandWord} object
+	 * @return this command
+	 */
+	public Command set(CommandWord commandWord) {
+		this.commandWord = commandWord;
+		direction = null;
+		item = null;
+		object = null;
+		period = null;
+		return this;
+	}
+
+	/**
+	 * Set the command parameter with the specified name. Parameters with
+	 * other names than those defined by this class are ignored.
+	 *
+	 * @param name  the name of the command parameter
+	 * @param value the value of the command parameter, or null to remove it
+	 * @return this command
+	 */
+	public Command setCommandParameter(String name, String value) {
+		switch (name) {
+			case DIRECTION:
+				direction = value;
+				break;
+			case ITEM:
+				item = value;
+				break;
+			case OBJECT:
+				object = value;
+				break;
+			case PERIOD:
+				period = value;
+				break;
+		}
+
+		return this;
 	}
 
 	/**
@@ -59,7 +119,18 @@ public class Command {
 	 * @return the command parameter with the specified name
 	 */
 	public String getCommandParameter(String name) {
-		return commandParams.get(name);
+		switch (name) {
+			case DIRECTION:
+				return direction;
+			case ITEM:
+				return item;
+			case OBJECT:
+				return object;
+			case PERIOD:
+				return period;
+			default:
+				return null;
+		}
 	}
 
 	/**
@@ -79,7 +150,40 @@ public class Command {
 	 *         otherwise
 	 */
 	public boolean hasCommandParameters() {
-		return !commandParams.isEmpty();
+		return direction != null || item != null || object != null || period != null;
+	}
+
+	/**
+	 * Get a textual representation of the parameters of this command, for
+	 * diagnostic purposes.
+	 *
+	 * @return the parameters of this command as a string
+	 */
+	public String getParameterString() {
+		StringBuilder sb = new StringBuilder("{");
+		appendParameter(sb, DIRECTION, direction);
+		appendParameter(sb, ITEM, item);
+		appendParameter(sb, OBJECT, object);
+		appendParameter(sb, PERIOD, period);
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Append the specified parameter to a textual representation of the
+	 * parameters of this command, unless the command does not have it.
+	 *
+	 * @param sb    the textual representation of the parameters so far
+	 * @param name  the name of the parameter
+	 * @param value the value of the parameter, or null
+	 */
+	private static void appendParameter(StringBuilder sb, String name, String value) {
+		if (value != null) {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+
+			sb.append(name).append('=').append(value);
+		}
 	}
 
 	/**
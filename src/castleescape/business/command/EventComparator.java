@@ -16,6 +16,12 @@ import java.util.Comparator;
  */
 public class EventComparator implements Comparator<Event> {
 
+	/**
+	 * The comparator used for sorting events. It has no state, so it is
+	 * shared rather than created for every sort.
+	 */
+	public static final EventComparator INSTANCE = new EventComparator();
+
 	/**
 	 * Compare the two events and return an integer depending on the order in
 	 * which the two events should be sorted.
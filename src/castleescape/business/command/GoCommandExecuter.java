@@ -43,8 +43,8 @@ public class GoCommandExecuter implements CommandExecuter {
 			game.setRoom(nextRoom);
 			ViewUtil.println(nextRoom.getLongDescription());
 
-			//We also have to notify the monster that the player moved
-			game.getMonster().notifyOfGo(nextRoom);
+			//We also have to notify the monsters that the player moved
+			game.getMonsterIndex().notifyOfGo(nextRoom);
 		}
 	}
 }
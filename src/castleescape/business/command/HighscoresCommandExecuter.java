@@ -7,6 +7,7 @@ package castleescape.business.command;
 
 import castleescape.business.ViewUtil;
 import castleescape.business.framework.Game;
+import castleescape.business.framework.Leaderboard;
 
 /**
  * A command executer for executing highscore commands.
@@ -15,12 +16,19 @@ public class HighscoresCommandExecuter implements CommandExecuter {
 
 	@Override
 	public void execute(Game game, Command command) {
-		//Print out highscores only if the command has no parameters
-		if (command.hasCommandParameters()) {
+		//The only parameter is the period to print the highscores of
+		String period = command.getCommandParameter(Command.PERIOD);
+		if (period == null && command.hasCommandParameters()) {
 			ViewUtil.println("Highscores of what?");
-		} else {
+		} else if (period == null) {
 			//Write out all the scores
 			game.getScoreManager().writeScoreTable(-1);
+		} else if (period.equalsIgnoreCase("day")) {
+			game.getScoreManager().writeScoreTable(Leaderboard.Period.DAY, -1);
+		} else if (period.equalsIgnoreCase("week")) {
+			game.getScoreManager().writeScoreTable(Leaderboard.Period.WEEK, -1);
+		} else {
+			ViewUtil.println("Highscores of what?");
 		}
 	}
 }
@@ -0,0 +1,20 @@
+package castleescape.business.command;
+
+import castleescape.business.ViewUtil;
+import castleescape.business.framework.Game;
+
+/**
+ * A command executer for executing hint commands.
+ */
+public class HintCommandExecuter implements CommandExecuter {
+
+	@Override
+	public void execute(Game game, Command command) {
+		//Give a hint only if the command has no parameters
+		if (command.hasCommandParameters()) {
+			ViewUtil.println("Hint about what?");
+		} else {
+			ViewUtil.println(game.getHintEngine().getHint(game));
+		}
+	}
+}
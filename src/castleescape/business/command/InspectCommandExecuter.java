@@ -52,7 +52,7 @@ public class InspectCommandExecuter implements CommandExecuter {
 		List<Event> inspectEvents = currentObject.inspect();
 
 		//Sort the events
-		inspectEvents.sort(new EventComparator());
+		inspectEvents.sort(EventComparator.INSTANCE);
 
 		//Execute all retrieved events
 		for (Event e : inspectEvents) {
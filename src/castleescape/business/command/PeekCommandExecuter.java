@@ -1,6 +1,7 @@
 package castleescape.business.command;
 
 import castleescape.business.framework.Game;
+import castleescape.business.framework.Monster;
 import castleescape.business.ViewUtil;
 
 /**
@@ -18,9 +19,10 @@ public class PeekCommandExecuter implements CommandExecuter {
 				return;
 			}
 
-			//If the monsters room matches the room the player is peeking into
-			if (game.getMonster().getCurrentRoom() == game.getCurrentRoom().getExit(command.getCommandParameter(Command.DIRECTION))) {
-				if (!game.getMonster().isWaitingForPlayer()) {
+			//If a monster is in the room the player is peeking into
+			Monster monster = game.getMonsterIndex().getMonsterIn(game.getCurrentRoom().getExit(command.getCommandParameter(Command.DIRECTION)));
+			if (monster != null) {
+				if (!monster.isWaitingForPlayer()) {
 					//If the player has seen the monster before, tell the player
 					//that the monster is in the room
 					ViewUtil.println("The monster is in there!");
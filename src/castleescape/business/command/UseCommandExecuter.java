@@ -19,6 +19,13 @@ import java.util.List;
  */
 public class UseCommandExecuter implements CommandExecuter {
 
+	/**
+	 * The list collecting the use events of a use command. The list is reused
+	 * for every use command, and is emptied once the events have been
+	 * executed.
+	 */
+	private final List<Event> useEvents = new ArrayList<>();
+
 	@Override
 	public void execute(Game game, Command command) {
 		//Get item and object names
@@ -50,11 +57,12 @@ public class UseCommandExecuter implements CommandExecuter {
 			return;
 		}
 
-		//Create array list to store all use events
-		List<Event> useEvents = new ArrayList<>();
-
-		//Get the events created by using item on object
-		useEvents.addAll(item.useWithObject(object.getName()));
+		//Get the events created by using item on object. The events are added
+		//one by one, as adding them all at once copies them first
+		useEvents.clear();
+		for (Event e : item.useWithObject(object.getName())) {
+			useEvents.add(e);
+		}
 
 		//If object is also of type Item, then maybe it defines additional
 		//events, so we attempt to add those
@@ -63,7 +71,9 @@ public class UseCommandExecuter implements CommandExecuter {
 			Item objectAsItem = (Item) object;
 
 			//Get the events created by using object on item
-			useEvents.addAll(objectAsItem.useWithObject(item.getName()));
+			for (Event e : objectAsItem.useWithObject(item.getName())) {
+				useEvents.add(e);
+			}
 		}
 
 		//If we can't use the item and object together, tell the player
@@ -73,11 +83,15 @@ public class UseCommandExecuter implements CommandExecuter {
 		}
 
 		//Sort the events
-		useEvents.sort(new EventComparator());
-
-		//Execute all retrieved events
-		for (Event e : useEvents) {
-			e.execute(game);
+		useEvents.sort(EventComparator.INSTANCE);
+
+		//Execute all retrieved events, and forget them afterwards
+		try {
+			for (Event e : useEvents) {
+				e.execute(game);
+			}
+		} finally {
+			useEvents.clear();
 		}
 	}
 }
@@ -1,6 +1,9 @@
 package castleescape.business.event;
 
 import castleescape.business.framework.Game;
+import castleescape.business.metrics.GameMetrics;
+import castleescape.shared.jfr.GameEventEvent;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -20,7 +23,11 @@ public class Event {
 			ROOM = "room",
 			DESCRIPTION = "description",
 			OBJECT = "object",
-			REWARD = "reward";
+			REWARD = "reward",
+			THEN = "then",
+			DELAY = "delay",
+			COMMANDS = "commands",
+			FALLOFF = "falloff";
 
 	/**
 	 * The event word.
@@ -63,6 +70,15 @@ public class Event {
 		return eventParams.get(name);
 	}
 
+	/**
+	 * Returns all parameters of this event.
+	 *
+	 * @return an unmodifiable view of the parameters, mapped by their names
+	 */
+	public Map<String, String> getEventParams() {
+		return Collections.unmodifiableMap(eventParams);
+	}
+
 	/**
 	 * Execute this event. This method will also award the player with points.
 	 *
@@ -71,9 +87,23 @@ public class Event {
 	public void execute(Game game) {
 		//Get the event executer to execute this specific event and call its
 		//execute() method
+		GameEventEvent event = new GameEventEvent();
+		event.begin();
+		long start = System.nanoTime();
 		game.getEventExecuter(eventWord).execute(game, this);
+		GameMetrics.getInstance().recordEvent(eventWord, System.nanoTime() - start);
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.eventWord = eventWord.name();
+			event.parameters = eventParams.toString();
+			event.commit();
+		}
 
 		//Add points for every event executed
 		game.getScoreManager().addPoints(Integer.parseInt(this.getEventParam(REWARD)));
+
+		//Let the hint engine know how far the player has come
+		game.getHintEngine().notifyOfEvent(this);
 	}
 }
@@ -0,0 +1,281 @@
+package castleescape.business.event;
+
+import castleescape.business.framework.Game;
+import castleescape.business.framework.GameClock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Class keeping track of the events that a game has scheduled to happen
+ * later, either after a delay or after a number of commands. Scheduled events
+ * happen at the end of the first command that is processed once they are due,
+ * so they happen at the same points in a game when it is replayed.
+ * <p>
+ * Events scheduled after a delay are kept in a {@link TimingWheel} measuring
+ * the time of the game clock, and events scheduled after a number of commands
+ * are kept in a wheel measuring the number of commands processed. Both wheels
+ * belong to the game, so games never wait for each other to schedule events,
+ * and a scheduler is only used by the thread processing the commands of its
+ * game.
+ */
+public class EventScheduler {
+
+	/**
+	 * The duration of a tick of the wheel measuring time, in milliseconds.
+	 */
+	private static final long TIME_TICK_DURATION = 100;
+
+	/**
+	 * The number of slots in the wheel measuring time. A revolution of the
+	 * wheel thus takes 6.4 seconds, and events with longer delays stay in
+	 * their slots for more revolutions.
+	 */
+	private static final int TIME_WHEEL_SIZE = 64;
+
+	/**
+	 * The number of slots in the wheel counting commands.
+	 */
+	private static final int COMMAND_WHEEL_SIZE = 64;
+
+	/**
+	 * The wheel of the events scheduled after a delay.
+	 */
+	private final TimingWheel timeWheel;
+
+	/**
+	 * The wheel of the events scheduled after a number of commands.
+	 */
+	private final TimingWheel commandWheel;
+
+	/**
+	 * The clock of the game.
+	 */
+	private final GameClock clock;
+
+	/**
+	 * The events that have been scheduled but have not happened yet, in the
+	 * order that they were scheduled.
+	 */
+	private final Set<ScheduledEvent> pending;
+
+	/**
+	 * The events that have expired in their wheels. The events may have been
+	 * cancelled since, and events that expire early in their tick are not due
+	 * yet.
+	 */
+	private final Queue<ScheduledEvent> expired;
+
+	/**
+	 * The list collecting the events that are due after a command. The list
+	 * is reused for every command.
+	 */
+	private final List<ScheduledEvent> due;
+
+	/**
+	 * The number of commands processed since the scheduler was constructed.
+	 */
+	private long commandCount;
+
+	/**
+	 * The sequence number of the next event to schedule.
+	 */
+	private long nextSequence;
+
+	/**
+	 * Constructs a new scheduler for a game with the specified clock.
+	 *
+	 * @param clock the clock of the game
+	 */
+	public EventScheduler(GameClock clock) {
+		this.clock = clock;
+		timeWheel = new TimingWheel(TIME_TICK_DURATION, TIME_WHEEL_SIZE, clock.getTime());
+		commandWheel = new TimingWheel(1, COMMAND_WHEEL_SIZE, 0);
+		pending = new LinkedHashSet<>();
+		expired = new ArrayDeque<>();
+		due = new ArrayList<>();
+	}
+
+	/**
+	 * Schedule the specified event to happen once the specified time has
+	 * passed on the game clock.
+	 *
+	 * @param event the event to schedule
+	 * @param delay the delay of the event, in milliseconds
+	 */
+	public void scheduleAfterDelay(Event event, long delay) {
+		ScheduledEvent scheduledEvent = new ScheduledEvent(event, false);
+		pending.add(scheduledEvent);
+		timeWheel.schedule(scheduledEvent, clock.getTime() + delay);
+	}
+
+	/**
+	 * Schedule the specified event to happen once the specified number of
+	 * commands have been processed. If a command is being processed, it
+	 * counts as the first.
+	 *
+	 * @param event    the event to schedule
+	 * @param commands the number of commands
+	 */
+	public void scheduleAfterCommands(Event event, long commands) {
+		ScheduledEvent scheduledEvent = new ScheduledEvent(event, true);
+		pending.add(scheduledEvent);
+		commandWheel.schedule(scheduledEvent, commandCount + commands);
+	}
+
+	/**
+	 * Notify the scheduler that a command has been processed, executing every
+	 * event that is due in the order that they were scheduled. No more
+	 * events are executed once the game has ended.
+	 *
+	 * @param game the game to execute the events in
+	 */
+	public void notifyOfCommand(Game game) {
+		commandCount++;
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		timeWheel.advance(clock.getTime());
+		commandWheel.advance(commandCount);
+
+		//Collect the events that are due. Events that expired early in their
+		//tick are handed back until they are due
+		int expiredCount = expired.size();
+		for (int i = 0; i < expiredCount; i++) {
+			ScheduledEvent scheduledEvent = expired.poll();
+			if (!pending.contains(scheduledEvent)) {
+				continue;
+			}
+
+			if (getRemaining(scheduledEvent) <= 0) {
+				due.add(scheduledEvent);
+			} else {
+				expired.add(scheduledEvent);
+			}
+		}
+
+		if (due.isEmpty()) {
+			return;
+		}
+
+		//Execute the events, and forget them afterwards
+		due.sort((e1, e2) -> Long.compare(e1.sequence, e2.sequence));
+		try {
+			for (ScheduledEvent scheduledEvent : due) {
+				if (game.isRunning() && pending.remove(scheduledEvent)) {
+					scheduledEvent.event.execute(game);
+				}
+			}
+		} finally {
+			due.clear();
+		}
+	}
+
+	/**
+	 * Get the events that have been scheduled but have not happened yet, in
+	 * the order that they were scheduled.
+	 *
+	 * @return the pending events
+	 */
+	public Collection<ScheduledEvent> getScheduledEvents() {
+		return Collections.unmodifiableSet(pending);
+	}
+
+	/**
+	 * Get the time or number of commands remaining until the specified event
+	 * happens, as of the last tick of the game clock.
+	 *
+	 * @param scheduledEvent the pending event
+	 * @return the remaining number of commands if the event is scheduled
+	 *         after a number of commands, and the remaining time in
+	 *         milliseconds otherwise. Events that are due have no time
+	 *         remaining
+	 */
+	public long getRemaining(ScheduledEvent scheduledEvent) {
+		long now = scheduledEvent.countingCommands ? commandCount : clock.getTime();
+		return Math.max(0, scheduledEvent.getDeadline() - now);
+	}
+
+	/**
+	 * Cancel all pending events, such as when the game is thrown away.
+	 */
+	public void cancelAll() {
+		for (ScheduledEvent scheduledEvent : pending) {
+			if (scheduledEvent.countingCommands) {
+				commandWheel.cancel(scheduledEvent);
+			} else {
+				timeWheel.cancel(scheduledEvent);
+			}
+		}
+
+		pending.clear();
+		expired.clear();
+	}
+
+	/**
+	 * An event that has been scheduled to happen later.
+	 */
+	public class ScheduledEvent extends TimingWheel.Timeout {
+
+		/**
+		 * The event to execute.
+		 */
+		private final Event event;
+
+		/**
+		 * Whether the event happens after a number of commands rather than
+		 * after a delay.
+		 */
+		private final boolean countingCommands;
+
+		/**
+		 * The order in which the event was scheduled.
+		 */
+		private final long sequence;
+
+		/**
+		 * Constructs a new scheduled event.
+		 *
+		 * @param event            the event to execute
+		 * @param countingCommands whether the event happens after a number of
+		 *                         commands rather than after a delay
+		 */
+		private ScheduledEvent(Event event, boolean countingCommands) {
+			this.event = event;
+			this.countingCommands = countingCommands;
+			sequence = nextSequence++;
+		}
+
+		/**
+		 * Get the event to execute.
+		 *
+		 * @return the event
+		 */
+		public Event getEvent() {
+			return event;
+		}
+
+		/**
+		 * Test whether the event happens after a number of commands rather
+		 * than after a delay.
+		 *
+		 * @return {@code true} if the event counts commands, {@code false} if
+		 *         it waits for time to pass
+		 */
+		public boolean isCountingCommands() {
+			return countingCommands;
+		}
+
+		@Override
+		protected void expire() {
+			expired.add(this);
+		}
+	}
+}
@@ -14,6 +14,7 @@ public enum EventWord {
 	SET_OBJECT_DESCRIPTION("setObjectDescription", 50),
 	ADD_EXIT("addExit", 30),
 	TELEPORT("teleport", 10),
+	SCHEDULE("schedule", 5),
 	QUIT("quit", 0);
 
 	/**
@@ -9,13 +9,28 @@ import castleescape.business.framework.Game;
 import castleescape.business.ViewUtil;
 
 /**
- * An event executer for making noise and attracting the monster.
+ * An event executer for making noise and attracting the monsters. The noise
+ * grows fainter with every step away from the player, so monsters far away
+ * are less likely to hear it.
  */
 public class MakeNoiseEventExecuter implements EventExecuter {
 
+	/**
+	 * The share of the noise that carries on to a neighbouring room, when the
+	 * event does not specify one.
+	 */
+	private static final double DEFAULT_FALLOFF = 0.75;
+
+	/**
+	 * The greatest number of steps that noise can carry.
+	 */
+	private static final int MAX_RADIUS = 64;
+
 	/**
 	 * Make noise as specified by the event. The player character's clumsiness
-	 * is also taken into account.
+	 * is also taken into account. A monster hears the noise with a chance
+	 * that is reduced by the falloff for every step between it and the
+	 * player. The player is told whether the noise was heard.
 	 */
 	@Override
 	public void execute(Game game, Event event) {
@@ -40,13 +55,30 @@ public class MakeNoiseEventExecuter implements EventExecuter {
 		double noiseChance = weight * playerWeight;
 
 		//Roll a random number in the range [0;1[ to determine, if noise should
-		//be generated
-		double random = Math.random();
+		//be generated. The game's own generator is used so that the game can
+		//be replayed
+		double random = game.getRandom().nextDouble();
 
 		if (random < noiseChance) {
-			//Noise was generated, make the monster hunt the player
-			game.getMonster().setHunting(game.getCurrentRoom());
-			ViewUtil.println("You fool! You make too much noise.");
+			//Noise was generated. The same roll decides how far it carries,
+			//so the monsters that hear it are those within that distance
+			String falloffString = event.getEventParam(Event.FALLOFF);
+			double falloff = falloffString == null ? DEFAULT_FALLOFF : Double.parseDouble(falloffString);
+
+			int radius = 0;
+			double loudness = noiseChance * falloff;
+			while (radius < MAX_RADIUS && random < loudness) {
+				radius++;
+				loudness *= falloff;
+			}
+
+			//Make the monsters that heard the noise hunt the player. The
+			//player is only scolded if a monster was within earshot
+			if (game.getMonsterIndex().alertMonsters(game.getCurrentRoom(), radius) > 0) {
+				ViewUtil.println("You fool! You make too much noise.");
+			} else {
+				ViewUtil.println("You make some noise, but nothing seems to have heard it.");
+			}
 		}
 	}
 
@@ -0,0 +1,47 @@
+package castleescape.business.event;
+
+import castleescape.business.framework.Game;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Event executer for scheduling a follow-up event to happen later, either
+ * after a delay or after a number of commands. The follow-up event has the
+ * type given by the {@link Event#THEN} parameter, and is given the other
+ * parameters of this event. The reward is given when the follow-up event is
+ * scheduled, so the follow-up event itself gives no points.
+ */
+public class ScheduleEventExecuter implements EventExecuter {
+
+	@Override
+	public void execute(Game game, Event event) {
+		//Without a delay or a number of commands, we cannot schedule it
+		String delay = event.getEventParam(Event.DELAY);
+		String commands = event.getEventParam(Event.COMMANDS);
+		if (delay == null && commands == null) {
+			//Use System.out.println() for debugging purposes
+			System.out.println("The " + event.getEventParam(Event.THEN) + " event to schedule has neither a "
+					+ Event.DELAY + " nor a number of " + Event.COMMANDS);
+			return;
+		}
+
+		//Build the follow-up event from the parameters that are not about
+		//scheduling
+		Map<String, String> params = new HashMap<>(event.getEventParams());
+		params.remove(Event.THEN);
+		params.remove(Event.DELAY);
+		params.remove(Event.COMMANDS);
+		params.put(Event.REWARD, "0");
+		Event followUp = new Event(EventWord.getEventWord(event.getEventParam(Event.THEN)), params);
+
+		//Schedule it after the delay, if there is one, and otherwise after
+		//the number of commands. The command that triggered this event does
+		//not count
+		if (delay != null) {
+			game.getEventScheduler().scheduleAfterDelay(followUp, Long.parseLong(delay));
+		} else {
+			game.getEventScheduler().scheduleAfterCommands(followUp, Integer.parseInt(commands) + 1);
+		}
+	}
+}
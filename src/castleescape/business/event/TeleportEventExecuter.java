@@ -35,8 +35,8 @@ public class TeleportEventExecuter implements EventExecuter {
 			//Otherwise, move the player to the room specified by the event
 			game.setRoom(teleportRoom);
 
-			//We also have to notify the monster that the player moved
-			game.getMonster().notifyOfGo(teleportRoom);
+			//We also have to notify the monsters that the player moved
+			game.getMonsterIndex().notifyOfGo(teleportRoom);
 		}
 	}
 }
@@ -0,0 +1,243 @@
+package castleescape.business.event;
+
+/**
+ * Hashed timing wheel keeping track of timeouts that expire at some point in
+ * the future. Time is divided into ticks, and the wheel has a slot for every
+ * tick of a revolution. A timeout is placed in the slot of the tick that it
+ * expires in, so scheduling and cancelling a timeout takes constant time no
+ * matter how many timeouts are pending. Advancing the wheel visits the slots
+ * of the ticks that have passed, and expires the timeouts in them whose
+ * deadlines have been reached. Timeouts that are due in a later revolution
+ * simply stay in their slots.
+ * <p>
+ * The wheel has no thread of its own. It is advanced by its users whenever
+ * they need to know which of their timeouts have expired, which in a game is
+ * once per command. Every game has wheels of its own, so games hosted by the
+ * same server never wait for each other to schedule their timeouts.
+ * <p>
+ * Timeouts are linked into their slots directly, so no objects are allocated
+ * when scheduling or cancelling. All methods are thread safe.
+ */
+public class TimingWheel {
+
+	/**
+	 * The duration of a tick of this wheel.
+	 */
+	private final long tickDuration;
+
+	/**
+	 * The first timeout in every slot, or null if the slot is empty. The
+	 * timeouts in a slot are linked in both directions.
+	 */
+	private final Timeout[] slots;
+
+	/**
+	 * The mask turning a tick into the index of its slot.
+	 */
+	private final int mask;
+
+	/**
+	 * The last tick that the wheel has been advanced to. All timeouts that
+	 * expire in this tick or earlier have been expired.
+	 */
+	private long currentTick;
+
+	/**
+	 * The number of pending timeouts in this wheel.
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new timing wheel.
+	 *
+	 * @param tickDuration the duration of a tick, in the unit of time that the
+	 *                     wheel is used with
+	 * @param wheelSize    the number of slots in the wheel. Must be a power of
+	 *                     two
+	 * @param time         the current time
+	 * @throws IllegalArgumentException if the tick duration is not positive,
+	 *                                  or the wheel size is not a power of two
+	 */
+	public TimingWheel(long tickDuration, int wheelSize, long time) {
+		if (tickDuration <= 0) {
+			throw new IllegalArgumentException("The tick duration must be positive: " + tickDuration);
+		}
+
+		if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("The wheel size must be a power of two: " + wheelSize);
+		}
+
+		this.tickDuration = tickDuration;
+		slots = new Timeout[wheelSize];
+		mask = wheelSize - 1;
+		currentTick = Math.floorDiv(time, tickDuration);
+	}
+
+	/**
+	 * Schedule the specified timeout to expire at the specified time. If the
+	 * wheel has already been advanced past the time, the timeout is expired
+	 * right away.
+	 *
+	 * @param timeout  the timeout to schedule
+	 * @param deadline the time at which the timeout should expire
+	 * @throws IllegalStateException if the timeout is already pending
+	 */
+	public synchronized void schedule(Timeout timeout, long deadline) {
+		if (timeout.wheel != null) {
+			throw new IllegalStateException("The timeout is already pending");
+		}
+
+		timeout.deadline = deadline;
+		timeout.deadlineTick = Math.floorDiv(deadline, tickDuration);
+		if (timeout.deadlineTick <= currentTick) {
+			timeout.expire();
+			return;
+		}
+
+		//Link the timeout in at the head of its slot
+		int slot = (int) (timeout.deadlineTick & mask);
+		timeout.wheel = this;
+		timeout.prev = null;
+		timeout.next = slots[slot];
+		if (timeout.next != null) {
+			timeout.next.prev = timeout;
+		}
+		slots[slot] = timeout;
+		size++;
+	}
+
+	/**
+	 * Cancel the specified timeout, so that it does not expire.
+	 *
+	 * @param timeout the timeout to cancel
+	 * @return {@code true} if the timeout was cancelled, {@code false} if it
+	 *         was not pending in this wheel, because it has expired already or
+	 *         was never scheduled
+	 */
+	public synchronized boolean cancel(Timeout timeout) {
+		if (timeout.wheel != this) {
+			return false;
+		}
+
+		unlink(timeout);
+		return true;
+	}
+
+	/**
+	 * Advance the wheel to the specified time, expiring every timeout whose
+	 * deadline falls in a tick up to and including the tick of the time. The
+	 * timeouts are expired while the wheel is locked, so they must not use
+	 * the wheel when expiring. Advancing to an earlier time than before does
+	 * nothing.
+	 *
+	 * @param time the current time
+	 */
+	public synchronized void advance(long time) {
+		long targetTick = Math.floorDiv(time, tickDuration);
+		if (targetTick <= currentTick) {
+			return;
+		}
+
+		//Visit the slots of the ticks that have passed. If more than a
+		//revolution has passed, every slot is visited once
+		long ticks = Math.min(targetTick - currentTick, slots.length);
+		for (long i = 1; i <= ticks; i++) {
+			Timeout timeout = slots[(int) ((currentTick + i) & mask)];
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.deadlineTick <= targetTick) {
+					unlink(timeout);
+					timeout.expire();
+				}
+				timeout = next;
+			}
+		}
+
+		currentTick = targetTick;
+	}
+
+	/**
+	 * Get the number of timeouts that are pending in this wheel.
+	 *
+	 * @return the number of pending timeouts
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Remove the specified pending timeout from its slot.
+	 *
+	 * @param timeout the timeout to remove
+	 */
+	private void unlink(Timeout timeout) {
+		if (timeout.prev == null) {
+			slots[(int) (timeout.deadlineTick & mask)] = timeout.next;
+		} else {
+			timeout.prev.next = timeout.next;
+		}
+
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+
+		timeout.wheel = null;
+		timeout.prev = null;
+		timeout.next = null;
+		size--;
+	}
+
+	/**
+	 * A timeout that can be scheduled in a timing wheel. A timeout can be
+	 * pending in one wheel at a time, and can be scheduled again once it has
+	 * expired or been cancelled.
+	 */
+	public abstract static class Timeout {
+
+		/**
+		 * The wheel that this timeout is pending in, or null if it is not
+		 * pending.
+		 */
+		private TimingWheel wheel;
+
+		/**
+		 * The time at which this timeout expires.
+		 */
+		private long deadline;
+
+		/**
+		 * The tick in which this timeout expires.
+		 */
+		private long deadlineTick;
+
+		/**
+		 * The previous timeout in the same slot, or null if this timeout is
+		 * the first.
+		 */
+		private Timeout prev;
+
+		/**
+		 * The next timeout in the same slot, or null if this timeout is the
+		 * last.
+		 */
+		private Timeout next;
+
+		/**
+		 * Get the time at which this timeout expires, as it was last
+		 * scheduled.
+		 *
+		 * @return the deadline of this timeout
+		 */
+		public long getDeadline() {
+			return deadline;
+		}
+
+		/**
+		 * Called by the wheel when this timeout expires. The deadline may be
+		 * up to a tick later than the time that the wheel was advanced to.
+		 * This is called while the wheel is locked, so it should return
+		 * quickly, and it must not use the wheel.
+		 */
+		protected abstract void expire();
+	}
+}
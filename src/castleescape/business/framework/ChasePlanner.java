@@ -0,0 +1,620 @@
+package castleescape.business.framework;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Class finding the shortest paths that the monsters of a game follow to
+ * chase the player. Rooms are identified by their ids, and the rooms that a
+ * search has visited are marked with the number of the search in arrays
+ * indexed by room id, so the arrays are reused for every search without being
+ * cleared. The time taken by a search thus depends on the rooms that it
+ * visits, and not on the size of the castle.
+ * <p>
+ * Paths are found by searching from both ends at once, following the exits of
+ * the rooms forwards from the monster and the entrances of the rooms
+ * backwards from the player, until the searches meet. Castles may also be
+ * given a number of landmarks, whose distances to and from every room are
+ * found when the level is loaded. A search then goes from the monster towards
+ * the player only, guided by the landmarks, which bound the distance that
+ * remains from any room. When the exits of a room change, the distances of
+ * the landmarks are found again before the next search.
+ * <p>
+ * When the player moves, the path that a monster follows is usually repaired
+ * rather than found again. A planner is only used by the thread processing
+ * the commands of its game.
+ */
+public class ChasePlanner {
+
+	/**
+	 * The distance of a room that cannot be reached.
+	 */
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	/**
+	 * The rooms of the game, indexed by their ids.
+	 */
+	private final List<Room> rooms;
+
+	/**
+	 * The number of landmarks to use, or 0 to search from both ends instead.
+	 */
+	private final int landmarkCount;
+
+	/**
+	 * The distance from every landmark to every room, indexed by landmark
+	 * and room id, or null if the landmarks have not been found.
+	 */
+	private int[][] landmarkDistancesFrom;
+
+	/**
+	 * The distance from every room to every landmark, indexed by landmark
+	 * and room id, or null if the landmarks have not been found.
+	 */
+	private int[][] landmarkDistancesTo;
+
+	/**
+	 * Whether the exits of a room have changed since the landmarks were
+	 * found.
+	 */
+	private boolean landmarksStale;
+
+	/**
+	 * The number of the last search.
+	 */
+	private int search;
+
+	/**
+	 * The number of the last search that reached every room going forwards,
+	 * indexed by room id.
+	 */
+	private int[] forwardMark;
+
+	/**
+	 * The room that every room was reached from going forwards, indexed by
+	 * room id, or -1 for the room that the search began in.
+	 */
+	private int[] forwardParent;
+
+	/**
+	 * The rooms to visit going forwards.
+	 */
+	private int[] forwardQueue;
+
+	/**
+	 * The number of the last search that reached every room going backwards,
+	 * indexed by room id. Searches guided by landmarks use it to mark the
+	 * rooms that they are done with, and repairs use it to mark the rooms of
+	 * the path.
+	 */
+	private int[] backwardMark;
+
+	/**
+	 * The room that every room was reached from going backwards, indexed by
+	 * room id, or -1 for the room that the search began in. Repairs use it
+	 * for the position of every room in the path.
+	 */
+	private int[] backwardParent;
+
+	/**
+	 * The rooms to visit going backwards.
+	 */
+	private int[] backwardQueue;
+
+	/**
+	 * The length of the shortest path found to every room by a search guided
+	 * by landmarks, indexed by room id.
+	 */
+	private int[] cost;
+
+	/**
+	 * The keys of the rooms waiting in the heap of a search guided by
+	 * landmarks. Rooms with the smallest estimated path length come first,
+	 * and among those the rooms furthest from the monster.
+	 */
+	private long[] heapKeys;
+
+	/**
+	 * The ids of the rooms waiting in the heap, in the same order as their
+	 * keys.
+	 */
+	private int[] heapRooms;
+
+	/**
+	 * The number of rooms waiting in the heap.
+	 */
+	private int heapSize;
+
+	/**
+	 * Constructs a new planner for the specified rooms. If landmarks are used,
+	 * their distances are found right away.
+	 *
+	 * @param rooms         the rooms of the game, indexed by their ids. Rooms
+	 *                      added to the list later are taken into account
+	 * @param landmarkCount the number of landmarks to use, or 0 to search
+	 *                      from both ends instead
+	 */
+	public ChasePlanner(List<Room> rooms, int landmarkCount) {
+		this.rooms = rooms;
+		this.landmarkCount = landmarkCount;
+		forwardMark = new int[0];
+		forwardParent = new int[0];
+		forwardQueue = new int[0];
+		backwardMark = new int[0];
+		backwardParent = new int[0];
+		backwardQueue = new int[0];
+		heapKeys = new long[16];
+		heapRooms = new int[16];
+
+		prepare();
+	}
+
+	/**
+	 * Find a shortest path from the specified room to the specified goal.
+	 *
+	 * @param start the room to start from
+	 * @param goal  the room to find
+	 * @return the rooms of the path, starting with the start room and ending
+	 *         with the goal, or null if no path exists
+	 */
+	public Deque<Room> findPath(Room start, Room goal) {
+		if (start == goal) {
+			Deque<Room> path = new ArrayDeque<>();
+			path.add(start);
+			return path;
+		}
+
+		prepare();
+		return landmarkDistancesFrom == null ? searchBothWays(start, goal) : searchWithLandmarks(start, goal);
+	}
+
+	/**
+	 * Find a shortest path to the specified goal from the first room of the
+	 * specified path, which is a shortest path to a room close to the goal.
+	 * If the goal is on the path, or can be reached from a room on the path
+	 * in a way that is known to be shortest, the path is changed in place.
+	 * Otherwise a new path is found.
+	 *
+	 * @param path the shortest path to the previous goal
+	 * @param goal the room to find
+	 * @return the rooms of the path, starting with the first room of the
+	 *         specified path and ending with the goal, or null if no path
+	 *         exists
+	 */
+	public Deque<Room> repairPath(Deque<Room> path, Room goal) {
+		Room start = path.peekFirst();
+		prepare();
+		nextSearch();
+
+		//Mark the rooms of the path with their positions in it
+		int position = 0;
+		for (Room room : path) {
+			int id = room.getId();
+			if (backwardMark[id] != search) {
+				backwardMark[id] = search;
+				backwardParent[id] = position;
+			}
+			position++;
+		}
+
+		//If the goal is on the path, the path up to the goal is shortest
+		int goalId = goal.getId();
+		if (backwardMark[goalId] == search) {
+			truncate(path, backwardParent[goalId] + 1);
+			return path;
+		}
+
+		//Find the room of the path closest to the start that leads to the
+		//goal
+		int best = UNREACHABLE;
+		for (Room entrance : goal.getEntrances()) {
+			int id = entrance.getId();
+			if (backwardMark[id] == search) {
+				best = Math.min(best, backwardParent[id]);
+			}
+		}
+
+		if (best == UNREACHABLE) {
+			return findPath(start, goal);
+		}
+
+		//A path to the goal cannot be more than a step shorter than the path
+		//to a room that the goal leads to. The landmarks may bound it further
+		int bound = 0;
+		for (Room neighbor : goal.getNeighbors()) {
+			int id = neighbor.getId();
+			if (backwardMark[id] == search) {
+				bound = Math.max(bound, backwardParent[id] - 1);
+			}
+		}
+
+		if (landmarkDistancesFrom != null) {
+			bound = Math.max(bound, estimate(start.getId(), goalId));
+		}
+
+		//Going through the room is only known to be shortest if no path can
+		//be shorter
+		if (best + 1 > bound) {
+			return findPath(start, goal);
+		}
+
+		truncate(path, best + 1);
+		path.addLast(goal);
+		return path;
+	}
+
+	/**
+	 * Called by a room when its exits change.
+	 */
+	void notifyOfExitChange() {
+		landmarksStale = true;
+	}
+
+	/**
+	 * Search from both ends at once, one distance at a time, always going on
+	 * from the end with the fewest rooms waiting. The first room reached from
+	 * both ends lies on a shortest path.
+	 *
+	 * @param start the room to start from
+	 * @param goal  the room to find
+	 * @return the shortest path, or null if no path exists
+	 */
+	private Deque<Room> searchBothWays(Room start, Room goal) {
+		nextSearch();
+		int startId = start.getId();
+		int goalId = goal.getId();
+		forwardMark[startId] = search;
+		forwardParent[startId] = -1;
+		backwardMark[goalId] = search;
+		backwardParent[goalId] = -1;
+
+		int forwardHead = 0;
+		int forwardTail = 0;
+		int backwardHead = 0;
+		int backwardTail = 0;
+		forwardQueue[forwardTail++] = startId;
+		backwardQueue[backwardTail++] = goalId;
+
+		while (forwardHead < forwardTail && backwardHead < backwardTail) {
+			if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+				//Go a step forwards from every room at the current distance
+				int levelEnd = forwardTail;
+				while (forwardHead < levelEnd) {
+					int current = forwardQueue[forwardHead++];
+					for (Room neighbor : rooms.get(current).getNeighbors()) {
+						int id = neighbor.getId();
+						if (forwardMark[id] != search) {
+							forwardMark[id] = search;
+							forwardParent[id] = current;
+							if (backwardMark[id] == search) {
+								return buildPath(id);
+							}
+							forwardQueue[forwardTail++] = id;
+						}
+					}
+				}
+			} else {
+				//Go a step backwards from every room at the current distance
+				int levelEnd = backwardTail;
+				while (backwardHead < levelEnd) {
+					int current = backwardQueue[backwardHead++];
+					for (Room entrance : rooms.get(current).getEntrances()) {
+						int id = entrance.getId();
+						if (backwardMark[id] != search) {
+							backwardMark[id] = search;
+							backwardParent[id] = current;
+							if (forwardMark[id] == search) {
+								return buildPath(id);
+							}
+							backwardQueue[backwardTail++] = id;
+						}
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Search from the start towards the goal, visiting the rooms in order of
+	 * the estimated length of a path through them. The estimates never exceed
+	 * the true lengths, so the first path found to the goal is shortest.
+	 *
+	 * @param start the room to start from
+	 * @param goal  the room to find
+	 * @return the shortest path, or null if no path exists
+	 */
+	private Deque<Room> searchWithLandmarks(Room start, Room goal) {
+		nextSearch();
+		int startId = start.getId();
+		int goalId = goal.getId();
+		int startEstimate = estimate(startId, goalId);
+		if (startEstimate == UNREACHABLE) {
+			return null;
+		}
+
+		forwardMark[startId] = search;
+		forwardParent[startId] = -1;
+		cost[startId] = 0;
+		backwardParent[goalId] = -1;
+		heapSize = 0;
+		push(startId, startEstimate, 0);
+
+		while (heapSize > 0) {
+			int current = pop();
+			if (backwardMark[current] == search) {
+				//The room was reached again by a longer path
+				continue;
+			}
+
+			if (current == goalId) {
+				return buildPath(current);
+			}
+
+			backwardMark[current] = search;
+			int nextCost = cost[current] + 1;
+			for (Room neighbor : rooms.get(current).getNeighbors()) {
+				int id = neighbor.getId();
+				if (backwardMark[id] == search || (forwardMark[id] == search && cost[id] <= nextCost)) {
+					continue;
+				}
+
+				int estimate = estimate(id, goalId);
+				if (estimate != UNREACHABLE) {
+					forwardMark[id] = search;
+					forwardParent[id] = current;
+					cost[id] = nextCost;
+					push(id, nextCost + estimate, nextCost);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Estimate the length of a shortest path between the specified rooms
+	 * from the distances of the landmarks. The estimate never exceeds the
+	 * true length.
+	 *
+	 * @param from the id of the room to start from
+	 * @param to   the id of the room to find
+	 * @return the estimated length, or {@link #UNREACHABLE} if the landmarks
+	 *         show that no path exists
+	 */
+	private int estimate(int from, int to) {
+		int bound = 0;
+		for (int i = 0; i < landmarkDistancesFrom.length; i++) {
+			//A landmark reaching the start would reach the goal through it
+			int[] distancesFrom = landmarkDistancesFrom[i];
+			if (distancesFrom[from] != UNREACHABLE) {
+				if (distancesFrom[to] == UNREACHABLE) {
+					return UNREACHABLE;
+				}
+				bound = Math.max(bound, distancesFrom[to] - distancesFrom[from]);
+			}
+
+			//The start would reach a landmark through the goal
+			int[] distancesTo = landmarkDistancesTo[i];
+			if (distancesTo[to] != UNREACHABLE) {
+				if (distancesTo[from] == UNREACHABLE) {
+					return UNREACHABLE;
+				}
+				bound = Math.max(bound, distancesTo[from] - distancesTo[to]);
+			}
+		}
+
+		return bound;
+	}
+
+	/**
+	 * Build the path through the specified room, which has been reached going
+	 * forwards and, unless it is the goal, going backwards.
+	 *
+	 * @param meeting the id of the room
+	 * @return the path
+	 */
+	private Deque<Room> buildPath(int meeting) {
+		Deque<Room> path = new ArrayDeque<>();
+		for (int id = meeting; id != -1; id = forwardParent[id]) {
+			path.addFirst(rooms.get(id));
+		}
+
+		for (int id = backwardParent[meeting]; id != -1; id = backwardParent[id]) {
+			path.addLast(rooms.get(id));
+		}
+
+		return path;
+	}
+
+	/**
+	 * Remove rooms from the end of the specified path until it has the
+	 * specified length.
+	 *
+	 * @param path   the path
+	 * @param length the number of rooms to keep
+	 */
+	private static void truncate(Deque<Room> path, int length) {
+		while (path.size() > length) {
+			path.pollLast();
+		}
+	}
+
+	/**
+	 * Make the arrays large enough for every room, and find the landmarks if
+	 * they are used and have not been found since the rooms last changed.
+	 */
+	private void prepare() {
+		int roomCount = rooms.size();
+		if (forwardMark.length < roomCount) {
+			forwardMark = Arrays.copyOf(forwardMark, roomCount);
+			forwardParent = new int[roomCount];
+			forwardQueue = new int[roomCount];
+			backwardMark = Arrays.copyOf(backwardMark, roomCount);
+			backwardParent = new int[roomCount];
+			backwardQueue = new int[roomCount];
+		}
+
+		if (landmarkCount > 0 && roomCount > 0 && (landmarkDistancesFrom == null || landmarksStale
+				|| landmarkDistancesFrom[0].length != roomCount)) {
+			findLandmarks();
+		}
+	}
+
+	/**
+	 * Choose the landmarks, and find their distances to and from every room.
+	 * Every landmark is the room furthest from the landmarks chosen before
+	 * it, preferring rooms that they cannot reach at all, so that the
+	 * landmarks lie at the edges of the castle.
+	 */
+	private void findLandmarks() {
+		int roomCount = rooms.size();
+		int count = Math.min(landmarkCount, roomCount);
+		landmarkDistancesFrom = new int[count][];
+		landmarkDistancesTo = new int[count][];
+		cost = new int[roomCount];
+		landmarksStale = false;
+
+		//The distance from every room to the closest landmark so far
+		int[] closest = distances(0, true);
+		int landmark = furthest(closest);
+		Arrays.fill(closest, UNREACHABLE);
+
+		for (int i = 0; i < count; i++) {
+			landmarkDistancesFrom[i] = distances(landmark, true);
+			landmarkDistancesTo[i] = distances(landmark, false);
+			for (int id = 0; id < roomCount; id++) {
+				closest[id] = Math.min(closest[id], landmarkDistancesFrom[i][id]);
+			}
+
+			landmark = furthest(closest);
+		}
+	}
+
+	/**
+	 * Find the room with the greatest of the specified distances, preferring
+	 * rooms that cannot be reached.
+	 *
+	 * @param distances the distance of every room
+	 * @return the id of the room furthest away
+	 */
+	private static int furthest(int[] distances) {
+		int furthest = 0;
+		for (int id = 1; id < distances.length; id++) {
+			if (distances[id] > distances[furthest]) {
+				furthest = id;
+			}
+		}
+
+		return furthest;
+	}
+
+	/**
+	 * Find the distance of every room from the specified room, or to it.
+	 *
+	 * @param source   the id of the room
+	 * @param forwards {@code true} to find the distances from the room,
+	 *                 following exits, or {@code false} to find the distances
+	 *                 to the room, following entrances
+	 * @return the distance of every room, indexed by room id
+	 */
+	private int[] distances(int source, boolean forwards) {
+		int[] distances = new int[rooms.size()];
+		Arrays.fill(distances, UNREACHABLE);
+		distances[source] = 0;
+
+		int head = 0;
+		int tail = 0;
+		forwardQueue[tail++] = source;
+		while (head < tail) {
+			int current = forwardQueue[head++];
+			Room room = rooms.get(current);
+			for (Room next : forwards ? room.getNeighbors() : room.getEntrances()) {
+				int id = next.getId();
+				if (distances[id] == UNREACHABLE) {
+					distances[id] = distances[current] + 1;
+					forwardQueue[tail++] = id;
+				}
+			}
+		}
+
+		return distances;
+	}
+
+	/**
+	 * Start a new search. When the search numbers run out, the marks are
+	 * cleared so that old marks are not mistaken for new ones.
+	 */
+	private void nextSearch() {
+		if (++search == 0) {
+			Arrays.fill(forwardMark, 0);
+			Arrays.fill(backwardMark, 0);
+			search = 1;
+		}
+	}
+
+	/**
+	 * Add a room to the heap.
+	 *
+	 * @param id       the id of the room
+	 * @param estimate the estimated length of a path through the room
+	 * @param length   the length of the path to the room
+	 */
+	private void push(int id, int estimate, int length) {
+		if (heapSize == heapKeys.length) {
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			heapRooms = Arrays.copyOf(heapRooms, heapSize * 2);
+		}
+
+		//Smaller estimates come first, and among those longer paths
+		long key = ((long) estimate << 32) - length;
+		int position = heapSize++;
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (heapKeys[parent] <= key) {
+				break;
+			}
+			heapKeys[position] = heapKeys[parent];
+			heapRooms[position] = heapRooms[parent];
+			position = parent;
+		}
+
+		heapKeys[position] = key;
+		heapRooms[position] = id;
+	}
+
+	/**
+	 * Remove the first room from the heap.
+	 *
+	 * @return the id of the room
+	 */
+	private int pop() {
+		int first = heapRooms[0];
+		long key = heapKeys[--heapSize];
+		int id = heapRooms[heapSize];
+
+		int position = 0;
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+				child++;
+			}
+			if (key <= heapKeys[child]) {
+				break;
+			}
+			heapKeys[position] = heapKeys[child];
+			heapRooms[position] = heapRooms[child];
+			position = child;
+		}
+
+		heapKeys[position] = key;
+		heapRooms[position] = id;
+		return first;
+	}
+}
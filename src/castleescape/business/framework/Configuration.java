@@ -5,6 +5,10 @@
  */
 package castleescape.business.framework;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An immutable object to store the game's configurations.
  */
@@ -40,6 +44,18 @@ public class Configuration {
 	 */
 	private final String welcomeMessage;
 
+	/**
+	 * The configurations of all monsters, starting with the monster described
+	 * by the other monster configurations.
+	 */
+	private final List<MonsterConfiguration> monsters;
+
+	/**
+	 * The number of landmarks guiding the monsters when they chase the
+	 * player, or 0 if none are used.
+	 */
+	private final int landmarkCount;
+
 	/**
 	 * Constructs a new configuration object.
 	 *
@@ -53,12 +69,41 @@ public class Configuration {
 	 * @param welcomeMessage    the message to display at the start of the game
 	 */
 	public Configuration(Room startRoom, Room safeRoom, Room monsterStartRoom, double monsterMoveChance, int monsterMoveTime, String welcomeMessage) {
+		this(startRoom, safeRoom, monsterStartRoom, monsterMoveChance, monsterMoveTime, welcomeMessage,
+				Collections.emptyList(), 0);
+	}
+
+	/**
+	 * Constructs a new configuration object for a level with more than one
+	 * monster, or with landmarks.
+	 *
+	 * @param startRoom         the room in which the player starts
+	 * @param safeRoom          the safe room
+	 * @param monsterStartRoom  the room in which the first monster starts
+	 * @param monsterMoveChance the chance that the first monster will move,
+	 *                          in percent
+	 * @param monsterMoveTime   the time that it takes the first monster to
+	 *                          move one room, in milliseconds
+	 * @param welcomeMessage    the message to display at the start of the game
+	 * @param extraMonsters     the configurations of the other monsters
+	 * @param landmarkCount     the number of landmarks guiding the monsters
+	 *                          when they chase the player, or 0 if none are
+	 *                          used
+	 */
+	public Configuration(Room startRoom, Room safeRoom, Room monsterStartRoom, double monsterMoveChance, int monsterMoveTime, String welcomeMessage,
+			List<MonsterConfiguration> extraMonsters, int landmarkCount) {
 		this.startRoom = startRoom;
 		this.safeRoom = safeRoom;
 		this.monsterStartRoom = monsterStartRoom;
 		this.monsterMoveChance = monsterMoveChance;
 		this.monsterMoveTime = monsterMoveTime;
 		this.welcomeMessage = welcomeMessage;
+
+		List<MonsterConfiguration> allMonsters = new ArrayList<>(extraMonsters.size() + 1);
+		allMonsters.add(new MonsterConfiguration(monsterStartRoom, monsterMoveChance, monsterMoveTime));
+		allMonsters.addAll(extraMonsters);
+		monsters = Collections.unmodifiableList(allMonsters);
+		this.landmarkCount = landmarkCount;
 	}
 
 	/**
@@ -107,6 +152,26 @@ public class Configuration {
 		return monsterMoveTime;
 	}
 
+	/**
+	 * Get the configurations of all monsters. The first monster is the one
+	 * described by the other monster configurations.
+	 *
+	 * @return an unmodifiable list of monster configurations
+	 */
+	public List<MonsterConfiguration> getMonsters() {
+		return monsters;
+	}
+
+	/**
+	 * Get the number of landmarks guiding the monsters when they chase the
+	 * player.
+	 *
+	 * @return the number of landmarks, or 0 if none are used
+	 */
+	public int getLandmarkCount() {
+		return landmarkCount;
+	}
+
 	/**
 	 * Get the message to display at the start of the game.
 	 *
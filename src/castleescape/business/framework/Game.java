@@ -1,6 +1,7 @@
 package castleescape.business.framework;
 
 import castleescape.business.event.EventExecuter;
+import castleescape.business.event.EventScheduler;
 import castleescape.business.event.AddExitEventExecuter;
 import castleescape.business.event.EventWord;
 import castleescape.business.event.AddRoomItemEventExecuter;
@@ -10,6 +11,7 @@ import castleescape.business.event.MakeNoiseEventExecuter;
 import castleescape.business.event.RemoveRoomItemEventExecuter;
 import castleescape.business.event.AddPlayerItemEventExecuter;
 import castleescape.business.event.QuitEventExecuter;
+import castleescape.business.event.ScheduleEventExecuter;
 import castleescape.business.event.TeleportEventExecuter;
 import castleescape.business.command.Command;
 import castleescape.business.command.QuitCommandExecuter;
@@ -23,18 +25,26 @@ import castleescape.business.command.DropCommandExecuter;
 import castleescape.business.command.PeekCommandExecuter;
 import castleescape.business.command.InspectCommandExecuter;
 import castleescape.business.command.HighscoresCommandExecuter;
+import castleescape.business.command.HintCommandExecuter;
 import castleescape.business.command.CommandExecuter;
 import castleescape.business.ViewUtil;
 import castleescape.business.event.SetObjectDescriptionEventExecuter;
+import castleescape.business.journal.CommandJournal;
+import castleescape.business.metrics.GameMetrics;
 import castleescape.business.object.InspectableObject;
 import castleescape.business.object.InspectableObjectRegister;
 import castleescape.data.DataMediator;
+import castleescape.data.LevelDataStorage;
+import castleescape.data.LevelVersion;
 import castleescape.shared.GameListener;
+import castleescape.shared.jfr.CommandEvent;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Class defining instance behavior for setting up and running a game. This
@@ -50,16 +60,23 @@ public class Game {
 	private GameListener listener;
 
 	/**
-	 * Map of command executers. The keys are CommandWord objects and the values
-	 * are the CommandExecuters associated with these CommandWord objects.
+	 * Array of command executers, indexed by the ordinals of the CommandWord
+	 * objects that they are associated with. Command words without an
+	 * executer have null.
 	 */
-	private final HashMap<CommandWord, CommandExecuter> commandExecuters;
+	private final CommandExecuter[] commandExecuters;
 
 	/**
-	 * Map of event executers. The keys are EventWord objects and the values are
-	 * the Event Executers associated with these EventWord objects.
+	 * Array of event executers, indexed by the ordinals of the EventWord
+	 * objects that they are associated with. Event words without an executer
+	 * have null.
 	 */
-	private final HashMap<EventWord, EventExecuter> eventExecuters;
+	private final EventExecuter[] eventExecuters;
+
+	/**
+	 * The scheduler of the events that happen later in the game.
+	 */
+	private final EventScheduler eventScheduler;
 
 	/**
 	 * Map of rooms in the game. The keys are room names and the values are the
@@ -67,15 +84,25 @@ public class Game {
 	 */
 	private final Map<String, Room> roomMap;
 
+	/**
+	 * List of rooms in the game. The index of a room in this list is its id.
+	 */
+	private final List<Room> rooms;
+
 	/**
 	 * The room that the player is currently in.
 	 */
 	private Room currentRoom;
 
 	/**
-	 * The monster in the game.
+	 * The monsters in the game, and the rooms that they are in.
 	 */
-	private final Monster monster;
+	private final MonsterIndex monsterIndex;
+
+	/**
+	 * The planner finding the paths that the monsters chase the player along.
+	 */
+	private final ChasePlanner chasePlanner;
 
 	/**
 	 * List of possible player characters.
@@ -93,6 +120,12 @@ public class Game {
 	 */
 	private final InspectableObjectRegister inspectableObjectRegister;
 
+	/**
+	 * The version of the level that the game plays, or null if the level was
+	 * not preloaded or the version has been released.
+	 */
+	private LevelVersion levelVersion;
+
 	/**
 	 * The score manager in the game.
 	 */
@@ -108,6 +141,43 @@ public class Game {
 	 */
 	private final String welcomeMessage;
 
+	/**
+	 * The data mediator used to communicate with the data layer.
+	 */
+	private final DataMediator dataMediator;
+
+	/**
+	 * The clock of the game. It is ticked once for every command.
+	 */
+	private final GameClock clock;
+
+	/**
+	 * The random number generator of the game. All randomness in the game must
+	 * come from this generator, so that the game can be replayed.
+	 */
+	private final GameRandom random;
+
+	/**
+	 * The journal recording every command processed by the game.
+	 */
+	private CommandJournal journal;
+
+	/**
+	 * The time of the game clock when the game was started, in milliseconds.
+	 */
+	private long startTime;
+
+	/**
+	 * Whether the journal should be saved to the file system when the game
+	 * ends.
+	 */
+	private boolean journalPersistent = true;
+
+	/**
+	 * The hint engine telling the player what to do next.
+	 */
+	private final HintEngine hintEngine;
+
 	/**
 	 * Constructs a new game object to play the specified level.
 	 * <p>
@@ -119,65 +189,154 @@ public class Game {
 	 * @param levelName    the name of the level to play
 	 */
 	public Game(DataMediator dataMediator, String levelName) {
+		this(dataMediator, levelName, new Random().nextLong(), new GameClock());
+	}
+
+	/**
+	 * Constructs a new game object to play the specified level with the
+	 * specified random seed and clock. Two games constructed with the same seed
+	 * will behave identically when given the same commands at the same clock
+	 * times.
+	 * <p>
+	 * To start the game, call the {@link #start()} method after the game object
+	 * has been successfully constructed.
+	 *
+	 * @param dataMediator the data mediator to use for communicating with the
+	 *                     data layer
+	 * @param levelName    the name of the level to play
+	 * @param seed         the seed of the game's random number generator
+	 * @param clock        the clock of the game
+	 */
+	public Game(DataMediator dataMediator, String levelName, long seed, GameClock clock) {
+		this(dataMediator, levelName, null, seed, clock);
+	}
+
+	/**
+	 * Constructs a new game object to play the specified version of a level
+	 * again, even if the files of the level have changed since. This is meant
+	 * for a game that replaces a game of the version, such as a game that is
+	 * about to be restored from a snapshot, so the version is not acquired
+	 * again, but is released when this game ends.
+	 * <p>
+	 * Unlike reading a level, building a version again does not use the level
+	 * that the data mediator has read last, so the data mediator need not be
+	 * locked while games are constructed this way.
+	 *
+	 * @param dataMediator the data mediator to use for communicating with the
+	 *                     data layer
+	 * @param levelVersion the version of the level to play
+	 */
+	public Game(DataMediator dataMediator, LevelVersion levelVersion) {
+		this(dataMediator, levelVersion.getLevelName(), levelVersion, new Random().nextLong(), new GameClock());
+	}
+
+	/**
+	 * Constructs a new game object to play the specified level.
+	 *
+	 * @param dataMediator the data mediator to use for communicating with the
+	 *                     data layer
+	 * @param levelName    the name of the level to play
+	 * @param levelVersion the version of the level to build again, or null to
+	 *                     read the level
+	 * @param seed         the seed of the game's random number generator
+	 * @param clock        the clock of the game
+	 */
+	private Game(DataMediator dataMediator, String levelName, LevelVersion levelVersion, long seed, GameClock clock) {
+		this.dataMediator = dataMediator;
+		this.clock = clock;
+
+		//Initialize randomness and the journal
+		random = new GameRandom(seed);
+		journal = new CommandJournal(levelName, seed);
+
 		//Load the level with the specified name
-		dataMediator.readLevelData(levelName);
+		long loadStart = System.nanoTime();
+		LevelDataStorage levelData;
+		if (levelVersion == null) {
+			dataMediator.readLevelData(levelName);
+			levelData = dataMediator.getLevelData();
+		} else {
+			levelData = dataMediator.readLevelData(levelVersion);
+		}
+		this.levelVersion = levelData.getVersion();
+		GameMetrics.getInstance().recordLevelLoad(System.nanoTime() - loadStart);
 
 		//Initialize register for inspectable objects and items
 		inspectableObjectRegister = new InspectableObjectRegister();
 
-		//Register inspectable objects and items
-		List<InspectableObject> inspectableObjects = dataMediator.getInspectableObjects();
-		inspectableObjects.addAll(dataMediator.getItems());
+		//Register inspectable objects and items. They are sorted by name, so
+		//that they get the same ids every time the level is loaded
+		List<InspectableObject> inspectableObjects = new ArrayList<>(levelData.getInspectableObjects());
+		inspectableObjects.addAll(levelData.getItems());
+		inspectableObjects.sort(Comparator.comparing(InspectableObject::getName));
 
 		for (InspectableObject o : inspectableObjects) {
 			inspectableObjectRegister.registerInspectableObject(o);
 		}
 
-		//Initialize rooms
+		//Initialize rooms. They are also sorted by name for stable ids
 		roomMap = new HashMap<>();
+		rooms = new ArrayList<>(levelData.getRooms());
+		rooms.sort(Comparator.comparing(Room::getRoomName));
 
-		for (Room r : dataMediator.getRooms()) {
+		for (int i = 0; i < rooms.size(); i++) {
+			Room r = rooms.get(i);
+			r.setId(i);
 			roomMap.put(r.getRoomName(), r);
 		}
 
 		//Initialize configurations and set start room
-		Configuration configuration = dataMediator.getConfiguration();
+		Configuration configuration = levelData.getConfig();
 		currentRoom = configuration.getStartRoom();
 
-		//Initialize monster
-		monster = new Monster(configuration.getMonsterStartRoom(),
-				configuration.getSafeRoom(),
-				configuration.getMonsterMoveChance(),
-				configuration.getMonsterMoveTime());
+		//Initialize the chase planner, which is told when the exits of a room
+		//change
+		chasePlanner = new ChasePlanner(rooms, configuration.getLandmarkCount());
+		for (Room r : rooms) {
+			r.setChasePlanner(chasePlanner);
+		}
+
+		//Initialize monsters
+		monsterIndex = new MonsterIndex(rooms.size(), chasePlanner);
+		for (MonsterConfiguration monsterConfiguration : configuration.getMonsters()) {
+			monsterIndex.add(new Monster(monsterConfiguration.getStartRoom(),
+					configuration.getSafeRoom(),
+					monsterConfiguration.getMoveChance(),
+					monsterConfiguration.getMoveTime(),
+					clock));
+		}
 
 		//Set welcome message
 		welcomeMessage = configuration.getWelcomeMessage();
 
 		//Add command executers and associate them with command words
-		commandExecuters = new HashMap<>();
-		commandExecuters.put(CommandWord.HELP, new HelpCommandExecuter());
-		commandExecuters.put(CommandWord.GO, new GoCommandExecuter());
-		commandExecuters.put(CommandWord.TAKE, new TakeCommandExecuter());
-		commandExecuters.put(CommandWord.DROP, new DropCommandExecuter());
-		commandExecuters.put(CommandWord.INSPECT, new InspectCommandExecuter());
-		commandExecuters.put(CommandWord.INVENTORY, new InventoryCommandExecuter());
-		commandExecuters.put(CommandWord.USE, new UseCommandExecuter());
-		commandExecuters.put(CommandWord.QUIT, new QuitCommandExecuter());
-		commandExecuters.put(CommandWord.PEEK, new PeekCommandExecuter());
-		commandExecuters.put(CommandWord.HIGHSCORES, new HighscoresCommandExecuter());
+		commandExecuters = new CommandExecuter[CommandWord.values().length];
+		commandExecuters[CommandWord.HELP.ordinal()] = new HelpCommandExecuter();
+		commandExecuters[CommandWord.GO.ordinal()] = new GoCommandExecuter();
+		commandExecuters[CommandWord.TAKE.ordinal()] = new TakeCommandExecuter();
+		commandExecuters[CommandWord.DROP.ordinal()] = new DropCommandExecuter();
+		commandExecuters[CommandWord.INSPECT.ordinal()] = new InspectCommandExecuter();
+		commandExecuters[CommandWord.INVENTORY.ordinal()] = new InventoryCommandExecuter();
+		commandExecuters[CommandWord.USE.ordinal()] = new UseCommandExecuter();
+		commandExecuters[CommandWord.QUIT.ordinal()] = new QuitCommandExecuter();
+		commandExecuters[CommandWord.PEEK.ordinal()] = new PeekCommandExecuter();
+		commandExecuters[CommandWord.HIGHSCORES.ordinal()] = new HighscoresCommandExecuter();
+		commandExecuters[CommandWord.HINT.ordinal()] = new HintCommandExecuter();
 
 		//Add event executers and associate them with event words
-		eventExecuters = new HashMap<>();
-		eventExecuters.put(EventWord.ADD_EXIT, new AddExitEventExecuter());
-		eventExecuters.put(EventWord.ADD_PLAYER_ITEM, new AddPlayerItemEventExecuter());
-		eventExecuters.put(EventWord.ADD_ROOM_ITEM, new AddRoomItemEventExecuter());
-		eventExecuters.put(EventWord.MAKE_NOISE, new MakeNoiseEventExecuter());
-		eventExecuters.put(EventWord.SET_DESCRIPTION, new SetDescriptionEventExecuter());
-		eventExecuters.put(EventWord.SET_OBJECT_DESCRIPTION, new SetObjectDescriptionEventExecuter());
-		eventExecuters.put(EventWord.REMOVE_PLAYER_ITEM, new RemovePlayerItemEventExecuter());
-		eventExecuters.put(EventWord.REMOVE_ROOM_ITEM, new RemoveRoomItemEventExecuter());
-		eventExecuters.put(EventWord.TELEPORT, new TeleportEventExecuter());
-		eventExecuters.put(EventWord.QUIT, new QuitEventExecuter());
+		eventExecuters = new EventExecuter[EventWord.values().length];
+		eventExecuters[EventWord.ADD_EXIT.ordinal()] = new AddExitEventExecuter();
+		eventExecuters[EventWord.ADD_PLAYER_ITEM.ordinal()] = new AddPlayerItemEventExecuter();
+		eventExecuters[EventWord.ADD_ROOM_ITEM.ordinal()] = new AddRoomItemEventExecuter();
+		eventExecuters[EventWord.MAKE_NOISE.ordinal()] = new MakeNoiseEventExecuter();
+		eventExecuters[EventWord.SET_DESCRIPTION.ordinal()] = new SetDescriptionEventExecuter();
+		eventExecuters[EventWord.SET_OBJECT_DESCRIPTION.ordinal()] = new SetObjectDescriptionEventExecuter();
+		eventExecuters[EventWord.REMOVE_PLAYER_ITEM.ordinal()] = new RemovePlayerItemEventExecuter();
+		eventExecuters[EventWord.REMOVE_ROOM_ITEM.ordinal()] = new RemoveRoomItemEventExecuter();
+		eventExecuters[EventWord.TELEPORT.ordinal()] = new TeleportEventExecuter();
+		eventExecuters[EventWord.SCHEDULE.ordinal()] = new ScheduleEventExecuter();
+		eventExecuters[EventWord.QUIT.ordinal()] = new QuitEventExecuter();
+		eventScheduler = new EventScheduler(clock);
 
 		//Add possible player characters
 		possibleCharacters = new ArrayList<>();
@@ -190,15 +349,19 @@ public class Game {
 		//Initialize score manager. This automatically reads the scores for the
 		//current level
 		scoreManager = new ScoreManager(dataMediator, levelName);
+
+		//Work out a plan for the hint engine while the level is untouched
+		hintEngine = new HintEngine(this);
 	}
 
 	/**
-	 * Get the monster in the game.
+	 * Get the index of the monsters in the game, which knows the rooms that
+	 * they are in.
 	 *
-	 * @return the monster
+	 * @return the monster index
 	 */
-	public Monster getMonster() {
-		return monster;
+	public MonsterIndex getMonsterIndex() {
+		return monsterIndex;
 	}
 
 	/**
@@ -217,6 +380,9 @@ public class Game {
 	 */
 	public void setPlayer(Character player) {
 		this.player = player;
+
+		//The character must be known when replaying the game
+		journal.setCharacterName(player.getName());
 	}
 
 	/**
@@ -255,7 +421,7 @@ public class Game {
 	 * @return the command executer associated with the specified command word
 	 */
 	public CommandExecuter getCommandExecuter(CommandWord commandWord) {
-		return commandExecuters.get(commandWord);
+		return commandExecuters[commandWord.ordinal()];
 	}
 
 	/**
@@ -266,7 +432,73 @@ public class Game {
 	 * @return the event executer associated with the specified event word
 	 */
 	public EventExecuter getEventExecuter(EventWord eventWord) {
-		return eventExecuters.get(eventWord);
+		return eventExecuters[eventWord.ordinal()];
+	}
+
+	/**
+	 * Get the scheduler of the events that happen later in the game.
+	 *
+	 * @return the event scheduler
+	 */
+	public EventScheduler getEventScheduler() {
+		return eventScheduler;
+	}
+
+	/**
+	 * Get the hint engine telling the player what to do next.
+	 *
+	 * @return the hint engine
+	 */
+	public HintEngine getHintEngine() {
+		return hintEngine;
+	}
+
+	/**
+	 * Get the clock of the game.
+	 *
+	 * @return the clock of the game
+	 */
+	public GameClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Get the random number generator of the game. All randomness in the game
+	 * must come from this generator, so that the game can be replayed.
+	 *
+	 * @return the random number generator of the game
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * Get the journal recording every command processed by the game.
+	 *
+	 * @return the journal of the game
+	 */
+	public CommandJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Set whether the journal should be saved to the file system when the game
+	 * ends. This is true by default.
+	 *
+	 * @param journalPersistent {@code true} if the journal should be saved,
+	 *                          {@code false} otherwise
+	 */
+	public void setJournalPersistent(boolean journalPersistent) {
+		this.journalPersistent = journalPersistent;
+	}
+
+	/**
+	 * Test whether the journal of this game is saved when the game ends.
+	 *
+	 * @return {@code true} if the journal is saved, {@code false} otherwise
+	 */
+	public boolean isJournalPersistent() {
+		return journalPersistent;
 	}
 
 	/**
@@ -278,6 +510,12 @@ public class Game {
 		//Set the game as running
 		running = true;
 
+		//Remember when the game was started. Commands are journaled relative
+		//to this time
+		clock.tick();
+		startTime = clock.getTime();
+		journal.setStartTime(System.currentTimeMillis());
+
 		//Print out game details
 		ViewUtil.newLine();
 		ViewUtil.println(welcomeMessage);
@@ -309,17 +547,55 @@ public class Game {
 			return;
 		}
 
-		//If the player is caught by the monster, game over
-		if (monster.isPlayerCaught()) {
+		//Measure the time taken to process the command, including notifying
+		//the listener. The command may be reused by the listener once it has
+		//been notified, so it is described before it is executed
+		CommandWord commandWord = command.getCommandWord();
+		CommandEvent event = new CommandEvent();
+		event.begin();
+		if (event.isEnabled()) {
+			event.parameters = command.getParameterString();
+		}
+
+		long start = System.nanoTime();
+		executeCommand(command);
+		GameMetrics.getInstance().recordCommand(commandWord, System.nanoTime() - start);
+		event.end();
+
+		//Only describe the command if it is actually recorded
+		if (event.shouldCommit()) {
+			event.level = journal.getLevelName();
+			event.commandWord = commandWord.name();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Carry out the action associated with the specified command, and notify
+	 * the listener of the outcome.
+	 *
+	 * @param command the command to execute
+	 */
+	private void executeCommand(Command command) {
+		//Update the clock, so that all time measurements made while processing
+		//this command agree, and journal the command
+		clock.tick();
+		journal.recordCommand(clock.getTime() - startTime, command);
+
+		//If the player is caught by a monster, game over
+		if (monsterIndex.isPlayerCaught()) {
 			ViewUtil.println("The monster caught you and shredded you to pieces!");
 			ViewUtil.println("GAME OVER");
 
 			//Game over, so we quit
 			end();
+			finishJournal();
+			releaseLevel();
+			eventScheduler.cancelAll();
 
 			//We notify the listener now, as we don't want to execute more code
 			//in the special case that the user was caught by the monster
-			listener.onGameIteration(ViewUtil.getString());
+			notifyIteration();
 			listener.onGameExit();
 			return;
 		}
@@ -327,32 +603,84 @@ public class Game {
 		//The player is still alive, so we can process the command
 		//Get the command executer associated with the specified CommandWord
 		//object
-		CommandExecuter executer = commandExecuters.get(command.getCommandWord());
+		CommandExecuter executer = commandExecuters[command.getCommandWord().ordinal()];
 
 		//If no such command executer was found that means the command word is
 		//unknown
 		if (executer == null) {
 			ViewUtil.println("I don't know what you mean.");
-			listener.onGameIteration(ViewUtil.getString());
+			notifyIteration();
 			return;
 		}
 
 		//At this point executer is able to execute the specified command
 		executer.execute(this, command);
 
-		//Notify the monster that a command has been entered.
-		monster.notifyOfCommand(this);
+		//Let the events that are due happen
+		eventScheduler.notifyOfCommand(this);
+
+		//Notify the monsters that a command has been entered.
+		long monsterStart = System.nanoTime();
+		monsterIndex.notifyOfCommand(this);
+		GameMetrics.getInstance().recordMonsterTick(System.nanoTime() - monsterStart);
 
 		//Notify the listener that an iteration has been made
-		listener.onGameIteration(ViewUtil.getString());
+		notifyIteration();
 
 		//If the game is no longer running after this iteration, notify the
 		//listener that the game has ended
 		if (!running) {
+			finishJournal();
+			releaseLevel();
+			eventScheduler.cancelAll();
 			listener.onGameExit();
 		}
 	}
 
+	/**
+	 * Notify the listener that an iteration has been made, passing it the
+	 * output of the iteration.
+	 */
+	private void notifyIteration() {
+		String output = ViewUtil.getString();
+		GameMetrics.getInstance().recordOutput(output.length());
+		listener.onGameIteration(output);
+	}
+
+	/**
+	 * Record the outcome of the game in the journal, and save the journal if
+	 * it is persistent. Should be called once when the game has ended.
+	 */
+	private void finishJournal() {
+		journal.recordEnd(scoreManager.getCurrentGameScore());
+
+		if (journalPersistent) {
+			dataMediator.saveJournalData(journal);
+		}
+	}
+
+	/**
+	 * Get the version of the level that the game plays.
+	 *
+	 * @return the version of the level, or null if the version has been
+	 *         released
+	 */
+	public LevelVersion getLevelVersion() {
+		return levelVersion;
+	}
+
+	/**
+	 * Release the version of the level that the game plays, so that it can be
+	 * dropped once a newer version is played. This happens when the game
+	 * ends, but should also be done when a game is abandoned.
+	 */
+	public void releaseLevel() {
+		if (levelVersion != null) {
+			levelVersion.release();
+			levelVersion = null;
+		}
+	}
+
 	/**
 	 * Notify the game that it should end.
 	 */
@@ -380,7 +708,7 @@ public class Game {
 	 * @param name the name of the player
 	 */
 	public void saveScore(String name) {
-		scoreManager.recordCurrentGameScore(name);
+		scoreManager.recordCurrentGameScore(name, player == null ? null : player.getName(), clock.getTime());
 	}
 
 	/**
@@ -389,6 +717,9 @@ public class Game {
 	 * @param room the room to add
 	 */
 	public void addRoom(Room room) {
+		room.setId(rooms.size());
+		room.setChasePlanner(chasePlanner);
+		rooms.add(room);
 		roomMap.put(room.getRoomName(), room);
 	}
 
@@ -420,6 +751,55 @@ public class Game {
 		return roomMap.get(name);
 	}
 
+	/**
+	 * Get the room with the specified id.
+	 *
+	 * @param id the id of the room
+	 * @return the room with the specified id
+	 * @throws IndexOutOfBoundsException if no room has the specified id
+	 */
+	public Room getRoomById(int id) {
+		return rooms.get(id);
+	}
+
+	/**
+	 * Get the number of rooms in the game.
+	 *
+	 * @return the number of rooms in the game
+	 */
+	public int getRoomCount() {
+		return rooms.size();
+	}
+
+	/**
+	 * Get the time that has passed on the game clock since the game was
+	 * started, as of the last command.
+	 *
+	 * @return the elapsed time, in milliseconds
+	 */
+	public long getElapsedTime() {
+		return clock.getTime() - startTime;
+	}
+
+	/**
+	 * Restore the running state and elapsed time of the game, and the journal
+	 * of commands that lead to this state. This is used when restoring the
+	 * game from a {@link GameSnapshot}.
+	 *
+	 * @param running     whether the game is running
+	 * @param elapsedTime the time that had passed on the game clock since the
+	 *                    game was started
+	 * @param journal     the journal of the game
+	 */
+	void restoreSession(boolean running, long elapsedTime, CommandJournal journal) {
+		this.running = running;
+		this.journal = journal;
+
+		//Rebase the start time on the current time of the clock
+		clock.tick();
+		startTime = clock.getTime() - elapsedTime;
+	}
+
 	/**
 	 * Subscribe to events from the game.
 	 *
@@ -0,0 +1,93 @@
+package castleescape.business.framework;
+
+/**
+ * Class defining the clock that a game uses to measure time. The time of the
+ * clock only changes when the clock is {@link #tick() ticked}, which the game
+ * does once per command. This way all time measurements made while processing
+ * a single command agree with each other, and the time can be recorded and
+ * played back exactly.
+ * <p>
+ * A clock is either driven by the system time, or it is virtual, in which case
+ * its time must be set manually using {@link #setTime(long)}. Virtual clocks
+ * are used when replaying a game at full speed.
+ */
+public class GameClock {
+
+	/**
+	 * Whether this clock is virtual, meaning that it is not driven by the
+	 * system time.
+	 */
+	private final boolean virtual;
+
+	/**
+	 * The current time of this clock, in milliseconds.
+	 */
+	private long time;
+
+	/**
+	 * Constructs a new clock that is driven by the system time.
+	 */
+	public GameClock() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new clock.
+	 *
+	 * @param virtual {@code true} if the clock should be virtual, {@code false}
+	 *                if it should be driven by the system time
+	 */
+	public GameClock(boolean virtual) {
+		this.virtual = virtual;
+
+		//Virtual clocks start at time 0, while other clocks start at the
+		//current system time
+		if (!virtual) {
+			time = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Update the time of this clock. For clocks driven by the system time this
+	 * will read the current system time. For virtual clocks this does nothing.
+	 */
+	public void tick() {
+		if (!virtual) {
+			time = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Set the time of this virtual clock.
+	 *
+	 * @param time the new time, in milliseconds
+	 * @throws IllegalStateException if this clock is not virtual
+	 */
+	public void setTime(long time) {
+		//Only virtual clocks can be controlled from outside
+		if (!virtual) {
+			throw new IllegalStateException("Only virtual clocks can be set!");
+		}
+
+		this.time = time;
+	}
+
+	/**
+	 * Get the time of this clock as of the last tick.
+	 *
+	 * @return the time of this clock, in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Test whether this clock is virtual.
+	 *
+	 * @return {@code true} if this clock is virtual, {@code false} if it is
+	 *         driven by the system time
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+}
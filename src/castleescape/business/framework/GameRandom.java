@@ -0,0 +1,86 @@
+package castleescape.business.framework;
+
+/**
+ * Class defining the random number generator of a game. All randomness in the
+ * game must come from this generator, so that a game can be replayed exactly
+ * from its seed.
+ * <p>
+ * The generator is a SplitMix64 generator. Unlike {@link java.util.Random},
+ * its entire state is a single long, which can be read and restored at any
+ * time.
+ */
+public class GameRandom {
+
+	/**
+	 * The amount that the state is advanced by for every number generated.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The state of the generator.
+	 */
+	private long state;
+
+	/**
+	 * Constructs a new random number generator with the specified seed.
+	 *
+	 * @param seed the seed of the generator
+	 */
+	public GameRandom(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Get the next random long.
+	 *
+	 * @return the next random long
+	 */
+	public long nextLong() {
+		//Advance the state and scramble it
+		long z = (state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Get the next random double in the range [0;1[.
+	 *
+	 * @return the next random double
+	 */
+	public double nextDouble() {
+		//Use the upper 53 bits, as that is the precision of a double
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Get the next random int in the range [0;bound[.
+	 *
+	 * @param bound the upper bound, must be positive
+	 * @return the next random int
+	 */
+	public int nextInt(int bound) {
+		//Scale 31 random bits to the bound. This is not perfectly uniform for
+		//huge bounds, but the bias is negligible for the amounts used in games
+		return (int) (((nextLong() >>> 33) * bound) >>> 31);
+	}
+
+	/**
+	 * Get the state of the generator. Passing this to {@link #setState(long)}
+	 * will make the generator repeat the numbers it generates from now on.
+	 *
+	 * @return the state of the generator
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Set the state of the generator.
+	 *
+	 * @param state the new state of the generator
+	 */
+	public void setState(long state) {
+		this.state = state;
+	}
+}
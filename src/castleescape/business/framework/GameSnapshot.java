@@ -0,0 +1,742 @@
+package castleescape.business.framework;
+
+import castleescape.business.event.Event;
+import castleescape.business.event.EventScheduler;
+import castleescape.business.event.EventScheduler.ScheduledEvent;
+import castleescape.business.event.EventWord;
+import castleescape.business.journal.CommandJournal;
+import castleescape.business.object.InspectableObject;
+import castleescape.business.object.InspectableObjectRegister;
+import castleescape.business.object.Inventory;
+import castleescape.business.object.Item;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for writing the complete state of a running game to a compact binary
+ * snapshot, and for restoring a game from such a snapshot.
+ * <p>
+ * A snapshot does not contain the level itself. Instead, rooms and inspectable
+ * objects are referred to by their ids, and only the parts of the level that
+ * can change during play are stored. A snapshot must therefore be restored
+ * into a game that has freshly loaded the same level.
+ * <p>
+ * All times are stored relative to the game clock at the time the snapshot is
+ * written, and they are rebased on the game clock when the snapshot is
+ * restored. The time that passes while a game is stored as a snapshot is thus
+ * not counted against the player, and scheduled events are delayed by it as
+ * well.
+ * <p>
+ * Snapshots are written directly to and read directly from NIO buffers, and
+ * apart from changed descriptions, small arrays of ids and the journal, no
+ * objects are allocated while writing.
+ * <p>
+ * The part of a snapshot describing the world, that is everything that the
+ * player can change through commands and events, can also be written and
+ * restored on its own. Two games with equal worlds are in the same state as
+ * far as the puzzles of the level are concerned. The world can be written in
+ * a canonical form, in which the order of items and exits is ignored, so that
+ * equal worlds are always written as equal bytes.
+ */
+public class GameSnapshot {
+
+	/**
+	 * The magic number at the start of every snapshot, "CES1".
+	 */
+	private static final int MAGIC = 0x43455331;
+
+	/**
+	 * The version of the snapshot format.
+	 */
+	private static final byte VERSION = 5;
+
+	/**
+	 * Flags describing the state of the game.
+	 */
+	private static final int FLAG_RUNNING = 1;
+
+	/**
+	 * Flags describing the state of a monster.
+	 */
+	private static final int FLAG_HUNTING = 1,
+			FLAG_WAITING_FOR_PLAYER = 2;
+
+	/**
+	 * The directions that can be stored as a single byte. Other directions
+	 * are stored as strings.
+	 */
+	private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+
+	/**
+	 * Marker for a direction that is stored as a string.
+	 */
+	private static final byte CUSTOM_DIRECTION = -1;
+
+	/**
+	 * Write a snapshot of the specified game to the specified buffer. The
+	 * snapshot is written at the current position of the buffer, and the
+	 * position is advanced past it.
+	 *
+	 * @param game   the game to write a snapshot of
+	 * @param buffer the buffer to write to
+	 * @throws java.nio.BufferOverflowException if the buffer is too small. The
+	 *                                          caller should retry with a
+	 *                                          larger buffer
+	 */
+	public static void write(Game game, ByteBuffer buffer) {
+		InspectableObjectRegister register = game.getInspectableObjectRegister();
+
+		//Header, including sizes of the level for sanity checking
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+		buffer.putInt(game.getRoomCount());
+		buffer.putInt(register.getObjectCount());
+
+		//Game state
+		buffer.put((byte) (game.isRunning() ? FLAG_RUNNING : 0));
+		buffer.putLong(game.getElapsedTime());
+		buffer.putLong(game.getRandom().getState());
+		buffer.putInt(game.getScoreManager().getCurrentGameScore());
+
+		//The player
+		Character player = game.getPlayer();
+		buffer.put((byte) (player == null ? -1 : game.getCharacters().indexOf(player)));
+
+		//The world
+		writeWorld(game, buffer);
+
+		//The steps of the hint plan that have been completed
+		HintEngine hintEngine = game.getHintEngine();
+		buffer.putInt(hintEngine.getStepCount());
+		for (int i = 0; i < hintEngine.getStepCount(); i++) {
+			buffer.put((byte) (hintEngine.isCompleted(i) ? 1 : 0));
+		}
+
+		//The monsters
+		writeMonsters(game, buffer);
+
+		//The journal, prefixed with its length
+		int lengthPosition = buffer.position();
+		buffer.putInt(0);
+		try {
+			game.getJournal().writeTo(new BufferOutputStream(buffer));
+		} catch (IOException e) {
+			//Writing to a buffer only fails with runtime exceptions
+			throw new UncheckedIOException(e);
+		}
+		buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+	}
+
+	/**
+	 * Restore the specified game from a snapshot in the specified buffer. The
+	 * game must have been constructed from the same level as the game that the
+	 * snapshot was written from, and it must not have processed any commands.
+	 * The snapshot is read from the current position of the buffer, and the
+	 * position is advanced past it.
+	 *
+	 * @param game   the game to restore
+	 * @param buffer the buffer to read from
+	 * @throws IllegalArgumentException if the buffer does not contain a
+	 *                                  snapshot of the game's level
+	 */
+	public static void restore(Game game, ByteBuffer buffer) {
+		InspectableObjectRegister register = game.getInspectableObjectRegister();
+
+		//Verify the header
+		if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+			throw new IllegalArgumentException("Not a game snapshot");
+		}
+
+		if (buffer.getInt() != game.getRoomCount() || buffer.getInt() != register.getObjectCount()) {
+			throw new IllegalArgumentException("The snapshot does not belong to this level");
+		}
+
+		//Game state. The clock is ticked first, as times are rebased on the
+		//current time of the game clock throughout the snapshot
+		game.getClock().tick();
+		int flags = buffer.get();
+		long elapsedTime = buffer.getLong();
+		game.getRandom().setState(buffer.getLong());
+
+		ScoreManager scoreManager = game.getScoreManager();
+		scoreManager.addPoints(buffer.getInt() - scoreManager.getCurrentGameScore());
+
+		//The player
+		int characterIndex = buffer.get();
+		if (characterIndex >= 0) {
+			game.setPlayer(game.getCharacters().get(characterIndex));
+		}
+
+		//The world
+		restoreWorld(game, buffer);
+
+		//The steps of the hint plan that have been completed
+		int stepCount = buffer.getInt();
+		if (stepCount != game.getHintEngine().getStepCount()) {
+			throw new IllegalArgumentException("The snapshot does not belong to this level");
+		}
+
+		boolean[] completed = new boolean[stepCount];
+		for (int i = 0; i < stepCount; i++) {
+			completed[i] = buffer.get() != 0;
+		}
+		game.getHintEngine().restoreProgress(completed);
+
+		//The monsters
+		restoreMonsters(game, buffer);
+
+		//The journal
+		int journalLength = buffer.getInt();
+		int journalEnd = buffer.position() + journalLength;
+		CommandJournal journal;
+		try {
+			journal = CommandJournal.readFrom(new BufferInputStream(buffer, journalEnd));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Corrupt journal in snapshot", e);
+		}
+		buffer.position(journalEnd);
+
+		game.restoreSession((flags & FLAG_RUNNING) != 0, elapsedTime, journal);
+	}
+
+	/**
+	 * Write the state of every monster in the specified game to the specified
+	 * buffer. Times are stored relative to the current time of the game clock.
+	 *
+	 * @param game   the game to write the monsters of
+	 * @param buffer the buffer to write to
+	 */
+	private static void writeMonsters(Game game, ByteBuffer buffer) {
+		MonsterIndex monsterIndex = game.getMonsterIndex();
+		long now = game.getClock().getTime();
+
+		buffer.putShort((short) monsterIndex.getMonsterCount());
+		for (Monster monster : monsterIndex.getMonsters()) {
+			int flags = (monster.isHunting() ? FLAG_HUNTING : 0)
+					| (monster.isWaitingForPlayer() ? FLAG_WAITING_FOR_PLAYER : 0);
+			buffer.put((byte) flags);
+			buffer.putInt(monster.getCurrentRoom().getId());
+			buffer.putInt(monster.getCountDown());
+			buffer.putLong(now - monster.getStartTime());
+			buffer.putLong(now - monster.getLastMove());
+
+			Deque<Room> chasePath = monster.getChasePath();
+			buffer.putInt(chasePath == null ? -1 : chasePath.size());
+			if (chasePath != null) {
+				for (Room room : chasePath) {
+					buffer.putInt(room.getId());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Restore the state of every monster in the specified game from the
+	 * specified buffer. Times are rebased on the current time of the game
+	 * clock.
+	 *
+	 * @param game   the game to restore the monsters of
+	 * @param buffer the buffer to read from
+	 * @throws IllegalArgumentException if the game has a different number of
+	 *                                  monsters than the snapshot
+	 */
+	private static void restoreMonsters(Game game, ByteBuffer buffer) {
+		MonsterIndex monsterIndex = game.getMonsterIndex();
+		long now = game.getClock().getTime();
+
+		if (buffer.getShort() != monsterIndex.getMonsterCount()) {
+			throw new IllegalArgumentException("The snapshot does not belong to this level");
+		}
+
+		for (Monster monster : monsterIndex.getMonsters()) {
+			int flags = buffer.get();
+			Room monsterRoom = game.getRoomById(buffer.getInt());
+			int countDown = buffer.getInt();
+			long startTime = now - buffer.getLong();
+			long lastMove = now - buffer.getLong();
+
+			Deque<Room> chasePath = null;
+			int pathLength = buffer.getInt();
+			if (pathLength >= 0) {
+				chasePath = new ArrayDeque<>(pathLength);
+				for (int i = 0; i < pathLength; i++) {
+					chasePath.add(game.getRoomById(buffer.getInt()));
+				}
+			}
+
+			monster.restoreState(monsterRoom,
+					(flags & FLAG_HUNTING) != 0,
+					(flags & FLAG_WAITING_FOR_PLAYER) != 0,
+					countDown, startTime, lastMove, chasePath);
+		}
+	}
+
+	/**
+	 * Write the world of the specified game to the specified buffer. The world
+	 * consists of the current room, the inventory of the player, the mutable
+	 * state of every room and inspectable object, and the events that have
+	 * been scheduled to happen later. The world is written
+	 * at the current position of the buffer, and the position is advanced past
+	 * it.
+	 *
+	 * @param game   the game to write the world of
+	 * @param buffer the buffer to write to
+	 * @throws java.nio.BufferOverflowException if the buffer is too small. The
+	 *                                          caller should retry with a
+	 *                                          larger buffer
+	 */
+	public static void writeWorld(Game game, ByteBuffer buffer) {
+		writeWorld(game, buffer, false);
+	}
+
+	/**
+	 * Write the world of the specified game to the specified buffer in
+	 * canonical form. Items, inspectable objects and exits are written in a
+	 * fixed order, so worlds that only differ in the order that items were
+	 * picked up or exits were added are written as equal bytes. The bytes can
+	 * thus be compared and hashed to identify the state of the level.
+	 * <p>
+	 * Restoring a canonical world reorders the items, inspectable objects and
+	 * exits of the game, which only changes the order in which they are
+	 * listed to the player.
+	 *
+	 * @param game   the game to write the world of
+	 * @param buffer the buffer to write to
+	 * @throws java.nio.BufferOverflowException if the buffer is too small. The
+	 *                                          caller should retry with a
+	 *                                          larger buffer
+	 */
+	public static void writeCanonicalWorld(Game game, ByteBuffer buffer) {
+		writeWorld(game, buffer, true);
+	}
+
+	/**
+	 * Write the world of the specified game to the specified buffer.
+	 *
+	 * @param game      the game to write the world of
+	 * @param buffer    the buffer to write to
+	 * @param canonical whether to write the world in canonical form
+	 */
+	private static void writeWorld(Game game, ByteBuffer buffer, boolean canonical) {
+		InspectableObjectRegister register = game.getInspectableObjectRegister();
+
+		buffer.putInt(game.getCurrentRoom().getId());
+
+		//The player, if one has been chosen
+		if (game.getPlayer() != null) {
+			writeInventory(game.getPlayer().getInventory(), buffer, canonical);
+		}
+
+		//The rooms
+		for (int i = 0; i < game.getRoomCount(); i++) {
+			writeRoom(game.getRoomById(i), buffer, canonical);
+		}
+
+		//Descriptions of inspectable objects, only if they have changed
+		for (int i = 0; i < register.getObjectCount(); i++) {
+			InspectableObject object = register.getById(i);
+			writeDescriptionDelta(object.getDescription(), object.getInitialDescription(), buffer);
+		}
+
+		writeScheduledEvents(game.getEventScheduler(), buffer);
+	}
+
+	/**
+	 * Restore the world of the specified game from the specified buffer. The
+	 * world must have been written by {@link #writeWorld(Game, ByteBuffer)} or
+	 * {@link #writeCanonicalWorld(Game, ByteBuffer)} from a game of the same
+	 * level, with the same player character. The rest
+	 * of the game, such as the monsters and the score, is left untouched.
+	 *
+	 * @param game   the game to restore the world of
+	 * @param buffer the buffer to read from
+	 */
+	public static void restoreWorld(Game game, ByteBuffer buffer) {
+		InspectableObjectRegister register = game.getInspectableObjectRegister();
+
+		game.setRoom(game.getRoomById(buffer.getInt()));
+
+		//The player, if one has been chosen
+		if (game.getPlayer() != null) {
+			readInventory(game.getPlayer().getInventory(), register, buffer);
+		}
+
+		//The rooms
+		for (int i = 0; i < game.getRoomCount(); i++) {
+			readRoom(game, game.getRoomById(i), buffer);
+		}
+
+		//Descriptions of inspectable objects
+		for (int i = 0; i < register.getObjectCount(); i++) {
+			InspectableObject object = register.getById(i);
+			object.setDescription(readDescriptionDelta(object.getInitialDescription(), buffer));
+		}
+
+		readScheduledEvents(game.getEventScheduler(), buffer);
+	}
+
+	/**
+	 * Write the mutable state of the specified room.
+	 *
+	 * @param room      the room to write
+	 * @param buffer    the buffer to write to
+	 * @param canonical whether to write objects and exits in a fixed order
+	 */
+	private static void writeRoom(Room room, ByteBuffer buffer, boolean canonical) {
+		writeDescriptionDelta(room.getDescription(), room.getInitialDescription(), buffer);
+		writeInventory(room.getInventory(), buffer, canonical);
+
+		//Static inspectable objects
+		List<InspectableObject> objects = room.getInspectableObjects();
+		int[] ids = new int[objects.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = objects.get(i).getId();
+		}
+		writeIds(ids, buffer, canonical);
+
+		//Exits, including those added while playing
+		Collection<Map.Entry<String, Room>> exits = room.getExits().entrySet();
+		if (canonical) {
+			List<Map.Entry<String, Room>> sortedExits = new ArrayList<>(exits);
+			sortedExits.sort(Map.Entry.comparingByKey());
+			exits = sortedExits;
+		}
+
+		buffer.put((byte) exits.size());
+		for (Map.Entry<String, Room> exit : exits) {
+			writeDirection(exit.getKey(), buffer);
+
+			//Exits to rooms that do not exist are stored as -1
+			buffer.putInt(exit.getValue() == null ? -1 : exit.getValue().getId());
+		}
+	}
+
+	/**
+	 * Read the mutable state of the specified room.
+	 *
+	 * @param game   the game that the room is in
+	 * @param room   the room to read
+	 * @param buffer the buffer to read from
+	 */
+	private static void readRoom(Game game, Room room, ByteBuffer buffer) {
+		InspectableObjectRegister register = game.getInspectableObjectRegister();
+
+		room.setDescription(readDescriptionDelta(room.getInitialDescription(), buffer));
+		readInventory(room.getInventory(), register, buffer);
+
+		//Static inspectable objects
+		room.clearInspectableObjects();
+		int objectCount = buffer.getShort();
+		for (int i = 0; i < objectCount; i++) {
+			room.addInspectableObject(register.getById(buffer.getInt()));
+		}
+
+		//Exits
+		room.clearExits();
+		int exitCount = buffer.get();
+		for (int i = 0; i < exitCount; i++) {
+			String direction = readDirection(buffer);
+			int roomId = buffer.getInt();
+			room.setExit(direction, roomId < 0 ? null : game.getRoomById(roomId));
+		}
+	}
+
+	/**
+	 * Write the items in the specified inventory.
+	 *
+	 * @param inventory the inventory to write
+	 * @param buffer    the buffer to write to
+	 * @param canonical whether to write the items in a fixed order
+	 */
+	private static void writeInventory(Inventory inventory, ByteBuffer buffer, boolean canonical) {
+		int[] ids = new int[inventory.getItemCount()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = inventory.getItemByIndex(i).getId();
+		}
+		writeIds(ids, buffer, canonical);
+	}
+
+	/**
+	 * Write a list of ids of inspectable objects, prefixed with its length.
+	 *
+	 * @param ids       the ids to write
+	 * @param buffer    the buffer to write to
+	 * @param canonical whether to write the ids in ascending order rather
+	 *                  than the order given
+	 */
+	private static void writeIds(int[] ids, ByteBuffer buffer, boolean canonical) {
+		if (canonical) {
+			Arrays.sort(ids);
+		}
+
+		buffer.putShort((short) ids.length);
+		for (int id : ids) {
+			buffer.putInt(id);
+		}
+	}
+
+	/**
+	 * Read the items of the specified inventory, replacing its current items.
+	 *
+	 * @param inventory the inventory to read into
+	 * @param register  the register to look up items in
+	 * @param buffer    the buffer to read from
+	 */
+	private static void readInventory(Inventory inventory, InspectableObjectRegister register, ByteBuffer buffer) {
+		inventory.clear();
+		int itemCount = buffer.getShort();
+		for (int i = 0; i < itemCount; i++) {
+			inventory.addItem((Item) register.getById(buffer.getInt()));
+		}
+	}
+
+	/**
+	 * Write the events that have been scheduled but have not happened yet, in
+	 * the order that they were scheduled. The delay of every event is stored
+	 * relative to the current time of the game clock, or as the number of
+	 * commands remaining.
+	 *
+	 * @param scheduler the scheduler of the events
+	 * @param buffer    the buffer to write to
+	 */
+	private static void writeScheduledEvents(EventScheduler scheduler, ByteBuffer buffer) {
+		Collection<ScheduledEvent> scheduledEvents = scheduler.getScheduledEvents();
+		buffer.putShort((short) scheduledEvents.size());
+
+		//Iterating allocates, so only do it if there is something to write
+		if (scheduledEvents.isEmpty()) {
+			return;
+		}
+
+		for (ScheduledEvent scheduledEvent : scheduledEvents) {
+			Event event = scheduledEvent.getEvent();
+			buffer.put((byte) (scheduledEvent.isCountingCommands() ? 1 : 0));
+			buffer.putLong(scheduler.getRemaining(scheduledEvent));
+			buffer.put((byte) event.getEventWord().ordinal());
+
+			Map<String, String> params = event.getEventParams();
+			buffer.put((byte) params.size());
+			for (Map.Entry<String, String> param : params.entrySet()) {
+				writeString(param.getKey(), buffer);
+				writeString(param.getValue(), buffer);
+			}
+		}
+	}
+
+	/**
+	 * Read the events written by
+	 * {@link #writeScheduledEvents(EventScheduler, ByteBuffer)}, replacing the
+	 * events that are currently scheduled.
+	 *
+	 * @param scheduler the scheduler to schedule the events in
+	 * @param buffer    the buffer to read from
+	 */
+	private static void readScheduledEvents(EventScheduler scheduler, ByteBuffer buffer) {
+		scheduler.cancelAll();
+
+		int eventCount = buffer.getShort();
+		for (int i = 0; i < eventCount; i++) {
+			boolean countingCommands = buffer.get() != 0;
+			long remaining = buffer.getLong();
+			EventWord eventWord = EventWord.values()[buffer.get()];
+
+			int paramCount = buffer.get();
+			Map<String, String> params = new HashMap<>();
+			for (int j = 0; j < paramCount; j++) {
+				params.put(readString(buffer), readString(buffer));
+			}
+
+			Event event = new Event(eventWord, params);
+			if (countingCommands) {
+				scheduler.scheduleAfterCommands(event, remaining);
+			} else {
+				scheduler.scheduleAfterDelay(event, remaining);
+			}
+		}
+	}
+
+	/**
+	 * Write a description, but only if it differs from the initial
+	 * description. Descriptions only change through events, which replace
+	 * them with other strings, so comparing references is enough.
+	 *
+	 * @param description        the current description
+	 * @param initialDescription the initial description
+	 * @param buffer             the buffer to write to
+	 */
+	private static void writeDescriptionDelta(String description, String initialDescription, ByteBuffer buffer) {
+		if (description == initialDescription) {
+			buffer.put((byte) 0);
+		} else {
+			buffer.put((byte) 1);
+			writeString(description, buffer);
+		}
+	}
+
+	/**
+	 * Read a description written by
+	 * {@link #writeDescriptionDelta(String, String, ByteBuffer)}.
+	 *
+	 * @param initialDescription the initial description
+	 * @param buffer             the buffer to read from
+	 * @return the description that was read
+	 */
+	private static String readDescriptionDelta(String initialDescription, ByteBuffer buffer) {
+		if (buffer.get() == 0) {
+			return initialDescription;
+		}
+
+		return readString(buffer);
+	}
+
+	/**
+	 * Write a direction, using a single byte for the standard directions.
+	 *
+	 * @param direction the direction to write
+	 * @param buffer    the buffer to write to
+	 */
+	private static void writeDirection(String direction, ByteBuffer buffer) {
+		for (int i = 0; i < DIRECTIONS.length; i++) {
+			if (DIRECTIONS[i].equals(direction)) {
+				buffer.put((byte) i);
+				return;
+			}
+		}
+
+		buffer.put(CUSTOM_DIRECTION);
+		writeString(direction, buffer);
+	}
+
+	/**
+	 * Read a direction written by {@link #writeDirection(String, ByteBuffer)}.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the direction that was read
+	 */
+	private static String readDirection(ByteBuffer buffer) {
+		byte code = buffer.get();
+		return code == CUSTOM_DIRECTION ? readString(buffer) : DIRECTIONS[code];
+	}
+
+	/**
+	 * Write a string, which may be null, as its length followed by its chars.
+	 *
+	 * @param s      the string to write
+	 * @param buffer the buffer to write to
+	 */
+	private static void writeString(String s, ByteBuffer buffer) {
+		if (s == null) {
+			buffer.putInt(-1);
+			return;
+		}
+
+		buffer.putInt(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			buffer.putChar(s.charAt(i));
+		}
+	}
+
+	/**
+	 * Read a string written by {@link #writeString(String, ByteBuffer)}.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the string that was read
+	 */
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+
+		char[] chars = new char[length];
+		buffer.asCharBuffer().get(chars);
+		buffer.position(buffer.position() + length * 2);
+		return new String(chars);
+	}
+
+	/**
+	 * An output stream writing directly to a buffer.
+	 */
+	private static class BufferOutputStream extends OutputStream {
+
+		/**
+		 * The buffer to write to.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Constructs a new output stream writing to the specified buffer.
+		 *
+		 * @param buffer the buffer to write to
+		 */
+		BufferOutputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void write(int b) {
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			buffer.put(b, off, len);
+		}
+	}
+
+	/**
+	 * An input stream reading directly from a buffer, up to a limit.
+	 */
+	private static class BufferInputStream extends InputStream {
+
+		/**
+		 * The buffer to read from.
+		 */
+		private final ByteBuffer buffer;
+
+		/**
+		 * The position in the buffer at which the stream ends.
+		 */
+		private final int end;
+
+		/**
+		 * Constructs a new input stream reading from the specified buffer.
+		 *
+		 * @param buffer the buffer to read from
+		 * @param end    the position in the buffer at which the stream ends
+		 */
+		BufferInputStream(ByteBuffer buffer, int end) {
+			this.buffer = buffer;
+			this.end = end;
+		}
+
+		@Override
+		public int read() {
+			return buffer.position() < end ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			int available = end - buffer.position();
+			if (available <= 0) {
+				return -1;
+			}
+
+			int count = Math.min(len, available);
+			buffer.get(b, off, count);
+			return count;
+		}
+	}
+}
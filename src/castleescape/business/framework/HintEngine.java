@@ -0,0 +1,455 @@
+package castleescape.business.framework;
+
+import castleescape.business.event.Event;
+import castleescape.business.event.EventWord;
+import castleescape.business.object.InspectableObject;
+import castleescape.business.object.InspectableObjectRegister;
+import castleescape.business.object.Inventory;
+import castleescape.business.object.Item;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class for telling the player what to do next.
+ * <p>
+ * When a level is loaded, a plan for winning it is worked out backwards from
+ * the quit events of the level. Every step of the plan is an inspection or a
+ * use that triggers events, and it is preceded by the steps that produce the
+ * objects it needs, or open up the rooms that they are in. The plan is kept
+ * in the order that the steps must be taken.
+ * <p>
+ * While the game is played, every executed event marks its step as
+ * completed, and a pointer to the first step that has not been completed is
+ * moved forward. Giving a hint is thus a matter of describing the step at the
+ * pointer, and no searching is done while playing.
+ */
+public class HintEngine {
+
+	/**
+	 * The steps of the plan, in the order that they must be taken.
+	 */
+	private final List<Step> plan;
+
+	/**
+	 * The index in the plan of the step triggering every planned event. Events
+	 * are compared by identity, as equal events may belong to different steps.
+	 */
+	private final Map<Event, Integer> stepIndices;
+
+	/**
+	 * Whether each step of the plan has been completed.
+	 */
+	private final boolean[] completed;
+
+	/**
+	 * The index of the first step of the plan that has not been completed.
+	 */
+	private int next;
+
+	/**
+	 * Constructs a new hint engine, working out a plan for winning the level
+	 * of the specified game. The game must not have processed any commands.
+	 *
+	 * @param game the game to give hints for
+	 */
+	HintEngine(Game game) {
+		plan = new Planner(game).createPlan();
+
+		stepIndices = new IdentityHashMap<>();
+		for (int i = 0; i < plan.size(); i++) {
+			for (Event event : plan.get(i).events) {
+				stepIndices.put(event, i);
+			}
+		}
+
+		completed = new boolean[plan.size()];
+	}
+
+	/**
+	 * Notify the hint engine that the specified event has been executed. If
+	 * the event is part of the plan, its step is marked as completed.
+	 *
+	 * @param event the event that was executed
+	 */
+	public void notifyOfEvent(Event event) {
+		Integer index = stepIndices.get(event);
+		if (index != null) {
+			completed[index] = true;
+			advance();
+		}
+	}
+
+	/**
+	 * Move the pointer past all completed steps.
+	 */
+	private void advance() {
+		while (next < completed.length && completed[next]) {
+			next++;
+		}
+	}
+
+	/**
+	 * Get a hint about what the player should do next.
+	 *
+	 * @param game the game to give a hint for
+	 * @return the hint
+	 */
+	public String getHint(Game game) {
+		if (plan.isEmpty()) {
+			return "I have no idea how to get out of here either.";
+		} else if (next == plan.size()) {
+			return "You have done everything there is to do. Now get out of here!";
+		}
+
+		Step step = plan.get(next);
+		String name = step.subject.getName();
+
+		//Inspections only need the object
+		if (step.target == null) {
+			if (step.room == null) {
+				return "Have a closer look at the " + name + ".";
+			}
+
+			return "Have a closer look at the " + name + " in the " + step.room.getRoomName() + ".";
+		}
+
+		//Uses need the item in the inventory of the player
+		Inventory inventory = game.getPlayer().getInventory();
+		if (!inventory.containsItem((Item) step.subject)) {
+			if (game.getCurrentRoom().getInventory().containsItem((Item) step.subject)) {
+				return "Pick up the " + name + ". You will need it.";
+			}
+
+			return "You will need the " + name + ".";
+		}
+
+		return "Try using the " + name + " on the " + step.target + ".";
+	}
+
+	/**
+	 * Get the number of steps in the plan.
+	 *
+	 * @return the number of steps
+	 */
+	int getStepCount() {
+		return plan.size();
+	}
+
+	/**
+	 * Test whether the step with the specified index has been completed.
+	 *
+	 * @param index the index of the step
+	 * @return {@code true} if the step has been completed, {@code false}
+	 *         otherwise
+	 */
+	boolean isCompleted(int index) {
+		return completed[index];
+	}
+
+	/**
+	 * Restore which steps have been completed. This is used when restoring
+	 * the game from a {@link GameSnapshot}.
+	 *
+	 * @param completed whether each step of the plan has been completed
+	 */
+	void restoreProgress(boolean[] completed) {
+		System.arraycopy(completed, 0, this.completed, 0, this.completed.length);
+		next = 0;
+		advance();
+	}
+
+	/**
+	 * A step of the plan, which is either an inspection of an object or a use
+	 * of an item with another object.
+	 */
+	private static class Step {
+
+		/**
+		 * The object to inspect, or the item to use.
+		 */
+		private final InspectableObject subject;
+
+		/**
+		 * The name of the object to use the item with, or null if this step is
+		 * an inspection.
+		 */
+		private final String target;
+
+		/**
+		 * The events triggered by this step.
+		 */
+		private final List<Event> events;
+
+		/**
+		 * The room that the object to inspect is in, or null if it may move or
+		 * this step is a use.
+		 */
+		private Room room;
+
+		/**
+		 * Constructs a new step.
+		 *
+		 * @param subject the object to inspect, or the item to use
+		 * @param target  the name of the object to use the item with, or null
+		 *                if the step is an inspection
+		 * @param events  the events triggered by the step
+		 */
+		Step(InspectableObject subject, String target, List<Event> events) {
+			this.subject = subject;
+			this.target = target;
+			this.events = events;
+		}
+	}
+
+	/**
+	 * Class for working out a plan for winning a level by searching backwards
+	 * from its quit events.
+	 */
+	private static class Planner {
+
+		/**
+		 * The game whose level to plan for.
+		 */
+		private final Game game;
+
+		/**
+		 * The rooms that the objects and items of the level start in, mapped by
+		 * the names of the objects and items.
+		 */
+		private final Map<String, Room> startRooms = new HashMap<>();
+
+		/**
+		 * The rooms that can be reached from the start room without any events.
+		 */
+		private final Set<Room> reachable;
+
+		/**
+		 * The steps that add each object or item to the game, mapped by the
+		 * name of the object or item.
+		 */
+		private final Map<String, List<Step>> producers = new HashMap<>();
+
+		/**
+		 * The rooms that each step adding exits or teleporting the player makes
+		 * reachable.
+		 */
+		private final Map<Step, Set<Room>> unlocks = new HashMap<>();
+
+		/**
+		 * The steps ending the game.
+		 */
+		private final List<Step> goals = new ArrayList<>();
+
+		/**
+		 * The plan worked out so far.
+		 */
+		private final List<Step> plan = new ArrayList<>();
+
+		/**
+		 * The steps in the plan worked out so far.
+		 */
+		private final Set<Step> planned = new HashSet<>();
+
+		/**
+		 * The steps currently being planned, to avoid going in circles.
+		 */
+		private final Set<Step> visiting = new HashSet<>();
+
+		/**
+		 * Constructs a new planner, collecting the steps of the level.
+		 *
+		 * @param game the game whose level to plan for
+		 */
+		Planner(Game game) {
+			this.game = game;
+
+			//Find out where everything starts
+			for (int i = 0; i < game.getRoomCount(); i++) {
+				Room room = game.getRoomById(i);
+				for (InspectableObject object : room.getInspectableObjects()) {
+					startRooms.put(object.getName(), room);
+				}
+
+				Inventory inventory = room.getInventory();
+				for (int j = 0; j < inventory.getItemCount(); j++) {
+					startRooms.put(inventory.getItemByIndex(j).getName(), room);
+				}
+			}
+
+			reachable = getReachableRooms(game.getCurrentRoom());
+
+			//Every inspection and use that triggers events is a possible step
+			InspectableObjectRegister register = game.getInspectableObjectRegister();
+			for (int i = 0; i < register.getObjectCount(); i++) {
+				InspectableObject object = register.getById(i);
+				if (!object.getInspectEvents().isEmpty()) {
+					Step step = new Step(object, null, object.getInspectEvents());
+					if (!(object instanceof Item)) {
+						step.room = startRooms.get(object.getName());
+					}
+					addStep(step);
+				}
+
+				if (object instanceof Item) {
+					for (Map.Entry<String, List<Event>> use : ((Item) object).getObjectInteractions().entrySet()) {
+						addStep(new Step(object, use.getKey(), use.getValue()));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Record what the specified step accomplishes.
+		 *
+		 * @param step the step
+		 */
+		private void addStep(Step step) {
+			for (Event event : step.events) {
+				EventWord word = event.getEventWord();
+
+				//A scheduled event accomplishes what its follow-up event does
+				if (word == EventWord.SCHEDULE) {
+					word = EventWord.getEventWord(event.getEventParam(Event.THEN));
+				}
+
+				if (word == EventWord.QUIT) {
+					goals.add(step);
+				} else if (word == EventWord.ADD_ROOM_ITEM || word == EventWord.ADD_PLAYER_ITEM) {
+					producers.computeIfAbsent(event.getEventParam(Event.ITEM), name -> new ArrayList<>()).add(step);
+				} else if (word == EventWord.ADD_EXIT || word == EventWord.TELEPORT) {
+					Room destination = game.getRoom(event.getEventParam(Event.DESTINATION));
+					if (destination != null) {
+						unlocks.computeIfAbsent(step, s -> new HashSet<>()).addAll(getReachableRooms(destination));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Get the rooms that can be reached from the specified room through the
+		 * exits that the rooms start with.
+		 *
+		 * @param start the room to start from
+		 * @return the reachable rooms, including the start room
+		 */
+		private Set<Room> getReachableRooms(Room start) {
+			Set<Room> rooms = new HashSet<>();
+			Deque<Room> queue = new ArrayDeque<>();
+			rooms.add(start);
+			queue.add(start);
+
+			while (!queue.isEmpty()) {
+				for (Room neighbor : queue.poll().getExits().values()) {
+					if (neighbor != null && rooms.add(neighbor)) {
+						queue.add(neighbor);
+					}
+				}
+			}
+
+			return rooms;
+		}
+
+		/**
+		 * Work out a plan for reaching the first quit event that can be
+		 * reached.
+		 *
+		 * @return the steps of the plan, or an empty list if no quit event can
+		 *         be reached
+		 */
+		List<Step> createPlan() {
+			for (Step goal : goals) {
+				if (require(goal)) {
+					return plan;
+				}
+			}
+
+			return Collections.emptyList();
+		}
+
+		/**
+		 * Add the specified step to the plan, preceded by the steps that it
+		 * depends on.
+		 *
+		 * @param step the step to add
+		 * @return {@code true} if the step could be planned, {@code false}
+		 *         otherwise
+		 */
+		private boolean require(Step step) {
+			if (planned.contains(step)) {
+				return true;
+			} else if (!visiting.add(step)) {
+				return false;
+			}
+
+			//Steps planned for a requirement that cannot be met are undone
+			int mark = plan.size();
+			boolean possible = obtain(step.subject.getName())
+					&& (step.target == null || obtain(step.target));
+			visiting.remove(step);
+
+			if (possible) {
+				plan.add(step);
+				planned.add(step);
+			} else {
+				while (plan.size() > mark) {
+					planned.remove(plan.remove(plan.size() - 1));
+				}
+			}
+
+			return possible;
+		}
+
+		/**
+		 * Add the steps needed to get hold of the object or item with the
+		 * specified name to the plan.
+		 *
+		 * @param name the name of the object or item
+		 * @return {@code true} if the object or item can be obtained,
+		 *         {@code false} otherwise
+		 */
+		private boolean obtain(String name) {
+			Room room = startRooms.get(name);
+			if (room != null && reach(room)) {
+				return true;
+			}
+
+			for (Step producer : producers.getOrDefault(name, Collections.emptyList())) {
+				if (require(producer)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Add the steps needed to reach the specified room to the plan.
+		 *
+		 * @param room the room
+		 * @return {@code true} if the room can be reached, {@code false}
+		 *         otherwise
+		 */
+		private boolean reach(Room room) {
+			if (reachable.contains(room)) {
+				return true;
+			}
+
+			for (Map.Entry<Step, Set<Room>> unlock : unlocks.entrySet()) {
+				if (unlock.getValue().contains(room) && require(unlock.getKey())) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,470 @@
+package castleescape.business.framework;
+
+import castleescape.data.DataMediator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class holding the scores of a level, shared by all games of that level in
+ * the application. A score recorded by one game is thus seen immediately by
+ * every other game, without reading the score file again.
+ * <p>
+ * Scores can be added by many threads at once without locking. They are kept
+ * in a concurrent skip list ordered by points, with equal points ordered by
+ * when they were added. On top of that, the best scores are published as an
+ * immutable array that is replaced with compare-and-set, so reading the top
+ * of the leaderboard is a single read. The number of scores with each amount
+ * of points is counted in a Fenwick tree of atomic counters, so the rank of
+ * an amount of points is found in logarithmic time without walking the skip
+ * list.
+ * <p>
+ * The leaderboard also keeps the {@link ScoreDistribution} of the level, which
+ * is saved after every new score, and a {@link ScoreWindow} for every
+ * {@link Period} shorter than all time.
+ */
+public class Leaderboard {
+
+	/**
+	 * The periods of time that the best scores can be limited to.
+	 */
+	public enum Period {
+		/**
+		 * The last day, in buckets of an hour.
+		 */
+		DAY(60 * 60 * 1000L, 24),
+		/**
+		 * The last week, in buckets of a day.
+		 */
+		WEEK(24 * 60 * 60 * 1000L, 7),
+		/**
+		 * All time.
+		 */
+		ALL_TIME(0, 0);
+
+		/**
+		 * The length of each bucket of the period, in milliseconds.
+		 */
+		private final long bucketLength;
+
+		/**
+		 * The number of buckets in the period.
+		 */
+		private final int bucketCount;
+
+		/**
+		 * Constructs a new period.
+		 *
+		 * @param bucketLength the length of each bucket, in milliseconds
+		 * @param bucketCount  the number of buckets in the period, or 0 if
+		 *                     the period is not limited
+		 */
+		Period(long bucketLength, int bucketCount) {
+			this.bucketLength = bucketLength;
+			this.bucketCount = bucketCount;
+		}
+	}
+
+	/**
+	 * The number of best scores that are published for reading in a single
+	 * step.
+	 */
+	public static final int TOP_SIZE = 10;
+
+	/**
+	 * The amount of points up to which scores are counted in the Fenwick tree.
+	 * Ranks of scores outside of this range are found by walking the skip
+	 * list, which is rarely needed.
+	 */
+	private static final int COUNTED_POINTS = 1 << 16;
+
+	/**
+	 * The maximum number of best scores that can be read for a period shorter
+	 * than all time.
+	 */
+	public static final int WINDOW_SIZE = 100;
+
+	/**
+	 * The leaderboards of all levels that have been played, by level name.
+	 */
+	private static final ConcurrentMap<String, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+
+	/**
+	 * The order of the scores: most points first, and earliest first among
+	 * equal points.
+	 */
+	private static final Comparator<Entry> ORDER = Comparator
+			.comparingInt((Entry e) -> -e.score.getPlayerScore())
+			.thenComparingLong(e -> e.sequence);
+
+	/**
+	 * The name of the level of this leaderboard.
+	 */
+	private final String levelName;
+
+	/**
+	 * The data mediator used to save new scores.
+	 */
+	private final DataMediator dataMediator;
+
+	/**
+	 * All scores of the level.
+	 */
+	private final ConcurrentSkipListSet<Entry> entries;
+
+	/**
+	 * The best scores, at most {@link #TOP_SIZE} of them, in order. The array
+	 * is never modified, only replaced.
+	 */
+	private final AtomicReference<Entry[]> top;
+
+	/**
+	 * The number of scores with each amount of points within the counted
+	 * range, as a Fenwick tree. Index i counts the points below i in a range
+	 * ending at i, as is usual for Fenwick trees.
+	 */
+	private final AtomicLongArray counts;
+
+	/**
+	 * The number of scores with more points than the counted range.
+	 */
+	private final AtomicLong aboveCounted;
+
+	/**
+	 * The number of scores.
+	 */
+	private final AtomicInteger size;
+
+	/**
+	 * The source of sequence numbers for ordering equal scores.
+	 */
+	private final AtomicLong sequence;
+
+	/**
+	 * The distribution of the scores of the level. It is set when the saved
+	 * scores are loaded.
+	 */
+	private ScoreDistribution distribution;
+
+	/**
+	 * Whether the saved scores of the level have been loaded. Guarded by the
+	 * lock of this leaderboard.
+	 */
+	private boolean loaded;
+
+	/**
+	 * The best scores of each period shorter than all time.
+	 */
+	private final Map<Period, ScoreWindow> windows;
+
+	/**
+	 * Constructs a new, empty leaderboard. The saved scores of the level are
+	 * read by {@link #load()}.
+	 *
+	 * @param dataMediator the data mediator to read and save scores with
+	 * @param levelName    the name of the level
+	 */
+	private Leaderboard(DataMediator dataMediator, String levelName) {
+		this.dataMediator = dataMediator;
+		this.levelName = levelName;
+		entries = new ConcurrentSkipListSet<>(ORDER);
+		top = new AtomicReference<>(new Entry[0]);
+		counts = new AtomicLongArray(COUNTED_POINTS + 1);
+		aboveCounted = new AtomicLong();
+		size = new AtomicInteger();
+		sequence = new AtomicLong();
+		windows = new EnumMap<>(Period.class);
+		for (Period period : Period.values()) {
+			if (period.bucketCount > 0) {
+				windows.put(period, new ScoreWindow(period.bucketLength, period.bucketCount, WINDOW_SIZE));
+			}
+		}
+	}
+
+	/**
+	 * Read the saved scores of the level, unless they have already been read.
+	 * Threads loading the same leaderboard at once wait for the first of
+	 * them to read the scores.
+	 */
+	private synchronized void load() {
+		if (loaded) {
+			return;
+		}
+
+		//The scores are read without locking the data mediator, as games may
+		//be created while it is locked
+		List<Score> saved = dataMediator.readScores(levelName);
+		ScoreDistribution savedDistribution = dataMediator.readScoreDistribution(levelName);
+
+		for (Score score : saved) {
+			insert(score);
+		}
+
+		//The saved distribution does not match the scores if it was never
+		//saved, or if scores were saved without it, such as by other processes.
+		//The distribution is then computed from the scores
+		if (savedDistribution != null && savedDistribution.getLevelHistogram().getCount() == saved.size()) {
+			distribution = savedDistribution;
+		} else {
+			distribution = new ScoreDistribution();
+			for (Score score : saved) {
+				distribution.record(score.getPlayerScore(), score.getCharacterName());
+			}
+
+			//Levels without scores need no file until they get one
+			if (!saved.isEmpty()) {
+				dataMediator.saveScoreDistribution(levelName, distribution);
+			}
+		}
+
+		loaded = true;
+	}
+
+	/**
+	 * Get the leaderboard of the level with the specified name. The saved
+	 * scores of the level are read the first time that its leaderboard is
+	 * requested.
+	 *
+	 * @param dataMediator the data mediator to read and save scores with, if
+	 *                     the leaderboard does not exist yet
+	 * @param levelName    the name of the level
+	 * @return the leaderboard of the level
+	 */
+	public static Leaderboard forLevel(DataMediator dataMediator, String levelName) {
+		//The map must not wait for the file system, so the leaderboard is put
+		//in the map empty, and its scores are read once it is there
+		Leaderboard leaderboard = leaderboards.computeIfAbsent(levelName, name -> new Leaderboard(dataMediator, name));
+		leaderboard.load();
+		return leaderboard;
+	}
+
+	/**
+	 * Get the name of the level of this leaderboard.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the distribution of the scores of the level.
+	 *
+	 * @return the distribution
+	 */
+	public ScoreDistribution getDistribution() {
+		return distribution;
+	}
+
+	/**
+	 * Add the specified score to the leaderboard, and save it in the score
+	 * file of the level along with the new distribution of the scores. Both
+	 * are saved in the background, so the caller never waits for the file
+	 * system.
+	 *
+	 * @param score the score to add
+	 */
+	public void add(Score score) {
+		insert(score);
+		distribution.record(score.getPlayerScore(), score.getCharacterName());
+		dataMediator.saveScoreData(levelName, score);
+		dataMediator.saveScoreDistribution(levelName, distribution);
+	}
+
+	/**
+	 * Add the specified score to the leaderboard without saving it.
+	 *
+	 * @param score the score to add
+	 */
+	private void insert(Score score) {
+		Entry entry = new Entry(score, sequence.getAndIncrement());
+		entries.add(entry);
+		count(score.getPlayerScore());
+		size.incrementAndGet();
+		for (ScoreWindow window : windows.values()) {
+			window.record(score);
+		}
+
+		//Publish a new array of best scores if the score belongs there. Other
+		//threads may publish at the same time, in which case we try again
+		Entry[] current;
+		Entry[] updated;
+		do {
+			current = top.get();
+			int position = current.length;
+			while (position > 0 && ORDER.compare(entry, current[position - 1]) < 0) {
+				position--;
+			}
+
+			if (position >= TOP_SIZE) {
+				return;
+			}
+
+			updated = new Entry[Math.min(current.length + 1, TOP_SIZE)];
+			System.arraycopy(current, 0, updated, 0, position);
+			updated[position] = entry;
+			System.arraycopy(current, position, updated, position + 1, updated.length - position - 1);
+		} while (!top.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Count a score with the specified amount of points.
+	 *
+	 * @param points the amount of points
+	 */
+	private void count(int points) {
+		if (points >= COUNTED_POINTS) {
+			aboveCounted.incrementAndGet();
+		} else {
+			//Scores below zero are counted as zero, and ranked by walking
+			for (int i = Math.max(points, 0) + 1; i <= COUNTED_POINTS; i += i & -i) {
+				counts.getAndIncrement(i);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of counted scores with less than the specified amount of
+	 * points, including scores below zero.
+	 *
+	 * @param points the amount of points, within the counted range
+	 * @return the number of scores
+	 */
+	private long countBelow(int points) {
+		long count = 0;
+		for (int i = points; i > 0; i -= i & -i) {
+			count += counts.get(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the number of scores in the leaderboard.
+	 *
+	 * @return the number of scores
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Get the highest score of the leaderboard.
+	 *
+	 * @return the highest score, or null if there are no scores
+	 */
+	public Score getHighscore() {
+		Entry[] best = top.get();
+		return best.length == 0 ? null : best[0].score;
+	}
+
+	/**
+	 * Get the best scores of the leaderboard, in order. Up to
+	 * {@link #TOP_SIZE} scores are read in a single step. More scores are read
+	 * from the skip list, which may reflect scores added while reading.
+	 *
+	 * @param count the number of scores to get, or -1 to get all scores
+	 * @return the best scores
+	 */
+	public List<Score> getTopScores(int count) {
+		List<Score> scores = new ArrayList<>();
+		if (count >= 0 && count <= TOP_SIZE) {
+			Entry[] best = top.get();
+			for (int i = 0; i < count && i < best.length; i++) {
+				scores.add(best[i].score);
+			}
+		} else {
+			Iterator<Entry> it = entries.iterator();
+			while (it.hasNext() && (count < 0 || scores.size() < count)) {
+				scores.add(it.next().score);
+			}
+		}
+
+		return Collections.unmodifiableList(scores);
+	}
+
+	/**
+	 * Get the best scores achieved within the specified period, in order. For
+	 * periods shorter than all time, at most {@link #WINDOW_SIZE} scores are
+	 * kept, and scores without a timestamp are never included.
+	 *
+	 * @param period the period to get the best scores of
+	 * @param count  the number of scores to get, or -1 to get all scores that
+	 *               are kept
+	 * @return the best scores
+	 */
+	public List<Score> getTopScores(Period period, int count) {
+		if (period == Period.ALL_TIME) {
+			return getTopScores(count);
+		}
+
+		return windows.get(period).getTopScores(count, System.currentTimeMillis());
+	}
+
+	/**
+	 * Get the rank that a score with the specified amount of points would have
+	 * in the leaderboard, that is one more than the number of scores with more
+	 * points.
+	 *
+	 * @param points the amount of points
+	 * @return the rank, starting from 1
+	 */
+	public int getRank(int points) {
+		if (points >= 0 && points < COUNTED_POINTS) {
+			//All counted scores except those with at most the points
+			long counted = countBelow(COUNTED_POINTS) - countBelow(points + 1);
+			return (int) (1 + aboveCounted.get() + counted);
+		}
+
+		//Walk the scores with more points. Above the counted range these are
+		//few, and below it scores are rare
+		int rank = 1;
+		for (Entry entry : entries) {
+			if (entry.score.getPlayerScore() <= points) {
+				break;
+			}
+			rank++;
+		}
+
+		return rank;
+	}
+
+	/**
+	 * A score in the leaderboard, with the sequence number ordering it among
+	 * equal scores.
+	 */
+	private static class Entry {
+
+		/**
+		 * The score.
+		 */
+		private final Score score;
+
+		/**
+		 * The sequence number of the score.
+		 */
+		private final long sequence;
+
+		/**
+		 * Constructs a new entry.
+		 *
+		 * @param score    the score
+		 * @param sequence the sequence number of the score
+		 */
+		Entry(Score score, long sequence) {
+			this.score = score;
+			this.sequence = sequence;
+		}
+	}
+}
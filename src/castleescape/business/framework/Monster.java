@@ -5,27 +5,48 @@
  */
 package castleescape.business.framework;
 
-import java.util.ArrayDeque;
-import castleescape.business.ViewUtil;
+import castleescape.business.metrics.GameMetrics;
+import castleescape.shared.jfr.MonsterPathEvent;
 
-import java.util.ArrayList;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
- * Class defining the monster in the game. This class contains instance methods
+ * Class defining a monster in the game. This class contains instance methods
  * for keeping track of the monster's state (hunting or idle), whether the
  * player has been caught at any given time and moving the monster, either
- * randomly or by using pathfinding.
+ * randomly or by using pathfinding. The monsters of a game are kept in a
+ * {@link MonsterIndex}, which tells the player what the monsters do.
  */
 public class Monster {
 
 	/**
-	 * The warning message displayed when the monster is hunting the player.
+	 * The index that the monster is kept in.
 	 */
-	private final String WARNING_MESSAGE = "The monster is coming!<br/>THE MONSTER IS COMING";
+	private MonsterIndex index;
+
+	/**
+	 * The id of the monster, which is its position among the monsters of the
+	 * game.
+	 */
+	private int id;
+
+	/**
+	 * The previous monster in the same room, or null if this monster is the
+	 * first. Maintained by the index.
+	 */
+	Monster prevInRoom;
+
+	/**
+	 * The next monster in the same room, or null if this monster is the last.
+	 * Maintained by the index.
+	 */
+	Monster nextInRoom;
+
+	/**
+	 * The position of the monster in the heap of hunting monsters, or -1 if
+	 * the monster is not hunting. Maintained by the index.
+	 */
+	int huntPosition = -1;
 
 	/**
 	 * Whether the monster is currently hunting the player.
@@ -80,6 +101,11 @@ public class Monster {
 	 */
 	private Deque<Room> chasePath;
 
+	/**
+	 * The clock of the game, used for timing the monster's movement.
+	 */
+	private final GameClock clock;
+
 	/**
 	 * Constructs a new monster.
 	 *
@@ -88,12 +114,36 @@ public class Monster {
 	 * @param moveChance the chance of the monster moving, in percent
 	 * @param moveTime   the time that it takes the monster to move one room, in
 	 *                   milliseconds
+	 * @param clock      the clock of the game
 	 */
-	public Monster(Room location, Room safeRoom, double moveChance, int moveTime) {
+	public Monster(Room location, Room safeRoom, double moveChance, int moveTime, GameClock clock) {
 		currentRoom = location;
 		this.safeRoom = safeRoom;
 		this.moveChance = moveChance;
 		this.moveTime = moveTime;
+		this.clock = clock;
+	}
+
+	/**
+	 * Set the index that the monster is kept in. Called by the index when the
+	 * monster is added to it.
+	 *
+	 * @param index the index
+	 * @param id    the id of the monster
+	 */
+	void setIndex(MonsterIndex index, int id) {
+		this.index = index;
+		this.id = id;
+	}
+
+	/**
+	 * Get the id of the monster, which is its position among the monsters of
+	 * the game.
+	 *
+	 * @return the id of the monster
+	 */
+	public int getId() {
+		return id;
 	}
 
 	/**
@@ -114,52 +164,47 @@ public class Monster {
 		hunting = true;
 
 		//Calculate chase path
-		chasePath = this.getPathToRoom(playerRoom);
+		chasePath = findPath(playerRoom, "hunt", null);
 
 		//Set escape time based on distance between monster and player
-		startTime = System.currentTimeMillis(); //The amount of milliseconds since midnight, January 1, 1970 UTC
+		startTime = clock.getTime();
 		lastMove = startTime;
 		countDown = chasePath.size() * moveTime;
+		index.update(this);
 	}
 
 	/**
-	 * Called whenever the player enters a command. Makes the monster randomly
-	 * move between rooms or hunt the player, depending on its state. If the
-	 * monster enters the room in which the player is, it will begin hunting the
-	 * player.
+	 * Called by the index whenever the player enters a command. Makes the
+	 * monster randomly move between rooms or hunt the player, depending on its
+	 * state. If the monster enters the room in which the player is, it will
+	 * begin hunting the player. The index tells the player about it.
 	 *
 	 * @param game the game object
 	 */
-	public void notifyOfCommand(Game game) {
+	void notifyOfCommand(Game game) {
 		//If the monster is hunting the player
 		if (isHunting()) {
 
 			//If the player entered the safe room as a result of the command,
 			//stop hunting
 			if (game.getCurrentRoom() == safeRoom) {
-				ViewUtil.newLine();
-				ViewUtil.println("You escaped the monster.");
 				setIdle();
 
 				//No more to do for now, so we return
 				return;
-			} else {
-				//Otherwise warn the player
-				ViewUtil.newLine();
-				ViewUtil.printShaky(WARNING_MESSAGE);
 			}
 
 			//Move the monster towards the player if enough time has passed.
 			//This may need to happen multiple times. Stop moving if the monster
 			//has reached the player (chasePath.size() is 1)
-			long now = System.currentTimeMillis();
+			long now = clock.getTime();
 			while (now - lastMove >= moveTime && chasePath.size() > 1) {
 				lastMove += moveTime;
 
 				//Move to the next room along the path, and remove the current
 				//room from the path
 				chasePath.pop();
-				currentRoom = chasePath.peekFirst();
+				moveTo(chasePath.peekFirst());
 			}
 
 			//No more to do for now, so we return
@@ -174,33 +219,20 @@ public class Monster {
 
 			//Roll a random number to determine if the monster should move to
 			//another room
-			if (Math.random() < moveChance) {
+			if (game.getRandom().nextDouble() < moveChance) {
 
-				//Choose a random room among the exits from the current room. If
-				//no exits are present, do nothing
-				Room[] exits = currentRoom.getExits().values().toArray(new Room[]{});
+				//Choose a random room among the exits from the current room,
+				//except for the safe room which the monster cannot enter. If
+				//there is nowhere to go, do nothing
+				Room[] exits = currentRoom.getWanderExits(safeRoom);
 				if (exits.length > 0) {
-					Room newRoom;
-
-					//The monster cannot enter the safe room. If it tries to,
-					//choose another room. This will produce an infinite loop if
-					//the safe room is the only way for the monster to go, but
-					//in that case the layout of the rooms in the game violates
-					//the requirements, so this bug has not been fixed.
-					do {
-						newRoom = exits[(int) (Math.random() * exits.length)];
-					} while (newRoom == safeRoom);
-
-					currentRoom = newRoom;
+					Room newRoom = exits[game.getRandom().nextInt(exits.length)];
+					moveTo(newRoom);
 
 					//If the monster entered the player's room, hunt the
 					//player
 					if (newRoom == game.getCurrentRoom()) {
 						setHunting(game.getCurrentRoom());
-						
-						//We should also warn the player
-						ViewUtil.newLine();
-						ViewUtil.printShaky(WARNING_MESSAGE);
 					}
 				}
 			}
@@ -208,29 +240,23 @@ public class Monster {
 	}
 
 	/**
-	 * Should be called whenever the player changes location. If the player is
-	 * hunted this method will add or remove time based on whether the player
-	 * moves away from or towards the monster.
+	 * Called by the index whenever the player changes location. If the player
+	 * is hunted this method will add or remove time based on whether the
+	 * player moves away from or towards the monster.
 	 *
 	 * @param destination the room the player moves to
 	 */
-	public void notifyOfGo(Room destination) {
-		//If the player entered the same room as the monster, hunt the player.
-		//If the player is already being hunted this will merely print a message
-		//to the user interface, as setHunting() has no effect in this case
-		if (destination.equals(currentRoom)) {
-			ViewUtil.println("You've walked right into the same room as the monster!");
-			setHunting(destination);
-		}
-
+	void followPlayer(Room destination) {
 		//If the player is hunted, test if the player moved towards or away from
 		//the monster, or if the move made no difference
 		if (isHunting()) {
 			//The distance to the monster before the move
 			int lastDistance = chasePath.size();
 
-			//The new path to the player
-			chasePath = getPathToRoom(destination);
+			//The new path to the player. The old path is repaired if it
+			//still starts where the monster is
+			chasePath = findPath(destination, "go",
+					chasePath.peekFirst() == currentRoom ? chasePath : null);
 
 			//The difference in path length. For instance, if the new distance
 			//is smaller than the previous, then the difference below is
@@ -249,12 +275,90 @@ public class Monster {
 		return currentRoom;
 	}
 
+	/**
+	 * Move the monster to the specified room.
+	 *
+	 * @param room the room to move to
+	 */
+	private void moveTo(Room room) {
+		if (room != currentRoom) {
+			index.notifyOfMove(this, currentRoom, room);
+			currentRoom = room;
+		}
+	}
+
+	/**
+	 * Get the path that the monster follows to chase the player. The first
+	 * room is the room the monster is in, and the last room is the room the
+	 * player is in.
+	 *
+	 * @return the chase path, or null if the monster has never hunted
+	 */
+	Deque<Room> getChasePath() {
+		return chasePath;
+	}
+
+	/**
+	 * Get the amount of time that the player has to escape the monster,
+	 * counted from when the hunt began.
+	 *
+	 * @return the count down, in milliseconds
+	 */
+	int getCountDown() {
+		return countDown;
+	}
+
+	/**
+	 * Get the time of the game clock at which the monster last began hunting
+	 * the player.
+	 *
+	 * @return the start time of the hunt, in milliseconds
+	 */
+	long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Get the time of the game clock at which the monster last moved during a
+	 * hunt.
+	 *
+	 * @return the time of the last move, in milliseconds
+	 */
+	long getLastMove() {
+		return lastMove;
+	}
+
+	/**
+	 * Restore the complete state of the monster. This is used when restoring a
+	 * game from a {@link GameSnapshot}.
+	 *
+	 * @param location         the room that the monster is in
+	 * @param hunting          whether the monster is hunting the player
+	 * @param waitingForPlayer whether the monster is waiting for the player
+	 * @param countDown        the amount of time that the player has to escape
+	 * @param startTime        the time at which the hunt began
+	 * @param lastMove         the time at which the monster last moved
+	 * @param chasePath        the path the monster follows to chase the player
+	 */
+	void restoreState(Room location, boolean hunting, boolean waitingForPlayer, int countDown,
+			long startTime, long lastMove, Deque<Room> chasePath) {
+		moveTo(location);
+		this.hunting = hunting;
+		this.waitingForPlayer = waitingForPlayer;
+		this.countDown = countDown;
+		this.startTime = startTime;
+		this.lastMove = lastMove;
+		this.chasePath = chasePath;
+		index.update(this);
+	}
+
 	/**
 	 * Make the monster stop hunting the player. Calling this method while the
 	 * monster is already idle will have no effect.
 	 */
 	public void setIdle() {
 		this.hunting = false;
+		index.update(this);
 	}
 
 	/**
@@ -293,7 +397,7 @@ public class Monster {
 		}
 
 		//Get the current time
-		long now = System.currentTimeMillis();
+		long now = clock.getTime();
 
 		//Calculate how long the monster has been hunting the player
 		long elapsedTime = now - startTime;
@@ -309,6 +413,16 @@ public class Monster {
 		return false;
 	}
 
+	/**
+	 * Get the time of the game clock at which the monster will catch the
+	 * player, if it is hunting and nothing changes.
+	 *
+	 * @return the time of the catch, in milliseconds
+	 */
+	long getCatchTime() {
+		return startTime + countDown;
+	}
+
 	/**
 	 * Add more time for the player to escape the monster. Passing a negative
 	 * argument will remove time.
@@ -322,96 +436,36 @@ public class Monster {
 
 	/**
 	 * Get the optimal path from the room in which the monster is to the
-	 * specified room.
+	 * specified room, recording the time taken in the game metrics and the
+	 * flight recorder. The path is found by the chase planner of the game.
 	 *
-	 * @param goal the room to find
+	 * @param goal     the room to find
+	 * @param reason   the reason that the path is needed, for diagnostic
+	 *                 purposes
+	 * @param previous the optimal path from the room in which the monster is
+	 *                 to a room next to the specified room, which is repaired
+	 *                 if possible, or null to find a new path
 	 * @return the optimal path to the specified room, or null if no path exists
 	 */
-	private Deque<Room> getPathToRoom(Room goal) {
-		//The path finding algorithm below is a simplified version of the A*
-		//algorithm.
-
-		//For each room (key) which room it can most efficiently be reached from
-		//(value)	
-		Map<Room, Room> optimalRoomConnections = new HashMap<>();
-
-		//List of rooms that have to be evaluated as possible nodes in the path
-		List<Room> open = new ArrayList<>();
-
-		//List of rooms that have already been evaluated, and are thus not
-		//interesting anymore. There is no point in going to a room that has
-		//already been found to be further away from the goal than our current
-		//position. This is because every time a room is tested it is currently
-		//the room closest to the goal.
-		List<Room> closed = new ArrayList<>();
-
-		//The current room is the first to be evaluated
-		open.add(getCurrentRoom());
-
-		//While there are rooms to evaluate
-		//We will return a path as soon as it is found, thus breaking out of
-		//this loop
-		while (!open.isEmpty()) {
-			//The first room in the open list is always the room that requires
-			//the shortest path to reach because it was added the earliest
-			Room current = open.get(0);
-
-			//If we reached the specified room, construct and return the optimal
-			//path
-			if (current == goal) {
-				return getOptimalPath(optimalRoomConnections, goal);
-			}
-
-			open.remove(0);
-			closed.add(current);
-
-			//Evaluate all neighbor rooms
-			for (Room neighbor : current.getExits().values()) {
-				if (closed.contains(neighbor)) {
-					//If the neighbor has already been evaluated, skip it
-					continue;
-				} else if (!open.contains(neighbor)) {
-					//If the neighbor is not already awaiting evaluation,
-					//schedule it
-					open.add(neighbor);
-				}
-
-				//Getting to this neighbor room is best done by coming from the
-				//current room
-				optimalRoomConnections.put(neighbor, current);
-			}
-		}
-
-		//We made it through the loop without finding a path, so no path exists
-		return null;
-	}
-
-	/**
-	 * Get the optimal path to the specified room from a map of optimal room
-	 * connections.
-	 *
-	 * @param optimalRoomConnections the optimal room connections
-	 * @param goal                   the room to find
-	 * @return the optimal path
-	 */
-	private Deque<Room> getOptimalPath(Map<Room, Room> optimalRoomConnections, Room goal) {
-		//List to hold the optimal path
-		Deque<Room> optimalPath = new ArrayDeque<>();
-
-		//The last room in the path is the goal
-		optimalPath.add(goal);
-
-		Room current = goal;
-
-		//For every room along the path (starting with the goal) get the
-		//previous room in the path and add it to the start of the deque
-		while (optimalRoomConnections.get(current) != null) {
-			Room neighbor = optimalRoomConnections.get(current);
-			optimalPath.addFirst(neighbor);
-			current = neighbor;
+	private Deque<Room> findPath(Room goal, String reason, Deque<Room> previous) {
+		MonsterPathEvent event = new MonsterPathEvent();
+		event.begin();
+		long start = System.nanoTime();
+		ChasePlanner planner = index.getChasePlanner();
+		Deque<Room> path = previous == null
+				? planner.findPath(currentRoom, goal)
+				: planner.repairPath(previous, goal);
+		GameMetrics.getInstance().recordPathfinding(System.nanoTime() - start);
+		event.end();
+
+		if (event.shouldCommit()) {
+			event.reason = reason;
+			event.fromRoom = currentRoom.getRoomName();
+			event.toRoom = goal.getRoomName();
+			event.pathLength = path == null ? -1 : path.size();
+			event.commit();
 		}
 
-		//Return the optimal path
-		return optimalPath;
+		return path;
 	}
 }
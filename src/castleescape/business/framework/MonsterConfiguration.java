@@ -0,0 +1,65 @@
+package castleescape.business.framework;
+
+/**
+ * An immutable object to store the configuration of a single monster.
+ */
+public class MonsterConfiguration {
+
+	/**
+	 * The room in which the monster starts.
+	 */
+	private final Room startRoom;
+
+	/**
+	 * The chance that the monster will move, in percent.
+	 */
+	private final double moveChance;
+
+	/**
+	 * The time that it takes the monster to move one room, in milliseconds.
+	 */
+	private final int moveTime;
+
+	/**
+	 * Constructs a new monster configuration object.
+	 *
+	 * @param startRoom  the room in which the monster starts
+	 * @param moveChance the chance that the monster will move, in percent
+	 * @param moveTime   the time that it takes the monster to move one room,
+	 *                   in milliseconds
+	 */
+	public MonsterConfiguration(Room startRoom, double moveChance, int moveTime) {
+		this.startRoom = startRoom;
+		this.moveChance = moveChance;
+		this.moveTime = moveTime;
+	}
+
+	/**
+	 * Get the room in which the monster starts.
+	 *
+	 * @return the room in which the monster starts
+	 */
+	public Room getStartRoom() {
+		return startRoom;
+	}
+
+	/**
+	 * Get the chance that the monster will move, in percent.
+	 *
+	 * @return the chance that the monster will move, in percent
+	 */
+	public double getMoveChance() {
+		return moveChance;
+	}
+
+	/**
+	 * Get the time that it takes the monster to move one room, in
+	 * milliseconds.
+	 *
+	 * @return the time that it takes the monster to move one room, in
+	 *         milliseconds
+	 */
+	public int getMoveTime() {
+		return moveTime;
+	}
+}
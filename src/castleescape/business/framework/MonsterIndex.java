@@ -0,0 +1,546 @@
+package castleescape.business.framework;
+
+import castleescape.business.ViewUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class keeping track of the monsters in a game, and of the rooms that they
+ * are in. Every room has a list of the monsters in it, which the monsters are
+ * linked into directly, so whether a room holds a monster is answered without
+ * looking at the other monsters, and moving a monster takes constant time.
+ * <p>
+ * Monsters wait in their start rooms until they meet the player or hear the
+ * player make noise, and do nothing before then. The index keeps the monsters
+ * that have stopped waiting in a list of their own, so only those are
+ * notified of commands, and a castle can hold many monsters that are still
+ * waiting at no cost. The index also keeps the hunting monsters, and the one
+ * of them that will catch the player first, which is updated whenever a hunt
+ * begins, ends or changes. The hunting monsters are also kept in a binary
+ * heap ordered by the time at which they will catch the player, so the
+ * nearest hunter is always at the top of the heap, and a hunt that begins,
+ * ends or changes only moves one monster within the heap. All lists of
+ * monsters are kept in the order that the monsters were added, so that games
+ * can be replayed.
+ * <p>
+ * Searches for the monsters near a room visit the rooms in order of their
+ * distance, and stop once the search radius is reached, so their cost depends
+ * on the rooms within the radius rather than on the size of the castle. The
+ * rooms visited are marked with the number of the search in an array indexed
+ * by room id, so the marks never have to be cleared.
+ */
+public class MonsterIndex {
+
+	/**
+	 * The warning message displayed when a monster is hunting the player.
+	 */
+	private static final String WARNING_MESSAGE = "The monster is coming!<br/>THE MONSTER IS COMING";
+
+	/**
+	 * All monsters, in the order that they were added.
+	 */
+	private final List<Monster> monsters;
+
+	/**
+	 * The first monster in every room, indexed by room id, or null if there
+	 * is no monster in the room.
+	 */
+	private Monster[] firstInRoom;
+
+	/**
+	 * The monsters that have stopped waiting for the player.
+	 */
+	private final List<Monster> active;
+
+	/**
+	 * The monsters that are hunting the player.
+	 */
+	private final List<Monster> hunting;
+
+	/**
+	 * The monsters that are hunting the player, as a binary heap ordered by
+	 * the time at which they will catch the player. Every monster knows its
+	 * position in the heap.
+	 */
+	private final List<Monster> huntHeap;
+
+	/**
+	 * The planner finding the paths that the monsters chase the player along.
+	 */
+	private final ChasePlanner chasePlanner;
+
+	/**
+	 * The number of the last search that visited every room, indexed by room
+	 * id.
+	 */
+	private int[] visited;
+
+	/**
+	 * The number of the last search.
+	 */
+	private int search;
+
+	/**
+	 * The rooms to visit in a search. The queue is reused for every search.
+	 */
+	private Room[] queue;
+
+	/**
+	 * Constructs a new, empty monster index.
+	 *
+	 * @param roomCount    the number of rooms in the game
+	 * @param chasePlanner the planner finding the paths that the monsters
+	 *                     chase the player along
+	 */
+	public MonsterIndex(int roomCount, ChasePlanner chasePlanner) {
+		this.chasePlanner = chasePlanner;
+		monsters = new ArrayList<>();
+		firstInRoom = new Monster[Math.max(roomCount, 1)];
+		visited = new int[firstInRoom.length];
+		queue = new Room[firstInRoom.length];
+		active = new ArrayList<>();
+		hunting = new ArrayList<>();
+		huntHeap = new ArrayList<>();
+	}
+
+	/**
+	 * Add the specified monster to the index. The monster is given the next
+	 * id, and is placed in the room that it is in.
+	 *
+	 * @param monster the monster to add
+	 */
+	public void add(Monster monster) {
+		monster.setIndex(this, monsters.size());
+		monsters.add(monster);
+		link(monster, monster.getCurrentRoom());
+		update(monster);
+	}
+
+	/**
+	 * Get all monsters, in the order that they were added.
+	 *
+	 * @return an unmodifiable list of the monsters
+	 */
+	public List<Monster> getMonsters() {
+		return Collections.unmodifiableList(monsters);
+	}
+
+	/**
+	 * Get the monster with the specified id.
+	 *
+	 * @param id the id of the monster
+	 * @return the monster with the specified id
+	 * @throws IndexOutOfBoundsException if no monster has the specified id
+	 */
+	public Monster getMonster(int id) {
+		return monsters.get(id);
+	}
+
+	/**
+	 * Get the number of monsters in the game.
+	 *
+	 * @return the number of monsters
+	 */
+	public int getMonsterCount() {
+		return monsters.size();
+	}
+
+	/**
+	 * Test whether any monster is in the specified room.
+	 *
+	 * @param room the room
+	 * @return {@code true} if a monster is in the room, {@code false}
+	 *         otherwise
+	 */
+	public boolean isOccupied(Room room) {
+		return getFirstMonster(room) != null;
+	}
+
+	/**
+	 * Get a monster in the specified room. Monsters that have stopped waiting
+	 * for the player are preferred, as the player knows them to be monsters.
+	 *
+	 * @param room the room
+	 * @return a monster in the room, or null if there is no monster in the
+	 *         room
+	 */
+	public Monster getMonsterIn(Room room) {
+		Monster first = getFirstMonster(room);
+		for (Monster monster = first; monster != null; monster = monster.nextInRoom) {
+			if (!monster.isWaitingForPlayer()) {
+				return monster;
+			}
+		}
+
+		return first;
+	}
+
+	/**
+	 * Get the hunting monster that will catch the player first.
+	 *
+	 * @return the nearest hunting monster, or null if no monster is hunting
+	 */
+	public Monster getNearestHunter() {
+		return huntHeap.isEmpty() ? null : huntHeap.get(0);
+	}
+
+	/**
+	 * Test whether a monster has caught the player at this time.
+	 *
+	 * @return {@code true} if the player has been caught, {@code false}
+	 *         otherwise
+	 */
+	public boolean isPlayerCaught() {
+		Monster nearestHunter = getNearestHunter();
+		return nearestHunter != null && nearestHunter.isPlayerCaught();
+	}
+
+	/**
+	 * Make every monster within the specified number of steps from the
+	 * specified room hunt the player in that room. Steps follow the exits of
+	 * the rooms, and the search stops early once every monster has been
+	 * found.
+	 *
+	 * @param room   the room of the player
+	 * @param radius the greatest number of steps from the room that a
+	 *               monster can be at
+	 * @return the number of monsters that were found
+	 */
+	public int alertMonsters(Room room, int radius) {
+		if (monsters.isEmpty() || radius < 0) {
+			return 0;
+		}
+
+		//Start a new search. When the search numbers run out, the marks are
+		//cleared so that old marks are not mistaken for new ones
+		if (++search == 0) {
+			Arrays.fill(visited, 0);
+			search = 1;
+		}
+
+		int found = 0;
+		int head = 0;
+		int tail = 0;
+		mark(room);
+		queue[tail++] = room;
+
+		//Visit the rooms one distance at a time
+		for (int distance = 0; head < tail && found < monsters.size(); distance++) {
+			int levelEnd = tail;
+			while (head < levelEnd) {
+				Room current = queue[head++];
+				for (Monster monster = getFirstMonster(current); monster != null; monster = monster.nextInRoom) {
+					monster.setHunting(room);
+					found++;
+				}
+
+				if (distance < radius) {
+					for (Room neighbor : current.getNeighbors()) {
+						if (mark(neighbor)) {
+							queue[tail++] = neighbor;
+						}
+					}
+				}
+			}
+		}
+
+		//Forget the rooms, so that the queue does not keep them alive
+		Arrays.fill(queue, 0, tail, null);
+		return found;
+	}
+
+	/**
+	 * Called whenever the player enters a command. Notifies every monster
+	 * that has stopped waiting for the player, and tells the player if the
+	 * monsters are hunting or have been escaped.
+	 *
+	 * @param game the game object
+	 */
+	public void notifyOfCommand(Game game) {
+		boolean escaped = false;
+		boolean warned = false;
+
+		//The list of active monsters does not change while it is notified, as
+		//monsters only stop waiting once
+		for (int i = 0; i < active.size(); i++) {
+			Monster monster = active.get(i);
+			boolean wasHunting = monster.isHunting();
+			monster.notifyOfCommand(game);
+
+			escaped |= wasHunting && !monster.isHunting();
+			warned |= monster.isHunting();
+		}
+
+		if (escaped) {
+			ViewUtil.newLine();
+			ViewUtil.println("You escaped the monster.");
+		}
+
+		if (warned) {
+			ViewUtil.newLine();
+			ViewUtil.printShaky(WARNING_MESSAGE);
+		}
+	}
+
+	/**
+	 * Should be called whenever the player changes location. Monsters in the
+	 * room that the player enters begin hunting the player, and hunting
+	 * monsters find their way to the new room.
+	 *
+	 * @param destination the room the player moves to
+	 */
+	public void notifyOfGo(Room destination) {
+		//If the player entered a room with monsters, they hunt the player. If
+		//they are already hunting, this will merely print a message
+		Monster first = getFirstMonster(destination);
+		if (first != null) {
+			ViewUtil.println("You've walked right into the same room as the monster!");
+			for (Monster monster = first; monster != null; monster = monster.nextInRoom) {
+				monster.setHunting(destination);
+			}
+		}
+
+		//Following the player changes the catch time of every hunter, so each
+		//hunter is moved to its new place in the heap
+		for (int i = 0; i < hunting.size(); i++) {
+			Monster monster = hunting.get(i);
+			monster.followPlayer(destination);
+			reorderHunter(monster);
+		}
+	}
+
+	/**
+	 * Get the planner finding the paths that the monsters chase the player
+	 * along.
+	 *
+	 * @return the chase planner
+	 */
+	ChasePlanner getChasePlanner() {
+		return chasePlanner;
+	}
+
+	/**
+	 * Called by a monster when it moves from one room to another.
+	 *
+	 * @param monster the monster that moves
+	 * @param from    the room that the monster leaves
+	 * @param to      the room that the monster enters
+	 */
+	void notifyOfMove(Monster monster, Room from, Room to) {
+		unlink(monster, from);
+		link(monster, to);
+	}
+
+	/**
+	 * Called by a monster when it begins or stops hunting, or stops waiting
+	 * for the player.
+	 *
+	 * @param monster the monster whose state changed
+	 */
+	void update(Monster monster) {
+		setMember(active, monster, !monster.isWaitingForPlayer());
+		setMember(hunting, monster, monster.isHunting());
+
+		if (monster.isHunting()) {
+			//Add the monster to the heap, or move it if its hunt changed
+			if (monster.huntPosition < 0) {
+				monster.huntPosition = huntHeap.size();
+				huntHeap.add(monster);
+			}
+			reorderHunter(monster);
+		} else if (monster.huntPosition >= 0) {
+			removeHunter(monster);
+		}
+	}
+
+	/**
+	 * Add the specified monster to or remove it from the specified list,
+	 * keeping the list in the order that the monsters were added.
+	 *
+	 * @param list    the list of monsters
+	 * @param monster the monster
+	 * @param member  whether the monster should be in the list
+	 */
+	private static void setMember(List<Monster> list, Monster monster, boolean member) {
+		//Find the position of the monster by its id
+		int low = 0;
+		int high = list.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (list.get(middle).getId() < monster.getId()) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		boolean present = low < list.size() && list.get(low) == monster;
+		if (member && !present) {
+			list.add(low, monster);
+		} else if (!member && present) {
+			list.remove(low);
+		}
+	}
+
+	/**
+	 * Remove the specified hunting monster from the heap. The last monster of
+	 * the heap takes its place, and is moved to its new place in the heap.
+	 *
+	 * @param monster the monster to remove
+	 */
+	private void removeHunter(Monster monster) {
+		int position = monster.huntPosition;
+		Monster last = huntHeap.remove(huntHeap.size() - 1);
+		monster.huntPosition = -1;
+
+		if (last != monster) {
+			place(last, position);
+			reorderHunter(last);
+		}
+	}
+
+	/**
+	 * Move the specified hunting monster up or down the heap, to the place
+	 * given by the time at which it will catch the player.
+	 *
+	 * @param monster the monster whose catch time may have changed
+	 */
+	private void reorderHunter(Monster monster) {
+		int position = monster.huntPosition;
+
+		//Move the monster up while it catches the player before its parent
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!catchesFirst(monster, huntHeap.get(parent))) {
+				break;
+			}
+			place(huntHeap.get(parent), position);
+			position = parent;
+		}
+
+		//Move the monster down while a child catches the player before it
+		int size = huntHeap.size();
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && catchesFirst(huntHeap.get(child + 1), huntHeap.get(child))) {
+				child++;
+			}
+			if (!catchesFirst(huntHeap.get(child), monster)) {
+				break;
+			}
+			place(huntHeap.get(child), position);
+			position = child;
+		}
+
+		place(monster, position);
+	}
+
+	/**
+	 * Put the specified monster at the specified position in the heap.
+	 *
+	 * @param monster  the monster
+	 * @param position the position in the heap
+	 */
+	private void place(Monster monster, int position) {
+		huntHeap.set(position, monster);
+		monster.huntPosition = position;
+	}
+
+	/**
+	 * Test whether the first monster will catch the player before the second.
+	 * Ties go to the monster that was added first.
+	 *
+	 * @param first  the first monster
+	 * @param second the second monster
+	 * @return {@code true} if the first monster catches the player first,
+	 *         {@code false} otherwise
+	 */
+	private static boolean catchesFirst(Monster first, Monster second) {
+		long firstTime = first.getCatchTime();
+		long secondTime = second.getCatchTime();
+		return firstTime < secondTime || (firstTime == secondTime && first.getId() < second.getId());
+	}
+
+	/**
+	 * Mark the specified room as visited by the current search.
+	 *
+	 * @param room the room
+	 * @return {@code true} if the room had not been visited by the current
+	 *         search, {@code false} otherwise
+	 */
+	private boolean mark(Room room) {
+		//Rooms may be added to the game after the index was constructed
+		int id = room.getId();
+		if (id >= visited.length) {
+			int length = Math.max(id + 1, visited.length * 2);
+			visited = Arrays.copyOf(visited, length);
+			queue = Arrays.copyOf(queue, length);
+		}
+
+		if (visited[id] == search) {
+			return false;
+		}
+
+		visited[id] = search;
+		return true;
+	}
+
+	/**
+	 * Get the first monster in the specified room.
+	 *
+	 * @param room the room
+	 * @return the first monster in the room, or null if there is none
+	 */
+	private Monster getFirstMonster(Room room) {
+		int id = room.getId();
+		return id < firstInRoom.length ? firstInRoom[id] : null;
+	}
+
+	/**
+	 * Link the specified monster into the list of the specified room.
+	 *
+	 * @param monster the monster
+	 * @param room    the room that the monster is in
+	 */
+	private void link(Monster monster, Room room) {
+		//Rooms may be added to the game after the index was constructed
+		int id = room.getId();
+		if (id >= firstInRoom.length) {
+			firstInRoom = Arrays.copyOf(firstInRoom, Math.max(id + 1, firstInRoom.length * 2));
+		}
+
+		monster.prevInRoom = null;
+		monster.nextInRoom = firstInRoom[id];
+		if (monster.nextInRoom != null) {
+			monster.nextInRoom.prevInRoom = monster;
+		}
+		firstInRoom[id] = monster;
+	}
+
+	/**
+	 * Unlink the specified monster from the list of the specified room.
+	 *
+	 * @param monster the monster
+	 * @param room    the room that the monster was in
+	 */
+	private void unlink(Monster monster, Room room) {
+		if (monster.prevInRoom == null) {
+			firstInRoom[room.getId()] = monster.nextInRoom;
+		} else {
+			monster.prevInRoom.nextInRoom = monster.nextInRoom;
+		}
+
+		if (monster.nextInRoom != null) {
+			monster.nextInRoom.prevInRoom = monster.prevInRoom;
+		}
+
+		monster.prevInRoom = null;
+		monster.nextInRoom = null;
+	}
+}
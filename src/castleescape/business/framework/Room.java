@@ -3,7 +3,7 @@ package castleescape.business.framework;
 import castleescape.business.object.InspectableObject;
 import castleescape.business.object.Inventory;
 import java.util.ArrayList;
-
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +17,11 @@ import java.util.Set;
  */
 public class Room {
 
+	/**
+	 * An empty array of rooms.
+	 */
+	private static final Room[] NO_ROOMS = new Room[0];
+
 	/**
 	 * The name of the room.
 	 */
@@ -27,12 +32,52 @@ public class Room {
 	 */
 	private String description;
 
+	/**
+	 * The description that the room was constructed with.
+	 */
+	private final String initialDescription;
+
+	/**
+	 * The dense numeric id of the room, unique within a game. Assigned by the
+	 * game when the level is set up.
+	 */
+	private int id = -1;
+
 	/**
 	 * {@link Map} for mapping between direction strings and the exits in the
 	 * room.
 	 */
 	private final Map<String, Room> exits;
 
+	/**
+	 * The rooms behind the exits, or null if they must be found again because
+	 * the exits have changed.
+	 */
+	private Room[] neighbors;
+
+	/**
+	 * The rooms that have an exit leading to this room, once for every such
+	 * exit.
+	 */
+	private Room[] entrances = NO_ROOMS;
+
+	/**
+	 * The planner that must be told when the exits change, or null if there
+	 * is none.
+	 */
+	private ChasePlanner chasePlanner;
+
+	/**
+	 * The neighbours that a wandering monster may move to, or null if they
+	 * must be found again because the exits have changed.
+	 */
+	private Room[] wanderExits;
+
+	/**
+	 * The room that is left out of the wander exits, usually the safe room.
+	 */
+	private Room wanderExcluded;
+
 	/**
 	 * Inventory, where the items go.
 	 */
@@ -54,6 +99,7 @@ public class Room {
 	public Room(String roomName, String description) {
 		this.roomName = roomName;
 		this.description = description;
+		this.initialDescription = description;
 
 		//Construct hash map for mapping between direction strings and the exits
 		//in the room
@@ -77,7 +123,17 @@ public class Room {
 	public void setExit(String direction, Room neighbor) {
 		//Make the string direction map to the specified neighbor room. This
 		//defines an exit in this room
-		exits.put(direction, neighbor);
+		Room previous = exits.put(direction, neighbor);
+
+		//Keep the entrances of the rooms on both sides up to date
+		if (previous != null) {
+			previous.removeEntrance(this);
+		}
+		if (neighbor != null) {
+			neighbor.addEntrance(this);
+		}
+
+		notifyOfExitChange();
 	}
 
 	/**
@@ -89,6 +145,45 @@ public class Room {
 		return roomName;
 	}
 
+	/**
+	 * Get the dense numeric id of this room. Ids are unique within a game and
+	 * range from 0 to the number of rooms in the game, exclusive.
+	 *
+	 * @return the id of this room, or -1 if it has not been assigned yet
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Set the dense numeric id of this room. This should only be done by the
+	 * game when setting up the level.
+	 *
+	 * @param id the id of this room
+	 */
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Get the current description of this room.
+	 *
+	 * @return the current description of this room
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Get the description that this room was constructed with. This is the
+	 * description before any events changed it.
+	 *
+	 * @return the initial description of this room
+	 */
+	public String getInitialDescription() {
+		return initialDescription;
+	}
+
 	/**
 	 * Change the description of this room.
 	 *
@@ -186,6 +281,130 @@ public class Room {
 		return exits;
 	}
 
+	/**
+	 * Remove all exits from this room.
+	 */
+	public void clearExits() {
+		for (Room neighbor : exits.values()) {
+			if (neighbor != null) {
+				neighbor.removeEntrance(this);
+			}
+		}
+
+		exits.clear();
+		notifyOfExitChange();
+	}
+
+	/**
+	 * Get the rooms behind the exits of this room. The rooms are found once
+	 * and kept until the exits change, so the array must not be modified.
+	 *
+	 * @return the rooms behind the exits, in the order of the exits. The array
+	 *         is empty if there are none
+	 */
+	Room[] getNeighbors() {
+		if (neighbors == null) {
+			List<Room> found = new ArrayList<>(exits.size());
+			for (Room neighbor : exits.values()) {
+				if (neighbor != null) {
+					found.add(neighbor);
+				}
+			}
+
+			neighbors = found.toArray(new Room[found.size()]);
+		}
+
+		return neighbors;
+	}
+
+	/**
+	 * Get the rooms that have an exit leading to this room. A room with more
+	 * than one such exit appears once for every exit. The array must not be
+	 * modified.
+	 *
+	 * @return the rooms leading to this room. The array is empty if there are
+	 *         none
+	 */
+	Room[] getEntrances() {
+		return entrances;
+	}
+
+	/**
+	 * Set the planner that must be told when the exits of this room change.
+	 * This should only be done by the game when setting up the level.
+	 *
+	 * @param chasePlanner the chase planner of the game
+	 */
+	void setChasePlanner(ChasePlanner chasePlanner) {
+		this.chasePlanner = chasePlanner;
+	}
+
+	/**
+	 * Get the neighbours that a wandering monster may move to, which are the
+	 * rooms behind the exits except for the specified room. The neighbours
+	 * are found once and kept until the exits change, so the array must not
+	 * be modified.
+	 *
+	 * @param excluded the room that monsters may not enter, usually the safe
+	 *                 room
+	 * @return the neighbours that a monster may move to, in the order of the
+	 *         exits. The array is empty if there are none
+	 */
+	Room[] getWanderExits(Room excluded) {
+		if (wanderExits == null || wanderExcluded != excluded) {
+			List<Room> found = new ArrayList<>(exits.size());
+			for (Room neighbor : getNeighbors()) {
+				if (neighbor != excluded) {
+					found.add(neighbor);
+				}
+			}
+
+			wanderExits = found.toArray(new Room[found.size()]);
+			wanderExcluded = excluded;
+		}
+
+		return wanderExits;
+	}
+
+	/**
+	 * Add an entrance to this room from the specified room.
+	 *
+	 * @param room the room with an exit leading here
+	 */
+	private void addEntrance(Room room) {
+		entrances = Arrays.copyOf(entrances, entrances.length + 1);
+		entrances[entrances.length - 1] = room;
+	}
+
+	/**
+	 * Remove an entrance to this room from the specified room.
+	 *
+	 * @param room the room whose exit no longer leads here
+	 */
+	private void removeEntrance(Room room) {
+		for (int i = 0; i < entrances.length; i++) {
+			if (entrances[i] == room) {
+				Room[] remaining = new Room[entrances.length - 1];
+				System.arraycopy(entrances, 0, remaining, 0, i);
+				System.arraycopy(entrances, i + 1, remaining, i, remaining.length - i);
+				entrances = remaining;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Forget what has been found from the exits of this room, and tell the
+	 * chase planner that they have changed.
+	 */
+	private void notifyOfExitChange() {
+		neighbors = null;
+		wanderExits = null;
+		if (chasePlanner != null) {
+			chasePlanner.notifyOfExitChange();
+		}
+	}
+
 	/**
 	 * Get the inventory of this room.
 	 *
@@ -214,6 +433,14 @@ public class Room {
 		roomObjects.remove(inspectableObject.getName());
 	}
 
+	/**
+	 * Remove all static inspectable objects from this room. Items in the
+	 * room's inventory are not affected.
+	 */
+	public void clearInspectableObjects() {
+		roomObjects.clear();
+	}
+
 	/**
 	 * Get the inspectable object with the specified name in this room. This
 	 * method will search for the inspectable object in both the room's
@@ -6,7 +6,9 @@
 package castleescape.business.framework;
 
 /**
- * Class for storing player names and scores together in a convenient way.
+ * Class for storing player names and scores together in a convenient way. A
+ * score also knows when and where it was achieved, and with which character,
+ * unless it was saved before this was recorded.
  */
 public class Score {
 
@@ -20,15 +22,54 @@ public class Score {
 	 */
 	private final int playerScore;
 
+	/**
+	 * The name of the level that the score was achieved in, or null if
+	 * unknown.
+	 */
+	private final String levelName;
+
+	/**
+	 * The name of the character that the score was achieved with, or null if
+	 * unknown.
+	 */
+	private final String characterName;
+
+	/**
+	 * The time that the score was achieved, in milliseconds since the epoch,
+	 * or 0 if unknown.
+	 */
+	private final long timestamp;
+
 	/**
 	 * Constructs a new score object with the specified player name and score.
+	 * It is not known when, where or with which character the score was
+	 * achieved.
 	 *
 	 * @param playerName the name of the player
 	 * @param score      the player's score
 	 */
 	public Score(String playerName, int score) {
+		this(playerName, score, null, null, 0);
+	}
+
+	/**
+	 * Constructs a new score object.
+	 *
+	 * @param playerName    the name of the player
+	 * @param score         the player's score
+	 * @param levelName     the name of the level that the score was achieved
+	 *                      in, or null if unknown
+	 * @param characterName the name of the character that the score was
+	 *                      achieved with, or null if unknown
+	 * @param timestamp     the time that the score was achieved, in
+	 *                      milliseconds since the epoch, or 0 if unknown
+	 */
+	public Score(String playerName, int score, String levelName, String characterName, long timestamp) {
 		this.playerName = playerName;
 		this.playerScore = score;
+		this.levelName = levelName;
+		this.characterName = characterName;
+		this.timestamp = timestamp;
 	}
 
 	/**
@@ -49,6 +90,33 @@ public class Score {
 		return playerScore;
 	}
 
+	/**
+	 * Get the name of the level that this score was achieved in.
+	 *
+	 * @return the name of the level, or null if unknown
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the name of the character that this score was achieved with.
+	 *
+	 * @return the name of the character, or null if unknown
+	 */
+	public String getCharacterName() {
+		return characterName;
+	}
+
+	/**
+	 * Get the time that this score was achieved.
+	 *
+	 * @return the time in milliseconds since the epoch, or 0 if unknown
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
 	@Override
 	public String toString() {
 		return playerName + ", " + playerScore + " points";
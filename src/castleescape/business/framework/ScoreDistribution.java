@@ -0,0 +1,141 @@
+package castleescape.business.framework;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class describing how the scores of a level are distributed, both for the
+ * level as a whole and for every player character. The distribution is saved
+ * next to the scores of the level, so that it does not have to be computed
+ * from the scores again.
+ */
+public class ScoreDistribution {
+
+	/**
+	 * The bytes that every saved distribution starts with.
+	 */
+	private static final int MAGIC = 0x43455344;
+
+	/**
+	 * The version of the format that distributions are saved in.
+	 */
+	private static final byte VERSION = 1;
+
+	/**
+	 * The distribution of all scores of the level.
+	 */
+	private ScoreHistogram levelHistogram;
+
+	/**
+	 * The distributions of the scores of each player character, by character
+	 * name.
+	 */
+	private final ConcurrentMap<String, ScoreHistogram> characterHistograms;
+
+	/**
+	 * Constructs a new empty distribution.
+	 */
+	public ScoreDistribution() {
+		levelHistogram = new ScoreHistogram();
+		characterHistograms = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Record a score with the specified amount of points.
+	 *
+	 * @param points        the amount of points
+	 * @param characterName the name of the character that the score was
+	 *                      achieved with, or null if unknown
+	 */
+	public void record(int points, String characterName) {
+		levelHistogram.record(points);
+		if (characterName != null) {
+			characterHistograms.computeIfAbsent(characterName, c -> new ScoreHistogram()).record(points);
+		}
+	}
+
+	/**
+	 * Get the distribution of all scores of the level.
+	 *
+	 * @return the distribution of the level
+	 */
+	public ScoreHistogram getLevelHistogram() {
+		return levelHistogram;
+	}
+
+	/**
+	 * Get the distribution of the scores achieved with the specified player
+	 * character.
+	 *
+	 * @param characterName the name of the character
+	 * @return the distribution of the character, which is empty if no scores
+	 *         have been recorded for it
+	 */
+	public ScoreHistogram getCharacterHistogram(String characterName) {
+		ScoreHistogram histogram = characterHistograms.get(characterName);
+		return histogram == null ? new ScoreHistogram() : histogram;
+	}
+
+	/**
+	 * Write this distribution to the specified stream.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeInt(MAGIC);
+		dataOut.writeByte(VERSION);
+		levelHistogram.writeTo(dataOut);
+
+		//Write the characters in order, so that equal distributions are saved
+		//as equal files
+		Map<String, ScoreHistogram> sorted = new TreeMap<>(characterHistograms);
+		dataOut.writeInt(sorted.size());
+		for (Map.Entry<String, ScoreHistogram> entry : sorted.entrySet()) {
+			dataOut.writeUTF(entry.getKey());
+			entry.getValue().writeTo(dataOut);
+		}
+
+		dataOut.flush();
+	}
+
+	/**
+	 * Read a distribution from the specified stream.
+	 *
+	 * @param in the stream to read from
+	 * @return the distribution that was read
+	 * @throws IOException if reading fails or the stream does not contain a
+	 *                     distribution
+	 */
+	public static ScoreDistribution readFrom(InputStream in) throws IOException {
+		DataInputStream dataIn = new DataInputStream(in);
+
+		//Read and verify the header
+		if (dataIn.readInt() != MAGIC) {
+			throw new IOException("Not a score distribution");
+		}
+
+		byte version = dataIn.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported score distribution version " + version);
+		}
+
+		ScoreDistribution distribution = new ScoreDistribution();
+		distribution.levelHistogram = ScoreHistogram.readFrom(dataIn);
+
+		int characterCount = dataIn.readInt();
+		for (int i = 0; i < characterCount; i++) {
+			distribution.characterHistograms.put(dataIn.readUTF(), ScoreHistogram.readFrom(dataIn));
+		}
+
+		return distribution;
+	}
+}
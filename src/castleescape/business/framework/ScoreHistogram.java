@@ -0,0 +1,281 @@
+package castleescape.business.framework;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class counting how many scores fall within ranges of points, using a fixed
+ * amount of memory no matter how many scores are recorded.
+ * <p>
+ * The ranges are laid out like in an HDR histogram: points below
+ * {@link #EXACT_POINTS} get a range each, and above that every doubling of
+ * points is split into {@link #SUB_RANGES} ranges of equal width. Percentiles
+ * are therefore never off by more than about three percent, and finding one
+ * only visits the fixed number of ranges. Scores below zero are rare, and are
+ * counted together.
+ * <p>
+ * Scores can be recorded by many threads at once.
+ */
+public class ScoreHistogram {
+
+	/**
+	 * The number of ranges per doubling of points.
+	 */
+	private static final int SUB_RANGES = 32;
+
+	/**
+	 * The points below which every amount of points has its own range.
+	 */
+	private static final int EXACT_POINTS = SUB_RANGES * 2;
+
+	/**
+	 * The number of ranges needed to count any non-negative amount of points.
+	 */
+	private static final int RANGE_COUNT = index(Integer.MAX_VALUE) + 1;
+
+	/**
+	 * The number of scores in each range.
+	 */
+	private final AtomicLongArray counts;
+
+	/**
+	 * The number of scores below zero.
+	 */
+	private final AtomicLong negativeCount;
+
+	/**
+	 * The number of scores.
+	 */
+	private final AtomicLong totalCount;
+
+	/**
+	 * The lowest score recorded.
+	 */
+	private final AtomicInteger min;
+
+	/**
+	 * The highest score recorded.
+	 */
+	private final AtomicInteger max;
+
+	/**
+	 * Constructs a new empty histogram.
+	 */
+	public ScoreHistogram() {
+		counts = new AtomicLongArray(RANGE_COUNT);
+		negativeCount = new AtomicLong();
+		totalCount = new AtomicLong();
+		min = new AtomicInteger(Integer.MAX_VALUE);
+		max = new AtomicInteger(Integer.MIN_VALUE);
+	}
+
+	/**
+	 * Get the index of the range containing the specified non-negative amount
+	 * of points.
+	 *
+	 * @param points the amount of points
+	 * @return the index of the range
+	 */
+	private static int index(int points) {
+		if (points < EXACT_POINTS) {
+			return points;
+		}
+
+		//Keep the highest bits of the points, and use the number of dropped
+		//bits to tell the doublings apart
+		int shift = 31 - Integer.numberOfLeadingZeros(points) - Integer.numberOfTrailingZeros(SUB_RANGES);
+		return EXACT_POINTS + (shift - 1) * SUB_RANGES + (points >>> shift) - SUB_RANGES;
+	}
+
+	/**
+	 * Get the lowest amount of points in the range with the specified index.
+	 *
+	 * @param index the index of the range
+	 * @return the lowest amount of points
+	 */
+	private static int lowestPoints(int index) {
+		if (index < EXACT_POINTS) {
+			return index;
+		}
+
+		int shift = (index - EXACT_POINTS) / SUB_RANGES + 1;
+		return ((index - EXACT_POINTS) % SUB_RANGES + SUB_RANGES) << shift;
+	}
+
+	/**
+	 * Record a score with the specified amount of points.
+	 *
+	 * @param points the amount of points
+	 */
+	public void record(int points) {
+		if (points < 0) {
+			negativeCount.incrementAndGet();
+		} else {
+			counts.incrementAndGet(index(points));
+		}
+
+		min.accumulateAndGet(points, Math::min);
+		max.accumulateAndGet(points, Math::max);
+		totalCount.incrementAndGet();
+	}
+
+	/**
+	 * Get the number of scores recorded.
+	 *
+	 * @return the number of scores
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * Get the lowest score recorded.
+	 *
+	 * @return the lowest score, or 0 if no scores have been recorded
+	 */
+	public int getMin() {
+		return getCount() == 0 ? 0 : min.get();
+	}
+
+	/**
+	 * Get the highest score recorded.
+	 *
+	 * @return the highest score, or 0 if no scores have been recorded
+	 */
+	public int getMax() {
+		return getCount() == 0 ? 0 : max.get();
+	}
+
+	/**
+	 * Get the score that the specified percentage of scores are at or below.
+	 * The score is rounded down to the lowest amount of points in its range,
+	 * or to the lowest score if it is below zero.
+	 *
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the score, or 0 if no scores have been recorded
+	 */
+	public int getPercentile(double percentile) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		} else if (percentile >= 100) {
+			return getMax();
+		}
+
+		//The number of scores that must be at or below the result
+		long wanted = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+		long seen = negativeCount.get();
+		if (seen >= wanted) {
+			return getMin();
+		}
+
+		for (int i = 0; i < RANGE_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen >= wanted) {
+				return Math.max(getMin(), Math.min(getMax(), lowestPoints(i)));
+			}
+		}
+
+		//Scores were recorded while counting
+		return getMax();
+	}
+
+	/**
+	 * Get the median score.
+	 *
+	 * @return the median score, or 0 if no scores have been recorded
+	 */
+	public int getMedian() {
+		return getPercentile(50);
+	}
+
+	/**
+	 * Get the percentage of scores that are lower than the specified amount
+	 * of points. Scores in the same range as the points are not counted, and
+	 * neither are any scores if the points are below zero.
+	 *
+	 * @param points the amount of points
+	 * @return the percentage, from 0 to 100, or 0 if no scores have been
+	 *         recorded
+	 */
+	public double getPercentageBelow(int points) {
+		long total = getCount();
+		if (total == 0 || points < 0) {
+			return 0;
+		}
+
+		long below = negativeCount.get();
+		int end = index(points);
+		for (int i = 0; i < end; i++) {
+			below += counts.get(i);
+		}
+
+		return Math.min(100, 100.0 * below / total);
+	}
+
+	/**
+	 * Write this histogram to the specified stream. Only ranges containing
+	 * scores are written.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(DataOutputStream out) throws IOException {
+		int used = 0;
+		for (int i = 0; i < RANGE_COUNT; i++) {
+			if (counts.get(i) != 0) {
+				used++;
+			}
+		}
+
+		out.writeLong(negativeCount.get());
+		out.writeInt(min.get());
+		out.writeInt(max.get());
+		out.writeInt(used);
+
+		//The total is written as the sum of the written counts, in case scores
+		//are recorded while writing
+		for (int i = 0; i < RANGE_COUNT && used > 0; i++) {
+			long count = counts.get(i);
+			if (count != 0) {
+				out.writeShort(i);
+				out.writeLong(count);
+				used--;
+			}
+		}
+	}
+
+	/**
+	 * Read a histogram written by {@link #writeTo(DataOutputStream)}.
+	 *
+	 * @param in the stream to read from
+	 * @return the histogram that was read
+	 * @throws IOException if reading fails or the histogram is corrupt
+	 */
+	public static ScoreHistogram readFrom(DataInputStream in) throws IOException {
+		ScoreHistogram histogram = new ScoreHistogram();
+		long total = in.readLong();
+		histogram.negativeCount.set(total);
+		histogram.min.set(in.readInt());
+		histogram.max.set(in.readInt());
+
+		int used = in.readInt();
+		for (int i = 0; i < used; i++) {
+			int index = in.readUnsignedShort();
+			long count = in.readLong();
+			if (index >= RANGE_COUNT || count < 0) {
+				throw new IOException("Corrupt score histogram");
+			}
+
+			histogram.counts.set(index, count);
+			total += count;
+		}
+
+		histogram.totalCount.set(total);
+		return histogram;
+	}
+}
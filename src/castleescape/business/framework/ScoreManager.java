@@ -5,68 +5,43 @@
  */
 package castleescape.business.framework;
 
-import java.util.ArrayList;
 import java.util.List;
 import castleescape.business.ViewUtil;
+import castleescape.business.metrics.GameMetrics;
 import castleescape.data.DataMediator;
 
 /**
  * Class responsible for all score related operations, including keeping track
- * of the player's score.
+ * of the player's score. The scores of the level are kept in a
+ * {@link Leaderboard} shared by all games of the level.
  */
 public class ScoreManager {
 
-	/**
-	 * The name of the level for which these scores apply.
-	 */
-	private final String levelName;
-
-	/**
-	 * The object to use for saving scores to the file system.
-	 */
-	private final DataMediator dataMediator;
-
 	/**
 	 * The player's current score. This will change over the course of the game.
 	 */
 	private int currentGameScore;
 
 	/**
-	 * The highest score that has been encountered.
+	 * The scores of the level, shared with all other games of the level.
 	 */
-	private Score highscore;
-
-	/**
-	 * The list of scores. This list is always sorted in descending order.
-	 */
-	private final List<Score> scores;
+	private final Leaderboard leaderboard;
 
 	/**
 	 * Constructs a new object for managing scores. This will automatically read
-	 * the scores associated with the specified level.
+	 * the scores associated with the specified level, unless another game of
+	 * the level has already read them.
 	 *
 	 * @param dataMediator the object to use for saving scores to the file
 	 *                     system
 	 * @param levelName    the name of the level for which these scores apply
 	 */
 	public ScoreManager(DataMediator dataMediator, String levelName) {
-		this.dataMediator = dataMediator;
-		this.levelName = levelName;
-
-		//Initialize score list
-		scores = new ArrayList<>();
-
-		//Read score data from the file system
-		dataMediator.readScoreData(levelName);
-
-		//Retrieve unsorted list of scores from the data mediator
-		List<Score> unsortedScores = dataMediator.getScores();
-
-		//Add all the scores to the internal score list, sorting it along the
-		//way
-		for (Score score : unsortedScores) {
-			addScore(score);
-		}
+		//Get the shared leaderboard, measuring the time taken to read and sort
+		//the scores if this is the first game of the level
+		long start = System.nanoTime();
+		leaderboard = Leaderboard.forLevel(dataMediator, levelName);
+		GameMetrics.getInstance().recordScoreLoad(System.nanoTime() - start);
 	}
 
 	/**
@@ -87,62 +62,88 @@ public class ScoreManager {
 		return currentGameScore;
 	}
 
+	/**
+	 * Get the rank that the player's score would have among the scores of the
+	 * level.
+	 *
+	 * @return the rank, starting from 1
+	 */
+	public int getCurrentGameRank() {
+		return leaderboard.getRank(currentGameScore);
+	}
+
+	/**
+	 * Get the percentage of recorded scores that are lower than the player's
+	 * score.
+	 *
+	 * @return the percentage, from 0 to 100
+	 */
+	public double getCurrentGamePercentageBeaten() {
+		return leaderboard.getDistribution().getLevelHistogram().getPercentageBelow(currentGameScore);
+	}
+
+	/**
+	 * Get the distribution of the scores of the level, both for the level as a
+	 * whole and for every player character.
+	 *
+	 * @return the distribution of the scores
+	 */
+	public ScoreDistribution getDistribution() {
+		return leaderboard.getDistribution();
+	}
+
 	/**
 	 * Record the player's current score by evaluating it as a new highscore and
 	 * saving it in the score file. This method should only be called when the
 	 * game is over.
 	 *
-	 * @param name the name of the user who achieved the current score
+	 * @param name          the name of the user who achieved the current score
+	 * @param characterName the name of the character that the user played, or
+	 *                      null if unknown
+	 * @param timestamp     the time that the game ended, in milliseconds since
+	 *                      the epoch
 	 */
-	public void recordCurrentGameScore(String name) {
+	public void recordCurrentGameScore(String name, String characterName, long timestamp) {
 		//Clip the name to three characters
 		if (name.length() > 3) {
 			name = name.substring(0, 3);
 		}
 
 		//Construct new score object
-		Score score = new Score(name, currentGameScore);
-
-		//Add the score to the internal score list
-		addScore(score);
+		Score score = new Score(name, currentGameScore, leaderboard.getLevelName(), characterName, timestamp);
 
-		//Save the score to the score file
-		dataMediator.saveScoreData(levelName, score);
+		//Add the score to the leaderboard, which saves it to the score file
+		leaderboard.add(score);
 	}
 
 	/**
-	 * Add the specified score to the list of all scores. This will sort the
-	 * scores in descending order. It will also update the highscore if
-	 * necessary.
+	 * Write the best scores achieved within the specified period to the user
+	 * interface. For all time, this is the same as
+	 * {@link #writeScoreTable(int)}.
 	 *
-	 * @param score the score to add
+	 * @param period     the period to write the best scores of
+	 * @param scoreCount the amount of scores to print, or -1 to print all
+	 *                   scores that are kept for the period
 	 */
-	private void addScore(Score score) {
-		//If no scores have been recorded yet, just add it
+	public void writeScoreTable(Leaderboard.Period period, int scoreCount) {
+		if (period == Leaderboard.Period.ALL_TIME) {
+			writeScoreTable(scoreCount);
+			return;
+		}
+
+		String periodName = period == Leaderboard.Period.DAY ? "the last day" : "the last week";
+		List<Score> scores = leaderboard.getTopScores(period, scoreCount);
 		if (scores.isEmpty()) {
-			scores.add(score);
-		} else {
-			//Otherwise perform insertion sort
-			int i;
-
-			//Find the index at which this score should be inserted
-			for (i = 0; i < scores.size(); i++) {
-				//Add the score before the first score that is smaller than this
-				//score
-				if (scores.get(i).getPlayerScore() < score.getPlayerScore()) {
-					//Insertion position found, break out of the loop
-					break;
-				}
-			}
-
-			//Insert the score at the index that we found in the loop
-			scores.add(i, score);
+			ViewUtil.println("No scores from " + periodName + ".");
+			return;
 		}
 
-		//If this is the new highscore, save it as that. If no highscore has
-		//been set yet, then this score must be the new highscore
-		if (highscore == null || score.getPlayerScore() > highscore.getPlayerScore()) {
-			highscore = score;
+		//Print the table in the same way as for all time
+		ViewUtil.printBold("Top " + scores.size() + " scores from " + periodName + ":");
+		ViewUtil.newLine();
+		for (int i = 0; i < scores.size(); i++) {
+			ViewUtil.print((i + 1) + ". ");
+			ViewUtil.println(scores.get(i));
 		}
 	}
 
@@ -154,14 +155,15 @@ public class ScoreManager {
 	 *                   scores
 	 */
 	public void writeScoreTable(int scoreCount) {
-		//If no scores exist, do nothing. Note: if the scores list is not empty,
-		//and assuming that the contract of this class has not been violated,
-		//then the highscore variable is not null, so no need to test for that
-		//explicitly.
-		if (scores.isEmpty()) {
+		//If no scores exist, do nothing
+		Score highscore = leaderboard.getHighscore();
+		if (highscore == null) {
 			return;
 		}
 
+		//Read the scores once, as other games may add scores while printing
+		List<Score> scores = leaderboard.getTopScores(scoreCount);
+
 		//If we are requested to print all scores (scoreCount == -1) then set
 		//scoreCount to the size og the scores list. The reasoning behind this
 		//functionality is merely to add convenience to the users of this
@@ -190,5 +192,13 @@ public class ScoreManager {
 			ViewUtil.print((i + 1) + ". ");
 			ViewUtil.println(currentScore);
 		}
+
+		//Print how the scores are distributed
+		ScoreHistogram histogram = leaderboard.getDistribution().getLevelHistogram();
+		ViewUtil.newLine();
+		ViewUtil.printBold("Statistics:");
+		ViewUtil.newLine();
+		ViewUtil.println("Median score: " + histogram.getMedian());
+		ViewUtil.println("90th percentile: " + histogram.getPercentile(90));
 	}
 }
@@ -0,0 +1,262 @@
+package castleescape.business.framework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class keeping the best scores achieved within a period of time that moves
+ * along with the current time, such as the last day or the last week.
+ * <p>
+ * The period is split into a ring of buckets of equal length, such as the
+ * hours of a day. Every bucket keeps the best scores achieved within its
+ * length, up to a fixed capacity. A bucket that has fallen out of the period
+ * is not cleared, but ignored by readers and replaced by the first score of
+ * a later bucket using the same place in the ring, so scores expire without
+ * any work. The best scores of the period are found by merging the best scores
+ * of its buckets, which does not depend on the number of scores ever achieved.
+ * <p>
+ * Since whole buckets expire at once, the period actually covered is between
+ * one bucket shorter than the period and the full period.
+ * <p>
+ * Buckets are never modified, only replaced with compare-and-set, so scores
+ * can be recorded and read by many threads at once without locking. The
+ * merged scores are kept until a score is recorded or a bucket expires, so
+ * reading them repeatedly does not merge them again.
+ */
+public class ScoreWindow {
+
+	/**
+	 * The order of the scores in the buckets: most points first, and earliest
+	 * first among equal points.
+	 */
+	private static final Comparator<Score> ORDER = Comparator
+			.comparingInt((Score s) -> -s.getPlayerScore())
+			.thenComparingLong(Score::getTimestamp);
+
+	/**
+	 * The length of each bucket, in milliseconds.
+	 */
+	private final long bucketLength;
+
+	/**
+	 * The maximum number of scores kept per bucket.
+	 */
+	private final int capacity;
+
+	/**
+	 * The ring of buckets. The bucket for a time is at the number of bucket
+	 * lengths since the epoch, modulo the number of buckets.
+	 */
+	private final AtomicReferenceArray<Bucket> buckets;
+
+	/**
+	 * The number of times that a bucket has been replaced.
+	 */
+	private final AtomicLong version;
+
+	/**
+	 * The best scores of the period as of the last merge, or null if the
+	 * buckets have not been merged yet.
+	 */
+	private final AtomicReference<Merge> lastMerge;
+
+	/**
+	 * Constructs a new empty window.
+	 *
+	 * @param bucketLength the length of each bucket, in milliseconds
+	 * @param bucketCount  the number of buckets in the period
+	 * @param capacity     the maximum number of scores kept per bucket, which
+	 *                     is also the maximum number of scores that can be
+	 *                     read
+	 */
+	public ScoreWindow(long bucketLength, int bucketCount, int capacity) {
+		this.bucketLength = bucketLength;
+		this.capacity = capacity;
+		buckets = new AtomicReferenceArray<>(bucketCount);
+		version = new AtomicLong();
+		lastMerge = new AtomicReference<>();
+	}
+
+	/**
+	 * Record the specified score, if it was achieved within the period and is
+	 * among the best scores of its bucket.
+	 *
+	 * @param score the score to record
+	 */
+	public void record(Score score) {
+		long number = score.getTimestamp() / bucketLength;
+		int index = (int) Math.floorMod(number, (long) buckets.length());
+
+		//Replace the bucket until no other thread has replaced it in the
+		//meantime
+		while (true) {
+			Bucket bucket = buckets.get(index);
+			Bucket updated;
+			if (bucket == null || bucket.number < number) {
+				//The bucket has expired, so the score starts a new one
+				updated = new Bucket(number, new Score[]{score});
+			} else if (bucket.number > number) {
+				//The score is older than the period
+				return;
+			} else {
+				updated = bucket.with(score, capacity);
+				if (updated == bucket) {
+					return;
+				}
+			}
+
+			if (buckets.compareAndSet(index, bucket, updated)) {
+				version.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the best scores achieved within the period ending at the specified
+	 * time, in order.
+	 *
+	 * @param count the number of scores to get, or -1 to get as many as the
+	 *              window keeps
+	 * @param now   the end of the period, in milliseconds since the epoch
+	 * @return the best scores
+	 */
+	public List<Score> getTopScores(int count, long now) {
+		long current = now / bucketLength;
+		int limit = count < 0 ? capacity : Math.min(count, capacity);
+
+		//Reuse the last merge if nothing has changed since. The version is
+		//read before merging, so a score recorded while merging makes the
+		//merge outdated rather than lost
+		Merge merge = lastMerge.get();
+		long mergeVersion = version.get();
+		if (merge == null || merge.current != current || merge.version != mergeVersion) {
+			merge = new Merge(current, mergeVersion, merge(current));
+			lastMerge.set(merge);
+		}
+
+		List<Score> scores = merge.scores;
+		return scores.size() > limit ? scores.subList(0, limit) : scores;
+	}
+
+	/**
+	 * Merge the best scores of the buckets within the period ending in the
+	 * specified bucket.
+	 *
+	 * @param current the number of bucket lengths from the epoch to the start
+	 *                of the last bucket of the period
+	 * @return the best scores of the period, in order
+	 */
+	private List<Score> merge(long current) {
+		List<Score> scores = new ArrayList<>();
+
+		//Only buckets within the period are merged, the rest have expired
+		for (int i = 0; i < buckets.length(); i++) {
+			Bucket bucket = buckets.get(i);
+			if (bucket != null && bucket.number <= current && bucket.number > current - buckets.length()) {
+				scores.addAll(Arrays.asList(bucket.scores));
+			}
+		}
+
+		scores.sort(ORDER);
+		return Collections.unmodifiableList(scores.size() > capacity ? new ArrayList<>(scores.subList(0, capacity)) : scores);
+	}
+
+	/**
+	 * The best scores of the period as of a merge of the buckets.
+	 */
+	private static class Merge {
+
+		/**
+		 * The number of bucket lengths from the epoch to the start of the
+		 * last bucket of the merged period.
+		 */
+		private final long current;
+
+		/**
+		 * The version of the buckets that were merged.
+		 */
+		private final long version;
+
+		/**
+		 * The best scores of the period, in order.
+		 */
+		private final List<Score> scores;
+
+		/**
+		 * Constructs a new merge.
+		 *
+		 * @param current the number of bucket lengths from the epoch to the
+		 *                start of the last bucket of the merged period
+		 * @param version the version of the buckets that were merged
+		 * @param scores  the best scores of the period, in order
+		 */
+		Merge(long current, long version, List<Score> scores) {
+			this.current = current;
+			this.version = version;
+			this.scores = scores;
+		}
+	}
+
+	/**
+	 * A bucket of the window, holding the best scores achieved within its
+	 * length.
+	 */
+	private static class Bucket {
+
+		/**
+		 * The number of bucket lengths from the epoch to the start of this
+		 * bucket.
+		 */
+		private final long number;
+
+		/**
+		 * The best scores of this bucket, in order.
+		 */
+		private final Score[] scores;
+
+		/**
+		 * Constructs a new bucket.
+		 *
+		 * @param number the number of bucket lengths from the epoch to the
+		 *               start of the bucket
+		 * @param scores the best scores of the bucket, in order
+		 */
+		Bucket(long number, Score[] scores) {
+			this.number = number;
+			this.scores = scores;
+		}
+
+		/**
+		 * Get a bucket like this one, but with the specified score among its
+		 * best scores.
+		 *
+		 * @param score    the score to add
+		 * @param capacity the maximum number of scores to keep
+		 * @return the new bucket, or this bucket if the score is not among the
+		 *         best scores
+		 */
+		Bucket with(Score score, int capacity) {
+			int position = scores.length;
+			while (position > 0 && ORDER.compare(score, scores[position - 1]) < 0) {
+				position--;
+			}
+
+			if (position >= capacity) {
+				return this;
+			}
+
+			Score[] updated = new Score[Math.min(scores.length + 1, capacity)];
+			System.arraycopy(scores, 0, updated, 0, position);
+			updated[position] = score;
+			System.arraycopy(scores, position, updated, position + 1, updated.length - position - 1);
+			return new Bucket(number, updated);
+		}
+	}
+}
@@ -0,0 +1,436 @@
+package castleescape.business.journal;
+
+import castleescape.business.command.Command;
+import castleescape.business.command.CommandWord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class defining a compact journal of everything that happened in a single
+ * game session. The journal contains the seed of the game's random number
+ * generator, the chosen player character and every command that was processed
+ * along with the time of the game clock when it was processed. This is enough
+ * to rebuild the exact state of the game using a {@link JournalReplayer}.
+ * <p>
+ * Entries are encoded as they are appended, so the journal never holds more
+ * than a single growing byte array.
+ */
+public class CommandJournal {
+
+	/**
+	 * The magic number at the start of every journal, "CEJ1".
+	 */
+	private static final int MAGIC = 0x43454A31;
+
+	/**
+	 * The version of the journal format.
+	 */
+	private static final byte VERSION = 1;
+
+	/**
+	 * The type of an entry in the journal.
+	 */
+	private static final byte ENTRY_COMMAND = 0,
+			ENTRY_END = 1;
+
+	/**
+	 * The command parameters that can be stored in the journal. The index of a
+	 * parameter in this array is its bit in the parameter mask of an entry, so
+	 * new parameters must be added at the end.
+	 */
+	private static final String[] PARAMETERS = {Command.DIRECTION, Command.ITEM, Command.OBJECT, Command.PERIOD};
+
+	/**
+	 * The name of the level that was played.
+	 */
+	private final String levelName;
+
+	/**
+	 * The seed of the game's random number generator.
+	 */
+	private final long seed;
+
+	/**
+	 * The system time at which the game was started, in milliseconds. This is
+	 * only informative, and it is not used when replaying.
+	 */
+	private long startTime;
+
+	/**
+	 * The name of the chosen player character.
+	 */
+	private String characterName = "";
+
+	/**
+	 * The encoded entries of the journal.
+	 */
+	private final ByteArrayOutputStream entryBytes;
+
+	/**
+	 * Stream for encoding entries into {@link #entryBytes}.
+	 */
+	private final DataOutputStream entryOut;
+
+	/**
+	 * The time of the game clock when the last command was recorded, in
+	 * milliseconds relative to the start of the game.
+	 */
+	private long lastTick;
+
+	/**
+	 * Constructs a new, empty journal.
+	 *
+	 * @param levelName the name of the level that is played
+	 * @param seed      the seed of the game's random number generator
+	 */
+	public CommandJournal(String levelName, long seed) {
+		this.levelName = levelName;
+		this.seed = seed;
+
+		entryBytes = new ByteArrayOutputStream(256);
+		entryOut = new DataOutputStream(entryBytes);
+	}
+
+	/**
+	 * Get the name of the level that was played.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the seed of the game's random number generator.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Get the system time at which the game was started.
+	 *
+	 * @return the start time, in milliseconds
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Set the system time at which the game was started.
+	 *
+	 * @param startTime the start time, in milliseconds
+	 */
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	/**
+	 * Get the name of the chosen player character.
+	 *
+	 * @return the name of the player character
+	 */
+	public String getCharacterName() {
+		return characterName;
+	}
+
+	/**
+	 * Set the name of the chosen player character.
+	 *
+	 * @param characterName the name of the player character
+	 */
+	public void setCharacterName(String characterName) {
+		this.characterName = characterName;
+	}
+
+	/**
+	 * Append a command to this journal.
+	 *
+	 * @param tick    the time of the game clock when the command was processed,
+	 *                in milliseconds relative to the start of the game
+	 * @param command the command that was processed
+	 */
+	public void recordCommand(long tick, Command command) {
+		try {
+			entryOut.writeByte(ENTRY_COMMAND);
+
+			//Ticks are stored as deltas, which are almost always small
+			writeVarLong(tick - lastTick);
+			lastTick = tick;
+
+			entryOut.writeByte(command.getCommandWord().ordinal());
+
+			//Write a mask of the parameters that are present, followed by the
+			//parameters themselves
+			int mask = 0;
+			for (int i = 0; i < PARAMETERS.length; i++) {
+				if (command.getCommandParameter(PARAMETERS[i]) != null) {
+					mask |= 1 << i;
+				}
+			}
+
+			entryOut.writeByte(mask);
+			for (int i = 0; i < PARAMETERS.length; i++) {
+				if ((mask & (1 << i)) != 0) {
+					entryOut.writeUTF(command.getCommandParameter(PARAMETERS[i]));
+				}
+			}
+		} catch (IOException e) {
+			//Writing to a byte array never fails
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Append the outcome of the game to this journal. This should be called
+	 * once when the game has ended.
+	 *
+	 * @param score the final score of the player
+	 */
+	public void recordEnd(int score) {
+		try {
+			entryOut.writeByte(ENTRY_END);
+			entryOut.writeInt(score);
+		} catch (IOException e) {
+			//Writing to a byte array never fails
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Write a long using a variable amount of bytes. Small values, positive as
+	 * well as negative, take up a single byte.
+	 *
+	 * @param value the value to write
+	 * @throws IOException if writing fails
+	 */
+	private void writeVarLong(long value) throws IOException {
+		//Zig-zag encode the value so that negative values become small as well
+		long v = (value << 1) ^ (value >> 63);
+
+		while ((v & ~0x7FL) != 0) {
+			entryOut.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+
+		entryOut.writeByte((int) v);
+	}
+
+	/**
+	 * Read a long written by {@link #writeVarLong(long)}.
+	 *
+	 * @param in the stream to read from
+	 * @return the value that was read
+	 * @throws IOException if reading fails
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long v = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return (v >>> 1) ^ -(v & 1);
+	}
+
+	/**
+	 * Write this journal to the specified stream.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(out);
+
+		//Write the header
+		dataOut.writeInt(MAGIC);
+		dataOut.writeByte(VERSION);
+		dataOut.writeUTF(levelName);
+		dataOut.writeLong(seed);
+		dataOut.writeLong(startTime);
+		dataOut.writeUTF(characterName);
+
+		//Write the entries
+		dataOut.writeInt(entryBytes.size());
+		entryBytes.writeTo(dataOut);
+		dataOut.flush();
+	}
+
+	/**
+	 * Read a journal from the specified stream.
+	 *
+	 * @param in the stream to read from
+	 * @return the journal that was read
+	 * @throws IOException if reading fails or the stream does not contain a
+	 *                     journal
+	 */
+	public static CommandJournal readFrom(InputStream in) throws IOException {
+		DataInputStream dataIn = new DataInputStream(in);
+
+		//Read and verify the header
+		if (dataIn.readInt() != MAGIC) {
+			throw new IOException("Not a command journal");
+		}
+
+		byte version = dataIn.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported journal version " + version);
+		}
+
+		CommandJournal journal = new CommandJournal(dataIn.readUTF(), dataIn.readLong());
+		journal.setStartTime(dataIn.readLong());
+		journal.setCharacterName(dataIn.readUTF());
+
+		//Read the entries
+		byte[] entries = new byte[dataIn.readInt()];
+		dataIn.readFully(entries);
+		journal.entryOut.write(entries);
+
+		//Restore the time of the last command, so that more commands can be
+		//appended to the journal
+		List<Entry> decoded = journal.getEntries();
+		if (!decoded.isEmpty()) {
+			journal.lastTick = decoded.get(decoded.size() - 1).getTick();
+		}
+
+		return journal;
+	}
+
+	/**
+	 * Decode the entries of this journal.
+	 *
+	 * @return the entries of this journal in the order they were recorded
+	 * @throws IOException if the entries are corrupt
+	 */
+	public List<Entry> getEntries() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(entryBytes.toByteArray()));
+		CommandWord[] commandWords = CommandWord.values();
+		long tick = 0;
+
+		try {
+			while (true) {
+				byte type = in.readByte();
+
+				if (type == ENTRY_END) {
+					entries.add(new Entry(tick, null, in.readInt()));
+					continue;
+				}
+
+				//Read a command entry
+				tick += readVarLong(in);
+				CommandWord word = commandWords[in.readUnsignedByte()];
+				int mask = in.readUnsignedByte();
+
+				Map<String, String> params = null;
+				for (int i = 0; i < PARAMETERS.length; i++) {
+					if ((mask & (1 << i)) != 0) {
+						if (params == null) {
+							params = new HashMap<>();
+						}
+
+						params.put(PARAMETERS[i], in.readUTF());
+					}
+				}
+
+				entries.add(new Entry(tick, new Command(word, params), 0));
+			}
+		} catch (EOFException e) {
+			//We reached the end of the entries
+		}
+
+		return entries;
+	}
+
+	/**
+	 * A single decoded entry in a journal. An entry either describes a command
+	 * that was processed or the end of the game.
+	 */
+	public static class Entry {
+
+		/**
+		 * The time of the game clock, in milliseconds relative to the start of
+		 * the game.
+		 */
+		private final long tick;
+
+		/**
+		 * The command that was processed, or null if this entry marks the end
+		 * of the game.
+		 */
+		private final Command command;
+
+		/**
+		 * The final score, if this entry marks the end of the game.
+		 */
+		private final int score;
+
+		/**
+		 * Constructs a new journal entry.
+		 *
+		 * @param tick    the time of the game clock
+		 * @param command the command that was processed, or null
+		 * @param score   the final score
+		 */
+		private Entry(long tick, Command command, int score) {
+			this.tick = tick;
+			this.command = command;
+			this.score = score;
+		}
+
+		/**
+		 * Get the time of the game clock when this entry was recorded.
+		 *
+		 * @return the time, in milliseconds relative to the start of the game
+		 */
+		public long getTick() {
+			return tick;
+		}
+
+		/**
+		 * Get the command that was processed.
+		 *
+		 * @return the command, or null if this entry marks the end of the game
+		 */
+		public Command getCommand() {
+			return command;
+		}
+
+		/**
+		 * Test whether this entry marks the end of the game.
+		 *
+		 * @return {@code true} if this entry marks the end of the game,
+		 *         {@code false} if it describes a command
+		 */
+		public boolean isEnd() {
+			return command == null;
+		}
+
+		/**
+		 * Get the final score of the game, if this entry marks the end of the
+		 * game.
+		 *
+		 * @return the final score
+		 */
+		public int getScore() {
+			return score;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package castleescape.business.journal;
+
+import castleescape.business.ViewUtil;
+import castleescape.business.framework.Character;
+import castleescape.business.framework.Game;
+import castleescape.business.framework.GameClock;
+import castleescape.data.DataMediator;
+import castleescape.shared.GameListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class for rebuilding the state of a game from its {@link CommandJournal}.
+ * The game is replayed headless on a virtual clock, so it runs at full speed
+ * regardless of how long the original session took.
+ * <p>
+ * Replaying is used for reproducing bug reports, for verifying that a score
+ * was actually achieved, and for checking that old journals still play out
+ * the same way after the level data has changed.
+ */
+public class JournalReplayer {
+
+	/**
+	 * A game listener that ignores all output.
+	 */
+	private static final GameListener HEADLESS_LISTENER = new GameListener() {
+		@Override
+		public void onGameStart(String output) {
+		}
+
+		@Override
+		public void onGameExit() {
+		}
+
+		@Override
+		public void onGameIteration(String output) {
+		}
+	};
+
+	/**
+	 * The data mediator used to load levels.
+	 */
+	private final DataMediator dataMediator;
+
+	/**
+	 * Constructs a new journal replayer.
+	 *
+	 * @param dataMediator the data mediator used to load levels
+	 */
+	public JournalReplayer(DataMediator dataMediator) {
+		this.dataMediator = dataMediator;
+	}
+
+	/**
+	 * Replay the specified journal and return the resulting game. The game is
+	 * in the exact state that the original game was in after its last
+	 * journaled command. The returned game will not save its own journal.
+	 *
+	 * @param journal the journal to replay
+	 * @return the game in its replayed state
+	 * @throws IOException              if the journal is corrupt
+	 * @throws IllegalArgumentException if the journaled character does not
+	 *                                  exist
+	 */
+	public Game replay(CommandJournal journal) throws IOException {
+		//Construct the game on a virtual clock with the original seed
+		GameClock clock = new GameClock(true);
+		Game game = new Game(dataMediator, journal.getLevelName(), journal.getSeed(), clock);
+		game.setJournalPersistent(false);
+		game.setGameListener(HEADLESS_LISTENER);
+		game.setPlayer(findCharacter(game, journal.getCharacterName()));
+		game.start();
+
+		//Feed all journaled commands to the game at their original times
+		for (CommandJournal.Entry entry : journal.getEntries()) {
+			if (!entry.isEnd()) {
+				clock.setTime(entry.getTick());
+				game.processCommand(entry.getCommand());
+			}
+		}
+
+		//Discard any output that was not consumed by the listener
+		ViewUtil.getString();
+
+		return game;
+	}
+
+	/**
+	 * Test whether replaying the specified journal reproduces the specified
+	 * score. This should be used to audit suspicious scores before they are
+	 * recorded.
+	 *
+	 * @param journal the journal of the game that achieved the score
+	 * @param score   the claimed score
+	 * @return {@code true} if replaying the journal ends the game with the
+	 *         claimed score, {@code false} otherwise
+	 * @throws IOException if the journal is corrupt
+	 */
+	public boolean verifyScore(CommandJournal journal, int score) throws IOException {
+		Game game = replay(journal);
+		return !game.isRunning() && game.getScoreManager().getCurrentGameScore() == score;
+	}
+
+	/**
+	 * Test whether replaying the specified journal reproduces the outcome that
+	 * was recorded in it. A journal without a recorded outcome is valid as
+	 * long as the game is still running after the replay.
+	 *
+	 * @param journal the journal to validate
+	 * @return {@code true} if the replay matches the journal, {@code false}
+	 *         otherwise
+	 * @throws IOException if the journal is corrupt
+	 */
+	public boolean validate(CommandJournal journal) throws IOException {
+		//Find the recorded outcome, if any
+		CommandJournal.Entry end = null;
+		for (CommandJournal.Entry entry : journal.getEntries()) {
+			if (entry.isEnd()) {
+				end = entry;
+			}
+		}
+
+		if (end == null) {
+			return replay(journal).isRunning();
+		}
+
+		return verifyScore(journal, end.getScore());
+	}
+
+	/**
+	 * Get the character with the specified name from the specified game.
+	 *
+	 * @param game the game
+	 * @param name the name of the character
+	 * @return the character with the specified name
+	 * @throws IllegalArgumentException if no such character exists
+	 */
+	private Character findCharacter(Game game, String name) {
+		for (Character character : game.getCharacters()) {
+			if (character.getName().equals(name)) {
+				return character;
+			}
+		}
+
+		throw new IllegalArgumentException("No such player character: " + name);
+	}
+
+	/**
+	 * Replay and validate all journals in the specified files and directories,
+	 * or in the default journal directory if no arguments are given. Invalid
+	 * journals are reported on standard output.
+	 *
+	 * @param args the journal files and directories to validate
+	 */
+	public static void main(String[] args) {
+		DataMediator dataMediator = new DataMediator();
+		JournalReplayer replayer = new JournalReplayer(dataMediator);
+
+		//Collect the journal files to validate
+		List<File> journalFiles;
+		if (args.length == 0) {
+			journalFiles = dataMediator.getJournalFiles(null);
+		} else {
+			journalFiles = new ArrayList<>();
+			for (String arg : args) {
+				journalFiles.addAll(dataMediator.getJournalFiles(new File(arg)));
+			}
+		}
+
+		int invalid = 0;
+		for (File journalFile : journalFiles) {
+			try {
+				if (!replayer.validate(dataMediator.readJournalData(journalFile))) {
+					System.out.println("MISMATCH " + journalFile);
+					invalid++;
+				}
+			} catch (IOException | RuntimeException e) {
+				System.out.println("ERROR    " + journalFile + ": " + e);
+				invalid++;
+			}
+		}
+
+		System.out.println(journalFiles.size() + " journals replayed, " + invalid + " invalid");
+	}
+}
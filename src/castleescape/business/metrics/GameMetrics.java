@@ -0,0 +1,266 @@
+package castleescape.business.metrics;
+
+import castleescape.business.command.CommandWord;
+import castleescape.business.event.EventWord;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class collecting performance metrics from all games in this JVM. Metrics
+ * are published over JMX under the name {@value #OBJECT_NAME}, so they can be
+ * inspected with tools such as JConsole while the game is running.
+ * <p>
+ * All metrics are striped, so games running on different threads can record
+ * metrics without contending with each other. Recording a metric is cheap
+ * enough to always be enabled.
+ */
+public class GameMetrics implements GameMetricsMXBean {
+
+	/**
+	 * The name that the metrics are published under.
+	 */
+	public static final String OBJECT_NAME = "castleescape:type=GameMetrics";
+
+	/**
+	 * The metrics of this JVM.
+	 */
+	private static final GameMetrics INSTANCE = new GameMetrics();
+
+	/**
+	 * Whether the metrics have been published over JMX.
+	 */
+	private static volatile boolean registered;
+
+	/**
+	 * The command latencies, indexed by the ordinals of the command words.
+	 */
+	private final Histogram[] commandLatencies;
+
+	/**
+	 * The event latencies, indexed by the ordinals of the event words.
+	 */
+	private final Histogram[] eventLatencies;
+
+	/**
+	 * The remaining metrics.
+	 */
+	private final Histogram monsterTickLatency,
+			pathfindingLatency,
+			levelLoadLatency,
+			scoreLoadLatency,
+			outputSize;
+
+	/**
+	 * Constructs a new set of metrics.
+	 */
+	private GameMetrics() {
+		commandLatencies = newHistograms(CommandWord.values().length);
+		eventLatencies = newHistograms(EventWord.values().length);
+		monsterTickLatency = new Histogram();
+		pathfindingLatency = new Histogram();
+		levelLoadLatency = new Histogram();
+		scoreLoadLatency = new Histogram();
+		outputSize = new Histogram();
+	}
+
+	/**
+	 * Get the metrics of this JVM, publishing them over JMX the first time
+	 * this is called.
+	 *
+	 * @return the metrics of this JVM
+	 */
+	public static GameMetrics getInstance() {
+		if (!registered) {
+			register();
+		}
+
+		return INSTANCE;
+	}
+
+	/**
+	 * Publish the metrics over JMX. Failing to do so is not fatal, as the
+	 * metrics are still collected.
+	 */
+	private static synchronized void register() {
+		if (registered) {
+			return;
+		}
+
+		registered = true;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(INSTANCE, name);
+			}
+		} catch (JMException | SecurityException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Record that a command was processed.
+	 *
+	 * @param commandWord the command word of the command
+	 * @param nanos       the time taken to process the command, in nanoseconds
+	 */
+	public void recordCommand(CommandWord commandWord, long nanos) {
+		commandLatencies[commandWord.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Record that an event was executed.
+	 *
+	 * @param eventWord the event word of the event
+	 * @param nanos     the time taken to execute the event, in nanoseconds
+	 */
+	public void recordEvent(EventWord eventWord, long nanos) {
+		eventLatencies[eventWord.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Record that the monster reacted to a command.
+	 *
+	 * @param nanos the time taken by the monster, in nanoseconds
+	 */
+	public void recordMonsterTick(long nanos) {
+		monsterTickLatency.record(nanos);
+	}
+
+	/**
+	 * Record that the monster found a path to the player.
+	 *
+	 * @param nanos the time taken to find the path, in nanoseconds
+	 */
+	public void recordPathfinding(long nanos) {
+		pathfindingLatency.record(nanos);
+	}
+
+	/**
+	 * Record that a level was loaded.
+	 *
+	 * @param nanos the time taken to load the level, in nanoseconds
+	 */
+	public void recordLevelLoad(long nanos) {
+		levelLoadLatency.record(nanos);
+	}
+
+	/**
+	 * Record that the scores of a level were loaded.
+	 *
+	 * @param nanos the time taken to load the scores, in nanoseconds
+	 */
+	public void recordScoreLoad(long nanos) {
+		scoreLoadLatency.record(nanos);
+	}
+
+	/**
+	 * Record the output of a game iteration.
+	 *
+	 * @param characters the size of the output, in characters
+	 */
+	public void recordOutput(int characters) {
+		outputSize.record(characters);
+	}
+
+	@Override
+	public Map<String, Long> getCommandCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (CommandWord word : CommandWord.values()) {
+			counts.put(word.name(), commandLatencies[word.ordinal()].snapshot().getCount());
+		}
+
+		return counts;
+	}
+
+	@Override
+	public Map<String, HistogramSnapshot> getCommandLatencies() {
+		Map<String, HistogramSnapshot> latencies = new LinkedHashMap<>();
+		for (CommandWord word : CommandWord.values()) {
+			latencies.put(word.name(), commandLatencies[word.ordinal()].snapshot());
+		}
+
+		return latencies;
+	}
+
+	@Override
+	public Map<String, Long> getEventCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (EventWord word : EventWord.values()) {
+			counts.put(word.name(), eventLatencies[word.ordinal()].snapshot().getCount());
+		}
+
+		return counts;
+	}
+
+	@Override
+	public Map<String, HistogramSnapshot> getEventLatencies() {
+		Map<String, HistogramSnapshot> latencies = new LinkedHashMap<>();
+		for (EventWord word : EventWord.values()) {
+			latencies.put(word.name(), eventLatencies[word.ordinal()].snapshot());
+		}
+
+		return latencies;
+	}
+
+	@Override
+	public HistogramSnapshot getMonsterTickLatency() {
+		return monsterTickLatency.snapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getPathfindingLatency() {
+		return pathfindingLatency.snapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getLevelLoadLatency() {
+		return levelLoadLatency.snapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getScoreLoadLatency() {
+		return scoreLoadLatency.snapshot();
+	}
+
+	@Override
+	public HistogramSnapshot getOutputSize() {
+		return outputSize.snapshot();
+	}
+
+	@Override
+	public void reset() {
+		for (Histogram histogram : commandLatencies) {
+			histogram.reset();
+		}
+		for (Histogram histogram : eventLatencies) {
+			histogram.reset();
+		}
+
+		monsterTickLatency.reset();
+		pathfindingLatency.reset();
+		levelLoadLatency.reset();
+		scoreLoadLatency.reset();
+		outputSize.reset();
+	}
+
+	/**
+	 * Construct an array of new histograms.
+	 *
+	 * @param length the length of the array
+	 * @return the array of histograms
+	 */
+	private static Histogram[] newHistograms(int length) {
+		Histogram[] histograms = new Histogram[length];
+		for (int i = 0; i < length; i++) {
+			histograms[i] = new Histogram();
+		}
+
+		return histograms;
+	}
+}
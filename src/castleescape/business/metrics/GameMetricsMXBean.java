@@ -0,0 +1,78 @@
+package castleescape.business.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link GameMetrics}, as published over JMX.
+ * Durations are in nanoseconds, and output sizes are in characters.
+ */
+public interface GameMetricsMXBean {
+
+	/**
+	 * Get the amount of commands processed, per command word.
+	 *
+	 * @return the amount of commands, mapped by the names of the command words
+	 */
+	Map<String, Long> getCommandCounts();
+
+	/**
+	 * Get the time taken to process commands, per command word.
+	 *
+	 * @return the command latencies, mapped by the names of the command words
+	 */
+	Map<String, HistogramSnapshot> getCommandLatencies();
+
+	/**
+	 * Get the amount of events executed, per event word.
+	 *
+	 * @return the amount of events, mapped by the names of the event words
+	 */
+	Map<String, Long> getEventCounts();
+
+	/**
+	 * Get the time taken to execute events, per event word.
+	 *
+	 * @return the event latencies, mapped by the names of the event words
+	 */
+	Map<String, HistogramSnapshot> getEventLatencies();
+
+	/**
+	 * Get the time taken by the monster to react to a command.
+	 *
+	 * @return the monster tick latencies
+	 */
+	HistogramSnapshot getMonsterTickLatency();
+
+	/**
+	 * Get the time taken by the monster to find a path to the player.
+	 *
+	 * @return the path finding latencies
+	 */
+	HistogramSnapshot getPathfindingLatency();
+
+	/**
+	 * Get the time taken to load levels.
+	 *
+	 * @return the level load latencies
+	 */
+	HistogramSnapshot getLevelLoadLatency();
+
+	/**
+	 * Get the time taken to load and sort the scores of levels.
+	 *
+	 * @return the score load latencies
+	 */
+	HistogramSnapshot getScoreLoadLatency();
+
+	/**
+	 * Get the size of the output of every game iteration.
+	 *
+	 * @return the output sizes, in characters
+	 */
+	HistogramSnapshot getOutputSize();
+
+	/**
+	 * Reset all metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,125 @@
+package castleescape.business.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class defining a histogram of non-negative values with power-of-two
+ * buckets. Bucket i counts the values in the range [2^i;2^(i+1)[, and bucket 0
+ * also counts the value 0. This is precise enough to tell microseconds from
+ * milliseconds, while recording a value only costs a few striped increments,
+ * so many threads can record values at the same time without contending.
+ */
+public class Histogram {
+
+	/**
+	 * The amount of buckets, one for each bit of a long.
+	 */
+	private static final int BUCKET_COUNT = 64;
+
+	/**
+	 * The amount of values recorded in each bucket.
+	 */
+	private final LongAdder[] buckets;
+
+	/**
+	 * The sum of all values recorded.
+	 */
+	private final LongAdder sum;
+
+	/**
+	 * The largest value recorded.
+	 */
+	private final LongAccumulator max;
+
+	/**
+	 * Constructs a new, empty histogram.
+	 */
+	public Histogram() {
+		buckets = new LongAdder[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = new LongAdder();
+		}
+
+		sum = new LongAdder();
+		max = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * Record a value in this histogram. Negative values are recorded as 0.
+	 *
+	 * @param value the value to record
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		buckets[63 - Long.numberOfLeadingZeros(value | 1)].increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Reset this histogram. Values recorded while resetting may or may not be
+	 * lost.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * Take a snapshot of the values recorded in this histogram. The snapshot
+	 * is not atomic, so values recorded while taking it may be partially
+	 * included.
+	 *
+	 * @return the snapshot
+	 */
+	public HistogramSnapshot snapshot() {
+		//The amount of values recorded is the sum of the buckets, so that it
+		//agrees with the percentiles estimated from them
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+
+		return new HistogramSnapshot(total, sum.sum(), max.get(),
+				percentile(counts, total, 0.5),
+				percentile(counts, total, 0.9),
+				percentile(counts, total, 0.99));
+	}
+
+	/**
+	 * Estimate the specified percentile from the specified bucket counts. The
+	 * estimate is the upper bound of the bucket containing the percentile, so
+	 * it is never too low.
+	 *
+	 * @param counts   the counts of the buckets
+	 * @param total    the sum of the counts
+	 * @param fraction the percentile, as a fraction between 0 and 1
+	 * @return the estimated percentile
+	 */
+	private static long percentile(long[] counts, long total, double fraction) {
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (2L << i) - 1;
+			}
+		}
+
+		return Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,120 @@
+package castleescape.business.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Class defining an immutable summary of the values recorded in a
+ * {@link Histogram}. Percentiles are upper bounds, as the histogram only
+ * knows which power of two a value was closest to.
+ */
+public class HistogramSnapshot {
+
+	/**
+	 * The amount of values recorded.
+	 */
+	private final long count;
+
+	/**
+	 * The sum of all values recorded.
+	 */
+	private final long sum;
+
+	/**
+	 * The largest value recorded.
+	 */
+	private final long max;
+
+	/**
+	 * The estimated percentiles of the values recorded.
+	 */
+	private final long p50, p90, p99;
+
+	/**
+	 * Constructs a new histogram snapshot.
+	 *
+	 * @param count the amount of values recorded
+	 * @param sum   the sum of all values recorded
+	 * @param max   the largest value recorded
+	 * @param p50   the estimated median
+	 * @param p90   the estimated 90th percentile
+	 * @param p99   the estimated 99th percentile
+	 */
+	@ConstructorProperties({"count", "sum", "max", "p50", "p90", "p99"})
+	public HistogramSnapshot(long count, long sum, long max, long p50, long p90, long p99) {
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+	}
+
+	/**
+	 * Get the amount of values recorded.
+	 *
+	 * @return the amount of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the sum of all values recorded.
+	 *
+	 * @return the sum of the values
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * Get the largest value recorded.
+	 *
+	 * @return the largest value
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Get the mean of the values recorded.
+	 *
+	 * @return the mean, or 0 if no values were recorded
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Get the estimated median of the values recorded.
+	 *
+	 * @return the estimated median
+	 */
+	public long getP50() {
+		return p50;
+	}
+
+	/**
+	 * Get the estimated 90th percentile of the values recorded.
+	 *
+	 * @return the estimated 90th percentile
+	 */
+	public long getP90() {
+		return p90;
+	}
+
+	/**
+	 * Get the estimated 99th percentile of the values recorded.
+	 *
+	 * @return the estimated 99th percentile
+	 */
+	public long getP99() {
+		return p99;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + ", mean=" + getMean() + ", p50<=" + p50
+				+ ", p90<=" + p90 + ", p99<=" + p99 + ", max=" + max;
+	}
+}
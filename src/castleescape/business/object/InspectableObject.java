@@ -7,6 +7,7 @@ package castleescape.business.object;
 
 import castleescape.business.event.Event;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import castleescape.business.ViewUtil;
 
@@ -26,6 +27,17 @@ public class InspectableObject {
 	 */
 	private String description;
 
+	/**
+	 * The description that this inspectable object was constructed with.
+	 */
+	private final String initialDescription;
+
+	/**
+	 * The dense numeric id of this inspectable object, unique within a game.
+	 * Assigned when the object is registered.
+	 */
+	private int id = -1;
+
 	/**
 	 * The events that should be executed when this object is inspected.
 	 */
@@ -40,6 +52,7 @@ public class InspectableObject {
 	public InspectableObject(String name, String description) {
 		this.name = name;
 		this.description = description;
+		this.initialDescription = description;
 
 		//Initialize array of use events
 		this.inspectEvents = new ArrayList<>();
@@ -54,6 +67,38 @@ public class InspectableObject {
 		return name;
 	}
 
+	/**
+	 * Get the dense numeric id of this inspectable object. Ids are unique
+	 * within a game and range from 0 to the number of registered inspectable
+	 * objects, exclusive.
+	 *
+	 * @return the id of this inspectable object, or -1 if it has not been
+	 *         registered
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Set the dense numeric id of this inspectable object. This should only be
+	 * done by the {@link InspectableObjectRegister}.
+	 *
+	 * @param id the id of this inspectable object
+	 */
+	void setId(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Get the description that this inspectable object was constructed with.
+	 * This is the description before any events changed it.
+	 *
+	 * @return the initial description of this inspectable object
+	 */
+	public String getInitialDescription() {
+		return initialDescription;
+	}
+
 	/**
 	 * Set the description of this inspectable object.
 	 *
@@ -96,6 +141,16 @@ public class InspectableObject {
 		this.inspectEvents.add(event);
 	}
 
+	/**
+	 * Get the events that are executed when inspecting this inspectable
+	 * object, without inspecting it.
+	 *
+	 * @return an unmodifiable list of the inspect events
+	 */
+	public List<Event> getInspectEvents() {
+		return Collections.unmodifiableList(inspectEvents);
+	}
+
 	/**
 	 * Inspect this object. Inspecting an object means to print out its
 	 * description. This method will also return a list of event that should be
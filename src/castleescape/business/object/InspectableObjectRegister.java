@@ -5,7 +5,9 @@
  */
 package castleescape.business.object;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * Instances of this class are responsible for keeping references to all
@@ -21,21 +23,51 @@ public class InspectableObjectRegister {
 	 */
 	private final HashMap<String, InspectableObject> objectStore;
 
+	/**
+	 * List of all registered inspectable objects. The index of an object in
+	 * this list is its id.
+	 */
+	private final List<InspectableObject> objectsById;
+
 	/**
 	 * Constructs a new register for inspectable objects and items.
 	 */
 	public InspectableObjectRegister() {
 		objectStore = new HashMap<>();
+		objectsById = new ArrayList<>();
 	}
 
 	/**
 	 * Register the specified inspectable object. This method should also be
-	 * used to register items.
+	 * used to register items. The object is given the next free id.
 	 *
 	 * @param object the inspectable object to register
 	 */
 	public void registerInspectableObject(InspectableObject object) {
 		objectStore.put(object.getName(), object);
+
+		object.setId(objectsById.size());
+		objectsById.add(object);
+	}
+
+	/**
+	 * Get the inspectable object with the specified id.
+	 *
+	 * @param id the id of the inspectable object
+	 * @return the inspectable object with the specified id
+	 * @throws IndexOutOfBoundsException if no object has the specified id
+	 */
+	public InspectableObject getById(int id) {
+		return objectsById.get(id);
+	}
+
+	/**
+	 * Get the number of registered inspectable objects.
+	 *
+	 * @return the number of registered inspectable objects
+	 */
+	public int getObjectCount() {
+		return objectsById.size();
 	}
 
 	/**
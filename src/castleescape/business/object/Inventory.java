@@ -120,6 +120,13 @@ public class Inventory {
 		return content.remove(item);
 	}
 
+	/**
+	 * Remove all items from this inventory.
+	 */
+	public void clear() {
+		content.clear();
+	}
+
 	/**
 	 * Move the specified item from this inventory to another inventory. If
 	 * either the item does not exist in this inventory or the other inventory
@@ -8,8 +8,10 @@ package castleescape.business.object;
 import castleescape.business.event.Event;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class describing a type of inspectable object that can be kept in an
@@ -98,6 +100,17 @@ public class Item extends InspectableObject {
 		return useMap.containsKey(otherName);
 	}
 
+	/**
+	 * Get all uses defined between this item and other inspectable objects.
+	 * The keys are the names of the inspectable objects, and the values are
+	 * the events executed as a result of the uses.
+	 *
+	 * @return an unmodifiable map of the uses of this item
+	 */
+	public Map<String, List<Event>> getObjectInteractions() {
+		return Collections.unmodifiableMap(useMap);
+	}
+
 	/**
 	 * Use this item with another inspectable object. This method will return a
 	 * list of event objects describing what should happen when these items are
@@ -115,7 +128,7 @@ public class Item extends InspectableObject {
 		//if the interaction is not defined, return an empty list. Otherwise
 		//return the list above
 		if (eventList == null) {
-			return new ArrayList<>();
+			return Collections.emptyList();
 		}
 
 		return eventList;
@@ -0,0 +1,240 @@
+package castleescape.business.session;
+
+import castleescape.business.command.Command;
+import castleescape.business.framework.Game;
+import castleescape.data.LevelVersion;
+import castleescape.shared.GameListener;
+
+/**
+ * Class defining a single game session hosted by a {@link SessionManager}. A
+ * session is either active, in which case its game is on the heap, or
+ * passive, in which case its game has been written to the spill file of the
+ * session manager. A passive session is reactivated transparently the next
+ * time its game is needed. A session keeps playing the version of its level
+ * that it started with, even if the level changes while it is passive.
+ * <p>
+ * All access to the game of a session should go through the session, and
+ * references to the game should not be kept, as the session may replace its
+ * game with a restored copy at any time.
+ */
+public class Session {
+
+	/**
+	 * The session manager hosting this session.
+	 */
+	private final SessionManager manager;
+
+	/**
+	 * The id of this session.
+	 */
+	private final long id;
+
+	/**
+	 * The name of the level played in this session.
+	 */
+	private final String levelName;
+
+	/**
+	 * The version of the level played in this session. The session holds on
+	 * to the version while it is passive, and releases it when it is closed.
+	 */
+	private final LevelVersion levelVersion;
+
+	/**
+	 * The game of this session, or null if the session is passive.
+	 */
+	private Game game;
+
+	/**
+	 * The handle of the game's snapshot in the spill file, or -1 if the
+	 * session is active.
+	 */
+	private int spillHandle = -1;
+
+	/**
+	 * The listener of the game. This is kept here, as it is not part of a
+	 * snapshot.
+	 */
+	private GameListener listener;
+
+	/**
+	 * Whether the journal of the game is saved when it ends. This is kept here,
+	 * as it is not part of a snapshot.
+	 */
+	private boolean journalPersistent;
+
+	/**
+	 * The system time at which the game of this session was last accessed, in
+	 * milliseconds.
+	 */
+	private volatile long lastAccess;
+
+	/**
+	 * Whether this session has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Constructs a new, active session.
+	 *
+	 * @param manager   the session manager hosting the session
+	 * @param id        the id of the session
+	 * @param levelName the name of the level played in the session
+	 * @param game      the game of the session
+	 */
+	Session(SessionManager manager, long id, String levelName, Game game) {
+		this.manager = manager;
+		this.id = id;
+		this.levelName = levelName;
+		this.game = game;
+
+		levelVersion = game.getLevelVersion();
+		journalPersistent = game.isJournalPersistent();
+		lastAccess = System.currentTimeMillis();
+	}
+
+	/**
+	 * Get the id of this session.
+	 *
+	 * @return the id of this session
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Get the name of the level played in this session.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the game of this session, reactivating the session if it is
+	 * passive. This counts as activity in the session.
+	 *
+	 * @return the game of this session
+	 * @throws IllegalStateException if the session has been closed
+	 */
+	public synchronized Game getGame() {
+		if (closed) {
+			throw new IllegalStateException("Session " + id + " has been closed");
+		}
+
+		if (game == null) {
+			game = manager.reactivate(levelName, levelVersion, spillHandle);
+			game.setGameListener(listener);
+			game.setJournalPersistent(journalPersistent);
+			spillHandle = -1;
+		}
+
+		lastAccess = System.currentTimeMillis();
+		return game;
+	}
+
+	/**
+	 * Process the specified command in the game of this session, reactivating
+	 * the session if it is passive.
+	 *
+	 * @param command the command to process
+	 */
+	public synchronized void processCommand(Command command) {
+		getGame().processCommand(command);
+	}
+
+	/**
+	 * Subscribe to events from the game of this session.
+	 *
+	 * @param listener the listener to subscribe
+	 */
+	public synchronized void setGameListener(GameListener listener) {
+		this.listener = listener;
+		if (game != null) {
+			game.setGameListener(listener);
+		}
+	}
+
+	/**
+	 * Set whether the journal of the game of this session should be saved
+	 * when the game ends.
+	 *
+	 * @param journalPersistent {@code true} if the journal should be saved,
+	 *                          {@code false} otherwise
+	 */
+	public synchronized void setJournalPersistent(boolean journalPersistent) {
+		this.journalPersistent = journalPersistent;
+		if (game != null) {
+			game.setJournalPersistent(journalPersistent);
+		}
+	}
+
+	/**
+	 * Test whether this session is passive, meaning that its game is not on
+	 * the heap.
+	 *
+	 * @return {@code true} if this session is passive, {@code false} otherwise
+	 */
+	public synchronized boolean isPassive() {
+		return game == null;
+	}
+
+	/**
+	 * Get the system time at which the game of this session was last
+	 * accessed.
+	 *
+	 * @return the time of the last access, in milliseconds
+	 */
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	/**
+	 * Passivate this session if it has not been accessed since the specified
+	 * time. Only running games are passivated, as games that have not been
+	 * started or have ended are about to be thrown away anyway.
+	 *
+	 * @param idleSince the system time, in milliseconds, that the session must
+	 *                  have been idle since
+	 * @return {@code true} if the session was passivated, {@code false}
+	 *         otherwise
+	 */
+	synchronized boolean passivateIfIdle(long idleSince) {
+		if (closed || game == null || !game.isRunning() || lastAccess > idleSince) {
+			return false;
+		}
+
+		spillHandle = manager.passivate(game);
+		if (spillHandle < 0) {
+			return false;
+		}
+
+		//The scheduled events are in the snapshot, and are scheduled again
+		//when the game is restored. The version of the level is not released,
+		//as the restored game takes it over
+		game.getEventScheduler().cancelAll();
+		game = null;
+		return true;
+	}
+
+	/**
+	 * Release the resources held by this session. The session must not be
+	 * used afterwards.
+	 */
+	synchronized void release() {
+		if (!closed && game == null) {
+			manager.discard(spillHandle);
+
+			//The passive session still plays its version of the level
+			levelVersion.release();
+		} else if (game != null) {
+			game.getEventScheduler().cancelAll();
+			game.releaseLevel();
+		}
+
+		closed = true;
+		game = null;
+		spillHandle = -1;
+	}
+}
@@ -0,0 +1,339 @@
+package castleescape.business.session;
+
+import castleescape.business.framework.Game;
+import castleescape.business.framework.GameSnapshot;
+import castleescape.data.DataMediator;
+import castleescape.data.LevelVersion;
+import castleescape.data.SpillFile;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for hosting many concurrent game sessions. Most sessions spend most of
+ * their time waiting for a player to enter the next command, so sessions that
+ * have been idle for longer than a timeout are passivated: their games are
+ * written as {@link GameSnapshot snapshots} to a memory-mapped spill file and
+ * dropped from the heap. The next time a passive session is used, its game is
+ * restored from the snapshot. Heap usage thus grows with the number of active
+ * players rather than the number of connected players.
+ * <p>
+ * The timers of the monster are rebased when a game is restored, so the time
+ * that a session spends passivated does not count against the player.
+ */
+public class SessionManager implements Closeable {
+
+	/**
+	 * The initial size of the spill file, in bytes.
+	 */
+	private static final int INITIAL_SPILL_SIZE = 1 << 20;
+
+	/**
+	 * The initial size of the buffer that snapshots are written to, in bytes.
+	 */
+	private static final int INITIAL_SNAPSHOT_SIZE = 4096;
+
+	/**
+	 * The data mediator used to load levels.
+	 */
+	private final DataMediator dataMediator;
+
+	/**
+	 * The file that passivated games are written to.
+	 */
+	private final SpillFile spillFile;
+
+	/**
+	 * The time, in milliseconds, that a session must be idle for before it is
+	 * passivated.
+	 */
+	private final long idleTimeout;
+
+	/**
+	 * The sessions of this session manager, mapped by their ids.
+	 */
+	private final Map<Long, Session> sessions;
+
+	/**
+	 * The id of the next session to open.
+	 */
+	private final AtomicLong nextId;
+
+	/**
+	 * The lock guarding the snapshot buffer. Passivation only takes this lock,
+	 * and never the lock of this session manager, as it is done while the
+	 * session being passivated is locked.
+	 */
+	private final Object snapshotLock = new Object();
+
+	/**
+	 * The buffer that snapshots are written to before they are copied to the
+	 * spill file. Access is guarded by the snapshot lock.
+	 */
+	private ByteBuffer snapshotBuffer;
+
+	/**
+	 * The executor passivating idle sessions in the background, or null if
+	 * idle sessions are only passivated on request.
+	 */
+	private ScheduledExecutorService passivator;
+
+	/**
+	 * Constructs a new session manager.
+	 *
+	 * @param dataMediator the data mediator used to load levels
+	 * @param spillFile    the file to write passivated games to. Any existing
+	 *                     contents are discarded
+	 * @param idleTimeout  the time, in milliseconds, that a session must be
+	 *                     idle for before it is passivated
+	 * @throws IOException if the spill file could not be opened
+	 */
+	public SessionManager(DataMediator dataMediator, File spillFile, long idleTimeout) throws IOException {
+		this.dataMediator = dataMediator;
+		this.spillFile = dataMediator.openSpillFile(spillFile, INITIAL_SPILL_SIZE);
+		this.idleTimeout = idleTimeout;
+
+		sessions = new ConcurrentHashMap<>();
+		nextId = new AtomicLong();
+		snapshotBuffer = ByteBuffer.allocate(INITIAL_SNAPSHOT_SIZE);
+	}
+
+	/**
+	 * Open a new session playing the specified level. The game of the session
+	 * must be started through {@link Session#getGame()} as usual.
+	 *
+	 * @param levelName the name of the level to play
+	 * @return the new session
+	 */
+	public Session openSession(String levelName) {
+		long id = nextId.getAndIncrement();
+		Session session = new Session(this, id, levelName, newGame(levelName, null, null));
+		sessions.put(id, session);
+		return session;
+	}
+
+	/**
+	 * Get the session with the specified id.
+	 *
+	 * @param id the id of the session
+	 * @return the session with the specified id, or null if no such session
+	 *         is open
+	 */
+	public Session getSession(long id) {
+		return sessions.get(id);
+	}
+
+	/**
+	 * Close the specified session, releasing all resources held by it. This
+	 * should be called when the player disconnects or is done with the game.
+	 *
+	 * @param session the session to close
+	 */
+	public void closeSession(Session session) {
+		if (sessions.remove(session.getId(), session)) {
+			session.release();
+		}
+	}
+
+	/**
+	 * Get the number of open sessions.
+	 *
+	 * @return the number of open sessions
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Get the number of open sessions whose games are on the heap.
+	 *
+	 * @return the number of active sessions
+	 */
+	public int getActiveSessionCount() {
+		int active = 0;
+		for (Session session : sessions.values()) {
+			if (!session.isPassive()) {
+				active++;
+			}
+		}
+
+		return active;
+	}
+
+	/**
+	 * Passivate all sessions that have been idle for longer than the idle
+	 * timeout.
+	 *
+	 * @return the number of sessions that were passivated
+	 */
+	public int passivateIdleSessions() {
+		long idleSince = System.currentTimeMillis() - idleTimeout;
+		int passivated = 0;
+
+		for (Session session : sessions.values()) {
+			//Skip sessions that are obviously active without locking them
+			if (session.getLastAccess() <= idleSince && session.passivateIfIdle(idleSince)) {
+				passivated++;
+			}
+		}
+
+		return passivated;
+	}
+
+	/**
+	 * Start passivating idle sessions in the background. Sessions are checked
+	 * twice per idle timeout, so no session stays on the heap for much longer
+	 * than the timeout after its last use.
+	 */
+	public synchronized void startPassivation() {
+		if (passivator != null) {
+			return;
+		}
+
+		passivator = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Session passivator");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long period = Math.max(1, idleTimeout / 2);
+		passivator.scheduleWithFixedDelay(this::passivateIdleSessions, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Write a snapshot of the specified game to the spill file.
+	 *
+	 * @param game the game to passivate
+	 * @return the handle of the snapshot in the spill file, or -1 if the
+	 *         snapshot could not be written
+	 */
+	int passivate(Game game) {
+		//Latch the clock, so that the time the player spent idle before the
+		//session was passivated still counts
+		game.getClock().tick();
+
+		synchronized (snapshotLock) {
+			//Write the snapshot, growing the buffer until it fits
+			while (true) {
+				snapshotBuffer.clear();
+				try {
+					GameSnapshot.write(game, snapshotBuffer);
+					break;
+				} catch (BufferOverflowException e) {
+					snapshotBuffer = ByteBuffer.allocate(snapshotBuffer.capacity() * 2);
+				}
+			}
+
+			snapshotBuffer.flip();
+			try {
+				return spillFile.write(snapshotBuffer);
+			} catch (IOException e) {
+				//The session simply stays active
+				e.printStackTrace();
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Restore a game from the snapshot with the specified handle, and free
+	 * the snapshot. The game is restored onto the version of the level that
+	 * it was playing, even if the level has changed since.
+	 *
+	 * @param levelName    the name of the level played in the game
+	 * @param levelVersion the version of the level played in the game
+	 * @param spillHandle  the handle of the snapshot in the spill file
+	 * @return the restored game
+	 */
+	Game reactivate(String levelName, LevelVersion levelVersion, int spillHandle) {
+		Game game = newGame(levelName, levelVersion, spillFile.read(spillHandle));
+		spillFile.free(spillHandle);
+		return game;
+	}
+
+	/**
+	 * Free the snapshot with the specified handle without restoring it.
+	 *
+	 * @param spillHandle the handle of the snapshot in the spill file
+	 */
+	void discard(int spillHandle) {
+		spillFile.free(spillHandle);
+	}
+
+	/**
+	 * Construct a new game playing the specified level, optionally restoring
+	 * it from a snapshot.
+	 *
+	 * @param levelName    the name of the level to play
+	 * @param levelVersion the version of the level to play, or null to play
+	 *                     the current version
+	 * @param snapshot     the snapshot to restore the game from, or null to
+	 *                     construct a fresh game
+	 * @return the game
+	 */
+	private Game newGame(String levelName, LevelVersion levelVersion, ByteBuffer snapshot) {
+		Game game;
+
+		if (levelVersion == null) {
+			//The data mediator holds the level that was read last, so levels
+			//must be read one at a time
+			synchronized (dataMediator) {
+				game = new Game(dataMediator, levelName);
+			}
+		} else {
+			//Building a version again does not touch the level that was read
+			//last, so reactivated sessions do not wait for each other
+			game = new Game(dataMediator, levelVersion);
+		}
+
+		if (snapshot != null) {
+			GameSnapshot.restore(game, snapshot);
+		}
+
+		return game;
+	}
+
+	/**
+	 * Stop passivating sessions, close all sessions and close the spill file.
+	 * A passivation pass that is running is allowed to finish first, as the
+	 * spill file must not be closed while it is being written.
+	 *
+	 * @throws IOException if the spill file could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		//The sessions are locked while they are passivated, so this session
+		//manager must not be locked while waiting for the passivator
+		ScheduledExecutorService stopped;
+		synchronized (this) {
+			stopped = passivator;
+			passivator = null;
+		}
+
+		if (stopped != null) {
+			//Passivation is not interrupted, as an interrupt would close the
+			//channel of the spill file
+			stopped.shutdown();
+			try {
+				stopped.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		for (Session session : sessions.values()) {
+			closeSession(session);
+		}
+
+		spillFile.close();
+	}
+}
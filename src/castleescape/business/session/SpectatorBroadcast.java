@@ -0,0 +1,624 @@
+package castleescape.business.session;
+
+import castleescape.business.framework.Game;
+import castleescape.shared.GameListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Class broadcasting the output of a game to any number of spectators. The
+ * broadcast is a {@link GameListener} that is subscribed to a game, or to a
+ * {@link Session}, in place of the listener of the player, and passes every
+ * event on to the player before broadcasting it.
+ * <p>
+ * Every event is encoded once into an immutable frame in direct memory, and
+ * every spectator is given a view of the same frame, so the output is never
+ * copied or encoded again per spectator. The frames queued for a spectator
+ * are written with a single gathering write, and spectators are written
+ * without blocking, so a slow spectator never holds up the player. Instead,
+ * a spectator that falls more than a number of frames behind is either
+ * dropped or downsampled, depending on the {@link OverflowPolicy} of the
+ * broadcast. Frames that have been partially written are always finished, so
+ * a spectator never receives half a frame.
+ * <p>
+ * A frame consists of the following, in big-endian byte order:
+ * <ul>
+ * <li>the length of the rest of the frame, as an int</li>
+ * <li>the type of the frame, as a byte</li>
+ * <li>the sequence number of the frame, as a long</li>
+ * <li>a byte with a bit set for every part of the state that is included,
+ * followed by those parts in the order of the bits: the name of the current
+ * room as a short length and UTF-8 bytes, the score as an int, whether a
+ * monster is hunting the player as a byte, and whether the game is running as
+ * a byte</li>
+ * <li>the output of the game as an int length and UTF-8 bytes</li>
+ * </ul>
+ * Start, iteration and exit frames only include the parts of the state that
+ * changed since the previous frame. Key frames include the entire state and
+ * the output of the latest frame, and are sent to new spectators and to
+ * spectators that have skipped frames. A key frame has the sequence number of
+ * the frame that it replaces.
+ * <p>
+ * Channels of spectators that are selectable are put in non-blocking mode
+ * when they are added. Frames that could not be written at once stay queued
+ * until the next event or until the spectator is {@link #flush flushed},
+ * which a server should do when the channel of the spectator becomes
+ * writable. All methods are thread safe.
+ */
+public class SpectatorBroadcast implements GameListener {
+
+	/**
+	 * The type of the frame sent when the game starts.
+	 */
+	public static final byte START_FRAME = 0;
+
+	/**
+	 * The type of the frame sent after every iteration of the game.
+	 */
+	public static final byte ITERATION_FRAME = 1;
+
+	/**
+	 * The type of the frame sent when the game ends.
+	 */
+	public static final byte EXIT_FRAME = 2;
+
+	/**
+	 * The type of the frame containing the entire state of the game.
+	 */
+	public static final byte KEY_FRAME = 3;
+
+	/**
+	 * The bit telling that the name of the current room is included.
+	 */
+	public static final int ROOM_BIT = 1;
+
+	/**
+	 * The bit telling that the score is included.
+	 */
+	public static final int SCORE_BIT = 1 << 1;
+
+	/**
+	 * The bit telling whether a monster is hunting the player is included.
+	 */
+	public static final int HUNTED_BIT = 1 << 2;
+
+	/**
+	 * The bit telling whether the game is running is included.
+	 */
+	public static final int RUNNING_BIT = 1 << 3;
+
+	/**
+	 * The default number of frames that a spectator may fall behind.
+	 */
+	public static final int DEFAULT_MAX_PENDING = 32;
+
+	/**
+	 * The bits of the entire state.
+	 */
+	private static final int ALL_BITS = ROOM_BIT | SCORE_BIT | HUNTED_BIT | RUNNING_BIT;
+
+	/**
+	 * The size of the part of a frame preceding the state.
+	 */
+	private static final int HEADER_SIZE = 4 + 1 + 8 + 1;
+
+	/**
+	 * The source of the game whose state is broadcast.
+	 */
+	private final Supplier<Game> game;
+
+	/**
+	 * The listener of the player, or null if there is none.
+	 */
+	private final GameListener player;
+
+	/**
+	 * What to do with spectators that fall behind.
+	 */
+	private final OverflowPolicy policy;
+
+	/**
+	 * The number of frames that a spectator may fall behind.
+	 */
+	private final int maxPending;
+
+	/**
+	 * The spectators of the broadcast.
+	 */
+	private final List<Spectator> spectators;
+
+	/**
+	 * The number of spectators that have been dropped, either because they
+	 * fell behind or because their channels failed.
+	 */
+	private long droppedCount;
+
+	/**
+	 * The sequence number of the latest frame.
+	 */
+	private long sequence;
+
+	/**
+	 * The name of the current room, as of the latest frame.
+	 */
+	private String room;
+
+	/**
+	 * The score, as of the latest frame.
+	 */
+	private int score;
+
+	/**
+	 * Whether a monster is hunting the player, as of the latest frame.
+	 */
+	private boolean hunted;
+
+	/**
+	 * Whether the game is running, as of the latest frame.
+	 */
+	private boolean running;
+
+	/**
+	 * The output of the latest frame, encoded in UTF-8.
+	 */
+	private byte[] output;
+
+	/**
+	 * The key frame of the latest state, or null if it has not been encoded
+	 * since the state changed.
+	 */
+	private ByteBuffer keyFrame;
+
+	/**
+	 * Whether the game has started, and thus has a state to broadcast.
+	 */
+	private boolean started;
+
+	/**
+	 * Constructs a new broadcast that lets spectators fall behind by the
+	 * {@link #DEFAULT_MAX_PENDING default} number of frames.
+	 *
+	 * @param game   the source of the game whose state is broadcast, such as
+	 *               {@link Session#getGame()}
+	 * @param player the listener of the player, or null if there is none
+	 * @param policy what to do with spectators that fall behind
+	 */
+	public SpectatorBroadcast(Supplier<Game> game, GameListener player, OverflowPolicy policy) {
+		this(game, player, policy, DEFAULT_MAX_PENDING);
+	}
+
+	/**
+	 * Constructs a new broadcast.
+	 *
+	 * @param game       the source of the game whose state is broadcast, such
+	 *                   as {@link Session#getGame()}
+	 * @param player     the listener of the player, or null if there is none
+	 * @param policy     what to do with spectators that fall behind
+	 * @param maxPending the number of frames that a spectator may fall behind
+	 * @throws IllegalArgumentException if the number of frames is less than
+	 *                                  two
+	 */
+	public SpectatorBroadcast(Supplier<Game> game, GameListener player, OverflowPolicy policy, int maxPending) {
+		//A partially written frame and a key frame must fit at the same time
+		if (maxPending < 2) {
+			throw new IllegalArgumentException("Spectators must be allowed to fall behind by at least two frames: " + maxPending);
+		}
+
+		this.game = game;
+		this.player = player;
+		this.policy = policy;
+		this.maxPending = maxPending;
+		spectators = new ArrayList<>();
+		output = new byte[0];
+	}
+
+	/**
+	 * Add a spectator writing to the specified channel. If the game has
+	 * started, the spectator is sent a key frame of the current state right
+	 * away.
+	 *
+	 * @param channel the channel of the spectator
+	 * @throws IOException if the channel could not be made non-blocking
+	 */
+	public synchronized void addSpectator(GatheringByteChannel channel) throws IOException {
+		if (channel instanceof SelectableChannel) {
+			((SelectableChannel) channel).configureBlocking(false);
+		}
+
+		Spectator spectator = new Spectator(channel);
+		spectators.add(spectator);
+		if (started) {
+			spectator.enqueue(getKeyFrame());
+			write(spectator);
+		}
+	}
+
+	/**
+	 * Remove the spectator writing to the specified channel. Frames that
+	 * have not been written to the channel yet are discarded, and the
+	 * channel is left open.
+	 *
+	 * @param channel the channel of the spectator
+	 * @return {@code true} if the spectator was removed, {@code false} if no
+	 *         spectator was writing to the channel
+	 */
+	public synchronized boolean removeSpectator(GatheringByteChannel channel) {
+		for (int i = 0; i < spectators.size(); i++) {
+			if (spectators.get(i).channel == channel) {
+				spectators.remove(i);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Write as many of the frames queued for the spectator writing to the
+	 * specified channel as the channel accepts without blocking.
+	 *
+	 * @param channel the channel of the spectator
+	 * @return {@code true} if every frame has been written, {@code false} if
+	 *         frames remain, or the spectator has been dropped
+	 */
+	public synchronized boolean flush(GatheringByteChannel channel) {
+		for (Spectator spectator : spectators) {
+			if (spectator.channel == channel) {
+				return write(spectator) && spectator.count == 0;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get the number of spectators of the broadcast.
+	 *
+	 * @return the number of spectators
+	 */
+	public synchronized int getSpectatorCount() {
+		return spectators.size();
+	}
+
+	/**
+	 * Get the number of spectators that have been dropped, either because
+	 * they fell behind or because their channels failed.
+	 *
+	 * @return the number of dropped spectators
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Close the channels of every spectator and remove them. Frames that have
+	 * not been written yet are discarded.
+	 */
+	public synchronized void close() {
+		for (Spectator spectator : spectators) {
+			closeQuietly(spectator);
+		}
+
+		spectators.clear();
+	}
+
+	@Override
+	public void onGameStart(String output) {
+		if (player != null) {
+			player.onGameStart(output);
+		}
+
+		publish(START_FRAME, output);
+	}
+
+	@Override
+	public void onGameIteration(String output) {
+		if (player != null) {
+			player.onGameIteration(output);
+		}
+
+		publish(ITERATION_FRAME, output);
+	}
+
+	@Override
+	public void onGameExit() {
+		if (player != null) {
+			player.onGameExit();
+		}
+
+		publish(EXIT_FRAME, "");
+	}
+
+	/**
+	 * Encode a frame of the specified type, and send it to every spectator.
+	 *
+	 * @param type   the type of the frame
+	 * @param output the output of the game
+	 */
+	private void publish(byte type, String output) {
+		//Read the state of the game before locking the broadcast, so that the
+		//game is never waited for while the broadcast is locked
+		Game current = game.get();
+		String newRoom = current.getCurrentRoom().getRoomName();
+		int newScore = current.getScoreManager().getCurrentGameScore();
+		boolean newHunted = current.getMonsterIndex().getNearestHunter() != null;
+		boolean newRunning = current.isRunning();
+		byte[] newOutput = output.getBytes(StandardCharsets.UTF_8);
+
+		synchronized (this) {
+			publish(type, newRoom, newScore, newHunted, newRunning, newOutput);
+		}
+	}
+
+	/**
+	 * Update the latest state, encode a frame of the specified type, and send
+	 * it to every spectator. Only the parts of the state that changed are
+	 * included, except in the first frame.
+	 *
+	 * @param type       the type of the frame
+	 * @param newRoom    the name of the current room
+	 * @param newScore   the score
+	 * @param newHunted  whether a monster is hunting the player
+	 * @param newRunning whether the game is running
+	 * @param newOutput  the output of the game, encoded in UTF-8
+	 */
+	private void publish(byte type, String newRoom, int newScore, boolean newHunted, boolean newRunning,
+			byte[] newOutput) {
+		int changed = started ? 0 : ALL_BITS;
+		if (!newRoom.equals(room)) {
+			changed |= ROOM_BIT;
+		}
+		if (newScore != score) {
+			changed |= SCORE_BIT;
+		}
+		if (newHunted != hunted) {
+			changed |= HUNTED_BIT;
+		}
+		if (newRunning != running) {
+			changed |= RUNNING_BIT;
+		}
+
+		room = newRoom;
+		score = newScore;
+		hunted = newHunted;
+		running = newRunning;
+		output = newOutput;
+		sequence++;
+		started = true;
+		keyFrame = null;
+
+		if (spectators.isEmpty()) {
+			return;
+		}
+
+		ByteBuffer frame = encode(type, changed);
+		for (int i = spectators.size() - 1; i >= 0; i--) {
+			Spectator spectator = spectators.get(i);
+			if (spectator.count < maxPending) {
+				spectator.enqueue(frame);
+			} else if (policy == OverflowPolicy.DOWNSAMPLE) {
+				//Skip every frame that has not been started, and let a key
+				//frame catch the spectator up
+				spectator.discardUnstarted();
+				spectator.enqueue(getKeyFrame());
+			} else {
+				drop(spectator);
+				continue;
+			}
+
+			write(spectator);
+		}
+	}
+
+	/**
+	 * Get the key frame of the latest state, encoding it if it has not been
+	 * encoded since the state changed.
+	 *
+	 * @return the key frame
+	 */
+	private ByteBuffer getKeyFrame() {
+		if (keyFrame == null) {
+			keyFrame = encode(KEY_FRAME, ALL_BITS);
+		}
+
+		return keyFrame;
+	}
+
+	/**
+	 * Encode a frame of the latest state and output.
+	 *
+	 * @param type    the type of the frame
+	 * @param changed the bits of the parts of the state to include
+	 * @return a read-only view of the frame
+	 */
+	private ByteBuffer encode(byte type, int changed) {
+		byte[] roomBytes = (changed & ROOM_BIT) != 0 ? room.getBytes(StandardCharsets.UTF_8) : null;
+		int size = HEADER_SIZE + 4 + output.length;
+		if (roomBytes != null) {
+			size += 2 + roomBytes.length;
+		}
+		if ((changed & SCORE_BIT) != 0) {
+			size += 4;
+		}
+		if ((changed & HUNTED_BIT) != 0) {
+			size++;
+		}
+		if ((changed & RUNNING_BIT) != 0) {
+			size++;
+		}
+
+		//The frame is written to sockets directly from its own memory, rather
+		//than being copied to a temporary direct buffer for every spectator
+		ByteBuffer frame = ByteBuffer.allocateDirect(size);
+		frame.putInt(size - 4);
+		frame.put(type);
+		frame.putLong(sequence);
+		frame.put((byte) changed);
+		if (roomBytes != null) {
+			frame.putShort((short) roomBytes.length);
+			frame.put(roomBytes);
+		}
+		if ((changed & SCORE_BIT) != 0) {
+			frame.putInt(score);
+		}
+		if ((changed & HUNTED_BIT) != 0) {
+			frame.put((byte) (hunted ? 1 : 0));
+		}
+		if ((changed & RUNNING_BIT) != 0) {
+			frame.put((byte) (running ? 1 : 0));
+		}
+		frame.putInt(output.length);
+		frame.put(output);
+
+		frame.flip();
+		return frame.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Write as many of the frames queued for the specified spectator as its
+	 * channel accepts without blocking. The spectator is dropped if its
+	 * channel fails.
+	 *
+	 * @param spectator the spectator to write to
+	 * @return {@code true} if the spectator is still part of the broadcast,
+	 *         {@code false} if it was dropped
+	 */
+	private boolean write(Spectator spectator) {
+		try {
+			spectator.write();
+			return true;
+		} catch (IOException ex) {
+			drop(spectator);
+			return false;
+		}
+	}
+
+	/**
+	 * Remove the specified spectator from the broadcast, and close its
+	 * channel.
+	 *
+	 * @param spectator the spectator to drop
+	 */
+	private void drop(Spectator spectator) {
+		spectators.remove(spectator);
+		closeQuietly(spectator);
+		droppedCount++;
+	}
+
+	/**
+	 * Close the channel of the specified spectator, ignoring any failure, as
+	 * the spectator is being thrown away anyway.
+	 *
+	 * @param spectator the spectator
+	 */
+	private static void closeQuietly(Spectator spectator) {
+		try {
+			spectator.channel.close();
+		} catch (IOException ex) {
+			//The spectator is gone either way
+		}
+	}
+
+	/**
+	 * What to do with spectators that fall behind.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Drop the spectator, closing its channel.
+		 */
+		DROP,
+
+		/**
+		 * Skip the frames that the spectator has not started receiving, and
+		 * send it a key frame of the latest state instead.
+		 */
+		DOWNSAMPLE
+	}
+
+	/**
+	 * A spectator of the broadcast, with the frames that are queued for it.
+	 */
+	private class Spectator {
+
+		/**
+		 * The channel of the spectator.
+		 */
+		private final GatheringByteChannel channel;
+
+		/**
+		 * The views of the frames queued for the spectator, in the order that
+		 * they are written. Only the first frame may have been partially
+		 * written.
+		 */
+		private final ByteBuffer[] frames;
+
+		/**
+		 * The number of queued frames.
+		 */
+		private int count;
+
+		/**
+		 * Constructs a new spectator.
+		 *
+		 * @param channel the channel of the spectator
+		 */
+		private Spectator(GatheringByteChannel channel) {
+			this.channel = channel;
+			frames = new ByteBuffer[maxPending];
+		}
+
+		/**
+		 * Queue the specified frame. The spectator is given a view of its
+		 * own, sharing the content of the frame.
+		 *
+		 * @param frame the frame to queue
+		 */
+		private void enqueue(ByteBuffer frame) {
+			frames[count++] = frame.duplicate();
+		}
+
+		/**
+		 * Discard every queued frame that has not been partially written.
+		 */
+		private void discardUnstarted() {
+			int keep = count > 0 && frames[0].position() > 0 ? 1 : 0;
+			Arrays.fill(frames, keep, count, null);
+			count = keep;
+		}
+
+		/**
+		 * Write as many of the queued frames as the channel accepts, with a
+		 * single gathering write, and forget the frames that have been
+		 * written entirely.
+		 *
+		 * @throws IOException if the channel fails
+		 */
+		private void write() throws IOException {
+			if (count == 0) {
+				return;
+			}
+
+			channel.write(frames, 0, count);
+
+			int written = 0;
+			while (written < count && !frames[written].hasRemaining()) {
+				written++;
+			}
+
+			if (written > 0) {
+				System.arraycopy(frames, written, frames, 0, count - written);
+				Arrays.fill(frames, count - written, count, null);
+				count -= written;
+			}
+		}
+	}
+}
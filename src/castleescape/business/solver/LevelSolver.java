@@ -0,0 +1,1001 @@
+package castleescape.business.solver;
+
+import castleescape.business.command.Command;
+import castleescape.business.command.CommandWord;
+import castleescape.business.framework.Character;
+import castleescape.business.framework.Game;
+import castleescape.business.framework.GameClock;
+import castleescape.business.framework.GameSnapshot;
+import castleescape.business.framework.Room;
+import castleescape.business.object.InspectableObject;
+import castleescape.business.object.Inventory;
+import castleescape.business.object.Item;
+import castleescape.data.DataMediator;
+import castleescape.shared.GameListener;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class for exploring every state that a level can be played into, so that
+ * level designers do not have to verify their levels by hand.
+ * <p>
+ * The state of a level is its world as written by
+ * {@link GameSnapshot#writeCanonicalWorld(Game, java.nio.ByteBuffer)}: the
+ * current room, the inventory of the player, the items, objects, exits and
+ * descriptions of every room, and the descriptions of every inspectable
+ * object. States are explored breadth first, so the first solution found is a
+ * shortest one. The score is not part of a state, so the highest score is
+ * found once the search is done, over every path through the states found.
+ * Every level of the search is expanded in parallel by a number of workers,
+ * each of which plays its own copy of the level. A state is expanded by
+ * restoring it into the game of a worker and processing every command that
+ * could change it, so the real command and event executers decide what
+ * happens.
+ * <p>
+ * The monster is left out of the search, as its behavior depends on how much
+ * time the player spends on each command. Before every command, the monster is
+ * reset to its initial state, and it never catches the player.
+ * <p>
+ * Commands that only print information are never explored, and by default
+ * items are only dropped to make room for other items. Without this, the
+ * number of states grows with every room that every item could be left in.
+ */
+public class LevelSolver {
+
+	/**
+	 * The default maximum number of states to explore.
+	 */
+	public static final int DEFAULT_MAX_STATES = 1000000;
+
+	/**
+	 * The name of the player character that levels are explored with by
+	 * default. Bob carries the most items of the player characters, so items
+	 * rarely have to be dropped. With characters that carry less, items are
+	 * left in many more rooms, and the states of MainGame do not fit within
+	 * the default maximum number of states.
+	 */
+	public static final String DEFAULT_CHARACTER = "Bob";
+
+	/**
+	 * The initial size of the buffers that worlds are written to, in bytes.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	/**
+	 * A game listener that ignores all output.
+	 */
+	private static final GameListener HEADLESS_LISTENER = new GameListener() {
+		@Override
+		public void onGameStart(String output) {
+		}
+
+		@Override
+		public void onGameExit() {
+		}
+
+		@Override
+		public void onGameIteration(String output) {
+		}
+	};
+
+	/**
+	 * The data mediator used to load the level.
+	 */
+	private final DataMediator dataMediator;
+
+	/**
+	 * The name of the level to explore.
+	 */
+	private final String levelName;
+
+	/**
+	 * The number of workers exploring the level in parallel.
+	 */
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The maximum number of states to explore.
+	 */
+	private int maxStates = DEFAULT_MAX_STATES;
+
+	/**
+	 * Whether dropping items is explored even when the player has room for
+	 * more items.
+	 */
+	private boolean allDropsExplored;
+
+	/**
+	 * Constructs a new level solver.
+	 *
+	 * @param dataMediator the data mediator used to load the level
+	 * @param levelName    the name of the level to explore
+	 */
+	public LevelSolver(DataMediator dataMediator, String levelName) {
+		this.dataMediator = dataMediator;
+		this.levelName = levelName;
+	}
+
+	/**
+	 * Set the number of workers exploring the level in parallel. By default,
+	 * there is one worker for every processor.
+	 *
+	 * @param threadCount the number of workers
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the maximum number of states to explore. If the level has more
+	 * states than this, the search is stopped early and the report will be
+	 * incomplete.
+	 *
+	 * @param maxStates the maximum number of states
+	 */
+	public void setMaxStates(int maxStates) {
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Set whether dropping items should be explored even when the player has
+	 * room for more items. By default, items are only dropped when the player
+	 * cannot carry an item in the current room, as the state space explodes if
+	 * every item can be left in every room. This only misses solutions that
+	 * depend on leaving items in particular rooms.
+	 *
+	 * @param allDropsExplored {@code true} to explore every drop, {@code false}
+	 *                         to only drop items to make room for others
+	 */
+	public void setAllDropsExplored(boolean allDropsExplored) {
+		this.allDropsExplored = allDropsExplored;
+	}
+
+	/**
+	 * Explore the level with the specified player character. The character
+	 * matters, as it determines how many items the player can carry.
+	 *
+	 * @param characterName the name of the player character, or null to use
+	 *                      the {@link #DEFAULT_CHARACTER default character}
+	 * @return a report of the exploration
+	 * @throws InterruptedException     if the thread was interrupted while
+	 *                                  waiting for the workers
+	 * @throws IllegalArgumentException if no character has the specified name
+	 */
+	public SolverReport solve(String characterName) throws InterruptedException {
+		long startTime = System.currentTimeMillis();
+		Search search = new Search();
+
+		//Every worker plays its own copy of the level
+		List<Worker> workers = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			workers.add(new Worker(search, characterName));
+		}
+
+		//The initial state of the level
+		State initial = workers.get(0).createInitialState();
+		search.states.put(initial.world, initial);
+		List<State> frontier = Collections.singletonList(initial);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			//Expand one level of the search at a time, until no new states are
+			//found
+			while (!frontier.isEmpty()) {
+				search.frontier = frontier;
+				search.cursor.set(0);
+
+				for (Future<?> future : executor.invokeAll(workers)) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						throw new IllegalStateException("Failed to expand a state", e.getCause());
+					}
+				}
+
+				//The states found by all workers form the next level
+				frontier = new ArrayList<>();
+				for (Worker worker : workers) {
+					frontier.addAll(worker.newStates);
+					worker.newStates.clear();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		return search.createReport(workers, workers.get(0).player.getName(),
+				System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * The shared state of a single search.
+	 */
+	private class Search {
+
+		/**
+		 * All states found so far, mapped by their worlds.
+		 */
+		private final Map<World, State> states = new ConcurrentHashMap<>();
+
+		/**
+		 * The id of the next state to be found.
+		 */
+		private final AtomicInteger nextId = new AtomicInteger();
+
+		/**
+		 * The states being expanded in the current level of the search.
+		 */
+		private volatile List<State> frontier;
+
+		/**
+		 * The index of the next state in the frontier to expand.
+		 */
+		private final AtomicInteger cursor = new AtomicInteger();
+
+		/**
+		 * Whether states were dropped because the maximum number of states was
+		 * reached.
+		 */
+		private volatile boolean truncated;
+
+		/**
+		 * A command that awards points without changing the state, if any.
+		 */
+		private final AtomicReference<Command> scoreLoop = new AtomicReference<>();
+
+		/**
+		 * Create a report of the completed search.
+		 *
+		 * @param workers       the workers of the search
+		 * @param characterName the name of the player character
+		 * @param time          the time taken by the search, in milliseconds
+		 * @return the report
+		 */
+		private SolverReport createReport(List<Worker> workers, String characterName, long time) {
+			//Index the states by their ids
+			State[] byId = new State[nextId.get()];
+			for (State state : states.values()) {
+				byId[state.id] = state;
+			}
+
+			//Find the shortest win. Ties are broken by state id
+			Win shortest = null;
+			for (Worker worker : workers) {
+				for (Win win : worker.wins) {
+					if (shortest == null || win.state.depth < shortest.state.depth
+							|| (win.state.depth == shortest.state.depth && win.state.id < shortest.state.id)) {
+						shortest = win;
+					}
+				}
+			}
+
+			List<Command> solution = null;
+			if (shortest != null) {
+				solution = getPath(shortest.state);
+				solution.add(shortest.command);
+			}
+
+			//The highest score is found over every path through the states
+			//found, which only gives a lower bound if the search was truncated
+			boolean[] canWin = findWinnableStates(workers, byId);
+			long highestScore = findMaximumScore(workers, byId, canWin);
+			boolean scoreCycle = highestScore == Long.MAX_VALUE;
+			int maximumScore = scoreCycle ? -1 : (int) highestScore;
+
+			//Dead ends are only known if every state has been explored
+			int deadEndCount = -1;
+			List<Command> deadEnd = null;
+			if (!truncated) {
+				deadEndCount = 0;
+				State shallowest = null;
+				for (State state : byId) {
+					if (!canWin[state.id]) {
+						deadEndCount++;
+						if (shallowest == null || state.depth < shallowest.depth
+								|| (state.depth == shallowest.depth && state.id < shallowest.id)) {
+							shallowest = state;
+						}
+					}
+				}
+
+				if (shallowest != null) {
+					deadEnd = getPath(shallowest);
+				}
+			}
+
+			return new SolverReport(levelName, characterName, byId.length, !truncated,
+					solution, maximumScore, scoreCycle || scoreLoop.get() != null, scoreLoop.get(),
+					deadEndCount, deadEnd, time);
+		}
+
+		/**
+		 * Find the highest score that the level can be won with, by relaxing
+		 * the scores of the states from which the level can be won, starting
+		 * from the initial state. A state may be reached along many paths,
+		 * and the score of each is found from the points awarded by every
+		 * command along the way, so the best path is not necessarily the
+		 * shortest one.
+		 *
+		 * @param workers the workers of the search, holding the transitions
+		 *                between states and the wins
+		 * @param byId    all states, indexed by their ids
+		 * @param canWin  for every state id, whether the level can be won from
+		 *                it
+		 * @return the highest score, -1 if the level was not won, or
+		 *         {@link Long#MAX_VALUE} if a cycle of commands that awards
+		 *         points can be repeated before winning
+		 */
+		private long findMaximumScore(List<Worker> workers, State[] byId, boolean[] canWin) {
+			//Build the transitions between winnable states in compressed form.
+			//The successors of state i are found at indices start[i] to
+			//start[i + 1], along with the points awarded on the way
+			int[] start = new int[byId.length + 1];
+			for (Worker worker : workers) {
+				for (int i = 0; i < worker.transitionCount; i++) {
+					if (canWin[to(worker.transitions[i])]) {
+						start[from(worker.transitions[i]) + 1]++;
+					}
+				}
+			}
+			for (int i = 0; i < byId.length; i++) {
+				start[i + 1] += start[i];
+			}
+
+			int[] successors = new int[start[byId.length]];
+			int[] points = new int[successors.length];
+			int[] fill = Arrays.copyOf(start, byId.length);
+			for (Worker worker : workers) {
+				for (int i = 0; i < worker.transitionCount; i++) {
+					long transition = worker.transitions[i];
+					if (canWin[to(transition)]) {
+						int index = fill[from(transition)]++;
+						successors[index] = to(transition);
+						points[index] = worker.transitionPoints[i];
+					}
+				}
+			}
+
+			//The highest score that every state has been reached with so far,
+			//and the number of commands along that path. States are queued
+			//again whenever their score is raised
+			long[] best = new long[byId.length];
+			Arrays.fill(best, Long.MIN_VALUE);
+			int[] length = new int[byId.length];
+			boolean[] queued = new boolean[byId.length];
+			int[] queue = new int[byId.length];
+			int head = 0, count = 0;
+			if (canWin[0]) {
+				best[0] = 0;
+				queued[0] = true;
+				queue[count++] = 0;
+			}
+
+			while (count > 0) {
+				int id = queue[head];
+				head = (head + 1) % queue.length;
+				count--;
+				queued[id] = false;
+
+				for (int i = start[id]; i < start[id + 1]; i++) {
+					int next = successors[i];
+					long score = best[id] + points[i];
+					if (score > best[next]) {
+						//A best path visiting more states than there are must
+						//repeat a cycle that awards points
+						if (length[id] + 1 >= byId.length) {
+							return Long.MAX_VALUE;
+						}
+
+						best[next] = score;
+						length[next] = length[id] + 1;
+						if (!queued[next]) {
+							queued[next] = true;
+							queue[(head + count++) % queue.length] = next;
+						}
+					}
+				}
+			}
+
+			long maximumScore = -1;
+			for (Worker worker : workers) {
+				for (Win win : worker.wins) {
+					if (best[win.state.id] != Long.MIN_VALUE) {
+						maximumScore = Math.max(maximumScore, best[win.state.id] + win.points);
+					}
+				}
+			}
+
+			return maximumScore;
+		}
+
+		/**
+		 * Find every state from which the level can still be won, by searching
+		 * backwards from the states in which a winning command exists.
+		 *
+		 * @param workers the workers of the search, holding the transitions
+		 *                between states
+		 * @param byId    all states, indexed by their ids
+		 * @return for every state id, whether the level can be won from it
+		 */
+		private boolean[] findWinnableStates(List<Worker> workers, State[] byId) {
+			//Build the reverse transitions in compressed form. The predecessors
+			//of state i are found at indices start[i] to start[i + 1]
+			int[] start = new int[byId.length + 1];
+			for (Worker worker : workers) {
+				for (int i = 0; i < worker.transitionCount; i++) {
+					start[to(worker.transitions[i]) + 1]++;
+				}
+			}
+			for (int i = 0; i < byId.length; i++) {
+				start[i + 1] += start[i];
+			}
+
+			int[] predecessors = new int[start[byId.length]];
+			int[] fill = Arrays.copyOf(start, byId.length);
+			for (Worker worker : workers) {
+				for (int i = 0; i < worker.transitionCount; i++) {
+					long transition = worker.transitions[i];
+					predecessors[fill[to(transition)]++] = from(transition);
+				}
+			}
+
+			//Search backwards from the winning states
+			boolean[] canWin = new boolean[byId.length];
+			int[] queue = new int[byId.length];
+			int head = 0, tail = 0;
+			for (Worker worker : workers) {
+				for (Win win : worker.wins) {
+					if (!canWin[win.state.id]) {
+						canWin[win.state.id] = true;
+						queue[tail++] = win.state.id;
+					}
+				}
+			}
+
+			while (head < tail) {
+				int id = queue[head++];
+				for (int i = start[id]; i < start[id + 1]; i++) {
+					if (!canWin[predecessors[i]]) {
+						canWin[predecessors[i]] = true;
+						queue[tail++] = predecessors[i];
+					}
+				}
+			}
+
+			return canWin;
+		}
+	}
+
+	/**
+	 * Get the commands leading from the initial state to the specified state.
+	 *
+	 * @param state the state to get the path to
+	 * @return the commands leading to the state
+	 */
+	private static List<Command> getPath(State state) {
+		LinkedList<Command> path = new LinkedList<>();
+		for (State s = state; s.parent != null; s = s.parent) {
+			path.addFirst(s.command);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Get the state that a transition leads from.
+	 *
+	 * @param transition the transition
+	 * @return the id of the state
+	 */
+	private static int from(long transition) {
+		return (int) (transition >>> 32);
+	}
+
+	/**
+	 * Get the state that a transition leads to.
+	 *
+	 * @param transition the transition
+	 * @return the id of the state
+	 */
+	private static int to(long transition) {
+		return (int) transition;
+	}
+
+	/**
+	 * A worker expanding states of the search in its own game.
+	 */
+	private class Worker implements Callable<Void> {
+
+		/**
+		 * The search that this worker is part of.
+		 */
+		private final Search search;
+
+		/**
+		 * The game that states are restored into.
+		 */
+		private final Game game;
+
+		/**
+		 * The player character in the game.
+		 */
+		private final Character player;
+
+		/**
+		 * A snapshot of the game right after it was started. It is restored
+		 * before every command, to reset the monster, the score and the
+		 * running state of the game.
+		 */
+		private final ByteBuffer initialSnapshot;
+
+		/**
+		 * The buffer that worlds are written to.
+		 */
+		private ByteBuffer worldBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+		/**
+		 * The states found by this worker in the current level of the search.
+		 */
+		private final List<State> newStates = new ArrayList<>();
+
+		/**
+		 * The winning commands found by this worker.
+		 */
+		private final List<Win> wins = new ArrayList<>();
+
+		/**
+		 * The transitions between states found by this worker. Every
+		 * transition holds the id of the state it leads from in the upper 32
+		 * bits, and the id of the state it leads to in the lower 32 bits.
+		 */
+		private long[] transitions = new long[1024];
+
+		/**
+		 * The points awarded by every transition found by this worker, at the
+		 * same indices as the transitions.
+		 */
+		private int[] transitionPoints = new int[1024];
+
+		/**
+		 * The number of transitions found by this worker.
+		 */
+		private int transitionCount;
+
+		/**
+		 * Constructs a new worker, loading its own copy of the level.
+		 *
+		 * @param search        the search that the worker is part of
+		 * @param characterName the name of the player character, or null to
+		 *                      use the default character
+		 * @throws IllegalArgumentException if no character has the specified
+		 *                                  name
+		 */
+		Worker(Search search, String characterName) {
+			this.search = search;
+
+			//The data mediator holds the level that was read last, so loading
+			//must not be interleaved
+			synchronized (dataMediator) {
+				game = new Game(dataMediator, levelName, 0, new GameClock(true));
+			}
+			game.setJournalPersistent(false);
+			game.setGameListener(HEADLESS_LISTENER);
+
+			player = findCharacter(characterName);
+			game.setPlayer(player);
+			game.start();
+
+			ByteBuffer snapshot = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			while (true) {
+				try {
+					GameSnapshot.write(game, snapshot);
+					break;
+				} catch (BufferOverflowException e) {
+					snapshot = ByteBuffer.allocate(snapshot.capacity() * 2);
+				}
+			}
+			snapshot.flip();
+			initialSnapshot = snapshot;
+		}
+
+		/**
+		 * Get the player character with the specified name.
+		 *
+		 * @param name the name of the character, or null to get the default
+		 *             character
+		 * @return the character
+		 * @throws IllegalArgumentException if no character has the specified
+		 *                                  name
+		 */
+		private Character findCharacter(String name) {
+			if (name == null) {
+				name = DEFAULT_CHARACTER;
+			}
+
+			for (Character character : game.getCharacters()) {
+				if (character.getName().equals(name)) {
+					return character;
+				}
+			}
+
+			throw new IllegalArgumentException("No such player character: " + name);
+		}
+
+		/**
+		 * Create the state that the level starts in.
+		 *
+		 * @return the initial state
+		 */
+		State createInitialState() {
+			return new State(writeWorld(), search.nextId.getAndIncrement(), null, null, 0);
+		}
+
+		/**
+		 * Expand states of the current level of the search until there are
+		 * none left.
+		 *
+		 * @return nothing
+		 */
+		@Override
+		public Void call() {
+			List<State> frontier = search.frontier;
+			int index;
+			while ((index = search.cursor.getAndIncrement()) < frontier.size()) {
+				expand(frontier.get(index));
+			}
+
+			return null;
+		}
+
+		/**
+		 * Process every command that could change the specified state, and
+		 * record the states that they lead to.
+		 *
+		 * @param state the state to expand
+		 */
+		private void expand(State state) {
+			restore(state);
+			for (Command command : getCommands()) {
+				//Every command is processed on a freshly restored state
+				restore(state);
+				game.processCommand(command);
+
+				//The score is reset along with the monster, so it holds the
+				//points awarded by the command
+				int points = game.getScoreManager().getCurrentGameScore();
+				if (!game.isRunning()) {
+					//Only quit events end the game, as the monster is reset
+					//before every command
+					wins.add(new Win(state, command, points));
+					continue;
+				}
+
+				World world = writeWorld();
+				if (world.equals(state.world)) {
+					if (points > 0) {
+						search.scoreLoop.compareAndSet(null, command);
+					}
+					continue;
+				}
+
+				State next = search.states.get(world);
+				if (next == null) {
+					if (search.nextId.get() >= maxStates) {
+						search.truncated = true;
+						continue;
+					}
+
+					next = search.states.computeIfAbsent(world,
+							w -> createState(w, state, command));
+				}
+
+				addTransition(state.id, next.id, points);
+			}
+		}
+
+		/**
+		 * Create a new state found by this worker.
+		 *
+		 * @param world   the world of the state
+		 * @param parent  the state that the new state was found from
+		 * @param command the command leading from the parent to the new state
+		 * @return the new state
+		 */
+		private State createState(World world, State parent, Command command) {
+			State state = new State(world, search.nextId.getAndIncrement(), parent, command,
+					parent.depth + 1);
+			newStates.add(state);
+			return state;
+		}
+
+		/**
+		 * Record a transition between two states.
+		 *
+		 * @param from   the id of the state that the transition leads from
+		 * @param to     the id of the state that the transition leads to
+		 * @param points the points awarded by the transition
+		 */
+		private void addTransition(int from, int to, int points) {
+			if (transitionCount == transitions.length) {
+				transitions = Arrays.copyOf(transitions, transitions.length * 2);
+				transitionPoints = Arrays.copyOf(transitionPoints, transitions.length);
+			}
+
+			transitionPoints[transitionCount] = points;
+			transitions[transitionCount++] = ((long) from << 32) | (to & 0xFFFFFFFFL);
+		}
+
+		/**
+		 * Restore the game to the specified state, with the monster, the score
+		 * and the running state reset.
+		 *
+		 * @param state the state to restore
+		 */
+		private void restore(State state) {
+			initialSnapshot.rewind();
+			GameSnapshot.restore(game, initialSnapshot);
+			GameSnapshot.restoreWorld(game, ByteBuffer.wrap(state.world.bytes));
+		}
+
+		/**
+		 * Write the canonical world of the game.
+		 *
+		 * @return the world
+		 */
+		private World writeWorld() {
+			while (true) {
+				try {
+					worldBuffer.clear();
+					GameSnapshot.writeCanonicalWorld(game, worldBuffer);
+					return new World(Arrays.copyOf(worldBuffer.array(), worldBuffer.position()));
+				} catch (BufferOverflowException e) {
+					worldBuffer = ByteBuffer.allocate(worldBuffer.capacity() * 2);
+				}
+			}
+		}
+
+		/**
+		 * Get every command that could change the current state of the game.
+		 * Commands that only print information, such as help and peek, are
+		 * left out.
+		 *
+		 * @return the commands
+		 */
+		private List<Command> getCommands() {
+			List<Command> commands = new ArrayList<>();
+			Room room = game.getCurrentRoom();
+			Inventory inventory = player.getInventory();
+
+			for (Map.Entry<String, Room> exit : room.getExits().entrySet()) {
+				if (exit.getValue() != null) {
+					commands.add(command(CommandWord.GO, Command.DIRECTION, exit.getKey(), null, null));
+				}
+			}
+
+			for (int i = 0; i < room.getInventory().getItemCount(); i++) {
+				commands.add(command(CommandWord.TAKE, Command.ITEM, room.getInventory().getItemByIndex(i).getName(), null, null));
+			}
+
+			//Unless every drop is explored, items are only dropped to make room
+			//for an item in the current room
+			boolean dropping = allDropsExplored || (inventory.getItemCount() >= inventory.getCapacity()
+					&& room.getInventory().getItemCount() > 0);
+
+			//Objects that can be inspected or used
+			List<InspectableObject> objects = new ArrayList<>(room.getInspectableObjects());
+			for (int i = 0; i < inventory.getItemCount(); i++) {
+				Item item = inventory.getItemByIndex(i);
+				if (dropping) {
+					commands.add(command(CommandWord.DROP, Command.ITEM, item.getName(), null, null));
+				}
+				objects.add(item);
+			}
+
+			for (InspectableObject object : objects) {
+				commands.add(command(CommandWord.INSPECT, Command.OBJECT, object.getName(), null, null));
+			}
+
+			//Only uses that trigger events
+			for (int i = 0; i < inventory.getItemCount(); i++) {
+				Item item = inventory.getItemByIndex(i);
+				for (InspectableObject object : objects) {
+					if (object != item && (item.canUseWithObject(object.getName())
+							|| (object instanceof Item && ((Item) object).canUseWithObject(item.getName())))) {
+						commands.add(command(CommandWord.USE, Command.ITEM, item.getName(), Command.OBJECT, object.getName()));
+					}
+				}
+			}
+
+			return commands;
+		}
+	}
+
+	/**
+	 * Construct a command with up to two parameters.
+	 *
+	 * @param word   the command word
+	 * @param key1   the name of the first parameter
+	 * @param value1 the value of the first parameter
+	 * @param key2   the name of the second parameter, or null
+	 * @param value2 the value of the second parameter, or null
+	 * @return the command
+	 */
+	private static Command command(CommandWord word, String key1, String value1, String key2, String value2) {
+		Command command = new Command().set(word).setCommandParameter(key1, value1);
+		if (key2 != null) {
+			command.setCommandParameter(key2, value2);
+		}
+
+		return command;
+	}
+
+	/**
+	 * The canonical world of a state, which identifies it.
+	 */
+	private static class World {
+
+		/**
+		 * The bytes of the world.
+		 */
+		private final byte[] bytes;
+
+		/**
+		 * The hash code of the bytes, which is computed once as worlds are
+		 * hashed many times.
+		 */
+		private final int hash;
+
+		/**
+		 * Constructs a new world.
+		 *
+		 * @param bytes the bytes of the world
+		 */
+		World(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof World)) {
+				return false;
+			}
+
+			World other = (World) obj;
+			return hash == other.hash && Arrays.equals(bytes, other.bytes);
+		}
+	}
+
+	/**
+	 * A state of the level that has been found by the search.
+	 */
+	private static class State {
+
+		/**
+		 * The world of this state.
+		 */
+		private final World world;
+
+		/**
+		 * The id of this state. Ids are assigned in the order that states are
+		 * found, starting from 0.
+		 */
+		private final int id;
+
+		/**
+		 * The state that this state was first found from, or null if this is
+		 * the initial state.
+		 */
+		private final State parent;
+
+		/**
+		 * The command leading from the parent to this state.
+		 */
+		private final Command command;
+
+		/**
+		 * The number of commands needed to reach this state.
+		 */
+		private final int depth;
+
+		/**
+		 * Constructs a new state.
+		 *
+		 * @param world   the world of the state
+		 * @param id      the id of the state
+		 * @param parent  the state that the state was first found from
+		 * @param command the command leading from the parent to the state
+		 * @param depth   the number of commands needed to reach the state
+		 */
+		State(World world, int id, State parent, Command command, int depth) {
+			this.world = world;
+			this.id = id;
+			this.parent = parent;
+			this.command = command;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * A command that wins the level from a state.
+	 */
+	private static class Win {
+
+		/**
+		 * The state that the command is processed in.
+		 */
+		private final State state;
+
+		/**
+		 * The winning command.
+		 */
+		private final Command command;
+
+		/**
+		 * The points awarded by the winning command.
+		 */
+		private final int points;
+
+		/**
+		 * Constructs a new win.
+		 *
+		 * @param state   the state that the command is processed in
+		 * @param command the winning command
+		 * @param points  the points awarded by the winning command
+		 */
+		Win(State state, Command command, int points) {
+			this.state = state;
+			this.command = command;
+			this.points = points;
+		}
+	}
+
+	/**
+	 * Explore a level and print a report. The arguments are the name of the
+	 * level, and optionally the name of the player character, the number of
+	 * threads and the maximum number of states. The level is explored with the
+	 * default character unless another is named.
+	 *
+	 * @param args the command line arguments
+	 * @throws InterruptedException if the thread was interrupted
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length < 1) {
+			System.out.println("Usage: LevelSolver <level> [character] [threads] [max states]");
+			return;
+		}
+
+		LevelSolver solver = new LevelSolver(new DataMediator(), args[0]);
+		if (args.length > 2) {
+			solver.setThreadCount(Integer.parseInt(args[2]));
+		}
+		if (args.length > 3) {
+			solver.setMaxStates(Integer.parseInt(args[3]));
+		}
+
+		System.out.print(solver.solve(args.length > 1 ? args[1] : null));
+	}
+}
@@ -0,0 +1,315 @@
+package castleescape.business.solver;
+
+import castleescape.business.command.Command;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of exploring the state space of a level with a
+ * {@link LevelSolver}.
+ */
+public class SolverReport {
+
+	/**
+	 * The name of the level that was explored.
+	 */
+	private final String levelName;
+
+	/**
+	 * The name of the player character that the level was explored with.
+	 */
+	private final String characterName;
+
+	/**
+	 * The number of distinct states that were found.
+	 */
+	private final int stateCount;
+
+	/**
+	 * Whether the entire state space was explored.
+	 */
+	private final boolean complete;
+
+	/**
+	 * The shortest sequence of commands winning the level, or null if no
+	 * winning sequence was found.
+	 */
+	private final List<Command> solution;
+
+	/**
+	 * The highest score that the level was won with, or -1 if the level was
+	 * not won or the score is unbounded by a cycle of commands.
+	 */
+	private final int maximumScore;
+
+	/**
+	 * Whether the score can be raised indefinitely before winning.
+	 */
+	private final boolean scoreUnbounded;
+
+	/**
+	 * A command that awards points without changing the state of the level, or
+	 * null if no such command was found.
+	 */
+	private final Command scoreLoop;
+
+	/**
+	 * The number of states from which the level can no longer be won, or -1 if
+	 * the state space was not explored completely.
+	 */
+	private final int deadEndCount;
+
+	/**
+	 * The shortest sequence of commands leading to a dead end, or null if no
+	 * dead end was found.
+	 */
+	private final List<Command> deadEnd;
+
+	/**
+	 * The time taken to explore the level, in milliseconds.
+	 */
+	private final long time;
+
+	/**
+	 * Constructs a new solver report.
+	 *
+	 * @param levelName      the name of the level that was explored
+	 * @param characterName  the name of the player character that the level
+	 *                       was explored with
+	 * @param stateCount     the number of distinct states that were found
+	 * @param complete       whether the entire state space was explored
+	 * @param solution       the shortest sequence of commands winning the
+	 *                       level, or null if none was found
+	 * @param maximumScore   the highest score that the level was won with, or
+	 *                       -1 if the level was not won or the score is
+	 *                       unbounded by a cycle of commands
+	 * @param scoreUnbounded whether the score can be raised indefinitely
+	 * @param scoreLoop      a command that awards points without changing the
+	 *                       state of the level, or null if none was found
+	 * @param deadEndCount   the number of states from which the level can no
+	 *                       longer be won, or -1 if unknown
+	 * @param deadEnd        the shortest sequence of commands leading to a
+	 *                       dead end, or null if none was found
+	 * @param time           the time taken to explore the level, in
+	 *                       milliseconds
+	 */
+	SolverReport(String levelName, String characterName, int stateCount, boolean complete,
+			List<Command> solution, int maximumScore, boolean scoreUnbounded, Command scoreLoop,
+			int deadEndCount, List<Command> deadEnd, long time) {
+		this.levelName = levelName;
+		this.characterName = characterName;
+		this.stateCount = stateCount;
+		this.complete = complete;
+		this.solution = solution;
+		this.maximumScore = maximumScore;
+		this.scoreUnbounded = scoreUnbounded;
+		this.scoreLoop = scoreLoop;
+		this.deadEndCount = deadEndCount;
+		this.deadEnd = deadEnd;
+		this.time = time;
+	}
+
+	/**
+	 * Get the name of the level that was explored.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the name of the player character that the level was explored with.
+	 *
+	 * @return the name of the player character
+	 */
+	public String getCharacterName() {
+		return characterName;
+	}
+
+	/**
+	 * Get the number of distinct states of the level that were found.
+	 *
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * Test whether the entire state space of the level was explored. If not,
+	 * the solver gave up after finding its maximum number of states, and the
+	 * level may be winnable even if no solution was found.
+	 *
+	 * @return {@code true} if the state space was explored completely,
+	 *         {@code false} otherwise
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Test whether the level can be won, that is whether a quit event can be
+	 * reached. If the state space was not explored completely and no solution
+	 * was found, it is unknown whether the level can be won.
+	 *
+	 * @return {@code true} if a winning sequence of commands was found,
+	 *         {@code false} otherwise
+	 */
+	public boolean isWinnable() {
+		return solution != null;
+	}
+
+	/**
+	 * Get the shortest sequence of commands winning the level.
+	 *
+	 * @return the winning commands, or null if the level was not won
+	 */
+	public List<Command> getSolution() {
+		return solution == null ? null : Collections.unmodifiableList(solution);
+	}
+
+	/**
+	 * Get the highest score that the level was won with, along any path
+	 * through the states that were found. Commands that award points without
+	 * changing the state are not repeated. If the state space was not explored
+	 * completely, this is a lower bound on the score that a player can
+	 * achieve.
+	 *
+	 * @return the highest score, or -1 if the level was not won or the score
+	 *         is unbounded by a cycle of commands
+	 */
+	public int getMaximumScore() {
+		return maximumScore;
+	}
+
+	/**
+	 * Test whether the score can be raised indefinitely, either by repeating a
+	 * command that awards points without changing the state of the level, or
+	 * by repeating a cycle of commands that awards points before winning.
+	 *
+	 * @return {@code true} if the score is unbounded, {@code false} otherwise
+	 */
+	public boolean isScoreUnbounded() {
+		return scoreUnbounded;
+	}
+
+	/**
+	 * Get a command that awards points without changing the state of the
+	 * level, so that the score can be raised indefinitely. The score may also
+	 * be unbounded by a cycle of several commands, which is not described.
+	 *
+	 * @return the command, or null if no such command was found
+	 */
+	public Command getScoreLoop() {
+		return scoreLoop;
+	}
+
+	/**
+	 * Get the number of states from which the level can no longer be won.
+	 * Dead ends can only be found if the state space was explored completely.
+	 *
+	 * @return the number of dead ends, or -1 if the state space was not
+	 *         explored completely
+	 */
+	public int getDeadEndCount() {
+		return deadEndCount;
+	}
+
+	/**
+	 * Get the shortest sequence of commands that leaves the player unable to
+	 * win the level.
+	 *
+	 * @return the commands leading to a dead end, or null if no dead end was
+	 *         found
+	 */
+	public List<Command> getDeadEnd() {
+		return deadEnd == null ? null : Collections.unmodifiableList(deadEnd);
+	}
+
+	/**
+	 * Get the time taken to explore the level.
+	 *
+	 * @return the time, in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Get a human readable summary of this report.
+	 *
+	 * @return the summary
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Level ").append(levelName).append(" as ").append(characterName).append('\n');
+		sb.append("States: ").append(stateCount).append(complete ? "" : " (incomplete)")
+				.append(" in ").append(time).append(" ms\n");
+
+		if (solution == null && !complete) {
+			sb.append("Solution: unknown (search truncated at ").append(stateCount).append(" states)\n");
+		} else if (solution == null) {
+			sb.append("No solution found\n");
+		} else {
+			sb.append("Shortest solution: ").append(solution.size()).append(" commands\n");
+			appendCommands(sb, solution);
+			if (maximumScore >= 0) {
+				sb.append("Maximum score: ").append(maximumScore).append('\n');
+			}
+		}
+
+		if (scoreLoop != null) {
+			sb.append("Score is unbounded, repeat: ").append(describe(scoreLoop)).append('\n');
+		} else if (scoreUnbounded) {
+			sb.append("Score is unbounded by a cycle of commands\n");
+		}
+
+		if (deadEndCount >= 0) {
+			sb.append("Dead ends: ").append(deadEndCount).append('\n');
+		}
+
+		if (deadEnd != null) {
+			sb.append("Shortest path to a dead end:\n");
+			appendCommands(sb, deadEnd);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Append a numbered list of commands to the specified string builder.
+	 *
+	 * @param sb       the string builder to append to
+	 * @param commands the commands to append
+	 */
+	private static void appendCommands(StringBuilder sb, List<Command> commands) {
+		for (int i = 0; i < commands.size(); i++) {
+			sb.append("  ").append(i + 1).append(". ").append(describe(commands.get(i))).append('\n');
+		}
+	}
+
+	/**
+	 * Describe the specified command the way a player would type it.
+	 *
+	 * @param command the command to describe
+	 * @return the description of the command
+	 */
+	private static String describe(Command command) {
+		StringBuilder sb = new StringBuilder(command.getCommandWord().toString());
+		if (command.getCommandParameter(Command.DIRECTION) != null) {
+			sb.append(' ').append(command.getCommandParameter(Command.DIRECTION));
+		}
+		if (command.getCommandParameter(Command.ITEM) != null) {
+			sb.append(' ').append(command.getCommandParameter(Command.ITEM));
+		}
+		if (command.getCommandParameter(Command.OBJECT) != null) {
+			sb.append(command.getCommandParameter(Command.ITEM) != null ? " on " : " ")
+					.append(command.getCommandParameter(Command.OBJECT));
+		}
+
+		return sb.toString();
+	}
+}
@@ -6,22 +6,15 @@
 package castleescape.data;
 
 import castleescape.business.framework.Configuration;
+import castleescape.business.framework.MonsterConfiguration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Builder responsible for processing raw configuration data.
  */
 public class ConfigurationBuilder implements IBuilder {
 
-	/**
-	 * The name of a data element accepted by this builder.
-	 */
-	public static final String START_ROOM = "startroom",
-			SAFE_ROOM = "saferoom",
-			MONSTER_START_ROOM = "monsterstartroom",
-			MONSTER_MOVE_CHANCE = "monstermovechance",
-			MONSTER_MOVE_TIME = "monstermovetime",
-			WELCOME = "welcome";
-
 	/**
 	 * The room in which the player starts.
 	 */
@@ -52,6 +45,27 @@ public class ConfigurationBuilder implements IBuilder {
 	 */
 	private String welcome;
 
+	/**
+	 * The start rooms of the other monsters.
+	 */
+	private final List<String> extraMonsterRooms = new ArrayList<>();
+
+	/**
+	 * The move chances of the other monsters.
+	 */
+	private final List<Double> extraMonsterMoveChances = new ArrayList<>();
+
+	/**
+	 * The move times of the other monsters.
+	 */
+	private final List<Integer> extraMonsterMoveTimes = new ArrayList<>();
+
+	/**
+	 * The number of landmarks guiding the monsters when they chase the
+	 * player.
+	 */
+	private int landmarkCount;
+
 	/**
 	 * The configuration object that has been built. Will be null until
 	 * {@link #build()} has been called.
@@ -59,12 +73,18 @@ public class ConfigurationBuilder implements IBuilder {
 	private Configuration result;
 
 	@Override
-	public void notifyOfElement(String element) {
-		//Nothing to do here
+	public void notifyOfElement(ElementToken element) {
+		//Every monster element describes another monster. The move chance and
+		//time are optional, and default to those of the first monster
+		if (element == ElementToken.MONSTER) {
+			extraMonsterRooms.add(null);
+			extraMonsterMoveChances.add(null);
+			extraMonsterMoveTimes.add(null);
+		}
 	}
 
 	@Override
-	public void processElement(String element, String content) {
+	public void processElement(ElementToken element, String content) {
 		//Determine what action should happen when reading the specified element
 		switch (element) {
 			case START_ROOM:
@@ -82,6 +102,18 @@ public class ConfigurationBuilder implements IBuilder {
 			case MONSTER_MOVE_TIME:
 				monsterMoveTime = Integer.parseInt(content);
 				break;
+			case ROOM:
+				setLast(extraMonsterRooms, content);
+				break;
+			case MOVE_CHANCE:
+				setLast(extraMonsterMoveChances, Double.parseDouble(content));
+				break;
+			case MOVE_TIME:
+				setLast(extraMonsterMoveTimes, Integer.parseInt(content));
+				break;
+			case LANDMARKS:
+				landmarkCount = Integer.parseInt(content);
+				break;
 			case WELCOME:
 				//The welcome message may contain newlines, but we need to
 				//convert these to line break elements
@@ -90,15 +122,40 @@ public class ConfigurationBuilder implements IBuilder {
 		}
 	}
 
+	/**
+	 * Set the value of the monster that is currently being read.
+	 *
+	 * @param <T>    the type of the value
+	 * @param values the values of the other monsters
+	 * @param value  the value of the monster that is being read
+	 */
+	private static <T> void setLast(List<T> values, T value) {
+		if (!values.isEmpty()) {
+			values.set(values.size() - 1, value);
+		}
+	}
+
 	@Override
 	public void build(LevelDataStorage dataStorage) {
+		//Construct the configurations of the other monsters
+		List<MonsterConfiguration> extraMonsters = new ArrayList<>();
+		for (int i = 0; i < extraMonsterRooms.size(); i++) {
+			Double moveChance = extraMonsterMoveChances.get(i);
+			Integer moveTime = extraMonsterMoveTimes.get(i);
+			extraMonsters.add(new MonsterConfiguration(dataStorage.getRoom(extraMonsterRooms.get(i)),
+					moveChance == null ? monsterMoveChance : moveChance,
+					moveTime == null ? monsterMoveTime : moveTime));
+		}
+
 		//Construct new configuration object
 		result = new Configuration(dataStorage.getRoom(startRoom),
 				dataStorage.getRoom(safeRoom),
 				dataStorage.getRoom(monsterStartRoom),
 				monsterMoveChance,
 				monsterMoveTime,
-				welcome);
+				welcome,
+				extraMonsters,
+				landmarkCount);
 	}
 
 	@Override
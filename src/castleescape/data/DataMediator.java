@@ -8,8 +8,12 @@ package castleescape.data;
 import castleescape.business.framework.Configuration;
 import castleescape.business.framework.Room;
 import castleescape.business.framework.Score;
+import castleescape.business.framework.ScoreDistribution;
+import castleescape.business.journal.CommandJournal;
 import castleescape.business.object.InspectableObject;
 import castleescape.business.object.Item;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -27,13 +31,42 @@ public class DataMediator {
 	 */
 	private final LevelDataReader levelDataReader;
 	private final ScoreFileManager scoreFileManager;
+	private final JournalFileManager journalFileManager;
+
+	/**
+	 * The object reading levels in the background, or null if levels are only
+	 * read when they are requested.
+	 */
+	private LevelPreloader levelPreloader;
 
 	/**
 	 * Constructs a new data mediator.
 	 */
 	public DataMediator() {
-		levelDataReader = new LevelDataReader();
+		this(new LevelDataReader());
+	}
+
+	/**
+	 * Constructs a new data mediator reading levels from the specified root
+	 * directory or level pack instead of the default one.
+	 *
+	 * @param levelDirectory the directory or zip file containing all level
+	 *                       directories
+	 * @throws IllegalArgumentException if the level pack cannot be opened
+	 */
+	public DataMediator(File levelDirectory) {
+		this(new LevelDataReader(levelDirectory));
+	}
+
+	/**
+	 * Constructs a new data mediator using the specified level data reader.
+	 *
+	 * @param levelDataReader the object responsible for reading level data
+	 */
+	private DataMediator(LevelDataReader levelDataReader) {
+		this.levelDataReader = levelDataReader;
 		scoreFileManager = new ScoreFileManager();
+		journalFileManager = new JournalFileManager();
 	}
 
 	/**
@@ -46,20 +79,93 @@ public class DataMediator {
 		return levelDataReader.getLevels();
 	}
 
+	/**
+	 * Set whether levels should be validated before they are read. A level
+	 * with errors will then be refused by {@link #readLevelData(String)}.
+	 *
+	 * @param validating whether levels should be validated
+	 */
+	public void setLevelValidation(boolean validating) {
+		//Pass call to level data reader
+		levelDataReader.setValidating(validating);
+	}
+
+	/**
+	 * Start reading all playable levels in the background, so that
+	 * {@link #readLevelData(String)} does not have to wait for them to be
+	 * read. Levels are validated in the background as well if level
+	 * validation is enabled, so it should be enabled first. Preloaded levels
+	 * are read again when their files change, after which new games get the
+	 * new {@link LevelVersion}.
+	 */
+	public void preloadLevels() {
+		if (levelPreloader == null) {
+			levelPreloader = new LevelPreloader(levelDataReader.getRootDirectory(), levelDataReader.isValidating());
+		}
+
+		for (String levelName : getLevels()) {
+			levelPreloader.preload(levelName);
+		}
+	}
+
 	/**
 	 * Read all data of the level with the specified name. The level data can
 	 * then be retrieved using the methods
 	 * {@link #getInspectableObjects()}, {@link #getItems()} and
-	 * {@link #getRooms()}.
+	 * {@link #getRooms()}. If the level has been {@link #preloadLevels()
+	 * preloaded}, the data that was read in the background is used instead.
+	 * Scores are read separately by {@link #readScoreData(String)}.
 	 *
 	 * @param levelName the name of the level to read
 	 */
 	public void readLevelData(String levelName) {
-		//Pass call to level data reader
-		levelDataReader.readLevel(levelName);
+		LevelDataStorage preloaded = levelPreloader == null ? null : levelPreloader.take(levelName);
+		if (preloaded != null) {
+			levelDataReader.setLevelData(preloaded);
+		} else {
+			//Pass call to level data reader, and keep a version of the data
+			//so that the game can be built again without reading the level
+			levelDataReader.readLevel(levelName);
+			LevelVersion.ofSingleGame(levelName, levelDataReader.getLevelData());
+		}
+	}
 
-		//Pass call to score file manager
-		scoreFileManager.readScores(levelName);
+	/**
+	 * Build the data of the specified version of a level again, even if the
+	 * files of the level have changed since. This is meant for a game that
+	 * replaces a game of the version, such as a game restored from a
+	 * snapshot, so the version is not acquired again.
+	 * <p>
+	 * The data is returned rather than kept as the level that was read last,
+	 * so this may be called while another level is being read.
+	 *
+	 * @param version the version of the level
+	 * @return the data of the level
+	 */
+	public LevelDataStorage readLevelData(LevelVersion version) {
+		return version.rebuild();
+	}
+
+	/**
+	 * Get the data of the level that was read during the last call to
+	 * {@link #readLevelData(String)}.
+	 *
+	 * @return the data of the level
+	 */
+	public LevelDataStorage getLevelData() {
+		return levelDataReader.getLevelData();
+	}
+
+	/**
+	 * Get the version of the level that was read during the last call to
+	 * {@link #readLevelData(String)}. The caller must
+	 * {@link LevelVersion#release() release} the version when the game that
+	 * plays it ends.
+	 *
+	 * @return the version of the level
+	 */
+	public LevelVersion getLevelVersion() {
+		return levelDataReader.getLevelData().getVersion();
 	}
 
 	/**
@@ -115,6 +221,18 @@ public class DataMediator {
 	public void readScoreData(String levelName) {
 		scoreFileManager.readScores(levelName);
 	}
+
+	/**
+	 * Read the score data for the specified level, without keeping it for
+	 * {@link #getScores()}. Unlike {@link #readScoreData(String)}, this can be
+	 * called by many threads at once without locking the data mediator.
+	 *
+	 * @param levelName the name of the level to read
+	 * @return the scores of the level
+	 */
+	public List<Score> readScores(String levelName) {
+		return scoreFileManager.loadScores(levelName);
+	}
 	
 	/**
 	 * Save the specified score to the score file associated with the specified
@@ -128,6 +246,42 @@ public class DataMediator {
 		scoreFileManager.saveScore(levelName, score);
 	}
 
+	/**
+	 * Read the score distribution of the level with the specified name.
+	 *
+	 * @param levelName the name of the level
+	 * @return the distribution, or null if it has not been saved or could not
+	 *         be read
+	 */
+	public ScoreDistribution readScoreDistribution(String levelName) {
+		return scoreFileManager.readDistribution(levelName);
+	}
+
+	/**
+	 * Save the specified score distribution for the level with the specified
+	 * name, replacing the distribution saved before. The distribution is
+	 * saved in the background.
+	 *
+	 * @param levelName    the name of the level
+	 * @param distribution the distribution to save
+	 */
+	public void saveScoreDistribution(String levelName, ScoreDistribution distribution) {
+		scoreFileManager.saveDistribution(levelName, distribution);
+	}
+
+	/**
+	 * Write all scores that are waiting to be written. Should be called before
+	 * the application exits, as scores that have not been written are
+	 * otherwise lost.
+	 */
+	public void close() {
+		if (levelPreloader != null) {
+			levelPreloader.close();
+		}
+
+		scoreFileManager.close();
+	}
+
 	/**
 	 * Get the scores that were read during the last call to
 	 * {@link #readScoreData(String)}.
@@ -137,4 +291,49 @@ public class DataMediator {
 	public List<Score> getScores() {
 		return scoreFileManager.getScores();
 	}
+
+	/**
+	 * Save the specified command journal to the file system.
+	 *
+	 * @param journal the journal to save
+	 */
+	public void saveJournalData(CommandJournal journal) {
+		journalFileManager.saveJournal(journal);
+	}
+
+	/**
+	 * Read the command journal in the specified file.
+	 *
+	 * @param journalFile the file to read
+	 * @return the journal that was read
+	 * @throws IOException if the file could not be read or is not a journal
+	 */
+	public CommandJournal readJournalData(File journalFile) throws IOException {
+		return journalFileManager.readJournal(journalFile);
+	}
+
+	/**
+	 * Get all journal files in the specified file or directory. Directories
+	 * are searched recursively.
+	 *
+	 * @param root the file or directory to search, or null to search the
+	 *             default journal directory
+	 * @return the journal files that were found
+	 */
+	public List<File> getJournalFiles(File root) {
+		return journalFileManager.getJournalFiles(root);
+	}
+
+	/**
+	 * Open a new spill file for temporarily storing binary data outside of
+	 * the heap. The caller is responsible for closing it.
+	 *
+	 * @param file            the file to back the spill file
+	 * @param initialCapacity the initial size of the file, in bytes
+	 * @return the spill file
+	 * @throws IOException if the file could not be opened
+	 */
+	public SpillFile openSpillFile(File file, int initialCapacity) throws IOException {
+		return new SpillFile(file, initialCapacity);
+	}
 }
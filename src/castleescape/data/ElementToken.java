@@ -0,0 +1,177 @@
+package castleescape.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The elements that can appear in level files. Elements are classified once
+ * when they are read, so that builders can switch on the token rather than
+ * compare element names, and so that the reader knows what kind of content an
+ * element holds.
+ */
+public enum ElementToken {
+
+	//Root elements
+	ROOM_FILE("room", Kind.CONTAINER),
+	INSPECTABLE_OBJECT_FILE("inspectableobject", Kind.CONTAINER),
+	ITEM_FILE("item", Kind.CONTAINER),
+	CONFIGURATIONS("configurations", Kind.CONTAINER),
+	//Elements grouping other elements
+	EVENTS("events", Kind.CONTAINER),
+	EVENT("event", Kind.CONTAINER),
+	INVENTORY("inventory", Kind.CONTAINER),
+	EXITS("exits", Kind.CONTAINER),
+	MONSTERS("monsters", Kind.CONTAINER),
+	MONSTER("monster", Kind.CONTAINER),
+	//Elements naming something in the level
+	NAME("name", Kind.NAME),
+	OBJECT("object", Kind.NAME),
+	ITEM("item", Kind.NAME),
+	ROOM("room", Kind.NAME),
+	NORTH("north", Kind.NAME),
+	SOUTH("south", Kind.NAME),
+	EAST("east", Kind.NAME),
+	WEST("west", Kind.NAME),
+	TRIGGER("trigger", Kind.NAME),
+	TYPE("type", Kind.NAME),
+	THEN("then", Kind.NAME),
+	DESTINATION("destination", Kind.NAME),
+	DIRECTION("direction", Kind.NAME),
+	START_ROOM("startroom", Kind.NAME),
+	SAFE_ROOM("saferoom", Kind.NAME),
+	MONSTER_START_ROOM("monsterstartroom", Kind.NAME),
+	//Elements holding numbers, which are few and short
+	REWARD("reward", Kind.NAME),
+	WEIGHT("weight", Kind.NAME),
+	FALLOFF("falloff", Kind.NAME),
+	DURATION("duration", Kind.NAME),
+	PROBABILITY("probability", Kind.NAME),
+	DELAY("delay", Kind.NAME),
+	COMMANDS("commands", Kind.NAME),
+	MONSTER_MOVE_CHANCE("monstermovechance", Kind.NAME),
+	MONSTER_MOVE_TIME("monstermovetime", Kind.NAME),
+	MOVE_CHANCE("movechance", Kind.NAME),
+	MOVE_TIME("movetime", Kind.NAME),
+	LANDMARKS("landmarks", Kind.NAME),
+	//Elements holding text
+	DESCRIPTION("description", Kind.TEXT),
+	WELCOME("welcome", Kind.TEXT);
+
+	/**
+	 * The kind of content that an element holds.
+	 */
+	public enum Kind {
+
+		/**
+		 * The element holds other elements, and its own content is ignored.
+		 */
+		CONTAINER,
+		/**
+		 * The element holds a short value that is repeated throughout a
+		 * level, such as the name of a room, so it is interned.
+		 */
+		NAME,
+		/**
+		 * The element holds text that is rarely repeated, so it is not
+		 * interned.
+		 */
+		TEXT
+	}
+
+	/**
+	 * The elements that can appear below the root element, by name. Root
+	 * elements share names with other elements, so they are looked up
+	 * separately.
+	 */
+	private static final Map<String, ElementToken> elements = new HashMap<>();
+
+	/**
+	 * The root elements, by name.
+	 */
+	private static final Map<String, ElementToken> roots = new HashMap<>();
+
+	static {
+		for (ElementToken token : values()) {
+			if (token.isRoot()) {
+				roots.put(token.name, token);
+			} else {
+				elements.put(token.name, token);
+			}
+		}
+	}
+
+	/**
+	 * The name of the element.
+	 */
+	private final String name;
+
+	/**
+	 * The kind of content that the element holds.
+	 */
+	private final Kind kind;
+
+	/**
+	 * Constructs a new element token.
+	 *
+	 * @param name the name of the element
+	 * @param kind the kind of content that the element holds
+	 */
+	private ElementToken(String name, Kind kind) {
+		this.name = name;
+		this.kind = kind;
+	}
+
+	/**
+	 * Get the name of the element, as it appears in level files.
+	 *
+	 * @return the name of the element
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the kind of content that the element holds.
+	 *
+	 * @return the kind of content
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Test whether the element is the root element of a level file.
+	 *
+	 * @return {@code true} if the element is a root element, {@code false}
+	 *         otherwise
+	 */
+	public boolean isRoot() {
+		return ordinal() <= CONFIGURATIONS.ordinal();
+	}
+
+	/**
+	 * Get the token of the root element with the specified name.
+	 *
+	 * @param name the name of the element
+	 * @return the token, or null if no root element has the name
+	 */
+	public static ElementToken getRoot(String name) {
+		return roots.get(name);
+	}
+
+	/**
+	 * Get the token of the element below the root element with the specified
+	 * name.
+	 *
+	 * @param name the name of the element
+	 * @return the token, or null if no element has the name
+	 */
+	public static ElementToken getElement(String name) {
+		return elements.get(name);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -16,31 +16,30 @@ package castleescape.data;
  * generics, and since IBuilder subclasses need to handle different types of
  * models, typecasting is inevitable. Using generics would solve this problem,
  * but that would be a future addition.
+ * <p>
+ * Elements are passed to builders as {@link ElementToken tokens}, which have
+ * been classified by the parser, so builders never compare element names.
  */
 public interface IBuilder {
 
-	/**
-	 * The name of a data element accepted by this builder.
-	 */
-	public static final String NAME = "name",
-			DESCRIPTION = "description";
-
 	/**
 	 * Notify this builder that an element is about to be read.
 	 *
-	 * @param element the name of the element that has been read
+	 * @param element the element that has been read
 	 */
-	public void notifyOfElement(String element);
+	public void notifyOfElement(ElementToken element);
 
 	/**
 	 * Notify this builder that an element is done being read from some data
 	 * source. The builder implementation is free to define what processing
-	 * should take place, and whether the content parameter is ignored.
+	 * should take place, and whether the content parameter is ignored. Names
+	 * in the content have been interned, so the same name is always the same
+	 * string within a level.
 	 *
-	 * @param element the name of the element that has been read
+	 * @param element the element that has been read
 	 * @param content the content of the element
 	 */
-	public void processElement(String element, String content);
+	public void processElement(ElementToken element, String content);
 
 	/**
 	 * Finish processing the raw data in this builder and construct a functional
@@ -18,13 +18,6 @@ import java.util.Map;
  */
 public class InspectableObjectBuilder implements IBuilder {
 
-	/**
-	 * The name of a data element accepted by this builder.
-	 */
-	public static final String EVENTS = "events",
-			EVENT = "event",
-			TYPE = "type";
-
 	/**
 	 * The name of the inspectable object.
 	 */
@@ -69,7 +62,7 @@ public class InspectableObjectBuilder implements IBuilder {
 	}
 
 	@Override
-	public void notifyOfElement(String element) {
+	public void notifyOfElement(ElementToken element) {
 		//Determine what action should happen when reading the specified element
 		switch (element) {
 			case EVENT:
@@ -84,7 +77,7 @@ public class InspectableObjectBuilder implements IBuilder {
 	}
 
 	@Override
-	public void processElement(String element, String content) {
+	public void processElement(ElementToken element, String content) {
 		//Determine what action should happen when reading the specified element
 		if (readingEvent) {
 
@@ -104,7 +97,7 @@ public class InspectableObjectBuilder implements IBuilder {
 					break;
 				default:
 					//All other data is regarded as event parameters
-					readEventParameter(element, content);
+					readEventParameter(element.getName(), content);
 					break;
 			}
 
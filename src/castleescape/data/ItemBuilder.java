@@ -18,11 +18,6 @@ import java.util.Map.Entry;
  */
 public class ItemBuilder extends InspectableObjectBuilder {
 
-	/**
-	 * The name of a data element accepted by this builder.
-	 */
-	public static final String TRIGGER = "trigger";
-
 	/**
 	 * If reading a use event, this will be the name of the inspectable object
 	 * that can trigger the use event currently being read. Otherwise this will
@@ -62,7 +57,7 @@ public class ItemBuilder extends InspectableObjectBuilder {
 	protected void readEventParameter(String name, String value) {
 		//In the case that the event parameter is the trigger element, we want
 		//to handle it in a special way. Otherwise just call the super method.
-		if (TRIGGER.equals(name)) {
+		if (ElementToken.TRIGGER.getName().equals(name)) {
 			//In the case of the trigger element we are reading a use event, and
 			//the name of its trigger is the parameter value
 			trigger = value;
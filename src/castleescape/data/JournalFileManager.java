@@ -0,0 +1,104 @@
+package castleescape.data;
+
+import castleescape.business.journal.CommandJournal;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class responsible for writing command journals to the file system and
+ * reading them back. Journals are stored in a directory per level, with one
+ * file per game session.
+ */
+public class JournalFileManager {
+
+	/**
+	 * The name of the root directory containing all journal directories.
+	 */
+	private static final String JOURNAL_DIRECTORY = "journals/";
+
+	/**
+	 * The suffix for all journal files.
+	 */
+	private static final String JOURNAL_SUFFIX = ".journal";
+
+	/**
+	 * Save the specified journal. The file is named after the start time of
+	 * the game and the seed of the game, so no two sessions share a file.
+	 *
+	 * @param journal the journal to save
+	 */
+	public void saveJournal(CommandJournal journal) {
+		//Make sure that the directory of the level exists
+		File levelDirectory = new File(JOURNAL_DIRECTORY + journal.getLevelName());
+		levelDirectory.mkdirs();
+
+		File journalFile = new File(levelDirectory, journal.getStartTime() + "-"
+				+ Long.toHexString(journal.getSeed()) + JOURNAL_SUFFIX);
+
+		//Use try-with-resources to make sure that the stream is closed
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(journalFile))) {
+			journal.writeTo(out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Read the journal in the specified file.
+	 *
+	 * @param journalFile the file to read
+	 * @return the journal that was read
+	 * @throws IOException if the file could not be read or is not a journal
+	 */
+	public CommandJournal readJournal(File journalFile) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(journalFile))) {
+			return CommandJournal.readFrom(in);
+		}
+	}
+
+	/**
+	 * Get all journal files in the specified file or directory. Directories
+	 * are searched recursively.
+	 *
+	 * @param root the file or directory to search, or null to search the
+	 *             default journal directory
+	 * @return the journal files that were found
+	 */
+	public List<File> getJournalFiles(File root) {
+		List<File> journalFiles = new ArrayList<>();
+		collectJournalFiles(root == null ? new File(JOURNAL_DIRECTORY) : root, journalFiles);
+		return journalFiles;
+	}
+
+	/**
+	 * Add the journal files in the specified file or directory to the
+	 * specified list.
+	 *
+	 * @param file         the file or directory to search
+	 * @param journalFiles the list to add the journal files to
+	 */
+	private void collectJournalFiles(File file, List<File> journalFiles) {
+		File[] children = file.listFiles();
+
+		//If the file is not a directory, it is a journal file itself
+		if (children == null) {
+			if (file.getName().endsWith(JOURNAL_SUFFIX)) {
+				journalFiles.add(file);
+			}
+
+			return;
+		}
+
+		for (File child : children) {
+			collectJournalFiles(child, journalFiles);
+		}
+	}
+}
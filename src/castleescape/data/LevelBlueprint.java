@@ -0,0 +1,120 @@
+package castleescape.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The raw data of a level, as it was read from the level files. The data is
+ * held in the builders that the files were parsed into, and a blueprint can
+ * build fresh objects of the level from it any number of times, without
+ * reading the files again. A {@link LevelVersion} keeps the blueprint of its
+ * level, so that it can still be played after the files of the level have
+ * changed.
+ * <p>
+ * The builders keep the objects they built last, so building is thread safe
+ * but done one level at a time.
+ */
+class LevelBlueprint {
+
+	/**
+	 * The builders of the inspectable objects, in the order they were read.
+	 */
+	private final List<InspectableObjectBuilder> inspectableObjectBuilders;
+
+	/**
+	 * The builders of the items, in the order they were read.
+	 */
+	private final List<ItemBuilder> itemBuilders;
+
+	/**
+	 * The builders of the rooms, in the order they were read.
+	 */
+	private final List<RoomBuilder> roomBuilders;
+
+	/**
+	 * The builder of the configuration, or null if it has not been read.
+	 */
+	private ConfigurationBuilder configurationBuilder;
+
+	/**
+	 * Constructs a new, empty blueprint.
+	 */
+	LevelBlueprint() {
+		inspectableObjectBuilders = new ArrayList<>();
+		itemBuilders = new ArrayList<>();
+		roomBuilders = new ArrayList<>();
+	}
+
+	/**
+	 * Add the builder of an inspectable object that has been read.
+	 *
+	 * @param builder the builder of the inspectable object
+	 */
+	void addInspectableObject(InspectableObjectBuilder builder) {
+		inspectableObjectBuilders.add(builder);
+	}
+
+	/**
+	 * Add the builder of an item that has been read.
+	 *
+	 * @param builder the builder of the item
+	 */
+	void addItem(ItemBuilder builder) {
+		itemBuilders.add(builder);
+	}
+
+	/**
+	 * Add the builder of a room that has been read.
+	 *
+	 * @param builder the builder of the room
+	 */
+	void addRoom(RoomBuilder builder) {
+		roomBuilders.add(builder);
+	}
+
+	/**
+	 * Set the builder of the configuration that has been read.
+	 *
+	 * @param builder the builder of the configuration
+	 */
+	void setConfiguration(ConfigurationBuilder builder) {
+		configurationBuilder = builder;
+	}
+
+	/**
+	 * Build fresh objects of the level. Room exits are built once all rooms
+	 * have been built, as they refer to other rooms.
+	 *
+	 * @return the data of the level
+	 */
+	synchronized LevelDataStorage build() {
+		LevelDataStorage levelData = new LevelDataStorage();
+
+		for (InspectableObjectBuilder builder : inspectableObjectBuilders) {
+			builder.build(levelData);
+			levelData.addInspectableObject(builder.getResult());
+		}
+
+		for (ItemBuilder builder : itemBuilders) {
+			builder.build(levelData);
+			levelData.addItem(builder.getResult());
+		}
+
+		for (RoomBuilder builder : roomBuilders) {
+			builder.build(levelData);
+			levelData.addRoom(builder.getResult());
+		}
+
+		for (RoomBuilder builder : roomBuilders) {
+			builder.postBuild(levelData);
+		}
+
+		if (configurationBuilder != null) {
+			configurationBuilder.build(levelData);
+			levelData.setConfig(configurationBuilder.getResult());
+		}
+
+		levelData.setBlueprint(this);
+		return levelData;
+	}
+}
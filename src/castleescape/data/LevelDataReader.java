@@ -9,57 +9,111 @@ import castleescape.business.framework.Configuration;
 import castleescape.business.framework.Room;
 import castleescape.business.object.InspectableObject;
 import castleescape.business.object.Item;
+import castleescape.shared.jfr.LevelLoadEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * Class responsible for reading a directory that contains level-specific data.
  * This logic has been moved to a separate class to reduce the complexity of the
  * mediator, whose only job should be to handle communication between the data
  * and the business layer, and to perform any necessary mapping.
+ * <p>
+ * The level directories are either in a root directory or in a single zip
+ * file, called a {@link LevelPack level pack}.
  */
 public class LevelDataReader {
 
 	/**
-	 * The name of the root directory containing all level directories.
+	 * The name of the default root directory containing all level
+	 * directories.
 	 */
-	private static final String ROOT_DIRECTORY = "xml/";
+	static final String ROOT_DIRECTORY = "xml/";
+
+	/**
+	 * The root directory containing all level directories, which may be in a
+	 * level pack.
+	 */
+	private final Path rootDirectory;
 
 	/**
 	 * A subdirectory in a level directory.
 	 */
-	private static final String INSPECTABLE_OBJECT_DIRECTORY = "/InspectableObjects",
-			ITEM_DIRECTORY = "/Items",
-			ROOM_DIRECTORY = "/Rooms";
+	private static final String INSPECTABLE_OBJECT_DIRECTORY = "InspectableObjects",
+			ITEM_DIRECTORY = "Items",
+			ROOM_DIRECTORY = "Rooms";
 
 	/**
 	 * The name of the config file.
 	 */
-	private static final String CONFIG_FILE = "/config.xml";
+	private static final String CONFIG_FILE = "config.xml";
+
+	/**
+	 * The builders retrieved from the parser for the level being read. The
+	 * level is built from them once all files have been read, as room exits
+	 * cannot be built until after all rooms have been read.
+	 */
+	private LevelBlueprint blueprint;
+
+	/**
+	 * The parser reading the level files.
+	 */
+	private final LevelFileParser parser;
+
+	/**
+	 * The names that have been read from the level being read. A new table is
+	 * used for every level, so that the names of a level are shared by its
+	 * objects only.
+	 */
+	private NameTable names;
 
 	/**
-	 * List of all room builders retrieved from the XMLHandler. We store the
-	 * room builders because they cannot be built until after all rooms have
-	 * been read.
+	 * Object used to store all level data that has been read. A new storage
+	 * is used for every level that is read, so that the data of the last
+	 * level can be handed over to a game.
 	 */
-	private final List<RoomBuilder> roomBuilders;
+	private LevelDataStorage levelDataStorage;
 
 	/**
-	 * Object used to store all level data that has been read.
+	 * Whether levels should be validated before they are read.
 	 */
-	private final LevelDataStorage levelDataStorage;
+	private boolean validating;
 
 	/**
-	 * Constructs a new level data reader.
+	 * Constructs a new level data reader, reading levels from the default
+	 * root directory, or from the default level pack if the directory does not
+	 * exist.
 	 */
 	public LevelDataReader() {
-		roomBuilders = new ArrayList<>();
+		this(LevelPack.openDefault());
+	}
+
+	/**
+	 * Constructs a new level data reader, reading levels from the specified
+	 * root directory or level pack.
+	 *
+	 * @param rootDirectory the directory or zip file containing all level
+	 *                      directories
+	 * @throws IllegalArgumentException if the level pack cannot be opened
+	 */
+	public LevelDataReader(File rootDirectory) {
+		this(LevelPack.open(rootDirectory));
+	}
+
+	/**
+	 * Constructs a new level data reader, reading levels from the specified
+	 * root directory, which may be in a level pack.
+	 *
+	 * @param rootDirectory the directory containing all level directories
+	 */
+	LevelDataReader(Path rootDirectory) {
+		this.rootDirectory = rootDirectory;
+		parser = new LevelFileParser();
 		levelDataStorage = new LevelDataStorage();
 	}
 
@@ -71,18 +125,31 @@ public class LevelDataReader {
 	public String[] getLevels() {
 		//Get all directories containing level specific data. These are all
 		//located in the root directory
-		File[] levelDirs = new File(ROOT_DIRECTORY).listFiles();
-
-		//Create array of strings to hold the names of all the level directories
-		String[] levelNames = new String[levelDirs.length];
+		List<Path> levelDirs = LevelPack.list(rootDirectory);
+		if (levelDirs == null) {
+			return new String[0];
+		}
 
-		//For every level diretory, save its name in the array of level names
-		for (int i = 0; i < levelDirs.length; i++) {
-			levelNames[i] = levelDirs[i].getName();
+		//For every level diretory, save its name in the list of level names
+		List<String> levelNames = new ArrayList<>();
+		for (Path levelDir : levelDirs) {
+			if (Files.isDirectory(levelDir)) {
+				levelNames.add(getName(levelDir));
+			}
 		}
 
 		//Return the result
-		return levelNames;
+		return levelNames.toArray(new String[levelNames.size()]);
+	}
+
+	/**
+	 * Set whether levels should be validated with a {@link LevelValidator}
+	 * before they are read. Validation is disabled by default.
+	 *
+	 * @param validating whether levels should be validated
+	 */
+	public void setValidating(boolean validating) {
+		this.validating = validating;
 	}
 
 	/**
@@ -92,162 +159,193 @@ public class LevelDataReader {
 	 * {@link #getRooms()}.
 	 *
 	 * @param name the name of the level to read
+	 * @throws IllegalArgumentException if validation is enabled and the level
+	 *                                  has errors
 	 */
 	public void readLevel(String name) {
 		//Reset data for new run
-		roomBuilders.clear();
-		levelDataStorage.reset();
+		blueprint = new LevelBlueprint();
+		names = new NameTable();
+		levelDataStorage = new LevelDataStorage();
 
-		try {
-			//Attempt on acquiring a SAXParser to read the level xml files
-			SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
+		//Refuse to read a broken level, rather than failing while reading it
+		if (validating) {
+			LevelValidationReport report = new LevelValidator(rootDirectory).validate(name);
+			if (report.hasErrors()) {
+				throw new IllegalArgumentException(report.toString());
+			}
+		}
 
-			//Construct the handler for our SAXParser
-			XMLHandler handler = new XMLHandler();
+		LevelLoadEvent event = new LevelLoadEvent();
+		event.begin();
 
+		try {
 			//Read level files
-			String levelDirectoryPath = ROOT_DIRECTORY + name;
-			readInspectableObjects(saxParser, handler, levelDirectoryPath + INSPECTABLE_OBJECT_DIRECTORY);
-			readItems(saxParser, handler, levelDirectoryPath + ITEM_DIRECTORY);
-			readRooms(saxParser, handler, levelDirectoryPath + ROOM_DIRECTORY);
-
-			//Finish building the rooms
-			buildRoomExits();
+			Path levelDirectory = rootDirectory.resolve(name);
+			readInspectableObjects(levelDirectory.resolve(INSPECTABLE_OBJECT_DIRECTORY));
+			readItems(levelDirectory.resolve(ITEM_DIRECTORY));
+			readRooms(levelDirectory.resolve(ROOM_DIRECTORY));
 
 			//Read config
-			readConfig(saxParser, handler, levelDirectoryPath + CONFIG_FILE);
-		} catch (ParserConfigurationException | SAXException | IOException ex) {
+			readConfig(levelDirectory.resolve(CONFIG_FILE));
+		} catch (XMLStreamException | IOException ex) {
 			//Something went wrong and we cannot recover, so print the stack
 			//trace
 			ex.printStackTrace();
 		}
+
+		//Build the level from the data that was read
+		levelDataStorage = blueprint.build();
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.level = name;
+			event.roomCount = levelDataStorage.getRooms().size();
+			event.commit();
+		}
 	}
 
 	/**
 	 * Read all inspectable object files at the specified path.
 	 *
-	 * @param parser  the SAXParser to use for reading the xml files
-	 * @param handler the handler to process the parsed data
-	 * @param path    the path of the directory to read from
+	 * @param path the path of the directory to read from
 	 * @throws IOException
-	 * @throws SAXException
+	 * @throws XMLStreamException
 	 */
-	private void readInspectableObjects(SAXParser parser, XMLHandler handler, String path) throws IOException, SAXException {
+	private void readInspectableObjects(Path path) throws IOException, XMLStreamException {
 		//Read all InspectableObject files
-		//Construct a file from the location of the inspectable object
-		//directory and use it to get all its subfiles
-		File[] inspectableObjectFiles = new File(path).listFiles();
-		for (File file : inspectableObjectFiles) {
-			//Parse the file
-			parser.parse(file, handler);
-
-			//Get the resulting builder. We know that it should be an
-			//InspectableObjectBuilder
-			InspectableObjectBuilder builder = (InspectableObjectBuilder) handler.getBuilderResult();
-
-			//Build the data and get the resulting inspectable object
-			builder.build(levelDataStorage);
-			levelDataStorage.addInspectableObject(builder.getResult());
+		//Get all files in the inspectable object directory
+		List<Path> inspectableObjectFiles = listFiles(path);
+		for (Path file : inspectableObjectFiles) {
+			//Parse the file and get the resulting builder. We know that it
+			//should be an InspectableObjectBuilder
+			InspectableObjectBuilder builder = (InspectableObjectBuilder) parser.parse(file, names);
+			blueprint.addInspectableObject(builder);
 		}
 	}
 
 	/**
 	 * Read all item files at the specified path.
 	 *
-	 * @param parser  the SAXParser to use for reading the xml files
-	 * @param handler the handler to process the parsed data
-	 * @param path    the path of the directory to read from
+	 * @param path the path of the directory to read from
 	 * @throws IOException
-	 * @throws SAXException
+	 * @throws XMLStreamException
 	 */
-	private void readItems(SAXParser parser, XMLHandler handler, String path) throws IOException, SAXException {
+	private void readItems(Path path) throws IOException, XMLStreamException {
 		//Read all Item files
-		//Construct a file from the location of the item directory and use it to
-		//get all its subfiles
-		File[] itemFiles = new File(path).listFiles();
-		for (File file : itemFiles) {
-			//Parse the file
-			parser.parse(file, handler);
-
-			//Get the resulting builder. We know that it should be an
-			//ItemBuilder
-			ItemBuilder builder = (ItemBuilder) handler.getBuilderResult();
-
-			//Build the data and get the resulting item object
-			builder.build(levelDataStorage);
-			levelDataStorage.addItem(builder.getResult());
+		//Get all files in the item directory
+		List<Path> itemFiles = listFiles(path);
+		for (Path file : itemFiles) {
+			//Parse the file and get the resulting builder. We know that it
+			//should be an ItemBuilder
+			ItemBuilder builder = (ItemBuilder) parser.parse(file, names);
+			blueprint.addItem(builder);
 		}
 	}
 
 	/**
 	 * Read all room files at the specified path.
 	 *
-	 * @param parser  the SAXParser to use for reading the xml files
-	 * @param handler the handler to process the parsed data
-	 * @param path    the path of the directory to read from
+	 * @param path the path of the directory to read from
 	 * @throws IOException
-	 * @throws SAXException
+	 * @throws XMLStreamException
 	 */
-	private void readRooms(SAXParser parser, XMLHandler handler, String path) throws IOException, SAXException {
+	private void readRooms(Path path) throws IOException, XMLStreamException {
 		//Read all room files
-		//Construct a file from the location of the room directory and use it to
-		//get all its subfiles
-		File[] roomFiles = new File(path).listFiles();
-		for (File file : roomFiles) {
-			//Parse the file
-			parser.parse(file, handler);
-
-			//Get the resulting builder. We know that it should be a RoomBuilder
-			RoomBuilder builder = (RoomBuilder) handler.getBuilderResult();
-
-			//Build the data and get the resulting room object
-			builder.build(levelDataStorage);
-			levelDataStorage.addRoom(builder.getResult());
-
-			//Store the room builder, as we need to build the room's exits later
-			roomBuilders.add(builder);
+		//Get all files in the room directory
+		List<Path> roomFiles = listFiles(path);
+		for (Path file : roomFiles) {
+			//Parse the file and get the resulting builder. We know that it
+			//should be a RoomBuilder
+			RoomBuilder builder = (RoomBuilder) parser.parse(file, names);
+			blueprint.addRoom(builder);
 		}
 	}
 
 	/**
-	 * Build all the room exits. Room exits need to be built after all other
-	 * data has been read since they store references to other rooms.
+	 * Get all files in the specified level subdirectory.
+	 *
+	 * @param path the path of the directory
+	 * @return the files in the directory
+	 * @throws IOException if the directory does not exist
 	 */
-	private void buildRoomExits() {
-		//Loop through all room builders
-		for (RoomBuilder builder : roomBuilders) {
-			//Build the room's exits
-			builder.postBuild(levelDataStorage);
+	private List<Path> listFiles(Path path) throws IOException {
+		List<Path> files = LevelPack.list(path);
+		if (files == null) {
+			throw new IOException("Missing directory " + path);
 		}
+
+		return files;
+	}
+
+	/**
+	 * Get the name of the specified level directory.
+	 *
+	 * @param levelDirectory the level directory
+	 * @return the name of the level
+	 */
+	private static String getName(Path levelDirectory) {
+		//Directories in a zip file system end with a slash
+		String name = levelDirectory.getFileName().toString();
+		return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
 	}
 
 	/**
 	 * Read the configuration file at the specified path.
 	 *
-	 * @param parser  the SAXParser to use for reading the xml files
-	 * @param handler the handler to process the parsed data
-	 * @param path    the path of the directory to read from
+	 * @param path the path of the directory to read from
 	 * @throws IOException
-	 * @throws SAXException
+	 * @throws XMLStreamException
 	 */
-	private void readConfig(SAXParser parser, XMLHandler handler, String path) throws IOException, SAXException {
-		//Create file from path and ensure that it exists
-		File configFile = new File(path);
-		if (!configFile.exists()) {
+	private void readConfig(Path path) throws IOException, XMLStreamException {
+		//Ensure that the config file exists
+		if (!Files.exists(path)) {
 			//If not, throw an exception
 			throw new IllegalArgumentException("Config file missing!");
 		}
 
-		//Parse the file
-		parser.parse(configFile, handler);
+		//Parse the file and get the resulting builder. We know that it should
+		//be a ConfigurationBuilder
+		ConfigurationBuilder builder = (ConfigurationBuilder) parser.parse(path, names);
+		blueprint.setConfiguration(builder);
+	}
 
-		//Get the resulting builder. We know that it should be a
-		//ConfigurationBuilder
-		ConfigurationBuilder builder = (ConfigurationBuilder) handler.getBuilderResult();
+	/**
+	 * Get the root directory containing all level directories.
+	 *
+	 * @return the root directory, which may be in a level pack
+	 */
+	Path getRootDirectory() {
+		return rootDirectory;
+	}
+
+	/**
+	 * Test whether levels are validated before they are read.
+	 *
+	 * @return {@code true} if levels are validated, {@code false} otherwise
+	 */
+	boolean isValidating() {
+		return validating;
+	}
 
-		//Build the data and get the resulting configuration object
-		builder.build(levelDataStorage);
-		levelDataStorage.setConfig(builder.getResult());
+	/**
+	 * Get all level data that was read during the last call to
+	 * {@link #readLevel(String)}.
+	 *
+	 * @return the level data that was read
+	 */
+	LevelDataStorage getLevelData() {
+		return levelDataStorage;
+	}
+
+	/**
+	 * Use the specified level data as if it had been read by the last call to
+	 * {@link #readLevel(String)}, such as data that was read in advance.
+	 *
+	 * @param levelDataStorage the level data to use
+	 */
+	void setLevelData(LevelDataStorage levelDataStorage) {
+		this.levelDataStorage = levelDataStorage;
 	}
 
 	/**
@@ -24,6 +24,18 @@ public class LevelDataStorage {
 	private final List<Room> rooms;
 	private Configuration config;
 
+	/**
+	 * The version of the level that the data belongs to, or null if the level
+	 * was not preloaded.
+	 */
+	private LevelVersion version;
+
+	/**
+	 * The raw data that this data was built from, or null if it was not built
+	 * from a blueprint.
+	 */
+	private LevelBlueprint blueprint;
+
 	/**
 	 * Constructs a new data storage for levels in the game.
 	 */
@@ -160,6 +172,44 @@ public class LevelDataStorage {
 		return config;
 	}
 
+	/**
+	 * Set the version of the level that the data belongs to.
+	 *
+	 * @param version the version of the level
+	 */
+	public void setVersion(LevelVersion version) {
+		this.version = version;
+	}
+
+	/**
+	 * Get the version of the level that the data belongs to.
+	 *
+	 * @return the version of the level, or null if the data has not been
+	 *         read for a game yet
+	 */
+	public LevelVersion getVersion() {
+		return version;
+	}
+
+	/**
+	 * Set the raw data that this data was built from.
+	 *
+	 * @param blueprint the raw data of the level
+	 */
+	void setBlueprint(LevelBlueprint blueprint) {
+		this.blueprint = blueprint;
+	}
+
+	/**
+	 * Get the raw data that this data was built from.
+	 *
+	 * @return the raw data of the level, or null if this data was not built
+	 *         from a blueprint
+	 */
+	LevelBlueprint getBlueprint() {
+		return blueprint;
+	}
+
 	/**
 	 * Reset this data storage so that it can be used anew.
 	 */
@@ -169,5 +219,7 @@ public class LevelDataStorage {
 		items.clear();
 		rooms.clear();
 		config = null;
+		version = null;
+		blueprint = null;
 	}
 }
@@ -0,0 +1,203 @@
+package castleescape.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Class used to read level files and store their raw data in {@link IBuilder}
+ * objects. The files are read with a pull parser, one element at a time.
+ * <p>
+ * Every element is classified as an {@link ElementToken} when it is read, and
+ * the content of the element is collected in a reusable buffer. Depending on
+ * the kind of element, the content is then ignored, interned in the
+ * {@link NameTable} of the level, or turned into a string. Elements that are
+ * not part of the level format are skipped, which the schema never allows.
+ */
+class LevelFileParser {
+
+	/**
+	 * The property making the parser of the JDK reuse the same stream reader
+	 * for every file.
+	 */
+	private static final String REUSE_INSTANCE = "reuse-instance";
+
+	/**
+	 * The factory creating a pull parser for every file.
+	 */
+	private final XMLInputFactory factory;
+
+	/**
+	 * The buffer collecting the content of the current element, as it is not
+	 * always read all at once.
+	 */
+	private char[] content;
+
+	/**
+	 * The number of characters in the content buffer.
+	 */
+	private int contentLength;
+
+	/**
+	 * Constructs a new parser for level files.
+	 */
+	LevelFileParser() {
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+
+		//Let the parser of the JDK reuse its buffers for every file, rather
+		//than allocate them again. The property is known by no other parser
+		if (factory.isPropertySupported(REUSE_INSTANCE)) {
+			factory.setProperty(REUSE_INSTANCE, true);
+		}
+
+		content = new char[256];
+	}
+
+	/**
+	 * Read the specified level file.
+	 *
+	 * @param file  the file to read
+	 * @param names the names that have been read from the level so far
+	 * @return the builder containing the data of the file
+	 * @throws IOException        if the file cannot be read
+	 * @throws XMLStreamException if the file is not a level file
+	 */
+	IBuilder parse(Path file, NameTable names) throws IOException, XMLStreamException {
+		try (InputStream in = Files.newInputStream(file)) {
+			XMLStreamReader reader = factory.createXMLStreamReader(file.toUri().toString(), in);
+			try {
+				return parse(reader, names);
+			} catch (XMLStreamException ex) {
+				//Tell which file the problem was found in
+				throw new XMLStreamException(file + ": " + ex.getMessage(), ex);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Read the level file of the specified pull parser.
+	 *
+	 * @param reader the pull parser of the file
+	 * @param names  the names that have been read from the level so far
+	 * @return the builder containing the data of the file
+	 * @throws XMLStreamException if the file is not a level file
+	 */
+	private IBuilder parse(XMLStreamReader reader, NameTable names) throws XMLStreamException {
+		IBuilder builder = null;
+		int depth = 0;
+		contentLength = 0;
+
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					depth++;
+					if (depth == 1) {
+						//The root element chooses the type of builder to
+						//process the data
+						builder = newBuilder(reader);
+					} else {
+						ElementToken element = ElementToken.getElement(reader.getLocalName());
+						if (element != null) {
+							builder.notifyOfElement(element);
+						}
+					}
+
+					//Prevent characters from other elements to carry over
+					contentLength = 0;
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if (depth > 1) {
+						//Notify the builder that some data has been read. The
+						//builder is responsible for validating the data
+						ElementToken element = ElementToken.getElement(reader.getLocalName());
+						if (element != null) {
+							builder.processElement(element, getContent(element, names));
+						}
+					}
+
+					depth--;
+					contentLength = 0;
+					break;
+			}
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Create a builder for the root element that the specified pull parser is
+	 * at.
+	 *
+	 * @param reader the pull parser
+	 * @return the builder
+	 * @throws XMLStreamException if the root element was not recognized
+	 */
+	private static IBuilder newBuilder(XMLStreamReader reader) throws XMLStreamException {
+		ElementToken root = ElementToken.getRoot(reader.getLocalName());
+		if (root == null) {
+			throw new XMLStreamException("Unexpected root element <" + reader.getLocalName() + ">", reader.getLocation());
+		}
+
+		switch (root) {
+			case ROOM_FILE:
+				return new RoomBuilder();
+			case INSPECTABLE_OBJECT_FILE:
+				return new InspectableObjectBuilder();
+			case ITEM_FILE:
+				return new ItemBuilder();
+			default:
+				return new ConfigurationBuilder();
+		}
+	}
+
+	/**
+	 * Add the specified characters to the content of the current element.
+	 *
+	 * @param ch     the array containing the characters
+	 * @param start  the index of the first character
+	 * @param length the number of characters
+	 */
+	private void append(char[] ch, int start, int length) {
+		if (contentLength + length > content.length) {
+			char[] grown = new char[Math.max(content.length * 2, contentLength + length)];
+			System.arraycopy(content, 0, grown, 0, contentLength);
+			content = grown;
+		}
+
+		System.arraycopy(ch, start, content, contentLength, length);
+		contentLength += length;
+	}
+
+	/**
+	 * Get the content of the element that has just been read.
+	 *
+	 * @param element the element
+	 * @param names   the names that have been read from the level so far
+	 * @return the content of the element
+	 */
+	private String getContent(ElementToken element, NameTable names) {
+		switch (element.getKind()) {
+			case CONTAINER:
+				return "";
+			case NAME:
+				return names.intern(content, 0, contentLength);
+			default:
+				return new String(content, 0, contentLength);
+		}
+	}
+}
@@ -0,0 +1,691 @@
+package castleescape.data;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for generating castles of arbitrary size for scale and stress
+ * testing. The generated levels use the same directory layout and xml format
+ * as the levels shipped with the game, so they can be played and read like
+ * any other level.
+ * <p>
+ * The rooms are laid out in a square grid, and the shape determines which
+ * neighboring rooms are connected. Every decision is derived from a hash of
+ * the seed and the room in question, so the same seed always generates the
+ * same castle, and every room file can be written without knowing the rest of
+ * the castle. Only the placement of the event chains is held in memory, so
+ * castles with millions of rooms can be generated in constant memory.
+ * <p>
+ * An event chain is a sequence of keys and doors. Using the first key, which
+ * lies somewhere in the castle, on its door reveals the next key, and so on.
+ * Opening the last door reveals a hidden passage to the safe room, where the
+ * castle gate lets the player escape.
+ */
+public class LevelGenerator {
+
+	/**
+	 * The shape of the graph of rooms.
+	 */
+	public enum Shape {
+		/**
+		 * Every room is connected to all its neighbors in the grid.
+		 */
+		GRID,
+		/**
+		 * The rooms form a perfect maze, so there is exactly one path between
+		 * any two rooms.
+		 */
+		MAZE,
+		/**
+		 * A maze with a few extra connections, so there are some loops.
+		 */
+		SPARSE
+	}
+
+	/**
+	 * The smallest and largest amount of rooms that can be generated.
+	 */
+	public static final int MIN_ROOMS = 10,
+			MAX_ROOMS = 1000000;
+
+	/**
+	 * The probability that a connection that is not part of the maze is added
+	 * to a sparse castle.
+	 */
+	private static final double SPARSE_LOOP_CHANCE = 0.1;
+
+	/**
+	 * The name of the inspectable object that ends the game.
+	 */
+	private static final String GATE = "Castle Gate";
+
+	/**
+	 * Salts for hashing different decisions about the same room.
+	 */
+	private static final long SALT_MAZE = 1,
+			SALT_LOOP_NORTH = 2,
+			SALT_LOOP_WEST = 3,
+			SALT_ITEM = 4,
+			SALT_STATUE = 5,
+			SALT_CHAIN = 6;
+
+	/**
+	 * The seed of the castle.
+	 */
+	private final long seed;
+
+	/**
+	 * The amount of rooms in the castle.
+	 */
+	private final int roomCount;
+
+	/**
+	 * The shape of the castle.
+	 */
+	private final Shape shape;
+
+	/**
+	 * The amount of rooms in every row of the grid.
+	 */
+	private final int side;
+
+	/**
+	 * The probability that a room contains an item.
+	 */
+	private double itemDensity = 0.3;
+
+	/**
+	 * The amount of event chains in the castle.
+	 */
+	private int chainCount = 1;
+
+	/**
+	 * The amount of doors in every event chain.
+	 */
+	private int chainLength = 3;
+
+	/**
+	 * The amount of monsters in the castle.
+	 */
+	private int monsterCount = 1;
+
+	/**
+	 * The amount of landmarks guiding the monsters when they chase the player.
+	 */
+	private int landmarkCount;
+
+	/**
+	 * Constructs a new level generator.
+	 *
+	 * @param seed      the seed of the castle
+	 * @param roomCount the amount of rooms in the castle
+	 * @param shape     the shape of the castle
+	 * @throws IllegalArgumentException if the amount of rooms is out of range
+	 */
+	public LevelGenerator(long seed, int roomCount, Shape shape) {
+		if (roomCount < MIN_ROOMS || roomCount > MAX_ROOMS) {
+			throw new IllegalArgumentException("Room count must be between " + MIN_ROOMS + " and " + MAX_ROOMS);
+		}
+
+		this.seed = seed;
+		this.roomCount = roomCount;
+		this.shape = shape;
+
+		side = (int) Math.ceil(Math.sqrt(roomCount));
+	}
+
+	/**
+	 * Set the probability that a room contains an item. Half as many rooms
+	 * will contain an inspectable statue.
+	 *
+	 * @param itemDensity the probability, between 0 and 1
+	 */
+	public void setItemDensity(double itemDensity) {
+		this.itemDensity = itemDensity;
+	}
+
+	/**
+	 * Set the amount and length of the event chains in the castle.
+	 *
+	 * @param chainCount  the amount of event chains
+	 * @param chainLength the amount of doors in every event chain
+	 */
+	public void setEventChains(int chainCount, int chainLength) {
+		this.chainCount = chainCount;
+		this.chainLength = chainLength;
+	}
+
+	/**
+	 * Set the amount of monsters in the castle. The monsters are spread
+	 * evenly over the castle, starting in the middle.
+	 *
+	 * @param monsterCount the amount of monsters, at least 1
+	 */
+	public void setMonsterCount(int monsterCount) {
+		this.monsterCount = Math.max(1, monsterCount);
+	}
+
+	/**
+	 * Set the amount of landmarks guiding the monsters when they chase the
+	 * player, which pays off in very large castles.
+	 *
+	 * @param landmarkCount the amount of landmarks, or 0 for none
+	 */
+	public void setLandmarkCount(int landmarkCount) {
+		this.landmarkCount = landmarkCount;
+	}
+
+	/**
+	 * Generate the castle in the specified level directory. The directory is
+	 * created if it does not exist, and existing files are overwritten.
+	 *
+	 * @param levelDirectory the level directory to generate the castle in
+	 * @throws IOException if the castle could not be written
+	 */
+	public void generate(File levelDirectory) throws IOException {
+		File roomDirectory = new File(levelDirectory, "Rooms");
+		File itemDirectory = new File(levelDirectory, "Items");
+		File objectDirectory = new File(levelDirectory, "InspectableObjects");
+		roomDirectory.mkdirs();
+		itemDirectory.mkdirs();
+		objectDirectory.mkdirs();
+
+		//Place the keys and doors of the event chains, and write their files
+		Map<Integer, List<String>> chainPlacements = new HashMap<>();
+		for (int chain = 0; chain < chainCount; chain++) {
+			writeChain(chain, itemDirectory, objectDirectory, chainPlacements);
+		}
+
+		//Write the rooms along with their items and statues
+		for (int room = 0; room < roomCount; room++) {
+			List<String> items = new ArrayList<>();
+			List<String> objects = new ArrayList<>();
+
+			if (chance(SALT_ITEM, room, itemDensity)) {
+				items.add(itemName(room));
+				writeItem(itemDirectory, room);
+			}
+
+			if (chance(SALT_STATUE, room, itemDensity / 2)) {
+				objects.add(statueName(room));
+				writeStatue(objectDirectory, room);
+			}
+
+			//Keys are items, while doors are inspectable objects
+			List<String> chainObjects = chainPlacements.get(room);
+			if (chainObjects != null) {
+				for (String name : chainObjects) {
+					if (name.startsWith("Key")) {
+						items.add(name);
+					} else {
+						objects.add(name);
+					}
+				}
+			}
+
+			if (room == safeRoom()) {
+				objects.add(GATE);
+			}
+
+			writeRoom(roomDirectory, room, items, objects);
+		}
+
+		writeGate(objectDirectory);
+		writeConfig(levelDirectory);
+	}
+
+	/**
+	 * Write the room with the specified index.
+	 *
+	 * @param directory the directory to write the room to
+	 * @param room      the index of the room
+	 * @param items     the items in the room
+	 * @param objects   the inspectable objects in the room
+	 * @throws IOException if the room could not be written
+	 */
+	private void writeRoom(File directory, int room, List<String> items, List<String> objects) throws IOException {
+		try (Writer out = open(new File(directory, roomName(room) + ".xml"))) {
+			out.write("<room>\n");
+			element(out, 1, "name", roomName(room));
+			element(out, 1, "description", "You are in room " + room + " of the castle, on floor "
+					+ room / side + ". The walls are bare.");
+
+			out.write("    <inventory>\n");
+			for (String item : items) {
+				element(out, 2, "item", item);
+			}
+			for (String object : objects) {
+				element(out, 2, "object", object);
+			}
+			out.write("    </inventory>\n");
+
+			out.write("    <exits>\n");
+			int north = room - side, south = room + side, east = room + 1, west = room - 1;
+			if (isConnected(room, north)) {
+				element(out, 2, "north", roomName(north));
+			}
+			if (isConnected(room, south)) {
+				element(out, 2, "south", roomName(south));
+			}
+			if (isConnected(room, east)) {
+				element(out, 2, "east", roomName(east));
+			}
+			if (isConnected(room, west)) {
+				element(out, 2, "west", roomName(west));
+			}
+			out.write("    </exits>\n");
+			out.write("</room>\n");
+		}
+	}
+
+	/**
+	 * Test whether there is a passage between the specified neighboring
+	 * rooms. The answer is the same no matter the order of the rooms, so
+	 * every passage can be walked both ways.
+	 *
+	 * @param room     the index of a room
+	 * @param neighbor the index of a neighboring room, which may be outside
+	 *                 the castle
+	 * @return {@code true} if the rooms are connected, {@code false} otherwise
+	 */
+	private boolean isConnected(int room, int neighbor) {
+		if (neighbor < 0 || neighbor >= roomCount) {
+			return false;
+		}
+
+		//Rooms in different rows are only neighbors if they are vertically
+		//aligned
+		int low = Math.min(room, neighbor), high = Math.max(room, neighbor);
+		boolean vertical = high - low == side;
+		if (!vertical && (high - low != 1 || high % side == 0)) {
+			return false;
+		}
+
+		if (shape == Shape.GRID) {
+			return true;
+		}
+
+		//In the maze, every room except the first is connected to either its
+		//northern or its western neighbor. This forms a spanning tree
+		if (mazeLinksNorth(high) == vertical) {
+			return true;
+		}
+
+		return shape == Shape.SPARSE && chance(vertical ? SALT_LOOP_NORTH : SALT_LOOP_WEST, high, SPARSE_LOOP_CHANCE);
+	}
+
+	/**
+	 * Test whether the maze connects the specified room to its northern
+	 * neighbor, rather than its western neighbor.
+	 *
+	 * @param room the index of the room, which must not be the first room
+	 * @return {@code true} if the room is connected to the north, {@code false}
+	 *         if it is connected to the west
+	 */
+	private boolean mazeLinksNorth(int room) {
+		if (room < side) {
+			//Rooms in the first row can only go west
+			return false;
+		} else if (room % side == 0) {
+			//Rooms in the first column can only go north
+			return true;
+		}
+
+		return chance(SALT_MAZE, room, 0.5);
+	}
+
+	/**
+	 * Write the keys and doors of the event chain with the specified index,
+	 * and record which rooms they are placed in.
+	 *
+	 * @param chain           the index of the chain
+	 * @param itemDirectory   the directory to write the keys to
+	 * @param objectDirectory the directory to write the doors to
+	 * @param placements      the map to record the placements in, mapping
+	 *                        room indices to names
+	 * @throws IOException if the chain could not be written
+	 */
+	private void writeChain(int chain, File itemDirectory, File objectDirectory,
+			Map<Integer, List<String>> placements) throws IOException {
+		//Only the first key is placed in a room. The rest are revealed by
+		//opening doors
+		int keyRoom = randomRoom(chain, 0);
+		placements.computeIfAbsent(keyRoom, r -> new ArrayList<>()).add(keyName(chain, 0));
+
+		for (int step = 0; step < chainLength; step++) {
+			int doorRoom = randomRoom(chain, step + 1);
+			placements.computeIfAbsent(doorRoom, r -> new ArrayList<>()).add(doorName(chain, step));
+
+			//The door itself
+			try (Writer out = open(new File(objectDirectory, doorName(chain, step) + ".xml"))) {
+				out.write("<inspectableobject>\n");
+				element(out, 1, "name", doorName(chain, step));
+				element(out, 1, "description", "A heavy locked door. There must be a key for it somewhere.");
+				out.write("    <events/>\n");
+				out.write("</inspectableobject>\n");
+			}
+
+			//The key opening the door, revealing the next key or the passage
+			try (Writer out = open(new File(itemDirectory, keyName(chain, step) + ".xml"))) {
+				out.write("<item>\n");
+				element(out, 1, "name", keyName(chain, step));
+				element(out, 1, "description", "A key that opens " + doorName(chain, step)
+						+ " in " + roomName(doorRoom) + ".");
+				out.write("    <events>\n");
+				event(out, doorName(chain, step), "removeRoomItem", "item", doorName(chain, step),
+						"description", "The key turns, and the door swings open.");
+				event(out, doorName(chain, step), "removePlayerItem", "item", keyName(chain, step));
+
+				if (step + 1 < chainLength) {
+					event(out, doorName(chain, step), "addRoomItem", "item", keyName(chain, step + 1));
+				} else {
+					event(out, doorName(chain, step), "addExit", "destination", roomName(safeRoom()),
+							"direction", "passage", "description", "Behind the door is a passage leading out of the castle.");
+				}
+				out.write("    </events>\n");
+				out.write("</item>\n");
+			}
+		}
+	}
+
+	/**
+	 * Write the item in the room with the specified index.
+	 *
+	 * @param directory the directory to write the item to
+	 * @param room      the index of the room
+	 * @throws IOException if the item could not be written
+	 */
+	private void writeItem(File directory, int room) throws IOException {
+		try (Writer out = open(new File(directory, itemName(room) + ".xml"))) {
+			out.write("<item>\n");
+			element(out, 1, "name", itemName(room));
+			element(out, 1, "description", "A trinket found in " + roomName(room) + ".");
+			out.write("    <events/>\n");
+			out.write("</item>\n");
+		}
+	}
+
+	/**
+	 * Write the statue in the room with the specified index. Inspecting the
+	 * statue changes the description of the room.
+	 *
+	 * @param directory the directory to write the statue to
+	 * @param room      the index of the room
+	 * @throws IOException if the statue could not be written
+	 */
+	private void writeStatue(File directory, int room) throws IOException {
+		try (Writer out = open(new File(directory, statueName(room) + ".xml"))) {
+			out.write("<inspectableobject>\n");
+			element(out, 1, "name", statueName(room));
+			element(out, 1, "description", "A statue of a forgotten knight.");
+			out.write("    <events>\n");
+			event(out, null, "setDescription", "room", roomName(room),
+					"description", "The statue in this room has been examined closely.");
+			out.write("    </events>\n");
+			out.write("</inspectableobject>\n");
+		}
+	}
+
+	/**
+	 * Write the castle gate, which ends the game when inspected.
+	 *
+	 * @param directory the directory to write the gate to
+	 * @throws IOException if the gate could not be written
+	 */
+	private void writeGate(File directory) throws IOException {
+		try (Writer out = open(new File(directory, GATE + ".xml"))) {
+			out.write("<inspectableobject>\n");
+			element(out, 1, "name", GATE);
+			element(out, 1, "description", "The gate opens to the world outside.");
+			out.write("    <events>\n");
+			event(out, null, "quit", "description", "You have escaped the castle!");
+			out.write("    </events>\n");
+			out.write("</inspectableobject>\n");
+		}
+	}
+
+	/**
+	 * Write the configuration of the castle.
+	 *
+	 * @param levelDirectory the level directory to write the configuration to
+	 * @throws IOException if the configuration could not be written
+	 */
+	private void writeConfig(File levelDirectory) throws IOException {
+		try (Writer out = open(new File(levelDirectory, "config.xml"))) {
+			out.write("<configurations>\n");
+			element(out, 1, "startroom", roomName(0));
+			element(out, 1, "saferoom", roomName(safeRoom()));
+			element(out, 1, "monsterstartroom", roomName(roomCount / 2));
+			element(out, 1, "monstermovechance", "0.2");
+			element(out, 1, "monstermovetime", "120000");
+			if (monsterCount > 1) {
+				out.write("    <monsters>\n");
+				for (int i = 1; i < monsterCount; i++) {
+					out.write("        <monster>\n");
+					element(out, 3, "room", roomName(monsterRoom(i)));
+					out.write("        </monster>\n");
+				}
+				out.write("    </monsters>\n");
+			}
+			if (landmarkCount > 0) {
+				element(out, 1, "landmarks", Integer.toString(landmarkCount));
+			}
+			element(out, 1, "welcome", "Welcome to a generated castle of " + roomCount + " rooms.");
+			out.write("</configurations>\n");
+		}
+	}
+
+	/**
+	 * Write an event element with a reward of 1.
+	 *
+	 * @param out        the writer to write to
+	 * @param trigger    the trigger of the event, or null if it is not a use
+	 *                   event
+	 * @param type       the type of the event
+	 * @param parameters the names and values of the event parameters
+	 * @throws IOException if the event could not be written
+	 */
+	private static void event(Writer out, String trigger, String type, String... parameters) throws IOException {
+		out.write("        <event>\n");
+		if (trigger != null) {
+			element(out, 3, "trigger", trigger);
+		}
+		element(out, 3, "type", type);
+		element(out, 3, "reward", "1");
+		for (int i = 0; i < parameters.length; i += 2) {
+			element(out, 3, parameters[i], parameters[i + 1]);
+		}
+		out.write("        </event>\n");
+	}
+
+	/**
+	 * Write an element containing only text.
+	 *
+	 * @param out     the writer to write to
+	 * @param depth   the depth of the element, for indentation
+	 * @param name    the name of the element
+	 * @param content the text content of the element
+	 * @throws IOException if the element could not be written
+	 */
+	private static void element(Writer out, int depth, String name, String content) throws IOException {
+		for (int i = 0; i < depth; i++) {
+			out.write("    ");
+		}
+
+		out.write("<" + name + ">");
+		out.write(content.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"));
+		out.write("</" + name + ">\n");
+	}
+
+	/**
+	 * Open a writer for the specified xml file and write the xml declaration.
+	 *
+	 * @param file the file to write
+	 * @return the writer
+	 * @throws IOException if the file could not be opened
+	 */
+	private static Writer open(File file) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+		return out;
+	}
+
+	/**
+	 * Get the index of the safe room, which is the room furthest from the
+	 * start room.
+	 *
+	 * @return the index of the safe room
+	 */
+	private int safeRoom() {
+		return roomCount - 1;
+	}
+
+	/**
+	 * Get the room that the specified monster starts in. The start and safe
+	 * rooms are never picked.
+	 *
+	 * @param monster the index of the monster
+	 * @return the room that the monster starts in
+	 */
+	private int monsterRoom(int monster) {
+		int room = (int) ((roomCount / 2 + (long) monster * roomCount / monsterCount) % roomCount);
+		return room == 0 || room == safeRoom() ? 1 : room;
+	}
+
+	/**
+	 * Pick a room for a key or door of an event chain. The start and safe
+	 * rooms are never picked.
+	 *
+	 * @param chain the index of the chain
+	 * @param step  the index of the key or door in the chain
+	 * @return the index of the room
+	 */
+	private int randomRoom(int chain, int step) {
+		long h = hash(SALT_CHAIN, ((long) chain << 32) | step);
+		return 1 + (int) ((h >>> 1) % (roomCount - 2));
+	}
+
+	/**
+	 * Make a reproducible random decision about the specified room.
+	 *
+	 * @param salt        the salt identifying the kind of decision
+	 * @param room        the index of the room
+	 * @param probability the probability of deciding yes
+	 * @return the decision
+	 */
+	private boolean chance(long salt, int room, double probability) {
+		return (hash(salt, room) >>> 11) * 0x1.0p-53 < probability;
+	}
+
+	/**
+	 * Hash the specified values along with the seed, using the finalizer of
+	 * the SplitMix64 generator.
+	 *
+	 * @param salt  the salt identifying the kind of decision
+	 * @param value the value to hash
+	 * @return the hash
+	 */
+	private long hash(long salt, long value) {
+		long z = seed + salt * 0x9E3779B97F4A7C15L + value * 0xD1B54A32D192ED03L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Get the name of the room with the specified index.
+	 *
+	 * @param room the index of the room
+	 * @return the name of the room
+	 */
+	private static String roomName(int room) {
+		return "Room " + room;
+	}
+
+	/**
+	 * Get the name of the item in the room with the specified index.
+	 *
+	 * @param room the index of the room
+	 * @return the name of the item
+	 */
+	private static String itemName(int room) {
+		return "Trinket " + room;
+	}
+
+	/**
+	 * Get the name of the statue in the room with the specified index.
+	 *
+	 * @param room the index of the room
+	 * @return the name of the statue
+	 */
+	private static String statueName(int room) {
+		return "Statue " + room;
+	}
+
+	/**
+	 * Get the name of a key in an event chain.
+	 *
+	 * @param chain the index of the chain
+	 * @param step  the index of the key in the chain
+	 * @return the name of the key
+	 */
+	private static String keyName(int chain, int step) {
+		return "Key " + chain + "-" + step;
+	}
+
+	/**
+	 * Get the name of a door in an event chain.
+	 *
+	 * @param chain the index of the chain
+	 * @param step  the index of the door in the chain
+	 * @return the name of the door
+	 */
+	private static String doorName(int chain, int step) {
+		return "Door " + chain + "-" + step;
+	}
+
+	/**
+	 * Generate a castle from the command line. The arguments are the level
+	 * directory, the amount of rooms, and optionally the shape, the seed, the
+	 * item density, the amount of event chains and their length.
+	 *
+	 * @param args the command line arguments
+	 * @throws IOException if the castle could not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: LevelGenerator <level directory> <room count> "
+					+ "[GRID|MAZE|SPARSE] [seed] [item density] [chain count] [chain length] [monster count] [landmark count]");
+			return;
+		}
+
+		int roomCount = Integer.parseInt(args[1]);
+		Shape shape = args.length > 2 ? Shape.valueOf(args[2].toUpperCase()) : Shape.GRID;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+		LevelGenerator generator = new LevelGenerator(seed, roomCount, shape);
+		if (args.length > 4) {
+			generator.setItemDensity(Double.parseDouble(args[4]));
+		}
+		if (args.length > 5) {
+			generator.setEventChains(Integer.parseInt(args[5]), args.length > 6 ? Integer.parseInt(args[6]) : 3);
+		}
+		if (args.length > 7) {
+			generator.setMonsterCount(Integer.parseInt(args[7]));
+		}
+		if (args.length > 8) {
+			generator.setLandmarkCount(Integer.parseInt(args[8]));
+		}
+
+		generator.generate(new File(args[0]));
+	}
+}
@@ -0,0 +1,169 @@
+package castleescape.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.xml.sax.InputSource;
+
+/**
+ * Class for opening the root containing all level directories, which is either
+ * a directory or a single zip file, called a level pack.
+ * <p>
+ * A level pack is opened as a zip file system, which reads the central
+ * directory of the pack once. Listing the levels and their files is then done
+ * in memory, and reading a file does not open anything on the underlying file
+ * system, which is much faster than many small file opens on a slow file
+ * system. Every pack is opened once and shared by all readers, as the zip file
+ * system can be read by many threads at once.
+ * <p>
+ * If the pack contains a directory named like the default root directory, it
+ * is used as the root, so that a zip of the default root directory can be used
+ * as is. Entries added by archivers, such as {@code __MACOSX} directories and
+ * {@code ._} files, are ignored in packs and directories alike.
+ */
+final class LevelPack {
+
+	/**
+	 * The name of the default level pack, which is used if the default root
+	 * directory does not exist.
+	 */
+	static final String PACK_FILE = "xml.zip";
+
+	/**
+	 * The roots of the packs that have been opened, by the absolute path of
+	 * the pack.
+	 */
+	private static final Map<Path, Path> openPacks = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor, as this class only has static methods.
+	 */
+	private LevelPack() {
+	}
+
+	/**
+	 * Get the default root containing all level directories, which is the
+	 * default root directory if it exists, and otherwise the default level
+	 * pack.
+	 *
+	 * @return the default root
+	 */
+	static Path openDefault() {
+		File directory = new File(LevelDataReader.ROOT_DIRECTORY);
+		File pack = new File(PACK_FILE);
+		return open(!directory.isDirectory() && pack.isFile() ? pack : directory);
+	}
+
+	/**
+	 * Get the root containing all level directories in the specified
+	 * directory or level pack.
+	 *
+	 * @param file the directory or level pack
+	 * @return the root containing all level directories
+	 * @throws IllegalArgumentException if the level pack cannot be opened
+	 */
+	static Path open(File file) {
+		Path path = file.toPath();
+		if (!Files.isRegularFile(path)) {
+			return path;
+		}
+
+		return openPacks.computeIfAbsent(path.toAbsolutePath().normalize(), pack -> {
+			try {
+				//The file system is never closed, as levels can be read from it
+				//until the application exits
+				FileSystem fileSystem = FileSystems.newFileSystem(pack, (ClassLoader) null);
+				Path root = fileSystem.getPath("/");
+				Path nested = root.resolve(new File(LevelDataReader.ROOT_DIRECTORY).getName());
+				return Files.isDirectory(nested) ? nested : root;
+			} catch (IOException ex) {
+				throw new IllegalArgumentException("Cannot open level pack " + pack, ex);
+			}
+		});
+	}
+
+	/**
+	 * Test whether the specified root is a level pack rather than a directory.
+	 *
+	 * @param root the root containing all level directories
+	 * @return {@code true} if the root is in a level pack, {@code false}
+	 *         otherwise
+	 */
+	static boolean isPack(Path root) {
+		return root.getFileSystem() != FileSystems.getDefault();
+	}
+
+	/**
+	 * Get the entries of the specified directory, leaving out entries added
+	 * by archivers.
+	 *
+	 * @param directory the directory to list
+	 * @return the entries of the directory, or null if it is not a directory
+	 */
+	static List<Path> list(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return null;
+		}
+
+		List<Path> entries = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path entry : stream) {
+				if (!isIgnored(entry)) {
+					entries.add(entry);
+				}
+			}
+		} catch (IOException ex) {
+			return null;
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Test whether the specified entry was added by an archiver, and is not
+	 * part of any level.
+	 *
+	 * @param entry the entry to test
+	 * @return {@code true} if the entry should be ignored, {@code false}
+	 *         otherwise
+	 */
+	private static boolean isIgnored(Path entry) {
+		Path fileName = entry.getFileName();
+		if (fileName == null) {
+			return false;
+		}
+
+		String name = fileName.toString();
+		if (name.endsWith("/")) {
+			name = name.substring(0, name.length() - 1);
+		}
+
+		return name.equals("__MACOSX") || name.startsWith("._") || name.equals(".DS_Store");
+	}
+
+	/**
+	 * Open the specified file for parsing. The source must be closed by
+	 * closing its byte stream.
+	 *
+	 * @param file the file to open
+	 * @return the source to parse
+	 * @throws IOException if the file cannot be opened
+	 */
+	static InputSource openSource(Path file) throws IOException {
+		InputStream in = Files.newInputStream(file);
+		InputSource source = new InputSource(in);
+
+		//Let the parser report the file that a problem was found in
+		source.setSystemId(file.toUri().toString());
+		return source;
+	}
+}
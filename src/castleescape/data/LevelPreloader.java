@@ -0,0 +1,358 @@
+package castleescape.data;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class for reading levels in the background before they are played, so that
+ * a game can be started without waiting for its level to be read.
+ * <p>
+ * Every level is read by a single background thread with its own
+ * {@link LevelDataReader}. A game changes the objects of its level while it is
+ * played, so the data of a level can only be taken once. Taking it starts
+ * reading the level again, so that it is ready for the next game as well.
+ * <p>
+ * The level directories are watched for changes. Once the files of a level
+ * have stopped changing for {@link #RELOAD_DELAY} milliseconds, the level is
+ * read again, and if it can be read, the new {@link LevelVersion} replaces the
+ * current one in a single step. Games that are being played keep their
+ * version. If the changed level has errors, the current version is kept.
+ * Levels in a {@link LevelPack level pack} are not watched, as the pack is
+ * replaced as a whole rather than edited.
+ */
+public class LevelPreloader {
+
+	/**
+	 * The time that the files of a level must stop changing for before the
+	 * level is read again, in milliseconds. Designers often save many files
+	 * at once, which should result in a single new version.
+	 */
+	public static final long RELOAD_DELAY = 500;
+
+	/**
+	 * The root directory containing all level directories.
+	 */
+	private final Path rootDirectory;
+
+	/**
+	 * The reader used by the background thread. Only used by that thread.
+	 */
+	private final LevelDataReader reader;
+
+	/**
+	 * The thread reading the levels.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * The current version of every level, by level name.
+	 */
+	private final Map<String, LevelVersion> versions;
+
+	/**
+	 * The watched directories, by their watch keys. Only used by the watcher
+	 * thread once it has been started.
+	 */
+	private final Map<WatchKey, Path> watchedDirectories;
+
+	/**
+	 * The service watching the level directories, or null if they cannot be
+	 * watched.
+	 */
+	private final WatchService watchService;
+
+	/**
+	 * Whether the preloader has been closed.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Constructs a new level preloader and starts its background threads.
+	 *
+	 * @param rootDirectory the directory containing all level directories,
+	 *                      which may be in a level pack
+	 * @param validating    whether levels should be validated before they are
+	 *                      read
+	 */
+	LevelPreloader(Path rootDirectory, boolean validating) {
+		this.rootDirectory = rootDirectory;
+		reader = new LevelDataReader(rootDirectory);
+		reader.setValidating(validating);
+		versions = new ConcurrentHashMap<>();
+		watchedDirectories = new HashMap<>();
+
+		//The threads are daemons, so that they do not keep the application
+		//alive if a level is still being read when the application exits
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Level preloader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		//Levels are still preloaded if they cannot be watched, they are just
+		//never read again
+		WatchService service = null;
+		if (!LevelPack.isPack(rootDirectory)) {
+			try {
+				service = rootDirectory.getFileSystem().newWatchService();
+				watchTree(service, rootDirectory);
+			} catch (IOException | UnsupportedOperationException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		watchService = service;
+		if (watchService != null) {
+			Thread watcher = new Thread(this::watch, "Level watcher");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
+
+	/**
+	 * Start reading the level with the specified name in the background,
+	 * unless it is already being read or has been read.
+	 *
+	 * @param levelName the name of the level to read
+	 */
+	public void preload(String levelName) {
+		if (closed) {
+			return;
+		}
+
+		versions.computeIfAbsent(levelName, name -> new LevelVersion(name, 1, read(name)));
+	}
+
+	/**
+	 * Get the current version of the level with the specified name.
+	 *
+	 * @param levelName the name of the level
+	 * @return the current version, or null if the level has not been
+	 *         preloaded
+	 */
+	public LevelVersion getVersion(String levelName) {
+		return versions.get(levelName);
+	}
+
+	/**
+	 * Take the data of the current version of the level with the specified
+	 * name, waiting for it to be read if necessary. The level is then read
+	 * again in the background for the next game. The version is acquired for
+	 * the game, which must {@link LevelVersion#release() release} it when it
+	 * ends.
+	 *
+	 * @param levelName the name of the level
+	 * @return the data of the level, or null if the level was never preloaded
+	 *         or the preloader was closed before it was read
+	 * @throws IllegalArgumentException if validation is enabled and the level
+	 *                                  has errors
+	 */
+	public LevelDataStorage take(String levelName) {
+		LevelVersion version = versions.get(levelName);
+		if (version == null) {
+			return null;
+		}
+
+		//Prepare the next game right away, as the level is read in order of
+		//requests
+		Future<LevelDataStorage> level = version.replaceSpare(closed ? null : read(levelName));
+		if (level == null) {
+			return null;
+		}
+
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					LevelDataStorage levelData = level.get();
+					levelData.setVersion(version);
+					version.acquire(levelData);
+					return levelData;
+				} catch (InterruptedException ex) {
+					//The game cannot be started without its level
+					interrupted = true;
+				}
+			}
+		} catch (CancellationException ex) {
+			return null;
+		} catch (ExecutionException ex) {
+			//Report the problem as if the level had been read right now
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+
+			throw new IllegalStateException(ex.getCause());
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Start reading the level with the specified name in the background.
+	 *
+	 * @param levelName the name of the level
+	 * @return the level data that is being read
+	 */
+	private Future<LevelDataStorage> read(String levelName) {
+		return executor.submit(() -> {
+			reader.readLevel(levelName);
+			return reader.getLevelData();
+		});
+	}
+
+	/**
+	 * Read the level with the specified name again in the background, and
+	 * make the result the current version of the level if it can be read.
+	 *
+	 * @param levelName the name of the level
+	 */
+	private void reload(String levelName) {
+		executor.execute(() -> {
+			LevelDataStorage levelData;
+			try {
+				reader.readLevel(levelName);
+				levelData = reader.getLevelData();
+			} catch (RuntimeException ex) {
+				//Keep playing the current version until the level is fixed
+				System.err.println("Level " + levelName + " was not reloaded:");
+				System.err.println(ex.getMessage());
+				return;
+			}
+
+			//Replace the current version in a single step, so that every new
+			//game gets either the old or the new version
+			LevelVersion previous = versions.get(levelName);
+			LevelVersion next = new LevelVersion(levelName, previous == null ? 1 : previous.getNumber() + 1,
+					CompletableFuture.completedFuture(levelData));
+			versions.put(levelName, next);
+			if (previous != null) {
+				previous.replace();
+			}
+		});
+	}
+
+	/**
+	 * The loop of the watcher thread. Changed levels are collected until no
+	 * files have changed for {@link #RELOAD_DELAY} milliseconds, and are then
+	 * read again.
+	 */
+	private void watch() {
+		Set<String> changedLevels = new HashSet<>();
+
+		try {
+			while (!closed) {
+				WatchKey key = watchService.poll(RELOAD_DELAY, TimeUnit.MILLISECONDS);
+
+				//Nothing changed for a while, so the changes are complete
+				if (key == null) {
+					for (String levelName : changedLevels) {
+						reload(levelName);
+					}
+					changedLevels.clear();
+					continue;
+				}
+
+				Path directory = watchedDirectories.get(key);
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						//Changes were lost, so every level may have changed
+						changedLevels.addAll(versions.keySet());
+						continue;
+					}
+
+					Path path = directory.resolve((Path) event.context());
+					Path relative = rootDirectory.relativize(path);
+
+					//New directories must be watched as well
+					if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+						watchTree(watchService, path);
+					}
+
+					//Only levels that have been preloaded are read again, while
+					//new levels are read when they are requested
+					String levelName = relative.getName(0).toString();
+					if (versions.containsKey(levelName)) {
+						changedLevels.add(levelName);
+					}
+				}
+
+				if (!key.reset()) {
+					watchedDirectories.remove(key);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ex) {
+			//The preloader has been closed
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Watch the specified directory and all directories within it.
+	 *
+	 * @param service   the service to watch the directories with
+	 * @param directory the directory to watch
+	 * @throws IOException if the directories cannot be watched
+	 */
+	private void watchTree(WatchService service, Path directory) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				watchedDirectories.put(key, dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Stop reading and watching levels in the background. Levels that have
+	 * already been read can still be taken.
+	 */
+	public void close() {
+		closed = true;
+		executor.shutdownNow();
+
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		//Levels that were never read would otherwise be waited for forever.
+		//Cancelling a level that has been read has no effect
+		for (LevelVersion version : versions.values()) {
+			Future<LevelDataStorage> level = version.replaceSpare(null);
+			if (level != null) {
+				level.cancel(true);
+				version.replaceSpare(level);
+			}
+		}
+	}
+}
@@ -0,0 +1,269 @@
+package castleescape.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The outcome of validating a level with a {@link LevelValidator}.
+ */
+public class LevelValidationReport {
+
+	/**
+	 * The severity of a problem found in a level.
+	 */
+	public enum Severity {
+		/**
+		 * The level cannot be loaded or played correctly.
+		 */
+		ERROR,
+		/**
+		 * The level can be played, but probably not as intended.
+		 */
+		WARNING
+	}
+
+	/**
+	 * The maximum number of chokepoints listed by {@link #toString()}.
+	 */
+	private static final int MAX_LISTED_CHOKEPOINTS = 20;
+
+	/**
+	 * The name of the level that was validated.
+	 */
+	private final String levelName;
+
+	/**
+	 * The problems found in the level, ordered by file and line.
+	 */
+	private final List<Problem> problems;
+
+	/**
+	 * The names of the rooms that the room graph falls apart without, in
+	 * alphabetical order.
+	 */
+	private final List<String> chokepoints;
+
+	/**
+	 * The number of files that were read.
+	 */
+	private final int fileCount;
+
+	/**
+	 * The time taken to validate the level, in milliseconds.
+	 */
+	private final long time;
+
+	/**
+	 * Constructs a new validation report.
+	 *
+	 * @param levelName   the name of the level that was validated
+	 * @param problems    the problems found in the level
+	 * @param chokepoints the names of the rooms that the room graph falls
+	 *                    apart without
+	 * @param fileCount   the number of files that were read
+	 * @param time        the time taken to validate the level, in milliseconds
+	 */
+	LevelValidationReport(String levelName, List<Problem> problems, List<String> chokepoints, int fileCount, long time) {
+		this.levelName = levelName;
+		this.problems = new ArrayList<>(problems);
+		this.problems.sort(Comparator.comparing((Problem p) -> p.file == null ? "" : p.file)
+				.thenComparingInt(p -> p.line));
+		this.chokepoints = new ArrayList<>(chokepoints);
+		Collections.sort(this.chokepoints);
+		this.fileCount = fileCount;
+		this.time = time;
+	}
+
+	/**
+	 * Get the name of the level that was validated.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the problems found in the level, ordered by file and line.
+	 *
+	 * @return the problems
+	 */
+	public List<Problem> getProblems() {
+		return Collections.unmodifiableList(problems);
+	}
+
+	/**
+	 * Test whether any errors were found in the level. A level with errors
+	 * should not be loaded.
+	 *
+	 * @return {@code true} if an error was found, {@code false} otherwise
+	 */
+	public boolean hasErrors() {
+		for (Problem problem : problems) {
+			if (problem.severity == Severity.ERROR) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get the names of the rooms that the room graph falls apart without. If
+	 * the monster waits in such a room, some parts of the level can only be
+	 * reached by going past it.
+	 *
+	 * @return the names of the rooms, in alphabetical order
+	 */
+	public List<String> getChokepoints() {
+		return Collections.unmodifiableList(chokepoints);
+	}
+
+	/**
+	 * Get the number of files that were read.
+	 *
+	 * @return the number of files
+	 */
+	public int getFileCount() {
+		return fileCount;
+	}
+
+	/**
+	 * Get the time taken to validate the level.
+	 *
+	 * @return the time, in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Get a human readable summary of this report.
+	 *
+	 * @return the summary
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Level ").append(levelName).append(": ").append(fileCount).append(" files in ")
+				.append(time).append(" ms\n");
+
+		for (Problem problem : problems) {
+			sb.append("  ").append(problem).append('\n');
+		}
+
+		//Large levels have too many chokepoints to list them all
+		if (!chokepoints.isEmpty()) {
+			sb.append("  Chokepoints (").append(chokepoints.size()).append("): ")
+					.append(String.join(", ", chokepoints.subList(0, Math.min(chokepoints.size(), MAX_LISTED_CHOKEPOINTS))))
+					.append(chokepoints.size() > MAX_LISTED_CHOKEPOINTS ? ", ..." : "").append('\n');
+		}
+
+		sb.append(problems.isEmpty() ? "  No problems found\n" : "  " + problems.size() + " problems found\n");
+		return sb.toString();
+	}
+
+	/**
+	 * A problem found in a level.
+	 */
+	public static class Problem {
+
+		/**
+		 * The severity of the problem.
+		 */
+		private final Severity severity;
+
+		/**
+		 * The path of the file that the problem was found in, relative to the
+		 * level directory, or null if the problem concerns the level as a
+		 * whole.
+		 */
+		private final String file;
+
+		/**
+		 * The line that the problem was found at, or -1 if unknown.
+		 */
+		private final int line;
+
+		/**
+		 * The description of the problem.
+		 */
+		private final String message;
+
+		/**
+		 * Constructs a new problem.
+		 *
+		 * @param severity the severity of the problem
+		 * @param file     the path of the file that the problem was found in,
+		 *                 or null if it concerns the level as a whole
+		 * @param line     the line that the problem was found at, or -1 if
+		 *                 unknown
+		 * @param message  the description of the problem
+		 */
+		Problem(Severity severity, String file, int line, String message) {
+			this.severity = severity;
+			this.file = file;
+			this.line = line;
+			this.message = message;
+		}
+
+		/**
+		 * Get the severity of the problem.
+		 *
+		 * @return the severity
+		 */
+		public Severity getSeverity() {
+			return severity;
+		}
+
+		/**
+		 * Get the path of the file that the problem was found in, relative to
+		 * the level directory.
+		 *
+		 * @return the path of the file, or null if the problem concerns the
+		 *         level as a whole
+		 */
+		public String getFile() {
+			return file;
+		}
+
+		/**
+		 * Get the line that the problem was found at.
+		 *
+		 * @return the line, or -1 if unknown
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * Get the description of the problem.
+		 *
+		 * @return the description
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Get a human readable description of this problem, including where it
+		 * was found.
+		 *
+		 * @return the description
+		 */
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(severity.toString());
+			if (file != null) {
+				sb.append(' ').append(file);
+				if (line >= 0) {
+					sb.append(':').append(line);
+				}
+			}
+
+			return sb.append(": ").append(message).toString();
+		}
+	}
+}
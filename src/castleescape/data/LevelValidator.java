@@ -0,0 +1,906 @@
+package castleescape.data;
+
+import castleescape.data.LevelValidationReport.Problem;
+import castleescape.data.LevelValidationReport.Severity;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Class for finding problems in a level before it is played. Without
+ * validation, a broken level is only discovered when it is loaded, or even
+ * later while it is played.
+ * <p>
+ * Every file of the level is validated against the schema of the level files,
+ * which is compiled once and shared by all validators. The files are read in
+ * parallel, and only the names that they refer to are kept. Afterwards, the
+ * level as a whole is checked for:
+ * <ul>
+ * <li>References to rooms, inspectable objects and items that do not
+ * exist.</li>
+ * <li>Events missing the parameters that they need.</li>
+ * <li>Rooms that the player can never reach.</li>
+ * <li>Rooms from which the only exits lead to the safe room. The monster can
+ * never leave such a room, and will try to do so forever.</li>
+ * <li>Rooms that the room graph falls apart without. These are not problems,
+ * but they are listed in the report as chokepoints.</li>
+ * </ul>
+ * The validator can be run from the command line, or before a level is loaded
+ * by enabling validation in the {@link LevelDataReader}.
+ */
+public class LevelValidator {
+
+	/**
+	 * The name of the schema resource, relative to this class.
+	 */
+	private static final String SCHEMA_RESOURCE = "level.xsd";
+
+	/**
+	 * The subdirectories of a level directory, and the root element of the
+	 * files that they must contain.
+	 */
+	private static final String[][] DIRECTORIES = {
+		{"InspectableObjects", "inspectableobject"},
+		{"Items", "item"},
+		{"Rooms", "room"}
+	};
+
+	/**
+	 * The name of the config file.
+	 */
+	private static final String CONFIG_FILE = "config.xml";
+
+	/**
+	 * The document builder of each thread. Document builders cannot be shared
+	 * between threads, but they can be reused for many files.
+	 */
+	private static final ThreadLocal<DocumentBuilder> documentBuilders = ThreadLocal.withInitial(LevelValidator::newDocumentBuilder);
+
+	/**
+	 * The root directory containing all level directories, which may be in a
+	 * level pack.
+	 */
+	private final Path rootDirectory;
+
+	/**
+	 * Constructs a new level validator, validating levels in the default root
+	 * directory, or in the default level pack if the directory does not exist.
+	 */
+	public LevelValidator() {
+		this(LevelPack.openDefault());
+	}
+
+	/**
+	 * Constructs a new level validator, validating levels in the specified
+	 * root directory or level pack.
+	 *
+	 * @param rootDirectory the directory or zip file containing all level
+	 *                      directories
+	 * @throws IllegalArgumentException if the level pack cannot be opened
+	 */
+	public LevelValidator(File rootDirectory) {
+		this(LevelPack.open(rootDirectory));
+	}
+
+	/**
+	 * Constructs a new level validator, validating levels in the specified
+	 * root directory, which may be in a level pack.
+	 *
+	 * @param rootDirectory the directory containing all level directories
+	 */
+	LevelValidator(Path rootDirectory) {
+		this.rootDirectory = rootDirectory;
+	}
+
+	/**
+	 * Holder of the compiled schema. The schema is compiled the first time it
+	 * is needed, and it is thread safe, so it is shared by all validators.
+	 */
+	private static class SchemaHolder {
+
+		/**
+		 * The compiled schema of the level files.
+		 */
+		private static final Schema SCHEMA = compileSchema();
+
+		/**
+		 * Compile the schema of the level files.
+		 *
+		 * @return the compiled schema
+		 */
+		private static Schema compileSchema() {
+			URL resource = LevelValidator.class.getResource(SCHEMA_RESOURCE);
+			if (resource == null) {
+				throw new IllegalStateException("Missing level schema " + SCHEMA_RESOURCE);
+			}
+
+			try {
+				return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(resource);
+			} catch (SAXException ex) {
+				throw new IllegalStateException("Invalid level schema", ex);
+			}
+		}
+	}
+
+	/**
+	 * Create a document builder that validates documents against the schema
+	 * of the level files while parsing them.
+	 *
+	 * @return the document builder
+	 */
+	private static DocumentBuilder newDocumentBuilder() {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		factory.setSchema(SchemaHolder.SCHEMA);
+
+		try {
+			return factory.newDocumentBuilder();
+		} catch (ParserConfigurationException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Validate the level with the specified name.
+	 *
+	 * @param levelName the name of the level to validate
+	 * @return a report of the problems found in the level
+	 */
+	public LevelValidationReport validate(String levelName) {
+		long start = System.currentTimeMillis();
+		Path levelDirectory = rootDirectory.resolve(levelName);
+		List<Problem> problems = new ArrayList<>();
+
+		//Find the files of the level, and the root element that each should
+		//have
+		List<String> paths = new ArrayList<>();
+		Map<String, String> expectedRoots = new HashMap<>();
+		for (String[] directory : DIRECTORIES) {
+			List<Path> files = LevelPack.list(levelDirectory.resolve(directory[0]));
+			if (files == null) {
+				problems.add(new Problem(Severity.ERROR, directory[0], -1, "Missing directory"));
+				continue;
+			}
+
+			for (Path file : files) {
+				String path = directory[0] + "/" + file.getFileName();
+				paths.add(path);
+				expectedRoots.put(path, directory[1]);
+			}
+		}
+
+		if (Files.isRegularFile(levelDirectory.resolve(CONFIG_FILE))) {
+			paths.add(CONFIG_FILE);
+			expectedRoots.put(CONFIG_FILE, "configurations");
+		} else {
+			problems.add(new Problem(Severity.ERROR, CONFIG_FILE, -1, "Missing config file"));
+		}
+
+		//Read all files in parallel. Each file is only read by one thread, and
+		//its problems are collected in its own list
+		List<LevelFile> files = paths.parallelStream()
+				.map(path -> readFile(levelDirectory, path, expectedRoots.get(path)))
+				.collect(Collectors.toList());
+
+		for (LevelFile file : files) {
+			problems.addAll(file.problems);
+		}
+
+		//Check the level as a whole
+		List<String> chokepoints = new Analysis(files, problems).run();
+
+		return new LevelValidationReport(levelName, problems, chokepoints, files.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Read the file with the specified path, validating it against the schema
+	 * and keeping the names that it refers to.
+	 *
+	 * @param levelDirectory the directory of the level
+	 * @param path           the path of the file relative to the level
+	 *                       directory
+	 * @param expectedRoot   the root element that the file should have
+	 * @return the contents of the file
+	 */
+	private static LevelFile readFile(Path levelDirectory, String path, String expectedRoot) {
+		LevelFile file = new LevelFile(path);
+
+		//Schema violations are collected rather than thrown, so that all
+		//violations in the file are reported
+		DocumentBuilder builder = documentBuilders.get();
+		builder.setErrorHandler(new ErrorHandler() {
+			@Override
+			public void warning(SAXParseException ex) {
+				file.problems.add(new Problem(Severity.WARNING, path, ex.getLineNumber(), ex.getMessage()));
+			}
+
+			@Override
+			public void error(SAXParseException ex) {
+				file.problems.add(new Problem(Severity.ERROR, path, ex.getLineNumber(), ex.getMessage()));
+			}
+
+			@Override
+			public void fatalError(SAXParseException ex) throws SAXException {
+				throw ex;
+			}
+		});
+
+		Document document;
+		try {
+			InputSource source = LevelPack.openSource(levelDirectory.resolve(path));
+			try (InputStream in = source.getByteStream()) {
+				//Parse the stream that is closed afterwards, keeping the file
+				//that problems are reported in
+				InputSource input = new InputSource(in);
+				input.setSystemId(source.getSystemId());
+				document = builder.parse(input);
+			}
+		} catch (SAXParseException ex) {
+			file.problems.add(new Problem(Severity.ERROR, path, ex.getLineNumber(), ex.getMessage()));
+			return file;
+		} catch (SAXException | IOException ex) {
+			file.problems.add(new Problem(Severity.ERROR, path, -1, ex.getMessage()));
+			return file;
+		} finally {
+			builder.reset();
+		}
+
+		Element root = document.getDocumentElement();
+		file.type = root.getTagName();
+		if (!file.type.equals(expectedRoot)) {
+			file.problems.add(new Problem(Severity.ERROR, path, -1,
+					"Expected <" + expectedRoot + "> but found <" + file.type + ">"));
+			file.type = null;
+			return file;
+		}
+
+		//Keep only the names that the file defines and refers to
+		for (Element child : children(root)) {
+			switch (child.getTagName()) {
+				case "name":
+					file.name = child.getTextContent();
+					break;
+				case "inventory":
+					for (Element entry : children(child)) {
+						(entry.getTagName().equals("object") ? file.objects : file.items).add(entry.getTextContent());
+					}
+					break;
+				case "exits":
+					for (Element exit : children(child)) {
+						file.exits.put(exit.getTagName(), exit.getTextContent());
+					}
+					break;
+				case "monsters":
+					for (Element monster : children(child)) {
+						String room = null;
+						for (Element value : children(monster)) {
+							if (value.getTagName().equals("room")) {
+								room = value.getTextContent();
+							}
+						}
+						file.monsterRooms.add(room);
+					}
+					break;
+				case "events":
+					for (Element event : children(child)) {
+						Map<String, String> parameters = new HashMap<>();
+						for (Element parameter : children(event)) {
+							parameters.put(parameter.getTagName(), parameter.getTextContent());
+						}
+						file.events.add(parameters);
+					}
+					break;
+				default:
+					//The configuration consists of simple values only
+					file.values.put(child.getTagName(), child.getTextContent());
+					break;
+			}
+		}
+
+		return file;
+	}
+
+	/**
+	 * Get the child elements of the specified element.
+	 *
+	 * @param element the element
+	 * @return the child elements
+	 */
+	private static List<Element> children(Element element) {
+		List<Element> children = new ArrayList<>();
+		for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				children.add((Element) node);
+			}
+		}
+
+		return children;
+	}
+
+	/**
+	 * The names defined by and referred to by a file of a level.
+	 */
+	private static class LevelFile {
+
+		/**
+		 * The path of the file relative to the level directory.
+		 */
+		private final String path;
+
+		/**
+		 * The problems found in the file.
+		 */
+		private final List<Problem> problems = new ArrayList<>();
+
+		/**
+		 * The root element of the file, or null if the file could not be read.
+		 */
+		private String type;
+
+		/**
+		 * The name of the room, inspectable object or item defined by the
+		 * file.
+		 */
+		private String name;
+
+		/**
+		 * The inspectable objects in the room defined by the file.
+		 */
+		private final List<String> objects = new ArrayList<>();
+
+		/**
+		 * The items in the room defined by the file.
+		 */
+		private final List<String> items = new ArrayList<>();
+
+		/**
+		 * The exits of the room defined by the file, by direction.
+		 */
+		private final Map<String, String> exits = new LinkedHashMap<>();
+
+		/**
+		 * The parameters of every event of the inspectable object or item
+		 * defined by the file.
+		 */
+		private final List<Map<String, String>> events = new ArrayList<>();
+
+		/**
+		 * The values of the configuration defined by the file.
+		 */
+		private final Map<String, String> values = new HashMap<>();
+
+		/**
+		 * The start rooms of the monsters that the configuration defined by
+		 * the file adds to the first one.
+		 */
+		private final List<String> monsterRooms = new ArrayList<>();
+
+		/**
+		 * Constructs a new level file.
+		 *
+		 * @param path the path of the file relative to the level directory
+		 */
+		LevelFile(String path) {
+			this.path = path;
+		}
+	}
+
+	/**
+	 * The checks of a level as a whole, performed once all files have been
+	 * read.
+	 */
+	private static class Analysis {
+
+		/**
+		 * The files of the level.
+		 */
+		private final List<LevelFile> files;
+
+		/**
+		 * The list to add problems to.
+		 */
+		private final List<Problem> problems;
+
+		/**
+		 * The indices of the rooms, by name.
+		 */
+		private final Map<String, Integer> rooms = new HashMap<>();
+
+		/**
+		 * The files defining the rooms, by index.
+		 */
+		private final List<LevelFile> roomFiles = new ArrayList<>();
+
+		/**
+		 * The names of the inspectable objects.
+		 */
+		private final Set<String> objects = new HashSet<>();
+
+		/**
+		 * The names of the items.
+		 */
+		private final Set<String> items = new HashSet<>();
+
+		/**
+		 * The configuration file, or null if it could not be read.
+		 */
+		private LevelFile config;
+
+		/**
+		 * Constructs a new analysis of the specified files.
+		 *
+		 * @param files    the files of the level
+		 * @param problems the list to add problems to
+		 */
+		Analysis(List<LevelFile> files, List<Problem> problems) {
+			this.files = files;
+			this.problems = problems;
+		}
+
+		/**
+		 * Perform the analysis.
+		 *
+		 * @return the names of the rooms that the room graph falls apart
+		 *         without
+		 */
+		List<String> run() {
+			collectNames();
+			checkReferences();
+
+			if (config == null || rooms.isEmpty()) {
+				return Collections.emptyList();
+			}
+
+			int[][] exits = getExitGraph();
+			checkReachability(exits);
+			checkMonsterTraps(exits);
+			return findChokepoints(exits);
+		}
+
+		/**
+		 * Collect the names defined by the files, reporting duplicates.
+		 */
+		private void collectNames() {
+			Map<String, String> definitions = new HashMap<>();
+			for (LevelFile file : files) {
+				if (file.type == null) {
+					continue;
+				}
+
+				switch (file.type) {
+					case "room":
+						if (rooms.containsKey(file.name)) {
+							error(file, "Duplicate room " + file.name + ", also defined in "
+									+ roomFiles.get(rooms.get(file.name)).path);
+						} else {
+							rooms.put(file.name, roomFiles.size());
+							roomFiles.add(file);
+						}
+						break;
+					case "inspectableobject":
+					case "item":
+						//Objects and items share the same register of names
+						String previous = definitions.putIfAbsent(file.name, file.path);
+						if (previous != null) {
+							error(file, "Duplicate object or item " + file.name + ", also defined in " + previous);
+						}
+						(file.type.equals("item") ? items : objects).add(file.name);
+						break;
+					default:
+						config = file;
+						break;
+				}
+			}
+		}
+
+		/**
+		 * Report every reference to a room, inspectable object or item that
+		 * does not exist, and every event that is missing a parameter.
+		 */
+		private void checkReferences() {
+			for (LevelFile file : files) {
+				if (file.type == null) {
+					continue;
+				}
+
+				for (String object : file.objects) {
+					requireObject(file, object, "Object");
+				}
+
+				for (String item : file.items) {
+					requireItem(file, item, "Item");
+				}
+
+				for (Map.Entry<String, String> exit : file.exits.entrySet()) {
+					requireRoom(file, exit.getValue(), "Exit " + exit.getKey());
+				}
+
+				for (Map<String, String> event : file.events) {
+					checkEvent(file, event);
+				}
+			}
+
+			if (config != null) {
+				requireRoom(config, config.values.get("startroom"), "Start room");
+				requireRoom(config, config.values.get("saferoom"), "Safe room");
+				requireRoom(config, config.values.get("monsterstartroom"), "Monster start room");
+
+				if (config.values.get("saferoom") != null
+						&& config.values.get("saferoom").equals(config.values.get("monsterstartroom"))) {
+					error(config, "The monster cannot start in the safe room");
+				}
+
+				for (String monsterRoom : config.monsterRooms) {
+					requireRoom(config, monsterRoom, "Monster start room");
+					if (monsterRoom != null && monsterRoom.equals(config.values.get("saferoom"))) {
+						error(config, "The monster cannot start in the safe room");
+					}
+				}
+			}
+		}
+
+		/**
+		 * Report the references of the specified event to rooms, inspectable
+		 * objects and items that do not exist, and the parameters that it is
+		 * missing.
+		 *
+		 * @param file  the file defining the event
+		 * @param event the parameters of the event
+		 */
+		private void checkEvent(LevelFile file, Map<String, String> event) {
+			String type = event.get("type");
+			if (type == null) {
+				//Already reported as a schema violation
+				return;
+			}
+
+			String what = "Event " + type;
+
+			if (event.containsKey("trigger")) {
+				requireObject(file, event.get("trigger"), what + " trigger");
+			}
+
+			switch (type) {
+				case "addRoomItem":
+				case "removeRoomItem":
+					requireObject(file, event.get("item"), what + " item");
+					break;
+				case "addPlayerItem":
+				case "removePlayerItem":
+					requireItem(file, event.get("item"), what + " item");
+					break;
+				case "setDescription":
+					requireRoom(file, event.get("room"), what + " room");
+					break;
+				case "setObjectDescription":
+					requireObject(file, event.get("object"), what + " object");
+					break;
+				case "addExit":
+					requireRoom(file, event.get("destination"), what + " destination");
+					if (event.get("direction") == null) {
+						error(file, what + " has no direction");
+					}
+					break;
+				case "teleport":
+					requireRoom(file, event.get("destination"), what + " destination");
+					break;
+				case "makeNoise":
+					if (event.get("weight") == null) {
+						error(file, what + " has no weight");
+					}
+					break;
+				case "schedule":
+					if ((event.get("delay") == null) == (event.get("commands") == null)) {
+						error(file, what + " must have either a delay or a number of commands");
+					}
+
+					//The follow-up event is given the same parameters
+					String then = event.get("then");
+					if (then == null) {
+						error(file, what + " has no follow-up event");
+					} else if (then.equals("schedule")) {
+						error(file, what + " cannot schedule another schedule event");
+					} else {
+						Map<String, String> followUp = new HashMap<>(event);
+						followUp.put("type", then);
+						followUp.remove("trigger");
+						checkEvent(file, followUp);
+					}
+					break;
+			}
+		}
+
+		/**
+		 * Report the specified room reference if the room does not exist.
+		 *
+		 * @param file the file containing the reference
+		 * @param name the name of the room
+		 * @param what a description of the reference
+		 */
+		private void requireRoom(LevelFile file, String name, String what) {
+			if (name == null) {
+				error(file, what + " is missing");
+			} else if (!rooms.containsKey(name)) {
+				error(file, what + " refers to unknown room " + name);
+			}
+		}
+
+		/**
+		 * Report the specified reference to an inspectable object or item if
+		 * neither exists.
+		 *
+		 * @param file the file containing the reference
+		 * @param name the name of the inspectable object or item
+		 * @param what a description of the reference
+		 */
+		private void requireObject(LevelFile file, String name, String what) {
+			if (name == null) {
+				error(file, what + " is missing");
+			} else if (!objects.contains(name) && !items.contains(name)) {
+				error(file, what + " refers to unknown object " + name);
+			}
+		}
+
+		/**
+		 * Report the specified item reference if the item does not exist.
+		 *
+		 * @param file the file containing the reference
+		 * @param name the name of the item
+		 * @param what a description of the reference
+		 */
+		private void requireItem(LevelFile file, String name, String what) {
+			if (name == null) {
+				error(file, what + " is missing");
+			} else if (!items.contains(name)) {
+				error(file, what + " refers to unknown item " + name);
+			}
+		}
+
+		/**
+		 * Report an error in the specified file.
+		 *
+		 * @param file    the file
+		 * @param message the description of the error
+		 */
+		private void error(LevelFile file, String message) {
+			problems.add(new Problem(Severity.ERROR, file.path, -1, message));
+		}
+
+		/**
+		 * Get the exits of every room as an adjacency array. Exits to rooms
+		 * that do not exist are left out.
+		 *
+		 * @return the indices of the rooms that each room has exits to
+		 */
+		private int[][] getExitGraph() {
+			int[][] exits = new int[roomFiles.size()][];
+			for (int i = 0; i < exits.length; i++) {
+				exits[i] = roomFiles.get(i).exits.values().stream()
+						.filter(rooms::containsKey)
+						.mapToInt(rooms::get)
+						.toArray();
+			}
+
+			return exits;
+		}
+
+		/**
+		 * Report the rooms that the player can never reach. Exits added by
+		 * events lead from the room that the player is in, so the rooms that
+		 * they lead to are treated as reachable from anywhere.
+		 *
+		 * @param exits the exits of every room
+		 */
+		private void checkReachability(int[][] exits) {
+			Deque<Integer> queue = new ArrayDeque<>();
+			boolean[] reached = new boolean[exits.length];
+
+			List<String> starts = new ArrayList<>();
+			starts.add(config.values.get("startroom"));
+			for (LevelFile file : files) {
+				for (Map<String, String> event : file.events) {
+					//Scheduled events lead to rooms just as well, only later
+					String type = "schedule".equals(event.get("type")) ? event.get("then") : event.get("type");
+					if ("addExit".equals(type) || "teleport".equals(type)) {
+						starts.add(event.get("destination"));
+					}
+				}
+			}
+
+			for (String start : starts) {
+				Integer index = rooms.get(start);
+				if (index != null && !reached[index]) {
+					reached[index] = true;
+					queue.add(index);
+				}
+			}
+
+			while (!queue.isEmpty()) {
+				for (int neighbor : exits[queue.poll()]) {
+					if (!reached[neighbor]) {
+						reached[neighbor] = true;
+						queue.add(neighbor);
+					}
+				}
+			}
+
+			for (int i = 0; i < reached.length; i++) {
+				if (!reached[i]) {
+					problems.add(new Problem(Severity.WARNING, roomFiles.get(i).path, -1,
+							"Room " + roomFiles.get(i).name + " can never be reached"));
+				}
+			}
+		}
+
+		/**
+		 * Report the rooms whose only exits lead to the safe room. As the
+		 * monster cannot enter the safe room, it would be stuck in such a room
+		 * until it starts hunting the player. This is only a warning, as
+		 * events may add other exits before the monster gets there.
+		 *
+		 * @param exits the exits of every room
+		 */
+		private void checkMonsterTraps(int[][] exits) {
+			Integer safeRoom = rooms.get(config.values.get("saferoom"));
+			if (safeRoom == null) {
+				return;
+			}
+
+			for (int i = 0; i < exits.length; i++) {
+				if (i != safeRoom && exits[i].length > 0 && Arrays.stream(exits[i]).allMatch(r -> r == safeRoom)) {
+					problems.add(new Problem(Severity.WARNING, roomFiles.get(i).path, -1, "The only exits of room "
+							+ roomFiles.get(i).name + " lead to the safe room, which traps the monster"));
+				}
+			}
+		}
+
+		/**
+		 * Find the articulation points of the room graph, ignoring the
+		 * direction of the exits. The search is the iterative form of Tarjan's
+		 * algorithm, so that large levels do not overflow the stack.
+		 *
+		 * @param exits the exits of every room
+		 * @return the names of the rooms that the room graph falls apart
+		 *         without
+		 */
+		private List<String> findChokepoints(int[][] exits) {
+			int n = exits.length;
+
+			//Make the graph undirected, without duplicate edges
+			List<Set<Integer>> sets = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				sets.add(new LinkedHashSet<>());
+			}
+			for (int i = 0; i < n; i++) {
+				for (int j : exits[i]) {
+					if (i != j) {
+						sets.get(i).add(j);
+						sets.get(j).add(i);
+					}
+				}
+			}
+
+			int[][] graph = new int[n][];
+			for (int i = 0; i < n; i++) {
+				graph[i] = sets.get(i).stream().mapToInt(Integer::intValue).toArray();
+			}
+
+			//Discovery times start at 1, so that 0 means undiscovered
+			int[] discovered = new int[n];
+			int[] low = new int[n];
+			int[] parent = new int[n];
+			int[] nextEdge = new int[n];
+			int[] stack = new int[n];
+			boolean[] articulation = new boolean[n];
+			int time = 0;
+
+			for (int root = 0; root < n; root++) {
+				if (discovered[root] != 0) {
+					continue;
+				}
+
+				int top = 0;
+				int rootChildren = 0;
+				stack[top++] = root;
+				discovered[root] = low[root] = ++time;
+				parent[root] = -1;
+
+				while (top > 0) {
+					int v = stack[top - 1];
+					if (nextEdge[v] < graph[v].length) {
+						int w = graph[v][nextEdge[v]++];
+						if (discovered[w] == 0) {
+							//Descend into an undiscovered room
+							parent[w] = v;
+							discovered[w] = low[w] = ++time;
+							stack[top++] = w;
+							if (v == root) {
+								rootChildren++;
+							}
+						} else if (w != parent[v]) {
+							low[v] = Math.min(low[v], discovered[w]);
+						}
+					} else {
+						//All neighbors are done, so return to the parent
+						top--;
+						int p = parent[v];
+						if (p >= 0) {
+							low[p] = Math.min(low[p], low[v]);
+							if (p != root && low[v] >= discovered[p]) {
+								articulation[p] = true;
+							}
+						}
+					}
+				}
+
+				//The root is only an articulation point with several subtrees
+				articulation[root] = rootChildren > 1;
+			}
+
+			List<String> chokepoints = new ArrayList<>();
+			for (int i = 0; i < n; i++) {
+				if (articulation[i]) {
+					chokepoints.add(roomFiles.get(i).name);
+				}
+			}
+
+			return chokepoints;
+		}
+	}
+
+	/**
+	 * Validate levels from the command line, printing a report for each. The
+	 * first argument is the root directory or level pack containing the level
+	 * directories, and the remaining arguments are the names of the levels to validate. If
+	 * no levels are named, all levels in the root directory are validated.
+	 * The exit status is 1 if any level has errors.
+	 *
+	 * @param args the root directory or level pack, followed by the names of
+	 *             the levels
+	 */
+	public static void main(String[] args) {
+		File root = new File(args.length > 0 ? args[0] : LevelDataReader.ROOT_DIRECTORY);
+		String[] levels = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new LevelDataReader(root).getLevels();
+		Arrays.sort(levels);
+
+		LevelValidator validator = new LevelValidator(root);
+		boolean errors = false;
+		for (String level : levels) {
+			LevelValidationReport report = validator.validate(level);
+			System.out.print(report);
+			errors |= report.hasErrors();
+		}
+
+		System.exit(errors ? 1 : 0);
+	}
+}
@@ -0,0 +1,248 @@
+package castleescape.data;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A version of a level, as it was in the level directory when the version was
+ * read. A new version replaces the current one whenever the files of the level
+ * change, after which new games are started with the new version.
+ * <p>
+ * Every game owns the objects of its level, so a game keeps playing the
+ * version that it was started with. The version counts the games playing it,
+ * which must {@link #release() release} it when they end. A version that has
+ * been replaced drops the level data that was read in advance for it, and is
+ * released once its last game ends.
+ * <p>
+ * A version keeps the {@link LevelBlueprint raw data} of its level, so that
+ * the level can be built again for a game of the version after the files of
+ * the level have changed, such as a game restored from a snapshot.
+ */
+public class LevelVersion {
+
+	/**
+	 * The name of the level.
+	 */
+	private final String levelName;
+
+	/**
+	 * The number of this version. The first version of a level is 1, and
+	 * versions of levels that were not preloaded are 0.
+	 */
+	private final long number;
+
+	/**
+	 * The time that this version was read, in milliseconds since the epoch.
+	 */
+	private final long readTime;
+
+	/**
+	 * The number of games playing this version.
+	 */
+	private final AtomicInteger sessions;
+
+	/**
+	 * Whether this is the version that new games are started with.
+	 */
+	private volatile boolean current;
+
+	/**
+	 * Whether this version has been released.
+	 */
+	private volatile boolean released;
+
+	/**
+	 * The level data read in advance for the next game of this version, or
+	 * null if none is being read. Guarded by this version.
+	 */
+	private Future<LevelDataStorage> spare;
+
+	/**
+	 * The raw data of the level, or null if no game has played this version
+	 * yet.
+	 */
+	private volatile LevelBlueprint blueprint;
+
+	/**
+	 * Constructs a new current version.
+	 *
+	 * @param levelName the name of the level
+	 * @param number    the number of the version
+	 * @param spare     the level data being read for the first game of the
+	 *                  version
+	 */
+	LevelVersion(String levelName, long number, Future<LevelDataStorage> spare) {
+		this.levelName = levelName;
+		this.number = number;
+		this.spare = spare;
+		readTime = System.currentTimeMillis();
+		sessions = new AtomicInteger();
+		current = true;
+	}
+
+	/**
+	 * Create a version for level data that was read for a single game rather
+	 * than preloaded. The version is never current, as the level is read
+	 * again for the next game, but it keeps the raw data of the level so that
+	 * the game can be built again without reading the level. It is released
+	 * once the game ends.
+	 *
+	 * @param levelName the name of the level
+	 * @param levelData the data of the level that the game plays
+	 * @return the version, acquired by the game
+	 */
+	static LevelVersion ofSingleGame(String levelName, LevelDataStorage levelData) {
+		LevelVersion version = new LevelVersion(levelName, 0, null);
+		version.current = false;
+		levelData.setVersion(version);
+		version.acquire(levelData);
+		return version;
+	}
+
+	/**
+	 * Get the name of the level.
+	 *
+	 * @return the name of the level
+	 */
+	public String getLevelName() {
+		return levelName;
+	}
+
+	/**
+	 * Get the number of this version. The first version of a level is 1, and
+	 * every new version gets the next number. Levels that were not preloaded
+	 * have version 0.
+	 *
+	 * @return the number of this version
+	 */
+	public long getNumber() {
+		return number;
+	}
+
+	/**
+	 * Get the time that this version was read.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getReadTime() {
+		return readTime;
+	}
+
+	/**
+	 * Get the number of games playing this version.
+	 *
+	 * @return the number of games
+	 */
+	public int getSessionCount() {
+		return sessions.get();
+	}
+
+	/**
+	 * Test whether this is the version that new games are started with.
+	 *
+	 * @return {@code true} if this version is current, {@code false} if it has
+	 *         been replaced
+	 */
+	public boolean isCurrent() {
+		return current;
+	}
+
+	/**
+	 * Test whether this version has been released, meaning that it has been
+	 * replaced and no games are playing it anymore.
+	 *
+	 * @return {@code true} if this version has been released, {@code false}
+	 *         otherwise
+	 */
+	public boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Notify this version that a game has started playing the specified
+	 * data of it.
+	 *
+	 * @param levelData the data of the level that the game plays
+	 */
+	void acquire(LevelDataStorage levelData) {
+		if (blueprint == null) {
+			blueprint = levelData.getBlueprint();
+		}
+
+		sessions.incrementAndGet();
+	}
+
+	/**
+	 * Build the data of this version again, for a game that replaces a game
+	 * of this version, such as a game restored from a snapshot. This can be
+	 * done after the version has been replaced, and the version is not
+	 * acquired again, as the game takes over from the game it replaces.
+	 *
+	 * @return the data of the level
+	 * @throws IllegalStateException if no game has played this version
+	 */
+	LevelDataStorage rebuild() {
+		LevelBlueprint levelBlueprint = blueprint;
+		if (levelBlueprint == null) {
+			throw new IllegalStateException("No game has played " + this);
+		}
+
+		LevelDataStorage levelData = levelBlueprint.build();
+		levelData.setVersion(this);
+		return levelData;
+	}
+
+	/**
+	 * Notify this version that a game playing it has ended. Must be called
+	 * once for every game that was started with this version.
+	 */
+	public void release() {
+		if (sessions.decrementAndGet() <= 0 && !current) {
+			released = true;
+		}
+	}
+
+	/**
+	 * Notify this version that it has been replaced by a newer version. No
+	 * more games are started with it, so the level data read in advance for
+	 * it is dropped, and it is released right away if no games are playing
+	 * it.
+	 */
+	void replace() {
+		current = false;
+		Future<LevelDataStorage> previous = replaceSpare(null);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+
+		if (sessions.get() <= 0) {
+			released = true;
+		}
+	}
+
+	/**
+	 * Replace the level data read in advance for the next game of this
+	 * version.
+	 *
+	 * @param next the level data being read for the game after that, or null
+	 *             if no more games should be started with this version
+	 * @return the level data read for the next game, or null if none was
+	 *         being read
+	 */
+	synchronized Future<LevelDataStorage> replaceSpare(Future<LevelDataStorage> next) {
+		Future<LevelDataStorage> previous = spare;
+		spare = current ? next : null;
+
+		//A replaced version needs no more data
+		if (!current && next != null) {
+			next.cancel(false);
+		}
+
+		return previous;
+	}
+
+	@Override
+	public String toString() {
+		return levelName + " version " + number;
+	}
+}
@@ -0,0 +1,158 @@
+package castleescape.data;
+
+/**
+ * Table of the distinct names read from the files of a level, so that every
+ * name exists once no matter how often it is repeated. A room is usually named
+ * by its own file, by the exits of its neighbours and by events, and every
+ * exit repeats a direction.
+ * <p>
+ * Names are looked up directly in the characters read by the parser, so a
+ * name that has been read before is found without creating a string. The
+ * table uses open addressing with linear probing, and is only used by one
+ * thread at a time.
+ */
+class NameTable {
+
+	/**
+	 * The number of slots in a new table. Must be a power of two.
+	 */
+	private static final int INITIAL_CAPACITY = 256;
+
+	/**
+	 * The names in the table, placed by their hash codes. Empty slots are
+	 * null.
+	 */
+	private String[] names;
+
+	/**
+	 * The number of names in the table.
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new table containing the names of all elements, so that
+	 * content repeating an element name, such as a direction, shares it.
+	 */
+	NameTable() {
+		names = new String[INITIAL_CAPACITY];
+		for (ElementToken token : ElementToken.values()) {
+			String name = token.getName();
+			intern(name.toCharArray(), 0, name.length(), name);
+		}
+	}
+
+	/**
+	 * Get the name consisting of the specified characters, adding it to the
+	 * table if it has not been read before.
+	 *
+	 * @param ch     the array containing the characters
+	 * @param start  the index of the first character
+	 * @param length the number of characters
+	 * @return the name
+	 */
+	String intern(char[] ch, int start, int length) {
+		return intern(ch, start, length, null);
+	}
+
+	/**
+	 * Get the name consisting of the specified characters, adding it to the
+	 * table if it has not been read before.
+	 *
+	 * @param ch       the array containing the characters
+	 * @param start    the index of the first character
+	 * @param length   the number of characters
+	 * @param existing a string consisting of the characters to add to the
+	 *                 table, or null to create one
+	 * @return the name
+	 */
+	private String intern(char[] ch, int start, int length, String existing) {
+		//Hash like a string, so that the hash of a name is the same in the
+		//table and out of it
+		int hash = 0;
+		for (int i = start; i < start + length; i++) {
+			hash = 31 * hash + ch[i];
+		}
+
+		int mask = names.length - 1;
+		int slot = spread(hash) & mask;
+		while (names[slot] != null) {
+			String name = names[slot];
+			if (name.hashCode() == hash && matches(name, ch, start, length)) {
+				return name;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		String name = existing == null ? new String(ch, start, length) : existing;
+		names[slot] = name;
+		if (++size * 2 > names.length) {
+			grow();
+		}
+
+		return name;
+	}
+
+	/**
+	 * Get the number of distinct names in the table.
+	 *
+	 * @return the number of names
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Test whether the specified name consists of the specified characters.
+	 *
+	 * @param name   the name
+	 * @param ch     the array containing the characters
+	 * @param start  the index of the first character
+	 * @param length the number of characters
+	 * @return {@code true} if the name consists of the characters,
+	 *         {@code false} otherwise
+	 */
+	private static boolean matches(String name, char[] ch, int start, int length) {
+		if (name.length() != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != ch[start + i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Spread the bits of a hash code, as names often differ only in their
+	 * last characters.
+	 *
+	 * @param hash the hash code
+	 * @return the spread hash code
+	 */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Double the number of slots in the table, placing every name anew.
+	 */
+	private void grow() {
+		String[] old = names;
+		names = new String[old.length * 2];
+		int mask = names.length - 1;
+		for (String name : old) {
+			if (name != null) {
+				int slot = spread(name.hashCode()) & mask;
+				while (names[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+
+				names[slot] = name;
+			}
+		}
+	}
+}
@@ -49,16 +49,6 @@ public class RoomBuilder implements IBuilder {
 	 */
 	protected Room result;
 
-	/**
-	 * The name of a data element accepted by this builder.
-	 */
-	public static final String OBJECT = "object",
-			ITEM = "item",
-			NORTH = "north",
-			SOUTH = "south",
-			EAST = "east",
-			WEST = "west";
-
 	/**
 	 * Constructs a new room builder.
 	 */
@@ -69,12 +59,12 @@ public class RoomBuilder implements IBuilder {
 	}
 
 	@Override
-	public void notifyOfElement(String element) {
+	public void notifyOfElement(ElementToken element) {
 		//The room builder does not need to do anything here
 	}
 
 	@Override
-	public void processElement(String element, String content) {
+	public void processElement(ElementToken element, String content) {
 		switch (element) {
 			case NAME:
 				//Reading the name
@@ -98,7 +88,7 @@ public class RoomBuilder implements IBuilder {
 			case WEST:
 				//Reading an exit. The element specifies the direction, while
 				//the content specifies the name of the room to connect to
-				exits.put(element, content);
+				exits.put(element.getName(), content);
 				break;
 		}
 	}
@@ -6,10 +6,15 @@
 package castleescape.data;
 
 import castleescape.business.framework.Score;
+import castleescape.business.framework.ScoreDistribution;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -27,6 +32,12 @@ public class ScoreFileManager {
 	 */
 	private static final String HIGHSCORE_FILE = "HighScores.txt";
 
+	/**
+	 * The suffix for all score distribution files. The prefix will be the name
+	 * of the level, like for the score files.
+	 */
+	private static final String DISTRIBUTION_FILE = "ScoreDistribution.dat";
+
 	/**
 	 * The string that separates names and scores in the score files.
 	 */
@@ -38,6 +49,15 @@ public class ScoreFileManager {
 	 */
 	private final List<Score> scores;
 
+	/**
+	 * The writer appending scores to the score files in the background, or
+	 * null if no score has been saved yet. The writer is shared by all score
+	 * file managers, as the score files can only be locked once per process.
+	 * Only replaced while holding the lock of this class, but read without
+	 * it, so that saving a score never waits for another thread.
+	 */
+	private static volatile ScoreWriter writer;
+
 	/**
 	 * Constructs a new score file manager.
 	 */
@@ -54,6 +74,22 @@ public class ScoreFileManager {
 	public void readScores(String levelName) {
 		//Reset data for new run
 		scores.clear();
+		scores.addAll(loadScores(levelName));
+	}
+
+	/**
+	 * Read the player scores for the level with the specified name, without
+	 * keeping them in this score file manager. Unlike
+	 * {@link #readScores(String)}, this can be called by many threads at once.
+	 *
+	 * @param levelName the name of the level for which to read scores
+	 * @return the scores, or an empty list if the level has no scores
+	 */
+	public List<Score> loadScores(String levelName) {
+		List<Score> scores = new ArrayList<>();
+
+		//Scores that are still waiting to be written must be read as well
+		flushWriter();
 
 		//Create a file object from the path at which the file should be
 		File scoreFile = new File(levelName + HIGHSCORE_FILE);
@@ -61,24 +97,48 @@ public class ScoreFileManager {
 		//If the score file does not exist, return now, as there is nothing to
 		//read
 		if (!scoreFile.exists()) {
-			return;
+			return scores;
+		}
+
+		//Read the file while no other thread of this process has it locked
+		synchronized (ScoreWriter.PROCESS_LOCK) {
+			readScores(levelName, scoreFile, scores);
 		}
 
+		return scores;
+	}
+
+	/**
+	 * Read the player scores in the specified file, locking it while it is
+	 * read.
+	 *
+	 * @param levelName the name of the level that the scores were achieved in
+	 * @param scoreFile the file to read
+	 * @param scores    the list to add the scores to
+	 */
+	private void readScores(String levelName, File scoreFile, List<Score> scores) {
 		//Use try-with-resources to create and use a scanner on a file. This
 		//will automatically close the scanner if something goes wrong and is
-		//the preferred way to handle IO operations.
-		try (Scanner scanner = new Scanner(scoreFile)) {
+		//the preferred way to handle IO operations. The file is locked while
+		//it is read, so that scores written by other processes are never
+		//read halfway. Closing the channel releases the lock.
+		try (FileChannel channel = FileChannel.open(scoreFile.toPath(), StandardOpenOption.READ);
+				Scanner scanner = new Scanner(Channels.newInputStream(channel))) {
+			channel.lock(0, Long.MAX_VALUE, true);
 
 			//Loop through all lines in the file
 			while (scanner.hasNextLine()) {
 				//Get the name and score on the line as separate strings. The
-				//file is assumed to be well formatted.
-				String[] lineContent = scanner.nextLine().split(SCORE_ELEMENT_SEPARATOR);
+				//file is assumed to be well formatted. Scores saved before
+				//the time and character were recorded only have two elements
+				String[] lineContent = scanner.nextLine().split(SCORE_ELEMENT_SEPARATOR, 4);
 
 				//Get the name and score from the current line
 				String name = lineContent[0];
 				int points = Integer.parseInt(lineContent[1]);
-				Score score = new Score(name, points);
+				long timestamp = lineContent.length > 2 ? Long.parseLong(lineContent[2]) : 0;
+				String characterName = lineContent.length > 3 && !lineContent[3].isEmpty() ? lineContent[3] : null;
+				Score score = new Score(name, points, levelName, characterName, timestamp);
 
 				//Add the score to the list
 				scores.add(score);
@@ -86,38 +146,148 @@ public class ScoreFileManager {
 
 			//Close the scanner for good measure
 			scanner.close();
-		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
 	 * Save the specified score to the score file associated with the specified
-	 * level name. If no such file exists, it will be created when calling this
-	 * method.
+	 * level name. If no such file exists, it will be created. The score is
+	 * written in the background, so this method returns before the score is
+	 * in the file.
 	 *
 	 * @param levelName the name of the level for which to save the score
 	 * @param score     the score to save
 	 */
 	public void saveScore(String levelName, Score score) {
-		//Use try-with-resources to create and use a filewriter. This will
-		//automatically close the filewriter if something goes wrong and is the
-		//preferred way to handle IO operations.
-		try (FileWriter writer = new FileWriter(levelName + HIGHSCORE_FILE, true)) {
-
-			//Write the score to a new line in the score file
-			writer.write(score.getPlayerName() + SCORE_ELEMENT_SEPARATOR + score.getPlayerScore() + "\n");
-
-			//Ensure that all data has actually been written out. Some IO
-			//implementations use buffering to enhance performance, but closing
-			//the stream before any buffered input has been written out will
-			//cause the buffered data to be lost.
-			writer.flush();
-
-			//Close the filewriter
-			writer.close();
+		while (true) {
+			try {
+				getWriter().write(levelName + HIGHSCORE_FILE, score);
+				return;
+			} catch (IllegalStateException ex) {
+				//The writer was closed meanwhile, so a new one must be used
+				awaitClose();
+			}
+		}
+	}
+
+	/**
+	 * Read the score distribution of the level with the specified name.
+	 *
+	 * @param levelName the name of the level for which to read the
+	 *                  distribution
+	 * @return the distribution, or null if it has not been saved or could not
+	 *         be read
+	 */
+	public ScoreDistribution readDistribution(String levelName) {
+		//A distribution that is still waiting to be saved must be read instead
+		//of the one before it
+		flushWriter();
+
+		File distributionFile = new File(levelName + DISTRIBUTION_FILE);
+		if (!distributionFile.exists()) {
+			return null;
+		}
+
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(distributionFile.toPath()))) {
+			return ScoreDistribution.readFrom(in);
 		} catch (IOException e) {
+			//The distribution can be computed from the scores again
 			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Save the specified score distribution for the level with the specified
+	 * name, replacing the distribution saved before. The distribution is
+	 * saved in the background along with the scores, so this method returns
+	 * before the distribution is in the file.
+	 *
+	 * @param levelName    the name of the level for which to save the
+	 *                     distribution
+	 * @param distribution the distribution to save
+	 */
+	public void saveDistribution(String levelName, ScoreDistribution distribution) {
+		while (true) {
+			try {
+				getWriter().write(levelName + DISTRIBUTION_FILE, distribution);
+				return;
+			} catch (IllegalStateException ex) {
+				//The writer was closed meanwhile, so a new one must be used
+				awaitClose();
+			}
+		}
+	}
+
+	/**
+	 * Get the writer saving scores and distributions in the background,
+	 * starting it when it is first needed, so that only applications saving
+	 * scores have a writer thread. The lock of this class is only taken to
+	 * start the writer. The writer may be closed as soon as it is returned,
+	 * in which case the caller must {@link #awaitClose() wait} for it to
+	 * close and get the writer again.
+	 *
+	 * @return the writer
+	 */
+	private static ScoreWriter getWriter() {
+		ScoreWriter current = writer;
+		if (current == null) {
+			synchronized (ScoreFileManager.class) {
+				current = writer;
+				if (current == null) {
+					current = new ScoreWriter();
+					writer = current;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	/**
+	 * Wait until all scores that have been saved are in the score files. The
+	 * writer is flushed without locking this class, so that threads saving
+	 * scores meanwhile are not held up.
+	 */
+	private static void flushWriter() {
+		ScoreWriter current = writer;
+		if (current == null) {
+			return;
+		}
+
+		try {
+			current.flush();
+		} catch (IllegalStateException ex) {
+			//Closing the writer writes every queued score as well
+			awaitClose();
+		}
+	}
+
+	/**
+	 * Wait until the writer that is being closed has written all its scores
+	 * and been replaced by null. The writer is closed while holding the lock
+	 * of this class, so this only has to take the lock.
+	 */
+	private static void awaitClose() {
+		synchronized (ScoreFileManager.class) {
+			//The writer has been closed once the lock is held
+		}
+	}
+
+	/**
+	 * Write all scores that are waiting to be written, and close the score
+	 * files. Should be called before the application exits, as scores that
+	 * have not been written are otherwise lost. Saving another score starts
+	 * a new writer.
+	 */
+	public void close() {
+		synchronized (ScoreFileManager.class) {
+			if (writer != null) {
+				writer.close();
+				writer = null;
+			}
 		}
 	}
 
@@ -0,0 +1,574 @@
+package castleescape.data;
+
+import castleescape.business.framework.Score;
+import castleescape.business.framework.ScoreDistribution;
+import castleescape.shared.jfr.ScoreSaveEvent;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class for appending scores to score files in the background. Scores are put
+ * in a bounded queue and written by a single writer thread, so that saving a
+ * score never waits for the file system, unless the queue is full.
+ * <p>
+ * The writer thread takes all scores that are waiting in the queue at once,
+ * and appends the scores of each level with a single write to a file channel
+ * that is kept open until the writer is closed. Many scores saved around the
+ * same time thus cost a single write. The file is locked during the write, so
+ * that the scores are not interleaved with scores written by other processes.
+ * When the written scores are forced to the storage device is decided by the
+ * {@link SyncPolicy}.
+ * <p>
+ * Score distributions are saved by the writer thread as well, replacing the
+ * distribution file of a level as a whole. Only the latest distribution of a
+ * level in a batch is saved, so a distribution saved along with every score
+ * is still saved once per batch.
+ * <p>
+ * File locks are held by the whole process and cannot overlap within it, so
+ * score files are only locked while holding {@link #PROCESS_LOCK}, and only
+ * one writer should write to a file at a time.
+ * <p>
+ * Closing the writer writes all scores that are still queued before the
+ * channels are closed.
+ */
+public class ScoreWriter implements Closeable {
+
+	/**
+	 * The policies for forcing written scores to the storage device.
+	 */
+	public enum SyncPolicy {
+		/**
+		 * Force the files after every batch of scores. No saved score is lost
+		 * if the machine crashes after the batch has been written.
+		 */
+		EVERY_BATCH,
+		/**
+		 * Force the files at most once per sync interval. Scores written since
+		 * the last sync may be lost if the machine crashes, but not if only
+		 * the application does.
+		 */
+		INTERVAL
+	}
+
+	/**
+	 * The default capacity of the queue.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The default sync interval, in milliseconds.
+	 */
+	public static final long DEFAULT_SYNC_INTERVAL = 1000;
+
+	/**
+	 * The string that separates names and scores in the score files.
+	 */
+	private static final String SCORE_ELEMENT_SEPARATOR = ":";
+
+	/**
+	 * The lock to hold while a score file is locked. File locks cannot overlap
+	 * within a process, so threads of the same process take turns.
+	 */
+	static final Object PROCESS_LOCK = new Object();
+
+	/**
+	 * The scores waiting to be written.
+	 */
+	private final BlockingQueue<Request> queue;
+
+	/**
+	 * When written scores are forced to the storage device.
+	 */
+	private final SyncPolicy syncPolicy;
+
+	/**
+	 * The minimum time between forcing the files, in milliseconds, if the
+	 * policy is {@link SyncPolicy#INTERVAL}.
+	 */
+	private final long syncInterval;
+
+	/**
+	 * The thread writing the scores.
+	 */
+	private final Thread thread;
+
+	/**
+	 * The open channels of the score files, by file name. Only used by the
+	 * writer thread.
+	 */
+	private final Map<String, FileChannel> channels;
+
+	/**
+	 * The buffer that the scores of a level are collected in before they are
+	 * written. Only used by the writer thread.
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * Whether any channel has been written to since the files were last
+	 * forced. Only used by the writer thread.
+	 */
+	private boolean unsynced;
+
+	/**
+	 * The time that the files were last forced, in milliseconds. Only used by
+	 * the writer thread.
+	 */
+	private long lastSync;
+
+	/**
+	 * Whether the writer has been closed. Only changed while holding the lock
+	 * of this writer, which requests are also queued under, so that no
+	 * request is queued once the writer thread may have stopped.
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Constructs a new score writer with the default capacity, forcing the
+	 * files at most once per second.
+	 */
+	public ScoreWriter() {
+		this(DEFAULT_CAPACITY, SyncPolicy.INTERVAL, DEFAULT_SYNC_INTERVAL);
+	}
+
+	/**
+	 * Constructs a new score writer and starts its writer thread.
+	 *
+	 * @param capacity     the number of scores that can wait to be written
+	 *                     before saving a score blocks
+	 * @param syncPolicy   when written scores are forced to the storage device
+	 * @param syncInterval the minimum time between forcing the files, in
+	 *                     milliseconds, if the policy is
+	 *                     {@link SyncPolicy#INTERVAL}
+	 */
+	public ScoreWriter(int capacity, SyncPolicy syncPolicy, long syncInterval) {
+		queue = new ArrayBlockingQueue<>(capacity);
+		this.syncPolicy = syncPolicy;
+		this.syncInterval = syncInterval;
+		channels = new HashMap<>();
+		buffer = ByteBuffer.allocateDirect(4096);
+
+		//The thread is a daemon, so that it does not keep the application
+		//alive. Closing the writer is what guarantees that scores are written
+		thread = new Thread(this::run, "Score writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queue the specified score to be appended to the specified score file.
+	 * This only blocks if the queue is full.
+	 *
+	 * @param fileName the name of the score file
+	 * @param score    the score to append
+	 * @throws IllegalStateException if the writer has been closed
+	 */
+	public void write(String fileName, Score score) {
+		//The name of the player comes first and the character last, as only
+		//these can be missing. The level is given by the file
+		String characterName = score.getCharacterName() == null ? "" : score.getCharacterName();
+		enqueue(new Request(fileName, score.getPlayerName() + SCORE_ELEMENT_SEPARATOR + score.getPlayerScore()
+				+ SCORE_ELEMENT_SEPARATOR + score.getTimestamp() + SCORE_ELEMENT_SEPARATOR + characterName + "\n",
+				score.getPlayerScore()));
+	}
+
+	/**
+	 * Queue the specified distribution to replace the specified distribution
+	 * file. The distribution is written as it is when the writer thread gets
+	 * to it, so it must be safe to read while it is being changed. This only
+	 * blocks if the queue is full.
+	 *
+	 * @param fileName     the name of the distribution file
+	 * @param distribution the distribution to save
+	 * @throws IllegalStateException if the writer has been closed
+	 */
+	public void write(String fileName, ScoreDistribution distribution) {
+		enqueue(new Request(fileName, distribution));
+	}
+
+	/**
+	 * Wait until all scores queued before this call have been written. This
+	 * should be called before reading a score file that scores have been
+	 * queued for.
+	 *
+	 * @throws IllegalStateException if the writer has been closed
+	 */
+	public void flush() {
+		Request barrier = new Request();
+		enqueue(barrier);
+
+		boolean interrupted = false;
+		while (true) {
+			try {
+				barrier.written.await();
+				break;
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Write all queued scores, force them to the storage device and close the
+	 * score files. Scores can no longer be written afterwards.
+	 */
+	@Override
+	public void close() {
+		//Requests that are being queued are in the queue once the lock is
+		//held, and no more are queued afterwards
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+		}
+
+		//Wake up the writer thread, which stops once the queue is empty
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(new Request());
+				break;
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Put the specified request in the queue, waiting for room if the queue is
+	 * full.
+	 *
+	 * @param request the request
+	 * @throws IllegalStateException if the writer has been closed
+	 */
+	private void enqueue(Request request) {
+		boolean interrupted = false;
+
+		//The writer must not be closed between the test and the put, or the
+		//request could be put after the writer thread has stopped. The writer
+		//thread keeps taking requests while the lock is held, so a full queue
+		//is only waited for as usual
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("The score writer has been closed");
+			}
+
+			while (true) {
+				try {
+					queue.put(request);
+					break;
+				} catch (InterruptedException ex) {
+					//Dropping the score is worse than finishing the wait
+					interrupted = true;
+				}
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The loop of the writer thread. Every iteration writes all requests that
+	 * are waiting in the queue.
+	 */
+	private void run() {
+		List<Request> batch = new ArrayList<>();
+		Map<String, List<Request>> byFile = new LinkedHashMap<>();
+		Map<String, ScoreDistribution> distributions = new LinkedHashMap<>();
+
+		while (!closed || !queue.isEmpty()) {
+			//Wait for the next request, but wake up in time to force the files
+			//if the interval has passed
+			Request first;
+			try {
+				first = unsynced && syncPolicy == SyncPolicy.INTERVAL
+						? queue.poll(Math.max(1, lastSync + syncInterval - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+						: queue.take();
+			} catch (InterruptedException ex) {
+				//Only closing the writer stops the thread
+				continue;
+			}
+
+			if (first != null) {
+				batch.add(first);
+				queue.drainTo(batch);
+
+				//Group the scores by file, keeping the order of each file. Only
+				//the latest distribution of every file is kept
+				for (Request request : batch) {
+					if (request.distribution != null) {
+						distributions.put(request.fileName, request.distribution);
+					} else if (!request.isBarrier()) {
+						byFile.computeIfAbsent(request.fileName, f -> new ArrayList<>()).add(request);
+					}
+				}
+
+				for (Map.Entry<String, List<Request>> file : byFile.entrySet()) {
+					append(file.getKey(), file.getValue());
+				}
+
+				for (Map.Entry<String, ScoreDistribution> file : distributions.entrySet()) {
+					replace(file.getKey(), file.getValue());
+				}
+			}
+
+			boolean intervalPassed = System.currentTimeMillis() - lastSync >= syncInterval;
+			if (unsynced && (syncPolicy == SyncPolicy.EVERY_BATCH || intervalPassed)) {
+				sync();
+			}
+
+			//Release the callers waiting for the batch to be written
+			for (Request request : batch) {
+				if (request.isBarrier()) {
+					request.written.countDown();
+				}
+			}
+
+			batch.clear();
+			byFile.clear();
+			distributions.clear();
+		}
+
+		//Everything has been written, so force and close the files
+		sync();
+		for (FileChannel channel : channels.values()) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+		channels.clear();
+	}
+
+	/**
+	 * Append the specified scores to the specified score file with a single
+	 * write.
+	 *
+	 * @param fileName the name of the score file
+	 * @param requests the scores to append
+	 */
+	private void append(String fileName, List<Request> requests) {
+		ScoreSaveEvent event = new ScoreSaveEvent();
+		event.begin();
+
+		//Collect all lines in the buffer, growing it if needed
+		buffer.clear();
+		for (Request request : requests) {
+			byte[] bytes = request.line.getBytes(Charset.defaultCharset());
+			if (buffer.remaining() < bytes.length) {
+				ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes.length));
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+			buffer.put(bytes);
+		}
+		buffer.flip();
+
+		try {
+			FileChannel channel = channels.get(fileName);
+			if (channel == null) {
+				channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				channels.put(fileName, channel);
+			}
+
+			//Other processes wait for the lock, and the lock is released when
+			//the scores have been written
+			synchronized (PROCESS_LOCK) {
+				FileLock lock = channel.lock();
+				try {
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				} finally {
+					lock.release();
+				}
+			}
+			unsynced = true;
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.level = fileName;
+			event.score = requests.get(requests.size() - 1).score;
+			event.count = requests.size();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Replace the specified distribution file with the specified
+	 * distribution. The distribution is written to a temporary file first,
+	 * which then replaces the old file, so that readers never see a
+	 * distribution that is written halfway.
+	 *
+	 * @param fileName     the name of the distribution file
+	 * @param distribution the distribution to save
+	 */
+	private void replace(String fileName, ScoreDistribution distribution) {
+		Path distributionFile = new File(fileName).getAbsoluteFile().toPath();
+		Path temporaryFile = null;
+		try {
+			temporaryFile = Files.createTempFile(distributionFile.getParent(), fileName, ".tmp");
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+				distribution.writeTo(out);
+			}
+
+			Files.move(temporaryFile, distributionFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+
+			//Do not leave the temporary file behind
+			if (temporaryFile != null) {
+				temporaryFile.toFile().delete();
+			}
+		}
+	}
+
+	/**
+	 * Force everything written to the score files to the storage device.
+	 */
+	private void sync() {
+		for (FileChannel channel : channels.values()) {
+			try {
+				channel.force(false);
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		}
+
+		unsynced = false;
+		lastSync = System.currentTimeMillis();
+	}
+
+	/**
+	 * A score or distribution waiting to be written, or a barrier that callers
+	 * can wait for.
+	 */
+	private static class Request {
+
+		/**
+		 * The name of the score file, or null if this request is a barrier.
+		 */
+		private final String fileName;
+
+		/**
+		 * The line to append to the score file.
+		 */
+		private final String line;
+
+		/**
+		 * The score, for diagnostic purposes.
+		 */
+		private final int score;
+
+		/**
+		 * The distribution to save, or null if this request is not a
+		 * distribution.
+		 */
+		private final ScoreDistribution distribution;
+
+		/**
+		 * Counted down when a barrier has been reached by the writer thread,
+		 * or null if this request is a score or distribution.
+		 */
+		private final CountDownLatch written;
+
+		/**
+		 * Constructs a new request for writing a score.
+		 *
+		 * @param fileName the name of the score file
+		 * @param line     the line to append to the score file
+		 * @param score    the score, for diagnostic purposes
+		 */
+		Request(String fileName, String line, int score) {
+			this.fileName = fileName;
+			this.line = line;
+			this.score = score;
+			distribution = null;
+			written = null;
+		}
+
+		/**
+		 * Constructs a new request for saving a distribution.
+		 *
+		 * @param fileName     the name of the distribution file
+		 * @param distribution the distribution to save
+		 */
+		Request(String fileName, ScoreDistribution distribution) {
+			this.fileName = fileName;
+			this.distribution = distribution;
+			line = null;
+			score = 0;
+			written = null;
+		}
+
+		/**
+		 * Constructs a new barrier, which callers can wait for to be reached
+		 * by the writer thread.
+		 */
+		Request() {
+			fileName = null;
+			line = null;
+			score = 0;
+			distribution = null;
+			written = new CountDownLatch(1);
+		}
+
+		/**
+		 * Test whether this request is a barrier rather than a score.
+		 *
+		 * @return {@code true} if this request is a barrier, {@code false}
+		 *         otherwise
+		 */
+		boolean isBarrier() {
+			return written != null;
+		}
+	}
+}
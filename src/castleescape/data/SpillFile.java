@@ -0,0 +1,215 @@
+package castleescape.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class defining a memory-mapped file for temporarily storing blocks of binary
+ * data outside of the heap. The operating system decides which parts of the
+ * file are kept in memory, so blocks that are rarely read cost next to
+ * nothing.
+ * <p>
+ * Blocks are referred to by handles returned from {@link #write(ByteBuffer)}.
+ * Freed blocks are reused for new blocks of the same size or smaller, and the
+ * file grows when there is no room left. The contents of the file are only
+ * meaningful while it is open, so it is truncated when opened and deleted
+ * when closed.
+ */
+public class SpillFile implements Closeable {
+
+	/**
+	 * The size of the header in front of every block. The header contains
+	 * the capacity of the block and the length of the data in it.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/**
+	 * The granularity of block capacities. Rounding capacities up makes it
+	 * more likely that freed blocks can be reused.
+	 */
+	private static final int BLOCK_ALIGNMENT = 64;
+
+	/**
+	 * The file backing this spill file.
+	 */
+	private final File file;
+
+	/**
+	 * The channel of the file.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The mapping of the file into memory.
+	 */
+	private MappedByteBuffer map;
+
+	/**
+	 * The offset of the end of the last block in the file. Everything after
+	 * this offset is unused.
+	 */
+	private int end;
+
+	/**
+	 * The offsets of freed blocks, grouped by the capacity of the blocks.
+	 */
+	private final TreeMap<Integer, Deque<Integer>> freeBlocks;
+
+	/**
+	 * Constructs a new spill file backed by the specified file. Any existing
+	 * contents of the file are discarded.
+	 *
+	 * @param file            the file to back the spill file
+	 * @param initialCapacity the initial size of the file, in bytes
+	 * @throws IOException if the file could not be opened or mapped
+	 */
+	public SpillFile(File file, int initialCapacity) throws IOException {
+		this.file = file;
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		randomAccessFile.setLength(0);
+		channel = randomAccessFile.getChannel();
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialCapacity, BLOCK_ALIGNMENT));
+
+		freeBlocks = new TreeMap<>();
+	}
+
+	/**
+	 * Write the remaining bytes of the specified buffer to a new block in this
+	 * file.
+	 *
+	 * @param data the data to write
+	 * @return the handle of the block that was written
+	 * @throws IOException if the file had to grow and this failed
+	 */
+	public synchronized int write(ByteBuffer data) throws IOException {
+		int length = data.remaining();
+		int offset = allocate(align(HEADER_SIZE + length));
+
+		map.putInt(offset + 4, length);
+		ByteBuffer target = map.duplicate();
+		target.position(offset + HEADER_SIZE);
+		target.put(data);
+
+		return offset;
+	}
+
+	/**
+	 * Get the data in the block with the specified handle. The returned buffer
+	 * is only valid until the block is {@link #free(int) freed}.
+	 *
+	 * @param handle the handle of the block
+	 * @return a read-only buffer containing the data of the block
+	 */
+	public synchronized ByteBuffer read(int handle) {
+		ByteBuffer data = map.asReadOnlyBuffer();
+		data.position(handle + HEADER_SIZE);
+		data.limit(handle + HEADER_SIZE + map.getInt(handle + 4));
+		return data.slice();
+	}
+
+	/**
+	 * Free the block with the specified handle, making its space available for
+	 * new blocks.
+	 *
+	 * @param handle the handle of the block
+	 */
+	public synchronized void free(int handle) {
+		int capacity = map.getInt(handle);
+
+		//Blocks at the end of the file are simply given back
+		if (handle + capacity == end) {
+			end = handle;
+			return;
+		}
+
+		freeBlocks.computeIfAbsent(capacity, c -> new ArrayDeque<>()).push(handle);
+	}
+
+	/**
+	 * Get the size of the part of the file that is in use, including freed
+	 * blocks that have not been reused yet.
+	 *
+	 * @return the size of the used part of the file, in bytes
+	 */
+	public synchronized int getSize() {
+		return end;
+	}
+
+	/**
+	 * Find room for a block with the specified capacity, growing the file if
+	 * necessary.
+	 *
+	 * @param capacity the capacity of the block, including its header
+	 * @return the offset of the block
+	 * @throws IOException if the file had to grow and this failed
+	 */
+	private int allocate(int capacity) throws IOException {
+		//Use the smallest freed block that is large enough
+		Map.Entry<Integer, Deque<Integer>> best = freeBlocks.ceilingEntry(capacity);
+		if (best != null) {
+			int offset = best.getValue().pop();
+			if (best.getValue().isEmpty()) {
+				freeBlocks.remove(best.getKey());
+			}
+
+			//Split off the remainder of the block if it is worth reusing
+			int remainder = best.getKey() - capacity;
+			if (remainder >= capacity) {
+				map.putInt(offset + capacity, remainder);
+				freeBlocks.computeIfAbsent(remainder, c -> new ArrayDeque<>()).push(offset + capacity);
+			} else {
+				capacity = best.getKey();
+			}
+
+			map.putInt(offset, capacity);
+			return offset;
+		}
+
+		//Otherwise append the block, growing the file if it does not fit
+		if (end + capacity > map.capacity()) {
+			long newSize = Math.max((long) map.capacity() * 2, (long) end + capacity);
+			if (newSize > Integer.MAX_VALUE) {
+				throw new IOException("Spill file is full");
+			}
+
+			map = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+		}
+
+		int offset = end;
+		end += capacity;
+		map.putInt(offset, capacity);
+		return offset;
+	}
+
+	/**
+	 * Round the specified size up to the block alignment.
+	 *
+	 * @param size the size to round
+	 * @return the rounded size
+	 */
+	private static int align(int size) {
+		return (size + BLOCK_ALIGNMENT - 1) & -BLOCK_ALIGNMENT;
+	}
+
+	/**
+	 * Close this spill file and delete the file backing it. All handles are
+	 * invalid afterwards.
+	 *
+	 * @throws IOException if the file could not be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		channel.close();
+		file.delete();
+	}
+}
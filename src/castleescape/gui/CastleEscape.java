@@ -19,6 +19,11 @@ import javafx.stage.Stage;
  */
 public class CastleEscape extends Application {
 
+	/**
+	 * The business mediator for communicating with the game logic.
+	 */
+	private BusinessMediator bm;
+
 	/**
 	 * This method is automatically called by the JavaFX framework. It loads the
 	 * .fxml document describing our user interface and sets it up to receive
@@ -32,7 +37,7 @@ public class CastleEscape extends Application {
 	public void start(Stage stage) throws IOException {
 		//Construct a new business mediator for communicating with the game
 		//logic
-		BusinessMediator bm = new BusinessMediator();
+		bm = new BusinessMediator();
 
 		//Load the .fxml document describing our user interface
 		FXMLLoader loader = new FXMLLoader(getClass().getResource("GameGuiView.fxml"));
@@ -52,6 +57,17 @@ public class CastleEscape extends Application {
 		stage.show();
 	}
 
+	/**
+	 * This method is automatically called by the JavaFX framework when the
+	 * application exits. It makes sure that all saved scores are written.
+	 */
+	@Override
+	public void stop() {
+		if (bm != null) {
+			bm.close();
+		}
+	}
+
 	/**
 	 * @param args the command line arguments
 	 */
@@ -37,6 +37,12 @@ import javafx.scene.web.WebView;
  */
 public class GameGuiController implements Initializable, GameListener {
 
+	/**
+	 * The periods of time that the user can see the highscores of. The first
+	 * period is chosen by default.
+	 */
+	private static final String[] HIGHSCORE_PERIODS = {"All time", "This week", "Today"};
+
 	/**
 	 * Images for rendering the map part of the GUI.
 	 */
@@ -50,6 +56,11 @@ public class GameGuiController implements Initializable, GameListener {
 	 */
 	private BusinessMediator businessMediator;
 
+	/**
+	 * The name of the character that the user plays as.
+	 */
+	private String characterName;
+
 	/* Buttons */
 	@FXML
 	private Button northButton;
@@ -72,6 +83,8 @@ public class GameGuiController implements Initializable, GameListener {
 	@FXML
 	private Button helpButton;
 	@FXML
+	private Button hintButton;
+	@FXML
 	private Button peekButton;
 	@FXML
 	private Button highscoreButton;
@@ -187,6 +200,14 @@ public class GameGuiController implements Initializable, GameListener {
 		businessMediator.notifyHelp();
 	}
 
+	/**
+	 * Called when the hint button is pressed.
+	 */
+	@FXML
+	private void onHintButtonAction() {
+		businessMediator.notifyHint();
+	}
+
 	/**
 	 * Called when the peek button is pressed.
 	 */
@@ -200,7 +221,30 @@ public class GameGuiController implements Initializable, GameListener {
 	 */
 	@FXML
 	private void onHighscoreButtonAction() {
-		businessMediator.notifyHighscores();
+		//Create choice dialog for the user to select the period of time to
+		//see the highscores of
+		ChoiceDialog<String> choiceDialog = new ChoiceDialog<>(HIGHSCORE_PERIODS[0], HIGHSCORE_PERIODS);
+		choiceDialog.setHeaderText("Which highscores would you like to see?");
+		choiceDialog.setTitle("Highscores");
+
+		//Get the result of opening the dialog, and do nothing if the user
+		//dismissed it
+		Optional<String> result = choiceDialog.showAndWait();
+		if (!result.isPresent()) {
+			return;
+		}
+
+		switch (result.get()) {
+			case "This week":
+				businessMediator.notifyHighscores("week");
+				break;
+			case "Today":
+				businessMediator.notifyHighscores("day");
+				break;
+			default:
+				businessMediator.notifyHighscores();
+				break;
+		}
 	}
 	
 	/**
@@ -427,13 +471,24 @@ public class GameGuiController implements Initializable, GameListener {
 	}
 
 	/**
-	 * Request the user to enter a player name and save the player's score.
+	 * Tell the user how the score compares to the scores of other players,
+	 * then request the user to enter a player name and save the player's
+	 * score.
 	 */
 	private void getNameAndSaveScore() {
+		//Compare the score to the scores recorded before, and to the usual
+		//score of the chosen character
+		String summary = "You scored " + businessMediator.getCurrentScore() + " points, ranking "
+				+ businessMediator.getCurrentRank() + " and beating "
+				+ Math.round(businessMediator.getPercentageBeaten()) + "% of the players.\n"
+				+ "The median score as " + characterName + " is "
+				+ businessMediator.getCharacterMedianScore(characterName) + " points.\n"
+				+ "Enter player name";
+
 		//Create a text input dialog
 		TextInputDialog nameDialog = new TextInputDialog("FOO");
 		nameDialog.setTitle("Name");
-		nameDialog.setHeaderText("Enter player name");
+		nameDialog.setHeaderText(summary);
 		nameDialog.setContentText("Please enter your name");
 
 		//Get the result of opening the dialog
@@ -550,6 +605,7 @@ public class GameGuiController implements Initializable, GameListener {
 		//If character name is non-null, set the character for the new game
 		if (characterName != null) {
 			businessMediator.notifyCharacterSelected(characterName);
+			this.characterName = characterName;
 		} else {
 			//Else, close the application
 			Platform.exit();
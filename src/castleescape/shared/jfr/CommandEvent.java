@@ -0,0 +1,38 @@
+package castleescape.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the processing of a single command, from the
+ * moment the game receives it until the listener has been notified.
+ */
+@Name("castleescape.Command")
+@Label("Command")
+@Category({"CastleEscape", "Game"})
+@Description("Processing of a player command")
+@Threshold("1 ms")
+public class CommandEvent extends Event {
+
+	/**
+	 * The name of the level being played.
+	 */
+	@Label("Level")
+	public String level;
+
+	/**
+	 * The command word of the command.
+	 */
+	@Label("Command Word")
+	public String commandWord;
+
+	/**
+	 * The parameters of the command.
+	 */
+	@Label("Parameters")
+	public String parameters;
+}
@@ -0,0 +1,32 @@
+package castleescape.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the execution of a single game event, such
+ * as adding an exit or teleporting the player.
+ */
+@Name("castleescape.GameEvent")
+@Label("Game Event")
+@Category({"CastleEscape", "Game"})
+@Description("Execution of an event triggered by a command")
+@Threshold("1 ms")
+public class GameEventEvent extends Event {
+
+	/**
+	 * The event word of the event.
+	 */
+	@Label("Event Word")
+	public String eventWord;
+
+	/**
+	 * The parameters of the event.
+	 */
+	@Label("Parameters")
+	public String parameters;
+}
@@ -0,0 +1,32 @@
+package castleescape.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the reading of a level from the file
+ * system.
+ */
+@Name("castleescape.LevelLoad")
+@Label("Level Load")
+@Category({"CastleEscape", "Data"})
+@Description("Reading of all files of a level")
+@Threshold("10 ms")
+public class LevelLoadEvent extends Event {
+
+	/**
+	 * The name of the level.
+	 */
+	@Label("Level")
+	public String level;
+
+	/**
+	 * The amount of rooms in the level.
+	 */
+	@Label("Rooms")
+	public int roomCount;
+}
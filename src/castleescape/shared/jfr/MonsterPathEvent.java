@@ -0,0 +1,44 @@
+package castleescape.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the monster recomputing its path to the
+ * player, either because it started hunting or because the player moved.
+ */
+@Name("castleescape.MonsterPath")
+@Label("Monster Path")
+@Category({"CastleEscape", "Monster"})
+@Description("Recomputation of the path from the monster to the player")
+@Threshold("1 ms")
+public class MonsterPathEvent extends Event {
+
+	/**
+	 * The reason that the path was recomputed.
+	 */
+	@Label("Reason")
+	public String reason;
+
+	/**
+	 * The room that the monster is in.
+	 */
+	@Label("From Room")
+	public String fromRoom;
+
+	/**
+	 * The room that the player is in.
+	 */
+	@Label("To Room")
+	public String toRoom;
+
+	/**
+	 * The amount of rooms on the path, including both ends.
+	 */
+	@Label("Path Length")
+	public int pathLength;
+}
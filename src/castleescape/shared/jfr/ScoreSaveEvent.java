@@ -0,0 +1,38 @@
+package castleescape.shared.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event spanning the writing of a batch of scores to the file
+ * system.
+ */
+@Name("castleescape.ScoreSave")
+@Label("Score Save")
+@Category({"CastleEscape", "Data"})
+@Description("Appending of a batch of scores to the score file of a level")
+@Threshold("1 ms")
+public class ScoreSaveEvent extends Event {
+
+	/**
+	 * The name of the score file.
+	 */
+	@Label("Score File")
+	public String level;
+
+	/**
+	 * The last score of the batch.
+	 */
+	@Label("Score")
+	public int score;
+
+	/**
+	 * The number of scores in the batch.
+	 */
+	@Label("Count")
+	public int count;
+}